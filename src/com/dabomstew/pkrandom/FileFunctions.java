@@ -28,6 +28,9 @@ import java.io.*;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -77,6 +80,16 @@ public class FileFunctions {
         return buf;
     }
 
+    /**
+     * Maps a whole file read-only. The mapping stays valid after this returns and can be read by
+     * any number of threads at once, as long as they use absolute gets or their own duplicate().
+     */
+    public static ByteBuffer mapFileReadOnly(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
     public static byte[] readFullyIntoBuffer(InputStream in, int bytes) throws IOException {
         byte[] buf = new byte[bytes];
         readFully(in, buf, 0, bytes);
@@ -114,9 +127,53 @@ public class FileFunctions {
         return buf;
     }
 
+    // Receives the data blocks of a patch as it is applied
+    public interface PatchWriter {
+        void write(int offset, byte[] data, int dataOffset, int length);
+    }
+
+    // Read access to an image that a patch is created from, which doesn't have to be one array
+    public interface ByteSource {
+        int length();
+
+        byte get(int offset);
+
+        void get(int offset, byte[] dst, int dstOffset, int length);
+    }
+
+    public static ByteSource byteSource(byte[] data) {
+        return new ByteSource() {
+            @Override
+            public int length() {
+                return data.length;
+            }
+
+            @Override
+            public byte get(int offset) {
+                return data[offset];
+            }
+
+            @Override
+            public void get(int offset, byte[] dst, int dstOffset, int length) {
+                System.arraycopy(data, offset, dst, dstOffset, length);
+            }
+        };
+    }
+
     public static void applyPatch(byte[] rom, String patchName) throws IOException {
-        byte[] patch = getCodeTweakFile(patchName + ".ips");
+        applyIPSPatch(rom, getCodeTweakFile(patchName + ".ips"));
+    }
+
+    public static void applyPatch(int romLength, String patchName, PatchWriter writer) throws IOException {
+        applyIPSPatch(romLength, getCodeTweakFile(patchName + ".ips"), writer);
+    }
+
+    public static void applyIPSPatch(byte[] rom, byte[] patch) throws IOException {
+        applyIPSPatch(rom.length, patch,
+                (offset, data, dataOffset, length) -> System.arraycopy(data, dataOffset, rom, offset, length));
+    }
 
+    public static void applyIPSPatch(int romLength, byte[] patch, PatchWriter writer) throws IOException {
         // check sig
         int patchlen = patch.length;
         if (patchlen < 8 || patch[0] != 'P' || patch[1] != 'A' || patch[2] != 'T' || patch[3] != 'C' || patch[4] != 'H') {
@@ -145,7 +202,7 @@ public class FileFunctions {
                     throw new IOException("abrupt ending to IPS file, entry cut off before RLE size");
                 }
                 int rleSize = readIPSSize(patch, offset);
-                if (writeOffset + rleSize > rom.length) {
+                if (writeOffset + rleSize > romLength) {
                     // error
                     throw new IOException("trying to patch data past the end of the ROM file");
                 }
@@ -154,26 +211,349 @@ public class FileFunctions {
                     // error
                     throw new IOException("abrupt ending to IPS file, entry cut off before RLE byte");
                 }
-                byte rleByte = patch[offset++];
-                for (int i = writeOffset; i < writeOffset + rleSize; i++) {
-                    rom[i] = rleByte;
-                }
+                byte[] rleBytes = new byte[rleSize];
+                Arrays.fill(rleBytes, patch[offset++]);
+                writer.write(writeOffset, rleBytes, 0, rleSize);
             } else {
                 if (offset + size > patchlen) {
                     // error
                     throw new IOException("abrupt ending to IPS file, entry cut off before end of data block");
                 }
-                if (writeOffset + size > rom.length) {
+                if (writeOffset + size > romLength) {
                     // error
                     throw new IOException("trying to patch data past the end of the ROM file");
                 }
-                System.arraycopy(patch, offset, rom, writeOffset, size);
+                writer.write(writeOffset, patch, offset, size);
                 offset += size;
             }
         }
         throw new IOException("improperly terminated IPS file");
     }
 
+    // IPS offsets are 24-bit, and a record can't start at "EOF" since that marks the end of the patch
+    public static final int ipsMaxSize = 0x1000000;
+    private static final int ipsEOF = 0x454f46;
+    private static final int ipsMaxRecordSize = 0xFFFF;
+    // an unchanged gap shorter than a record header is cheaper to copy than to skip
+    private static final int ipsRecordHeaderSize = 5;
+    private static final int ipsMinRLESize = 9;
+
+    /**
+     * Creates an IPS patch that turns original into modified. modified may be longer than original,
+     * but every difference has to lie below ipsMaxSize; use createBPSPatch beyond that.
+     */
+    public static byte[] createIPSPatch(byte[] original, byte[] modified) {
+        return createIPSPatch(ByteBuffer.wrap(original), byteSource(modified), new int[] { 0, modified.length });
+    }
+
+    /**
+     * As createIPSPatch(original, modified), but only compares the given ranges: sorted, disjoint
+     * [start, end) pairs outside of which modified is known to equal original.
+     */
+    public static byte[] createIPSPatch(ByteBuffer original, ByteSource modified, int[] ranges) {
+        if (modified.length() < original.limit()) {
+            throw new IllegalArgumentException("IPS patches can't shrink a file");
+        }
+        ByteArrayOutputStream patch = new ByteArrayOutputStream();
+        patch.write('P');
+        patch.write('A');
+        patch.write('T');
+        patch.write('C');
+        patch.write('H');
+
+        int[] differences = differences(original, modified, ranges);
+        for (int i = 0; i < differences.length; ) {
+            int start = differences[i], end = differences[i + 1];
+            i += 2;
+            while (i < differences.length && differences[i] - end < ipsRecordHeaderSize) {
+                end = differences[i + 1];
+                i += 2;
+            }
+            writeIPSRecords(patch, modified, start, end);
+        }
+
+        patch.write((ipsEOF >> 16) & 0xFF);
+        patch.write((ipsEOF >> 8) & 0xFF);
+        patch.write(ipsEOF & 0xFF);
+        return patch.toByteArray();
+    }
+
+    private static void writeIPSRecords(ByteArrayOutputStream patch, ByteSource modified, int start, int end) {
+        if (start == ipsEOF) {
+            // take the (unchanged) byte before along so the record doesn't look like the end marker
+            start--;
+        }
+        if (end > ipsMaxSize) {
+            throw new IllegalArgumentException("IPS patches can't address offsets beyond 16 MB");
+        }
+        int offset = start;
+        while (offset < end) {
+            int runEnd = offset + 1;
+            while (runEnd < end && modified.get(runEnd) == modified.get(offset) && runEnd - offset < ipsMaxRecordSize) {
+                runEnd++;
+            }
+            if (runEnd - offset >= ipsMinRLESize && offset != ipsEOF) {
+                if (runEnd == ipsEOF && runEnd < end) {
+                    runEnd--;
+                }
+                writeIPSRecordHeader(patch, offset, 0);
+                patch.write(((runEnd - offset) >> 8) & 0xFF);
+                patch.write((runEnd - offset) & 0xFF);
+                patch.write(modified.get(offset));
+                offset = runEnd;
+                continue;
+            }
+            // literal record up to the next worthwhile run
+            int literalEnd = offset + 1;
+            while (literalEnd < end && literalEnd - offset < ipsMaxRecordSize) {
+                int run = 1;
+                while (literalEnd + run < end && modified.get(literalEnd + run) == modified.get(literalEnd)
+                        && run < ipsMinRLESize) {
+                    run++;
+                }
+                if (run >= ipsMinRLESize && literalEnd != ipsEOF) {
+                    break;
+                }
+                literalEnd++;
+            }
+            if (literalEnd < end && literalEnd == ipsEOF) {
+                // don't let the next record start on the end marker either
+                literalEnd += literalEnd - offset < ipsMaxRecordSize ? 1 : -1;
+            }
+            writeIPSRecordHeader(patch, offset, literalEnd - offset);
+            writeBytes(patch, modified, offset, literalEnd - offset);
+            offset = literalEnd;
+        }
+    }
+
+    private static void writeIPSRecordHeader(ByteArrayOutputStream patch, int offset, int size) {
+        patch.write((offset >> 16) & 0xFF);
+        patch.write((offset >> 8) & 0xFF);
+        patch.write(offset & 0xFF);
+        patch.write((size >> 8) & 0xFF);
+        patch.write(size & 0xFF);
+    }
+
+    // The [start, end) spans within ranges where modified differs from original, flattened into pairs.
+    // Anything past the end of original counts as different.
+    private static int[] differences(ByteBuffer original, ByteSource modified, int[] ranges) {
+        int[] spans = new int[16];
+        int count = 0;
+        for (int r = 0; r < ranges.length; r += 2) {
+            int offset = ranges[r], rangeEnd = Math.min(ranges[r + 1], modified.length());
+            while ((offset = nextDifference(original, modified, offset, rangeEnd)) < rangeEnd) {
+                int end = nextSame(original, modified, offset, rangeEnd);
+                if (count == spans.length) {
+                    spans = Arrays.copyOf(spans, count * 2);
+                }
+                if (count > 0 && spans[count - 1] == offset) {
+                    // continues across the boundary between two ranges
+                    spans[count - 1] = end;
+                } else {
+                    spans[count++] = offset;
+                    spans[count++] = end;
+                }
+                offset = end;
+            }
+        }
+        return Arrays.copyOf(spans, count);
+    }
+
+    private static int nextDifference(ByteBuffer original, ByteSource modified, int offset, int end) {
+        int originalLength = original.limit();
+        while (offset < end && offset < originalLength && original.get(offset) == modified.get(offset)) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static int nextSame(ByteBuffer original, ByteSource modified, int offset, int end) {
+        int originalLength = original.limit();
+        while (offset < end && (offset >= originalLength || original.get(offset) != modified.get(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static final int bpsSourceRead = 0;
+    private static final int bpsTargetRead = 1;
+
+    /**
+     * Creates a BPS patch that turns source into target. Unlike IPS, BPS has no size limit, so this
+     * works for any image; it only uses SourceRead and TargetRead actions.
+     */
+    public static byte[] createBPSPatch(byte[] source, byte[] target) {
+        return createBPSPatch(ByteBuffer.wrap(source), byteSource(target), new int[] { 0, target.length });
+    }
+
+    // ranges works as for createIPSPatch
+    public static byte[] createBPSPatch(ByteBuffer source, ByteSource target, int[] ranges) {
+        ByteArrayOutputStream patch = new ByteArrayOutputStream();
+        patch.write('B');
+        patch.write('P');
+        patch.write('S');
+        patch.write('1');
+        writeBPSNumber(patch, source.limit());
+        writeBPSNumber(patch, target.length());
+        writeBPSNumber(patch, 0); // no metadata
+
+        int[] differences = differences(source, target, ranges);
+        int offset = 0;
+        for (int i = 0; i < differences.length; i += 2) {
+            int start = differences[i], end = differences[i + 1];
+            if (start > offset) {
+                writeBPSNumber(patch, ((long) (start - offset - 1) << 2) | bpsSourceRead);
+            }
+            writeBPSNumber(patch, ((long) (end - start - 1) << 2) | bpsTargetRead);
+            writeBytes(patch, target, start, end - start);
+            offset = end;
+        }
+        if (offset < target.length()) {
+            writeBPSNumber(patch, ((long) (target.length() - offset - 1) << 2) | bpsSourceRead);
+        }
+
+        writeFullInt(patch, crc32(source));
+        writeFullInt(patch, crc32(target));
+        byte[] body = patch.toByteArray();
+        writeFullInt(patch, crc32(body, body.length));
+        return patch.toByteArray();
+    }
+
+    public static byte[] applyBPSPatch(byte[] source, byte[] patch) throws IOException {
+        if (patch.length < 16 || patch[0] != 'B' || patch[1] != 'P' || patch[2] != 'S' || patch[3] != '1') {
+            throw new IOException("not a valid BPS file");
+        }
+        int footer = patch.length - 12;
+        if (crc32(patch, patch.length - 4) != readFullInt(patch, patch.length - 4)) {
+            throw new IOException("BPS patch checksum mismatch");
+        }
+        if (crc32(source, source.length) != readFullInt(patch, footer)) {
+            throw new IOException("BPS patch doesn't apply to this file");
+        }
+
+        int[] offset = new int[] { 4 };
+        long sourceSize = readBPSNumber(patch, offset, footer);
+        long targetSize = readBPSNumber(patch, offset, footer);
+        long metadataSize = readBPSNumber(patch, offset, footer);
+        if (sourceSize != source.length || targetSize > Integer.MAX_VALUE) {
+            throw new IOException("BPS patch doesn't apply to this file");
+        }
+        offset[0] += (int) metadataSize;
+
+        byte[] target = new byte[(int) targetSize];
+        int outputOffset = 0, sourceRelative = 0, targetRelative = 0;
+        while (offset[0] < footer) {
+            long data = readBPSNumber(patch, offset, footer);
+            int command = (int) (data & 3);
+            int length = (int) (data >> 2) + 1;
+            if (outputOffset + length > target.length) {
+                throw new IOException("trying to patch data past the end of the target file");
+            }
+            switch (command) {
+                case 0: // SourceRead
+                    System.arraycopy(source, outputOffset, target, outputOffset, length);
+                    break;
+                case 1: // TargetRead
+                    if (offset[0] + length > footer) {
+                        throw new IOException("abrupt ending to BPS file, entry cut off before end of data block");
+                    }
+                    System.arraycopy(patch, offset[0], target, outputOffset, length);
+                    offset[0] += length;
+                    break;
+                default: // SourceCopy, TargetCopy
+                    long relative = readBPSNumber(patch, offset, footer);
+                    int delta = (int) (relative >> 1) * ((relative & 1) != 0 ? -1 : 1);
+                    if (command == 2) {
+                        sourceRelative += delta;
+                        System.arraycopy(source, sourceRelative, target, outputOffset, length);
+                        sourceRelative += length;
+                    } else {
+                        targetRelative += delta;
+                        // may overlap the output on purpose, so copy byte by byte
+                        for (int i = 0; i < length; i++) {
+                            target[outputOffset + i] = target[targetRelative++];
+                        }
+                    }
+                    break;
+            }
+            outputOffset += length;
+        }
+        if (outputOffset != target.length || crc32(target, target.length) != readFullInt(patch, footer + 4)) {
+            throw new IOException("BPS patch produced the wrong file");
+        }
+        return target;
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, ByteSource data, int offset, int length) {
+        byte[] buffer = new byte[length];
+        data.get(offset, buffer, 0, length);
+        out.write(buffer, 0, length);
+    }
+
+    private static void writeBPSNumber(ByteArrayOutputStream out, long data) {
+        while (true) {
+            int x = (int) (data & 0x7f);
+            data >>= 7;
+            if (data == 0) {
+                out.write(0x80 | x);
+                break;
+            }
+            out.write(x);
+            data--;
+        }
+    }
+
+    private static long readBPSNumber(byte[] data, int[] offset, int limit) throws IOException {
+        long value = 0, shift = 1;
+        while (true) {
+            if (offset[0] >= limit) {
+                throw new IOException("abrupt ending to BPS file");
+            }
+            int x = data[offset[0]++] & 0xFF;
+            value += (x & 0x7f) * shift;
+            if ((x & 0x80) != 0) {
+                return value;
+            }
+            shift <<= 7;
+            value += shift;
+        }
+    }
+
+    private static void writeFullInt(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xFF);
+        out.write((value >> 8) & 0xFF);
+        out.write((value >> 16) & 0xFF);
+        out.write((value >> 24) & 0xFF);
+    }
+
+    private static int readFullInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8) | ((data[offset + 2] & 0xFF) << 16)
+                | ((data[offset + 3] & 0xFF) << 24);
+    }
+
+    private static int crc32(ByteBuffer data) {
+        CRC32 checksum = new CRC32();
+        checksum.update(data.duplicate());
+        return (int) checksum.getValue();
+    }
+
+    private static int crc32(ByteSource data) {
+        CRC32 checksum = new CRC32();
+        byte[] buffer = new byte[0x10000];
+        for (int offset = 0; offset < data.length(); offset += buffer.length) {
+            int length = Math.min(buffer.length, data.length() - offset);
+            data.get(offset, buffer, 0, length);
+            checksum.update(buffer, 0, length);
+        }
+        return (int) checksum.getValue();
+    }
+
+    private static int crc32(byte[] data, int length) {
+        CRC32 checksum = new CRC32();
+        checksum.update(data, 0, length);
+        return (int) checksum.getValue();
+    }
+
     private static int readIPSOffset(byte[] data, int offset) {
         return ((data[offset] & 0xFF) << 16) | ((data[offset + 1] & 0xFF) << 8) | (data[offset + 2] & 0xFF);
     }
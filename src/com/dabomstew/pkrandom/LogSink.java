@@ -0,0 +1,96 @@
+package com.dabomstew.pkrandom;
+
+/*----------------------------------------------------------------------------*/
+/*--  LogSink.java - where the spoiler log of a randomization goes, if      --*/
+/*--                 anywhere.                                              --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.io.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The spoiler log of one randomization. Text is streamed out as it is written rather than
+ * collected in memory. The disabled sink drops everything, and callers check isEnabled before
+ * building anything expensive to log, so turning the log off costs nothing.
+ */
+public class LogSink implements Closeable {
+
+    private static final LogSink disabled = new LogSink(null);
+    private static final int bufferSize = 0x10000;
+
+    private final PrintStream out;
+
+    private LogSink(PrintStream out) {
+        this.out = out;
+    }
+
+    public static LogSink disabled() {
+        return disabled;
+    }
+
+    public static LogSink of(PrintStream out) {
+        return new LogSink(out);
+    }
+
+    public static LogSink toFile(String filename, boolean gzip) throws IOException {
+        OutputStream file = new FileOutputStream(filename);
+        OutputStream stream = gzip ? new GZIPOutputStream(file, bufferSize) : new BufferedOutputStream(file, bufferSize);
+        return new LogSink(new PrintStream(stream, false, "UTF-8"));
+    }
+
+    // The log that goes with a randomized ROM saved as romFilename
+    public static LogSink forRom(String romFilename, boolean gzip) throws IOException {
+        return toFile(romFilename + (gzip ? ".log.gz" : ".log"), gzip);
+    }
+
+    public boolean isEnabled() {
+        return out != null;
+    }
+
+    public void print(String text) {
+        if (out != null) {
+            out.print(text);
+        }
+    }
+
+    public void println(String text) {
+        if (out != null) {
+            out.println(text);
+        }
+    }
+
+    public void println() {
+        if (out != null) {
+            out.println();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            if (out.checkError()) {
+                throw new IOException("Couldn't write the spoiler log");
+            }
+        }
+    }
+}
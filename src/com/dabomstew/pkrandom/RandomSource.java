@@ -29,19 +29,36 @@ package com.dabomstew.pkrandom;
 import java.security.SecureRandom;
 import java.util.Random;
 
+// Per-job source of randomness. Every randomization owns one of these, so several
+// randomizations can run in the same process without touching each other's seed stream.
 public class RandomSource {
 
-    private static Random source = new Random();
-    private static Random cosmeticSource = new Random();
-    private static Random instance = new RandomSourceInstance();
+    private final CountingRandom random = new CountingRandom();
+    private final CountingRandom cosmeticRandom = new CountingRandom();
 
-    public static void seed(long seed) {
-        source.setSeed(seed);
-        cosmeticSource.setSeed(seed);
+    public RandomSource() {
     }
 
-    public static int nextInt(int size) {
-        return source.nextInt(size);
+    public RandomSource(long seed) {
+        seed(seed);
+    }
+
+    public void seed(long seed) {
+        random.setSeed(seed);
+        cosmeticRandom.setSeed(seed);
+    }
+
+    public Random random() {
+        return random;
+    }
+
+    public Random cosmeticRandom() {
+        return cosmeticRandom;
+    }
+
+    // How many times either generator has been drawn from since this source was created
+    public long draws() {
+        return random.draws + cosmeticRandom.draws;
     }
 
     public static long pickSeed() {
@@ -53,27 +70,17 @@ public class RandomSource {
         return value;
     }
 
-    public static Random instance() {
-        return instance;
-    }
-
-    private static class RandomSourceInstance extends Random {
-
-        /**
-         * 
-         */
+    // Every nextInt, nextDouble, shuffle and so on goes through next(bits), so counting there counts
+    // draws without changing the sequence
+    private static class CountingRandom extends Random {
         private static final long serialVersionUID = -4876737183441746322L;
 
-        @Override
-        public synchronized void setSeed(long seed) {
-            RandomSource.seed(seed);
-        }
-
+        private long draws;
 
         @Override
-        public int nextInt(int n) {
-            return RandomSource.nextInt(n);
+        protected int next(int bits) {
+            draws++;
+            return super.next(bits);
         }
-
     }
 }
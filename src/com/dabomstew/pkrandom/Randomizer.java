@@ -27,8 +27,11 @@ package com.dabomstew.pkrandom;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.*;
 
+import com.dabomstew.pkrandom.StageListener.Stage;
 import com.dabomstew.pkrandom.pokemon.*;
 import com.dabomstew.pkrandom.romhandlers.Gen1RomHandler;
 import com.dabomstew.pkrandom.romhandlers.RomHandler;
@@ -38,27 +41,67 @@ public class Randomizer {
 
     private final Settings settings;
     private final RomHandler romHandler;
-
-    public Randomizer(Settings settings, RomHandler romHandler) {
+    private final RandomSource randomSource;
+    private boolean saveAsPatch;
+    private StructuredLog structuredLog = StructuredLog.disabled();
+    private StageListener stageListener;
+
+    // where the stage in progress started, and what each stage has added up to so far in this
+    // randomization, when there is a listener to tell
+    private long stageStartNanos, stageStartAllocatedBytes, stageStartDraws;
+    private long[][] stageTotals;
+
+    // randomSource must be the one romHandler was created with
+    public Randomizer(Settings settings, RomHandler romHandler, RandomSource randomSource) {
         this.settings = settings;
         this.romHandler = romHandler;
+        this.randomSource = randomSource;
+    }
+
+    // Save an IPS/BPS patch against the loaded ROM instead of the whole randomized image
+    public void setSaveAsPatch(boolean saveAsPatch) {
+        this.saveAsPatch = saveAsPatch;
+    }
+
+    // Also record every starter, trainer, encounter and static change as JSON lines
+    public void setStructuredLog(StructuredLog structuredLog) {
+        this.structuredLog = structuredLog;
+    }
+
+    // Report the time, allocation and random draws of every stage of randomize; null for none
+    public void setStageListener(StageListener stageListener) {
+        this.stageListener = stageListener;
     }
 
     public int randomize(final String filename, final PrintStream log) {
+        return randomize(filename, LogSink.of(log));
+    }
+
+    public int randomize(final String filename, final PrintStream log, long seed) {
+        return randomize(filename, LogSink.of(log), seed);
+    }
+
+    public int randomize(final String filename, final LogSink log) {
         long seed = RandomSource.pickSeed();
         // long seed = 123456789;    // TESTING
         return randomize(filename, log, seed);
     }
 
-    public int randomize(final String filename, final PrintStream log, long seed) {
-        RandomSource.seed(seed);
+    public int randomize(final String filename, final LogSink log, long seed) {
+        randomSource.seed(seed);
+        startStage();
 
         int checkValue = 0;
 
-        log.println("Randomizer Version: EXTERMINATE");
-        log.println("Random Seed: " + seed);
-        log.println("Settings String: " + "Version.VERSION" + settings.toString());
-        log.println();
+        if (log.isEnabled()) {
+            log.println("Randomizer Version: EXTERMINATE");
+            log.println("Random Seed: " + seed);
+            log.println("Settings String: " + "Version.VERSION" + settings.toString());
+            log.println();
+        }
+        if (structuredLog.isEnabled()) {
+            structuredLog.seed(seed);
+        }
 
         // All possible changes that can be logged
         boolean staticsChanged = false;
@@ -68,6 +111,7 @@ public class Randomizer {
         // 2. If limited, remove evolutions that are outside of the pool
 
         romHandler.setPokemonPool(settings);
+        finishStage(Stage.POKEMON_POOL);
 
         // Move updates & data changes
         // 1. Update moves to a future generation
@@ -84,6 +128,7 @@ public class Randomizer {
                         pkmn.spdef, pkmn.ability1, pkmn.ability2, pkmn.ability3);
             }
         }
+        finishStage(Stage.MISC_TWEAKS);
 
         // Trade evolutions removal
         if (settings.isChangeImpossibleEvolutions()) {
@@ -100,16 +145,34 @@ public class Randomizer {
         if (settings.isRemoveTimeBasedEvolutions()) {
             romHandler.removeTimeBasedEvolutions();
         }
+        finishStage(Stage.EVOLUTIONS);
 
         // Starter Pokemon
         // Applied after type to update the strings correctly based on new types
         switch(settings.getStartersMod()) {
             case RANDOM_WITH_TWO_EVOLUTIONS:
+                int[] oldStarters = structuredLog.isEnabled() ? speciesOf(romHandler.getStarters()) : null;
                 romHandler.randomizeBasicTwoEvosStarters(settings);
+                if (structuredLog.isEnabled()) {
+                    int[] newStarters = speciesOf(romHandler.getStarters());
+                    for (int i = 0; i < newStarters.length; i++) {
+                        structuredLog.starter(i, i < oldStarters.length ? oldStarters[i] : 0, newStarters[i]);
+                    }
+                }
                 break;
             default:
                 break;
         }
+        finishStage(Stage.STARTERS);
+
+        int[][] oldTrainerPokes = null;
+        if (structuredLog.isEnabled() && settings.getTrainersMod() != Settings.TrainersMod.UNCHANGED) {
+            List<Trainer> oldTrainers = romHandler.getTrainers();
+            oldTrainerPokes = new int[oldTrainers.size()][];
+            for (int i = 0; i < oldTrainers.size(); i++) {
+                oldTrainerPokes[i] = trainerSpecies(oldTrainers.get(i));
+            }
+        }
 
         switch(settings.getTrainersMod()) {
             case RANDOM:
@@ -122,11 +185,13 @@ public class Randomizer {
             default:
                 break;
         }
+        finishStage(Stage.TRAINERS);
 
         if (settings.getTrainersMod() != Settings.TrainersMod.UNCHANGED
                 && settings.isRivalCarriesStarterThroughout()) {
             romHandler.rivalCarriesStarter();
         }
+        finishStage(Stage.RIVAL);
 
         List<Trainer> trainers = romHandler.getTrainers();
         for (Trainer t : trainers) {
@@ -134,6 +199,19 @@ public class Randomizer {
                 checkValue = addToCV(checkValue, tpk.level, tpk.pokemon.number);
             }
         }
+        if (oldTrainerPokes != null) {
+            for (int i = 0; i < trainers.size(); i++) {
+                Trainer t = trainers.get(i);
+                int[] oldPokes = i < oldTrainerPokes.length ? oldTrainerPokes[i] : new int[0];
+                for (int j = 0; j < t.pokemon.size(); j++) {
+                    TrainerPokemon tpk = t.pokemon.get(j);
+                    structuredLog.trainerPokemon(t.index, t.tag, j, j < oldPokes.length ? oldPokes[j] : 0,
+                            tpk.pokemon.number, tpk.level);
+                }
+            }
+        }
+        // checking and logging the new trainers is trainer work
+        finishStage(Stage.TRAINERS);
 
         // Static Pokemon
         if (romHandler.canChangeStaticPokemon()) {
@@ -145,6 +223,25 @@ public class Randomizer {
 
             if (staticsChanged) {
                 checkValue = logStaticPokemon(log, checkValue, oldStatics);
+                if (structuredLog.isEnabled()) {
+                    List<StaticEncounter> newStatics = romHandler.getStaticPokemon();
+                    for (int i = 0; i < oldStatics.size(); i++) {
+                        StaticEncounter newP = newStatics.get(i);
+                        structuredLog.staticPokemon(i, oldStatics.get(i).pkmn.number, newP.pkmn.number, newP.level);
+                    }
+                }
+            }
+        }
+        finishStage(Stage.STATIC_POKEMON);
+
+        boolean useTimeBasedEncounters = settings.isUseTimeBasedEncounters() ||
+                (settings.getWildPokemonMod() == Settings.WildPokemonMod.UNCHANGED && settings.isWildLevelsModified());
+        int[][] oldEncounterPokes = null;
+        if (structuredLog.isEnabled() && settings.getWildPokemonMod() != Settings.WildPokemonMod.UNCHANGED) {
+            List<EncounterSet> oldEncounters = romHandler.getEncounters(useTimeBasedEncounters);
+            oldEncounterPokes = new int[oldEncounters.size()][];
+            for (int i = 0; i < oldEncounters.size(); i++) {
+                oldEncounterPokes[i] = encounterSpecies(oldEncounters.get(i));
             }
         }
 
@@ -159,14 +256,23 @@ public class Randomizer {
                 break;
         }
 
-        boolean useTimeBasedEncounters = settings.isUseTimeBasedEncounters() ||
-                (settings.getWildPokemonMod() == Settings.WildPokemonMod.UNCHANGED && settings.isWildLevelsModified());
         List<EncounterSet> encounters = romHandler.getEncounters(useTimeBasedEncounters);
         for (EncounterSet es : encounters) {
             for (Encounter e : es.encounters) {
                 checkValue = addToCV(checkValue, e.level, e.pokemon.number);
             }
         }
+        if (oldEncounterPokes != null) {
+            for (int i = 0; i < encounters.size(); i++) {
+                List<Encounter> slots = encounters.get(i).encounters;
+                int[] oldPokes = i < oldEncounterPokes.length ? oldEncounterPokes[i] : new int[0];
+                for (int j = 0; j < slots.size(); j++) {
+                    Encounter e = slots.get(j);
+                    structuredLog.encounter(i, j, j < oldPokes.length ? oldPokes[j] : 0, e.pokemon.number, e.level);
+                }
+            }
+        }
+        finishStage(Stage.WILD_POKEMON);
 
         // Test output for placement history
         // romHandler.renderPlacementHistory();
@@ -176,15 +282,74 @@ public class Randomizer {
 
         // Record check value?
         romHandler.writeCheckValueToROM(checkValue);
+        finishStage(Stage.INTRO_POKEMON);
 
         // Save
-        romHandler.saveRomFile(filename, seed);
+        if (saveAsPatch) {
+            romHandler.saveRomPatch(filename, seed);
+        } else {
+            romHandler.saveRomFile(filename, seed);
+        }
+        finishStage(Stage.SAVE);
+        reportStages();
         return checkValue;
     }
 
-    private int logStaticPokemon(final PrintStream log, int checkValue, List<StaticEncounter> oldStatics) {
+    private void startStage() {
+        if (stageListener == null) {
+            return;
+        }
+        stageTotals = new long[Stage.values().length][3];
+        stageStartNanos = System.nanoTime();
+        stageStartAllocatedBytes = allocatedBytes();
+        stageStartDraws = randomSource.draws();
+    }
+
+    // Adds everything since the last stage finished to stage; the next stage starts right away
+    private void finishStage(Stage stage) {
+        if (stageListener == null) {
+            return;
+        }
+        long nanos = System.nanoTime(), allocatedBytes = allocatedBytes(), draws = randomSource.draws();
+        long[] totals = stageTotals[stage.ordinal()];
+        totals[0] += nanos - stageStartNanos;
+        totals[1] = allocatedBytes < 0 || stageStartAllocatedBytes < 0 ? -1
+                : totals[1] + allocatedBytes - stageStartAllocatedBytes;
+        totals[2] += draws - stageStartDraws;
+        stageStartNanos = nanos;
+        stageStartAllocatedBytes = allocatedBytes;
+        stageStartDraws = draws;
+    }
+
+    private void reportStages() {
+        if (stageListener == null) {
+            return;
+        }
+        for (Stage stage : Stage.values()) {
+            long[] totals = stageTotals[stage.ordinal()];
+            stageListener.stageFinished(stage, totals[0], totals[1], totals[2]);
+        }
+    }
+
+    // Bytes allocated so far by the calling thread, or -1 if the JVM can't measure it
+    public static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private int logStaticPokemon(final LogSink log, int checkValue, List<StaticEncounter> oldStatics) {
 
         List<StaticEncounter> newStatics = romHandler.getStaticPokemon();
+        if (!log.isEnabled()) {
+            // the check value still has to cover every static
+            for (StaticEncounter newP : newStatics.subList(0, oldStatics.size())) {
+                checkValue = addToCV(checkValue, newP.pkmn.number);
+            }
+            return checkValue;
+        }
 
         log.println("--Static Pokemon--");
         Map<String, Integer> seenPokemon = new TreeMap<>();
@@ -207,7 +372,30 @@ public class Randomizer {
         return checkValue;
     }
 
-    
+    private static int[] speciesOf(List<Pokemon> pokemon) {
+        int[] species = new int[pokemon.size()];
+        for (int i = 0; i < species.length; i++) {
+            species[i] = pokemon.get(i).number;
+        }
+        return species;
+    }
+
+    private static int[] trainerSpecies(Trainer trainer) {
+        int[] species = new int[trainer.pokemon.size()];
+        for (int i = 0; i < species.length; i++) {
+            species[i] = trainer.pokemon.get(i).pokemon.number;
+        }
+        return species;
+    }
+
+    private static int[] encounterSpecies(EncounterSet encounterSet) {
+        int[] species = new int[encounterSet.encounters.size()];
+        for (int i = 0; i < species.length; i++) {
+            species[i] = encounterSet.encounters.get(i).pokemon.number;
+        }
+        return species;
+    }
+
     private static int addToCV(int checkValue, int... values) {
         for (int value : values) {
             checkValue = Integer.rotateLeft(checkValue, 3);
@@ -24,14 +24,30 @@ package com.dabomstew.pkrandom;
 /*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
 /*----------------------------------------------------------------------------*/
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
 
 import com.dabomstew.pkrandom.pokemon.MoveLearnt;
 
 public class RomFunctions {
 
+    // every byte of a long, and the high bit of every byte
+    private static final long lowBits = 0x0101010101010101L;
+    private static final long highBits = 0x8080808080808080L;
+
+    // ranges at least this long are searched in parallel, in chunks of at most searchChunkSize
+    private static final int parallelSearchThreshold = 0x400000;
+    private static final int searchChunkSize = 0x100000;
+
     /**
      * Get the 4 moves known by a Pokemon at a particular level.
      * 
@@ -76,68 +92,345 @@ public class RomFunctions {
         return curMoves;
     }
 
-    public static List<Integer> search(byte[] haystack, byte[] needle) {
+    public static int[] search(byte[] haystack, byte[] needle) {
         return search(haystack, 0, haystack.length, needle);
     }
 
-    public static List<Integer> search(byte[] haystack, int beginOffset, int endOffset, byte[] needle) {
-        int currentMatchStart = beginOffset;
-        int currentCharacterPosition = 0;
+    public static int[] search(byte[] haystack, int beginOffset, int endOffset, byte[] needle) {
+        return search(ByteBuffer.wrap(haystack), beginOffset, endOffset, needle);
+    }
+
+    /**
+     * The offsets of needle in [beginOffset, endOffset), left to right and without overlaps: after a
+     * match the search carries on from its end. Candidates are found by looking for one byte of the
+     * needle eight haystack bytes at a time, and only those are compared in full. Large ranges are
+     * split into chunks that are searched on the common fork-join pool. Only reads haystack with
+     * absolute gets, so it can be shared between threads.
+     */
+    public static int[] search(ByteBuffer haystack, int beginOffset, int endOffset, byte[] needle) {
+        return search(haystack, beginOffset, endOffset, SearchPattern.of(needle));
+    }
 
-        int needleSize = needle.length;
+    public static int[] search(ByteBuffer haystack, int beginOffset, int endOffset, SearchPattern pattern) {
+        if (endOffset - beginOffset < parallelSearchThreshold || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return search(haystack, beginOffset, endOffset, pattern, Integer.MAX_VALUE, false);
+        }
+        // each chunk finds every occurrence, overlapping or not, so that the ones straddling chunk
+        // boundaries are resolved the same way a single pass would
+        int[] occurrences = ForkJoinPool.commonPool().invoke(new ChunkedSearch<>(beginOffset, endOffset,
+                (from, to) -> search(haystack, from, Math.min(to + pattern.length() - 1, endOffset), pattern,
+                        Integer.MAX_VALUE, true),
+                RomFunctions::concat));
+        return nonOverlapping(occurrences, pattern.length(), beginOffset, endOffset);
+    }
 
-        int[] toFillTable = buildKMPSearchTable(needle);
-        List<Integer> results = new ArrayList<>();
+    // The first offset search would return, without looking any further; -1 if there is none
+    public static int searchFirst(ByteBuffer haystack, int beginOffset, int endOffset, SearchPattern pattern) {
+        int[] found = search(haystack, beginOffset, endOffset, pattern, 1, false);
+        return found.length == 0 ? -1 : found[0];
+    }
 
-        while ((currentMatchStart + currentCharacterPosition) < endOffset) {
+    public static int searchFirst(ByteBuffer haystack, int beginOffset, int endOffset, byte[] needle) {
+        return searchFirst(haystack, beginOffset, endOffset, SearchPattern.of(needle));
+    }
 
-            if (needle[currentCharacterPosition] == (haystack[currentCharacterPosition + currentMatchStart])) {
-                currentCharacterPosition = currentCharacterPosition + 1;
+    public static int searchFirst(byte[] haystack, byte[] needle) {
+        return searchFirst(ByteBuffer.wrap(haystack), 0, haystack.length, needle);
+    }
 
-                if (currentCharacterPosition == (needleSize)) {
-                    results.add(currentMatchStart);
-                    currentCharacterPosition = 0;
-                    currentMatchStart = currentMatchStart + needleSize;
+    // With overlapping, every occurrence is found rather than only those search returns
+    private static int[] search(ByteBuffer haystack, int beginOffset, int endOffset, SearchPattern pattern,
+                                int maxResults, boolean overlapping) {
+        byte[] needle = pattern.needle;
+        ByteBuffer source = haystack.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int anchor = pattern.anchor;
+        long anchorBroadcast = (needle[anchor] & 0xFFL) * lowBits;
+        int lastStart = endOffset - needle.length;
 
+        int[] results = new int[16];
+        int count = 0;
+        int start = beginOffset;
+        while (start <= lastStart && count < maxResults) {
+            int candidate = indexOf(source, anchorBroadcast, start + anchor, lastStart + anchor + 1) - anchor;
+            if (candidate < start) {
+                break;
+            }
+            if (matchesAt(source, candidate, needle)) {
+                if (count == results.length) {
+                    results = Arrays.copyOf(results, count * 2);
                 }
-
+                results[count++] = candidate;
+                start = overlapping ? candidate + 1 : candidate + needle.length;
             } else {
-                currentMatchStart = currentMatchStart + currentCharacterPosition
-                        - toFillTable[currentCharacterPosition];
+                start = candidate + 1;
+            }
+        }
+        return Arrays.copyOf(results, count);
+    }
+
+    private static int[] concat(int[] left, int[] right) {
+        int[] both = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, both, left.length, right.length);
+        return both;
+    }
+
+    // Searches [from, to) by halving it until the pieces are small enough to search on their own,
+    // then merges the results of the pieces in offset order
+    private static class ChunkedSearch<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final ChunkSearcher<T> searcher;
+        private final BinaryOperator<T> merge;
+
+        ChunkedSearch(int from, int to, ChunkSearcher<T> searcher, BinaryOperator<T> merge) {
+            this.from = from;
+            this.to = to;
+            this.searcher = searcher;
+            this.merge = merge;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= searchChunkSize) {
+                return searcher.search(from, to);
+            }
+            int middle = from + (to - from) / 2;
+            ChunkedSearch<T> left = new ChunkedSearch<>(from, middle, searcher, merge);
+            left.fork();
+            T right = new ChunkedSearch<>(middle, to, searcher, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+
+    // Finds whatever starts in [from, to); may read past to
+    private interface ChunkSearcher<T> {
+        T search(int from, int to);
+    }
+
+    // The first offset in [from, to) holding the byte repeated in broadcast, or -1
+    private static int indexOf(ByteBuffer source, long broadcast, int from, int to) {
+        int offset = from;
+        for (; offset + 8 <= to; offset += 8) {
+            // the bytes that equal the wanted one become zero, and the lowest zero byte is the
+            // lowest byte whose high bit survives; higher ones may be false alarms
+            long difference = source.getLong(offset) ^ broadcast;
+            long zeroes = (difference - lowBits) & ~difference & highBits;
+            if (zeroes != 0) {
+                return offset + (Long.numberOfTrailingZeros(zeroes) >>> 3);
+            }
+        }
+        byte wanted = (byte) broadcast;
+        for (; offset < to; offset++) {
+            if (source.get(offset) == wanted) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesAt(ByteBuffer source, int offset, byte[] needle) {
+        for (int i = 0; i < needle.length; i++) {
+            if (source.get(offset + i) != needle[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-                if (toFillTable[currentCharacterPosition] > -1) {
-                    currentCharacterPosition = toFillTable[currentCharacterPosition];
+    /**
+     * What search would find, given every occurrence of a needle in the haystack, overlapping or not,
+     * in ascending order: the leftmost matches that lie entirely inside [beginOffset, endOffset) and
+     * don't overlap each other.
+     */
+    public static int[] nonOverlapping(int[] occurrences, int needleLength, int beginOffset, int endOffset) {
+        int index = Arrays.binarySearch(occurrences, beginOffset);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        int[] results = new int[occurrences.length - index];
+        int count = 0;
+        int next = beginOffset;
+        for (; index < occurrences.length; index++) {
+            int offset = occurrences[index];
+            if (offset + needleLength > endOffset) {
+                break;
+            }
+            if (offset >= next) {
+                results[count++] = offset;
+                next = offset + needleLength;
+            }
+        }
+        return Arrays.copyOf(results, count);
+    }
+
+    // The first offset nonOverlapping would return; -1 if there is none
+    public static int firstOccurrence(int[] occurrences, int needleLength, int beginOffset, int endOffset) {
+        int index = Arrays.binarySearch(occurrences, beginOffset);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < occurrences.length && occurrences[index] + needleLength <= endOffset ? occurrences[index] : -1;
+    }
+
+    /**
+     * An Aho-Corasick automaton over a fixed set of needles, so that all of them can be looked for in
+     * a single pass over the haystack instead of one pass each. Immutable once built, so one instance
+     * can scan several haystacks at once.
+     */
+    public static class MultiPatternSearch {
+        private static final int chunkSize = 0x10000;
+
+        private final byte[][] needles;
+        // the state after reading each byte in each state: transitions[state << 8 | byte]
+        private final int[] transitions;
+        // the needles that end when this state is reached, or null if none do
+        private final int[][] matches;
+        private final int maxNeedleLength;
+
+        public MultiPatternSearch(List<byte[]> needles) {
+            this.needles = needles.toArray(new byte[0][]);
+            int maxStates = 1;
+            int longest = 1;
+            for (byte[] needle : this.needles) {
+                if (needle.length == 0) {
+                    throw new IllegalArgumentException("Can't search for an empty needle");
                 }
+                maxStates += needle.length;
+                longest = Math.max(longest, needle.length);
+            }
+            this.maxNeedleLength = longest;
+
+            // the trie of the needles; -1 for no edge
+            int[] trie = new int[maxStates << 8];
+            Arrays.fill(trie, -1);
+            List<List<Integer>> ending = new ArrayList<>();
+            ending.add(new ArrayList<>());
+            int states = 1;
+            for (int n = 0; n < this.needles.length; n++) {
+                int state = 0;
+                for (byte b : this.needles[n]) {
+                    int edge = (state << 8) | (b & 0xFF);
+                    if (trie[edge] < 0) {
+                        trie[edge] = states++;
+                        ending.add(new ArrayList<>());
+                    }
+                    state = trie[edge];
+                }
+                ending.get(state).add(n);
+            }
 
-                else {
-                    currentCharacterPosition = 0;
+            // turn it into a full automaton breadth-first: a missing edge goes where the longest proper
+            // suffix that is also a trie path would go, and a state also ends every needle its suffix ends
+            int[] fallback = new int[states];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int b = 0; b < 256; b++) {
+                if (trie[b] < 0) {
+                    trie[b] = 0;
+                } else {
+                    fallback[trie[b]] = 0;
+                    queue.add(trie[b]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int b = 0; b < 256; b++) {
+                    int edge = (state << 8) | b;
+                    int viaFallback = trie[(fallback[state] << 8) | b];
+                    if (trie[edge] < 0) {
+                        trie[edge] = viaFallback;
+                    } else {
+                        int child = trie[edge];
+                        fallback[child] = viaFallback;
+                        ending.get(child).addAll(ending.get(viaFallback));
+                        queue.add(child);
+                    }
+                }
+            }
 
+            this.transitions = Arrays.copyOf(trie, states << 8);
+            this.matches = new int[states][];
+            for (int state = 0; state < states; state++) {
+                List<Integer> ends = ending.get(state);
+                if (!ends.isEmpty()) {
+                    matches[state] = ends.stream().mapToInt(Integer::intValue).toArray();
                 }
+            }
+        }
+
+        public int needleCount() {
+            return needles.length;
+        }
+
+        public byte[] needle(int index) {
+            return needles[index].clone();
+        }
 
+        /**
+         * Every occurrence of every needle that lies entirely inside [beginOffset, endOffset), overlapping
+         * or not, in ascending order; one list per needle, in the order they were given.
+         */
+        public int[][] occurrences(ByteBuffer haystack, int beginOffset, int endOffset) {
+            if (endOffset - beginOffset < parallelSearchThreshold || ForkJoinPool.getCommonPoolParallelism() < 2) {
+                return scan(haystack, beginOffset, endOffset, endOffset);
             }
+            return ForkJoinPool.commonPool().invoke(new ChunkedSearch<>(beginOffset, endOffset,
+                    (from, to) -> scan(haystack, from, Math.min(to + maxNeedleLength - 1, endOffset), to),
+                    (left, right) -> {
+                        int[][] both = new int[needles.length][];
+                        for (int n = 0; n < needles.length; n++) {
+                            both[n] = concat(left[n], right[n]);
+                        }
+                        return both;
+                    }));
         }
-        return results;
-    }
 
-    private static int[] buildKMPSearchTable(byte[] needle) {
-        int[] stable = new int[needle.length];
-        int pos = 2;
-        int j = 0;
-        stable[0] = -1;
-        stable[1] = 0;
-        while (pos < needle.length) {
-            if (needle[pos - 1] == needle[j]) {
-                stable[pos] = j + 1;
-                pos++;
-                j++;
-            } else if (j > 0) {
-                j = stable[j];
-            } else {
-                stable[pos] = 0;
-                pos++;
+        // Runs the automaton over [beginOffset, endOffset), keeping the occurrences that start before startLimit
+        private int[][] scan(ByteBuffer haystack, int beginOffset, int endOffset, int startLimit) {
+            int[][] results = new int[needles.length][16];
+            int[] counts = new int[needles.length];
+            ByteBuffer source = haystack.duplicate();
+            byte[] chunk = new byte[Math.min(chunkSize, Math.max(0, endOffset - beginOffset))];
+            int state = 0;
+            for (int chunkStart = beginOffset; chunkStart < endOffset; chunkStart += chunk.length) {
+                int count = Math.min(chunk.length, endOffset - chunkStart);
+                source.position(chunkStart);
+                source.get(chunk, 0, count);
+                for (int i = 0; i < count; i++) {
+                    state = transitions[(state << 8) | (chunk[i] & 0xFF)];
+                    if (matches[state] != null) {
+                        // the automaton starts afresh at beginOffset, so nothing can start before it
+                        int end = chunkStart + i + 1;
+                        for (int n : matches[state]) {
+                            if (end - needles[n].length >= startLimit) {
+                                continue;
+                            }
+                            if (counts[n] == results[n].length) {
+                                results[n] = Arrays.copyOf(results[n], counts[n] * 2);
+                            }
+                            results[n][counts[n]++] = end - needles[n].length;
+                        }
+                    }
+                }
+            }
+            for (int n = 0; n < needles.length; n++) {
+                results[n] = Arrays.copyOf(results[n], counts[n]);
+            }
+            return results;
+        }
+
+        public int[][] occurrences(byte[] haystack) {
+            return occurrences(ByteBuffer.wrap(haystack), 0, haystack.length);
+        }
+
+        // What search would find for each needle, in one pass
+        public int[][] search(ByteBuffer haystack, int beginOffset, int endOffset) {
+            int[][] occurrences = occurrences(haystack, beginOffset, endOffset);
+            for (int n = 0; n < needles.length; n++) {
+                occurrences[n] = nonOverlapping(occurrences[n], needles[n].length, beginOffset, endOffset);
             }
+            return occurrences;
         }
-        return stable;
     }
 
 }
@@ -0,0 +1,103 @@
+package com.dabomstew.pkrandom;
+
+/*----------------------------------------------------------------------------*/
+/*--  SearchPattern.java - a byte string to look for in a ROM, parsed and   --*/
+/*--                       prepared for searching once.                     --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable needle for RomFunctions.search and CopyOnWriteRom.search, along with the byte the
+ * search scans for. The hex-string code patterns in the constants classes are compiled once through
+ * compile, which keeps every pattern it has compiled, so handlers never parse them again.
+ */
+public final class SearchPattern {
+
+    private static final Map<String, SearchPattern> compiled = new ConcurrentHashMap<>();
+
+    final byte[] needle;
+    // the index of the byte the search looks for eight at a time before comparing the rest
+    final int anchor;
+
+    private SearchPattern(byte[] needle) {
+        if (needle.length == 0) {
+            throw new IllegalArgumentException("Can't search for an empty needle");
+        }
+        this.needle = needle;
+        this.anchor = anchorIndex(needle);
+    }
+
+    // The pattern a hex string like "05E0" stands for, compiled the first time it is asked for
+    public static SearchPattern compile(String hexString) {
+        return compiled.computeIfAbsent(hexString.toUpperCase(), hex -> new SearchPattern(parseHex(hex)));
+    }
+
+    // For needles that are only known at runtime, like translated text; these aren't kept
+    public static SearchPattern of(byte[] bytes) {
+        return new SearchPattern(bytes.clone());
+    }
+
+    public int length() {
+        return needle.length;
+    }
+
+    public byte[] bytes() {
+        return needle.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder hex = new StringBuilder(needle.length * 2);
+        for (byte b : needle) {
+            hex.append(String.format("%02X", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] parseHex(String hexString) {
+        if (hexString.length() % 2 != 0) {
+            throw new IllegalArgumentException("Odd number of hex digits: " + hexString);
+        }
+        byte[] bytes = new byte[hexString.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hexString.charAt(i * 2), 16);
+            int low = Character.digit(hexString.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Not a hex string: " + hexString);
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    // Zero and 0xFF fill so much of a ROM that they make poor bytes to look for
+    private static int anchorIndex(byte[] needle) {
+        for (int i = 0; i < needle.length; i++) {
+            if (needle[i] != 0 && needle[i] != (byte) 0xFF) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -1008,7 +1008,7 @@ public class Settings {
         return startersMod;
     }
 
-    private void setStartersMod(StartersMod startersMod) {
+    public void setStartersMod(StartersMod startersMod) {
         this.startersMod = startersMod;
     }
 
@@ -1117,7 +1117,7 @@ public class Settings {
         return trainersMod;
     }
 
-    private void setTrainersMod(TrainersMod trainersMod) {
+    public void setTrainersMod(TrainersMod trainersMod) {
         this.trainersMod = trainersMod;
     }
 
@@ -1247,7 +1247,7 @@ public class Settings {
         return wildPokemonMod;
     }
 
-    private void setWildPokemonMod(WildPokemonMod wildPokemonMod) {
+    public void setWildPokemonMod(WildPokemonMod wildPokemonMod) {
         this.wildPokemonMod = wildPokemonMod;
     }
 
@@ -1255,7 +1255,7 @@ public class Settings {
         return wildPokemonRestrictionMod;
     }
 
-    private void setWildPokemonRestrictionMod(WildPokemonRestrictionMod wildPokemonRestrictionMod) {
+    public void setWildPokemonRestrictionMod(WildPokemonRestrictionMod wildPokemonRestrictionMod) {
         this.wildPokemonRestrictionMod = wildPokemonRestrictionMod;
     }
 
@@ -1315,7 +1315,7 @@ public class Settings {
         return staticPokemonMod;
     }
 
-    private void setStaticPokemonMod(StaticPokemonMod staticPokemonMod) {
+    public void setStaticPokemonMod(StaticPokemonMod staticPokemonMod) {
         this.staticPokemonMod = staticPokemonMod;
     }
 
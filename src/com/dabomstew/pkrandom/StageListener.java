@@ -0,0 +1,43 @@
+package com.dabomstew.pkrandom;
+
+/*----------------------------------------------------------------------------*/
+/*--  StageListener.java - hears how long each stage of a randomization     --*/
+/*--                       took and how much work it did.                   --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+/**
+ * Told about every stage of Randomizer.randomize, in order, once the ROM has been saved. A stage
+ * covers everything the randomizer does for it, including logging and check values, even where
+ * that happens after a later stage has run; stages whose settings are off still report, with next
+ * to nothing measured. Listeners are called on the randomizing thread, so one shared by several
+ * jobs has to be thread-safe.
+ */
+public interface StageListener {
+
+    enum Stage {
+        POKEMON_POOL, MISC_TWEAKS, EVOLUTIONS, STARTERS, TRAINERS, RIVAL, STATIC_POKEMON, WILD_POKEMON,
+        INTRO_POKEMON, SAVE
+    }
+
+    // allocatedBytes is -1 when the JVM can't measure per-thread allocation
+    void stageFinished(Stage stage, long nanos, long allocatedBytes, long randomDraws);
+}
@@ -0,0 +1,104 @@
+package com.dabomstew.pkrandom;
+
+/*----------------------------------------------------------------------------*/
+/*--  StageStatistics.java - collects stage measurements from many          --*/
+/*--                         randomizations and summarizes them.            --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * A StageListener that keeps every measurement it hears about, so that a batch can share one
+ * across all its jobs and report percentiles per stage at the end. Safe to use from several
+ * threads at once.
+ */
+public class StageStatistics implements StageListener {
+
+    public enum Metric {
+        NANOS, ALLOCATED_BYTES, RANDOM_DRAWS
+    }
+
+    private final Map<Stage, List<long[]>> samples = new EnumMap<>(Stage.class);
+
+    @Override
+    public synchronized void stageFinished(Stage stage, long nanos, long allocatedBytes, long randomDraws) {
+        samples.computeIfAbsent(stage, s -> new ArrayList<>()).add(new long[] { nanos, allocatedBytes, randomDraws });
+    }
+
+    public synchronized int count(Stage stage) {
+        return samples.getOrDefault(stage, Collections.emptyList()).size();
+    }
+
+    // Nearest-rank percentile, 0 < percentile <= 100; 0 if the stage was never reported
+    public synchronized long percentile(Stage stage, Metric metric, double percentile) {
+        long[] values = sorted(stage, metric);
+        if (values.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * values.length);
+        return values[Math.max(0, Math.min(values.length, rank) - 1)];
+    }
+
+    public synchronized long total(Stage stage, Metric metric) {
+        long total = 0;
+        for (long[] sample : samples.getOrDefault(stage, Collections.emptyList())) {
+            total += sample[metric.ordinal()];
+        }
+        return total;
+    }
+
+    public synchronized void print(PrintStream out) {
+        out.println(String.format("%-15s %6s %30s %24s %24s", "Stage", "Jobs", "Time p50/p90/p99 (ms)",
+                "Allocated p50/p90 (KB)", "RNG draws p50/p90"));
+        for (Stage stage : samples.keySet()) {
+            out.println(String.format("%-15s %6d %30s %24s %24s", stage, count(stage),
+                    String.format("%.1f / %.1f / %.1f", millis(stage, 50), millis(stage, 90), millis(stage, 99)),
+                    allocatedKilobytes(stage),
+                    String.format("%d / %d", percentile(stage, Metric.RANDOM_DRAWS, 50),
+                            percentile(stage, Metric.RANDOM_DRAWS, 90))));
+        }
+    }
+
+    // -1 samples come from a JVM that can't measure allocation
+    private String allocatedKilobytes(Stage stage) {
+        if (percentile(stage, Metric.ALLOCATED_BYTES, 0.0001) < 0) {
+            return "n/a";
+        }
+        return String.format("%d / %d", percentile(stage, Metric.ALLOCATED_BYTES, 50) / 1024,
+                percentile(stage, Metric.ALLOCATED_BYTES, 90) / 1024);
+    }
+
+    private double millis(Stage stage, double percentile) {
+        return percentile(stage, Metric.NANOS, percentile) / 1e6;
+    }
+
+    private long[] sorted(Stage stage, Metric metric) {
+        List<long[]> stageSamples = samples.getOrDefault(stage, Collections.emptyList());
+        long[] values = new long[stageSamples.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = stageSamples.get(i)[metric.ordinal()];
+        }
+        Arrays.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,149 @@
+package com.dabomstew.pkrandom;
+
+/*----------------------------------------------------------------------------*/
+/*--  StructuredLog.java - a machine-readable record of what a              --*/
+/*--                       randomization changed.                           --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes one JSON object per line for every slot a randomization step touched, with species as
+ * National Dex numbers instead of names, so that tools can aggregate many logs without parsing
+ * the spoiler text. Every record has a "type" (seed, starter, trainer, encounter or static) and
+ * "old"/"new" species where that applies; the remaining fields identify the slot.
+ */
+public class StructuredLog implements Closeable {
+
+    private static final StructuredLog disabled = new StructuredLog(LogSink.disabled());
+
+    private final LogSink out;
+
+    public StructuredLog(LogSink out) {
+        this.out = out;
+    }
+
+    public static StructuredLog disabled() {
+        return disabled;
+    }
+
+    // Saved as romFilename.jsonl, or romFilename.jsonl.gz
+    public static StructuredLog forRom(String romFilename, boolean gzip) throws IOException {
+        return new StructuredLog(LogSink.toFile(romFilename + (gzip ? ".jsonl.gz" : ".jsonl"), gzip));
+    }
+
+    public boolean isEnabled() {
+        return out.isEnabled();
+    }
+
+    public void seed(long seed) {
+        StringBuilder record = begin("seed");
+        field(record, "seed", seed);
+        end(record);
+    }
+
+    public void starter(int slot, int oldSpecies, int newSpecies) {
+        StringBuilder record = begin("starter");
+        field(record, "slot", slot);
+        species(record, oldSpecies, newSpecies);
+        end(record);
+    }
+
+    public void trainerPokemon(int trainer, String tag, int slot, int oldSpecies, int newSpecies, int level) {
+        StringBuilder record = begin("trainer");
+        field(record, "trainer", trainer);
+        if (tag != null) {
+            field(record, "tag", tag);
+        }
+        field(record, "slot", slot);
+        species(record, oldSpecies, newSpecies);
+        field(record, "level", level);
+        end(record);
+    }
+
+    public void encounter(int set, int slot, int oldSpecies, int newSpecies, int level) {
+        StringBuilder record = begin("encounter");
+        field(record, "set", set);
+        field(record, "slot", slot);
+        species(record, oldSpecies, newSpecies);
+        field(record, "level", level);
+        end(record);
+    }
+
+    public void staticPokemon(int slot, int oldSpecies, int newSpecies, int level) {
+        StringBuilder record = begin("static");
+        field(record, "slot", slot);
+        species(record, oldSpecies, newSpecies);
+        field(record, "level", level);
+        end(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static StringBuilder begin(String type) {
+        StringBuilder record = new StringBuilder("{");
+        field(record, "type", type);
+        return record;
+    }
+
+    private static void species(StringBuilder record, int oldSpecies, int newSpecies) {
+        field(record, "old", oldSpecies);
+        field(record, "new", newSpecies);
+    }
+
+    private static void field(StringBuilder record, String name, long value) {
+        separate(record, name);
+        record.append(value);
+    }
+
+    private static void field(StringBuilder record, String name, String value) {
+        separate(record, name);
+        record.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                record.append('\\').append(c);
+            } else if (c < 0x20) {
+                record.append(String.format("\\u%04x", (int) c));
+            } else {
+                record.append(c);
+            }
+        }
+        record.append('"');
+    }
+
+    private static void separate(StringBuilder record, String name) {
+        if (record.length() > 1) {
+            record.append(',');
+        }
+        record.append('"').append(name).append("\":");
+    }
+
+    private void end(StringBuilder record) {
+        record.append('}');
+        out.println(record.toString());
+    }
+}
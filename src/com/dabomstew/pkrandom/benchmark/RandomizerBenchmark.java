@@ -0,0 +1,296 @@
+package com.dabomstew.pkrandom.benchmark;
+
+/*----------------------------------------------------------------------------*/
+/*--  RandomizerBenchmark.java - measures loading, randomizing and saving   --*/
+/*--                             ROMs of each supported generation.         --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import com.dabomstew.pkrandom.LogSink;
+import com.dabomstew.pkrandom.RandomSource;
+import com.dabomstew.pkrandom.Randomizer;
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.StageStatistics;
+import com.dabomstew.pkrandom.romhandlers.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small JMH-style harness: for every ROM given on the command line it times loadRom,
+ * Randomizer.randomize (end to end, including the save) and saveRomFile on their own. Each
+ * benchmark runs a few warmup iterations and then measured iterations of a fixed length, and
+ * reports throughput and how much was allocated per operation. Setup work, like loading the handler
+ * that an operation randomizes or saves, is left out of both the time and the allocation figures.
+ * The randomize benchmark also breaks its time down by stage. Unless -c is given, the offset cache is
+ * turned off, so that loadRom pays for every search each time.
+ *
+ * Usage: RandomizerBenchmark [-s settingsFile] [-w warmups] [-i iterations] [-t millisPerIteration] [-c] rom...
+ */
+public class RandomizerBenchmark {
+
+    private final RomDetector romDetector = new RomDetector(
+            new Gen1RomHandler.Factory(),
+            new Gen2RomHandler.Factory(),
+            new Gen3RomHandler.Factory()
+    );
+
+    private final Settings settings;
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final long iterationNanos;
+    private final PrintStream out;
+    private final File outputFile;
+    private long nextSeed = 1;
+
+    public RandomizerBenchmark(Settings settings, int warmupIterations, int measuredIterations,
+                               long iterationMillis, PrintStream out) throws IOException {
+        this.settings = settings;
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+        this.out = out;
+        this.outputFile = File.createTempFile("benchmark", ".rom");
+        this.outputFile.deleteOnExit();
+    }
+
+    // Random trainers, 1:1 area mapping for wild Pokemon and similar-strength statics
+    public static Settings representativeSettings() {
+        Settings settings = new Settings();
+        settings.setTrainersMod(Settings.TrainersMod.RANDOM);
+        settings.setWildPokemonMod(Settings.WildPokemonMod.AREA_MAPPING);
+        settings.setStaticPokemonMod(Settings.StaticPokemonMod.SIMILAR_STRENGTH);
+        return settings;
+    }
+
+    public List<Result> run(String romFilename) {
+        RomHandler.Factory factory = factoryFor(romFilename);
+        String name = new File(romFilename).getName();
+        List<Result> results = new ArrayList<>();
+
+        results.add(measure(name, "loadRom", () -> {
+            RomHandler handler = factory.create(new RandomSource());
+            return () -> handler.loadRom(romFilename);
+        }));
+        StageStatistics stages = new StageStatistics();
+        results.add(measure(name, "randomize", () -> {
+            RandomSource randomSource = new RandomSource();
+            RomHandler handler = factory.create(randomSource);
+            handler.loadRom(romFilename);
+            Randomizer randomizer = new Randomizer(settings, handler, randomSource);
+            randomizer.setStageListener(stages);
+            long seed = nextSeed++;
+            return () -> randomizer.randomize(outputFile.getAbsolutePath(), LogSink.disabled(), seed);
+        }));
+        // where the randomize time went, warmups included
+        stages.print(out);
+        results.add(measure(name, "saveRomFile", () -> {
+            RomHandler handler = factory.create(new RandomSource());
+            handler.loadRom(romFilename);
+            return () -> handler.saveRomFile(outputFile.getAbsolutePath(), 0);
+        }));
+        return results;
+    }
+
+    private Result measure(String rom, String benchmark, Setup setup) {
+        for (int i = 0; i < warmupIterations; i++) {
+            Iteration warmup = iterate(setup);
+            out.println(String.format("# %s %s warmup %d: %.3f ops/s", rom, benchmark, i + 1, warmup.opsPerSecond()));
+        }
+        List<Iteration> iterations = new ArrayList<>();
+        for (int i = 0; i < measuredIterations; i++) {
+            Iteration iteration = iterate(setup);
+            iterations.add(iteration);
+            out.println(String.format("# %s %s iteration %d: %.3f ops/s", rom, benchmark, i + 1,
+                    iteration.opsPerSecond()));
+        }
+        Result result = new Result(rom, benchmark, iterations);
+        out.println(result);
+        return result;
+    }
+
+    private Iteration iterate(Setup setup) {
+        Iteration iteration = new Iteration();
+        long wallStart = System.nanoTime();
+        // setup can dwarf a short operation, so give up on reaching the target if it takes too long
+        while (iteration.nanos < iterationNanos && System.nanoTime() - wallStart < 10 * iterationNanos) {
+            Runnable operation = setup.prepare();
+            long allocatedBefore = Randomizer.allocatedBytes();
+            long start = System.nanoTime();
+            operation.run();
+            iteration.nanos += System.nanoTime() - start;
+            long allocatedAfter = Randomizer.allocatedBytes();
+            if (allocatedBefore < 0 || allocatedAfter < 0 || iteration.allocatedBytes < 0) {
+                iteration.allocatedBytes = -1;
+            } else {
+                iteration.allocatedBytes += allocatedAfter - allocatedBefore;
+            }
+            iteration.operations++;
+        }
+        return iteration;
+    }
+
+    private RomHandler.Factory factoryFor(String romFilename) {
+        RomHandler.Factory factory = romDetector.factoryFor(romFilename);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unsupported ROM: " + romFilename);
+        }
+        return factory;
+    }
+
+    // Does the untimed work for one operation and returns the operation itself
+    private interface Setup {
+        Runnable prepare();
+    }
+
+    private static class Iteration {
+        long operations;
+        long nanos;
+        // -1 if the JVM can't measure allocation
+        long allocatedBytes;
+
+        double opsPerSecond() {
+            return nanos == 0 ? 0.0 : operations * 1e9 / nanos;
+        }
+    }
+
+    public static class Result {
+        private final String rom;
+        private final String benchmark;
+        private final double opsPerSecond;
+        private final double opsPerSecondError;
+        private final double allocatedBytesPerOp;
+        private final double allocationRate;
+
+        Result(String rom, String benchmark, List<Iteration> iterations) {
+            this.rom = rom;
+            this.benchmark = benchmark;
+            long operations = 0, nanos = 0, allocated = 0;
+            double sum = 0, sumOfSquares = 0;
+            boolean allocationMeasured = true;
+            for (Iteration iteration : iterations) {
+                operations += iteration.operations;
+                nanos += iteration.nanos;
+                allocated += iteration.allocatedBytes;
+                allocationMeasured &= iteration.allocatedBytes >= 0;
+                sum += iteration.opsPerSecond();
+                sumOfSquares += iteration.opsPerSecond() * iteration.opsPerSecond();
+            }
+            int n = iterations.size();
+            this.opsPerSecond = n == 0 ? 0.0 : sum / n;
+            this.opsPerSecondError = n < 2 ? 0.0 : Math.sqrt(Math.max(0, (sumOfSquares - sum * sum / n) / (n - 1)));
+            this.allocatedBytesPerOp = !allocationMeasured ? -1 : operations == 0 ? 0.0 : (double) allocated / operations;
+            this.allocationRate = !allocationMeasured ? -1 : nanos == 0 ? 0.0 : allocated * 1e9 / nanos;
+        }
+
+        public String getRom() {
+            return rom;
+        }
+
+        public String getBenchmark() {
+            return benchmark;
+        }
+
+        public double getOpsPerSecond() {
+            return opsPerSecond;
+        }
+
+        public double getOpsPerSecondError() {
+            return opsPerSecondError;
+        }
+
+        // -1 if the JVM can't measure allocation
+        public double getAllocatedBytesPerOp() {
+            return allocatedBytesPerOp;
+        }
+
+        // bytes per second of operation time, -1 if the JVM can't measure allocation
+        public double getAllocationRate() {
+            return allocationRate;
+        }
+
+        @Override
+        public String toString() {
+            String timing = String.format("%-24s %-12s %10.3f +/- %8.3f ops/s %12.1f ms/op", rom, benchmark,
+                    opsPerSecond, opsPerSecondError, opsPerSecond == 0 ? 0.0 : 1000 / opsPerSecond);
+            if (allocatedBytesPerOp < 0) {
+                return timing;
+            }
+            return timing + String.format(" %10.1f MB/s alloc %14.0f B/op", allocationRate / (1024 * 1024),
+                    allocatedBytesPerOp);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Settings settings = representativeSettings();
+        int warmups = 3, iterations = 5;
+        long iterationMillis = 2000;
+        boolean offsetCache = false;
+        List<String> roms = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-s":
+                    try (FileInputStream fis = new FileInputStream(args[++i])) {
+                        settings = Settings.read(fis);
+                    }
+                    break;
+                case "-w":
+                    warmups = Integer.parseInt(args[++i]);
+                    break;
+                case "-i":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-t":
+                    iterationMillis = Long.parseLong(args[++i]);
+                    break;
+                case "-c":
+                    offsetCache = true;
+                    break;
+                default:
+                    roms.add(args[i]);
+                    break;
+            }
+        }
+        if (roms.isEmpty()) {
+            System.err.println("Usage: RandomizerBenchmark [-s settingsFile] [-w warmups] [-i iterations] "
+                    + "[-t millisPerIteration] [-c] rom...");
+            System.exit(1);
+        }
+        if (!offsetCache) {
+            RomOffsetCache.setDirectory(null);
+        }
+
+        RandomizerBenchmark benchmark = new RandomizerBenchmark(settings, warmups, iterations, iterationMillis, System.out);
+        List<Result> results = new ArrayList<>();
+        for (String rom : roms) {
+            results.addAll(benchmark.run(rom));
+        }
+        System.out.println();
+        for (Result result : results) {
+            System.out.println(result);
+        }
+    }
+}
@@ -0,0 +1,1840 @@
+package com.dabomstew.pkrandom.benchmark;
+
+/*----------------------------------------------------------------------------*/
+/*--  SyntheticRomGenerator.java - builds made-up ROM images that the       --*/
+/*--                               Gen 1-3 handlers load like real ones.    --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import com.dabomstew.pkrandom.FileFunctions;
+import com.dabomstew.pkrandom.SearchPattern;
+import com.dabomstew.pkrandom.constants.*;
+import com.dabomstew.pkrandom.pokemon.EvolutionType;
+import com.dabomstew.pkrandom.pokemon.Type;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds ROM images that are detected as Red (U), Gold (U) or Emerald (U) without containing any
+ * game data. The header, every table the handler reads and the code patterns it searches for are
+ * placed where the matching section of gen1_offsets.ini, gen2_offsets.ini or gen3_offsets.ini says
+ * they are, and filled with invented but consistent species, evolution families, movesets,
+ * trainers, encounters and maps; data that is reached through pointers is allocated in free space
+ * the way the real games lay it out. Everything else is pseudo-random filler, so searches have
+ * realistic work to do. The same generation and size always give the same image.
+ *
+ * The image size is a parameter so that scaling can be measured on hack-sized images: Game Boy
+ * images can be anything up to the 2 MB the handlers accept, and Emerald images anything from the
+ * usual 16 MB up to 32 MB, with the pointed-to data moved above 16 MB as expanded hacks do.
+ *
+ * Usage: SyntheticRomGenerator [-g generation] [-s sizeInKB] output
+ */
+public class SyntheticRomGenerator {
+
+    private static final int gbaMaxRomSize = 0x2000000, gbaVanillaRomSize = 0x1000000;
+    private static final int gbaRomBase = 0x8000000;
+
+    // Bytes kept free around every offset in the ini section, so that allocated data can't land on
+    // something the handler will read or patch there
+    private static final int iniOffsetReservation = 32;
+
+    private static final String[] syllables = { "BA", "BU", "CHI", "DA", "DO", "FE", "GA", "GO", "KA", "KI", "LI",
+            "LU", "MA", "MO", "NE", "NI", "PA", "PI", "RA", "RO", "SA", "SHU", "TA", "TO", "VE", "ZA", "ZO" };
+
+    public static byte[] generate(int generation, int size) {
+        switch (generation) {
+            case 1:
+                return new Gen1Builder(size).build();
+            case 2:
+                return new Gen2Builder(size).build();
+            case 3:
+                return new Gen3Builder(size).build();
+            default:
+                throw new IllegalArgumentException("Unsupported generation: " + generation);
+        }
+    }
+
+    // The size of the ROM the synthetic image imitates
+    public static int defaultSize(int generation) {
+        switch (generation) {
+            case 1:
+                return 0x100000;
+            case 2:
+                return 0x200000;
+            case 3:
+                return gbaVanillaRomSize;
+            default:
+                throw new IllegalArgumentException("Unsupported generation: " + generation);
+        }
+    }
+
+    public static void generate(int generation, int size, String filename) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(filename)) {
+            fos.write(generate(generation, size));
+        }
+    }
+
+    // One section of an *_offsets.ini file, read just far enough to know where things go
+    private static class RomSection {
+        private static final Pattern staticEntry = Pattern.compile("(\\w+)=\\[([^\\]]*)\\]");
+
+        private final String name;
+        private final Map<String, String> values = new HashMap<>();
+        private final Map<String, List<int[][]>> statics = new HashMap<>();
+
+        private RomSection(String name) {
+            this.name = name;
+        }
+
+        static RomSection load(String filename, String name) {
+            RomSection section = new RomSection(name);
+            boolean inSection = false;
+            try (Scanner sc = new Scanner(FileFunctions.openConfig(filename), "UTF-8")) {
+                while (sc.hasNextLine()) {
+                    String line = sc.nextLine().trim();
+                    if (line.contains("//")) {
+                        line = line.substring(0, line.indexOf("//")).trim();
+                    }
+                    if (line.startsWith("[") && line.endsWith("]")) {
+                        inSection = line.substring(1, line.length() - 1).equals(name);
+                        continue;
+                    }
+                    int equals = line.indexOf('=');
+                    if (!inSection || equals < 0) {
+                        continue;
+                    }
+                    String key = line.substring(0, equals).trim();
+                    String value = line.substring(equals + 1).trim();
+                    if (key.endsWith("{}")) {
+                        section.statics.computeIfAbsent(key.substring(0, key.length() - 2), k -> new ArrayList<>())
+                                .add(parseStatic(value));
+                    } else if (!key.endsWith("[]")) {
+                        section.values.put(key, value);
+                    }
+                }
+            } catch (FileNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+            if (section.values.isEmpty()) {
+                throw new IllegalStateException("No section [" + name + "] in " + filename);
+            }
+            return section;
+        }
+
+        // {Species=[...], Level=[...]} as {species offsets, level offsets}
+        private static int[][] parseStatic(String value) {
+            int[][] offsets = new int[][] { new int[0], new int[0] };
+            Matcher matcher = staticEntry.matcher(value);
+            while (matcher.find()) {
+                int[] array = parseArray(matcher.group(2));
+                if (matcher.group(1).equals("Species")) {
+                    offsets[0] = array;
+                } else if (matcher.group(1).equals("Level")) {
+                    offsets[1] = array;
+                }
+            }
+            return offsets;
+        }
+
+        private static int[] parseArray(String list) {
+            String trimmed = list.trim();
+            if (trimmed.isEmpty()) {
+                return new int[0];
+            }
+            String[] parts = trimmed.split(",");
+            int[] array = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                Integer number = parseNumber(parts[i]);
+                if (number == null) {
+                    throw new IllegalStateException("Not a number: " + parts[i]);
+                }
+                array[i] = number;
+            }
+            return array;
+        }
+
+        private static Integer parseNumber(String text) {
+            String number = text.trim().toLowerCase();
+            int radix = 10;
+            if (number.startsWith("0x") || number.startsWith("&h")) {
+                number = number.substring(2);
+                radix = 16;
+            }
+            try {
+                return Integer.parseInt(number, radix);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+
+        String string(String key) {
+            String value = values.get(key);
+            if (value == null) {
+                throw new IllegalStateException("[" + name + "] has no " + key);
+            }
+            return value;
+        }
+
+        int value(String key) {
+            Integer number = parseNumber(string(key));
+            if (number == null) {
+                throw new IllegalStateException("[" + name + "] " + key + " is not a number");
+            }
+            return number;
+        }
+
+        int[] array(String key) {
+            String value = string(key);
+            return parseArray(value.substring(1, value.length() - 1));
+        }
+
+        List<int[][]> statics(String kind) {
+            return statics.getOrDefault(kind, Collections.emptyList());
+        }
+
+        // Every number in the section that could be an offset: plain values, array elements and
+        // static Pokemon offsets. Counts and sizes are included too, which is harmless.
+        List<Integer> offsets() {
+            List<Integer> offsets = new ArrayList<>();
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                String value = entry.getValue();
+                if (entry.getKey().equals("CRC32")) {
+                    continue;
+                }
+                if (value.startsWith("[") && value.endsWith("]")) {
+                    try {
+                        for (int number : parseArray(value.substring(1, value.length() - 1))) {
+                            offsets.add(number);
+                        }
+                    } catch (IllegalStateException ex) {
+                        // not a list of numbers
+                    }
+                } else {
+                    Integer number = parseNumber(value);
+                    if (number != null) {
+                        offsets.add(number);
+                    }
+                }
+            }
+            for (List<int[][]> kind : statics.values()) {
+                for (int[][] entry : kind) {
+                    for (int[] array : entry) {
+                        for (int offset : array) {
+                            offsets.add(offset);
+                        }
+                    }
+                }
+            }
+            return offsets;
+        }
+    }
+
+    // The image being built, and which of its bytes are already spoken for
+    private static class Image {
+        final byte[] data;
+        private final BitSet used;
+        // where the last allocation in each range ended, so that filling a range stays linear
+        private final Map<Long, Integer> cursors = new HashMap<>();
+
+        Image(int size, long fillerSeed) {
+            data = new byte[size];
+            new Random(fillerSeed).nextBytes(data);
+            used = new BitSet(size);
+        }
+
+        int size() {
+            return data.length;
+        }
+
+        void reserve(int offset, int length) {
+            int end = Math.min(offset + length, data.length);
+            if (offset >= 0 && offset < end) {
+                used.set(offset, end);
+            }
+        }
+
+        void fill(int offset, int length, int value) {
+            Arrays.fill(data, offset, offset + length, (byte) value);
+        }
+
+        void put(int offset, int value) {
+            data[offset] = (byte) value;
+            used.set(offset);
+        }
+
+        void putWord(int offset, int value) {
+            put(offset, value);
+            put(offset + 1, value >> 8);
+        }
+
+        void putLong(int offset, int value) {
+            putWord(offset, value);
+            putWord(offset + 2, value >> 16);
+        }
+
+        void putBytes(int offset, byte[] bytes) {
+            System.arraycopy(bytes, 0, data, offset, bytes.length);
+            used.set(offset, offset + bytes.length);
+        }
+
+        void putFixedLength(int offset, byte[] text, int length, int padding) {
+            for (int i = 0; i < length; i++) {
+                put(offset + i, i < text.length ? text[i] : padding);
+            }
+        }
+
+        // The first free, aligned run of length bytes in [start, end)
+        int allocate(int length, int start, int end, int alignment) {
+            long key = ((long) start << 32) | end;
+            int offset = align(used.nextClearBit(Math.max(start, cursors.getOrDefault(key, start))), alignment);
+            while (offset + length <= end) {
+                int nextUsed = used.nextSetBit(offset);
+                if (nextUsed < 0 || nextUsed >= offset + length) {
+                    used.set(offset, offset + length);
+                    cursors.put(key, offset + length);
+                    return offset;
+                }
+                offset = align(used.nextClearBit(nextUsed), alignment);
+            }
+            throw new IllegalStateException(String.format("No room for 0x%X bytes between 0x%X and 0x%X", length,
+                    start, end));
+        }
+
+        int allocate(byte[] bytes, int start, int end, int alignment) {
+            int offset = allocate(bytes.length, start, end, alignment);
+            putBytes(offset, bytes);
+            return offset;
+        }
+
+        private static int align(int offset, int alignment) {
+            return (offset + alignment - 1) / alignment * alignment;
+        }
+    }
+
+    // An invented species; types and moves are already in the numbering of the generation
+    private static class SpeciesData {
+        int number;
+        String name;
+        int hp, attack, defense, speed, spatk, spdef;
+        int primaryType, secondaryType;
+        int catchRate, expYield, growthCurve, genderRatio;
+        int ability1, ability2;
+        int heldItem;
+        int evolvesTo, evolutionLevel;
+        final List<int[]> moves = new ArrayList<>(); // {level, move}
+
+        int total() {
+            return hp + attack + defense + speed + spatk + spdef;
+        }
+    }
+
+    private abstract static class Builder {
+        protected final RomSection section;
+        protected final Image image;
+        protected final Random random;
+        private final Set<String> usedNames = new HashSet<>();
+        protected SpeciesData[] species;
+
+        Builder(String iniFile, String romName, int generation, int size, int maximumSize) {
+            this.section = RomSection.load(iniFile, romName);
+            int highestOffset = 0;
+            for (int offset : section.offsets()) {
+                highestOffset = Math.max(highestOffset, offset);
+            }
+            if (size <= highestOffset || size > maximumSize) {
+                throw new IllegalArgumentException(String.format("%s images must be between 0x%X and 0x%X bytes",
+                        romName, highestOffset + 1, maximumSize));
+            }
+            this.image = new Image(size, ~generation);
+            this.random = new Random(generation);
+            for (int offset : section.offsets()) {
+                image.reserve(offset, iniOffsetReservation);
+            }
+        }
+
+        abstract byte[] build();
+
+        /**
+         * Species 1..count in families of one to three, each evolving into the next by level.
+         * Later stages are stronger, and the odd single-stage species is legendary-strong.
+         */
+        protected void createSpecies(int count, Type[] typeTable, int moveCount, int maxMoves, int abilityCount,
+                                     int itemCount) {
+            int[] types = validTypes(typeTable);
+            int[] growthCurves = new int[] { 0, 3, 4, 5 };
+            species = new SpeciesData[count + 1];
+            int number = 1;
+            while (number <= count) {
+                int familySize = Math.min(count - number + 1, 1 + random.nextInt(3));
+                boolean legendary = familySize == 1 && random.nextInt(6) == 0;
+                int primaryType = types[random.nextInt(types.length)];
+                int secondaryType = random.nextInt(3) == 0 ? types[random.nextInt(types.length)] : primaryType;
+                int ability1 = 1 + random.nextInt(abilityCount);
+                int ability2 = random.nextBoolean() ? 1 + random.nextInt(abilityCount) : 0;
+                int growthCurve = growthCurves[random.nextInt(growthCurves.length)];
+                int evolutionLevel = 10 + random.nextInt(12);
+                for (int stage = 0; stage < familySize; stage++) {
+                    SpeciesData sp = new SpeciesData();
+                    sp.number = number + stage;
+                    sp.name = uniqueName(10);
+                    sp.primaryType = primaryType;
+                    sp.secondaryType = secondaryType;
+                    sp.ability1 = ability1;
+                    sp.ability2 = ability2;
+                    sp.growthCurve = growthCurve;
+                    sp.genderRatio = legendary ? 0xFF : 0x1F << random.nextInt(3);
+                    sp.heldItem = random.nextInt(8) == 0 ? 1 + random.nextInt(itemCount - 1) : 0;
+                    distributeStats(sp, legendary ? 560 + random.nextInt(120)
+                            : 220 + stage * 110 + random.nextInt(100));
+                    sp.catchRate = legendary ? 3 : stage == 0 ? 190 + random.nextInt(66) : 45 * (3 - stage);
+                    sp.expYield = Math.min(255, sp.total() / 5);
+                    if (stage < familySize - 1) {
+                        sp.evolvesTo = sp.number + 1;
+                        sp.evolutionLevel = evolutionLevel;
+                        evolutionLevel += 12 + random.nextInt(12);
+                    }
+                    int moveTotal = 2 + random.nextInt(maxMoves - 1);
+                    int level = 1;
+                    for (int m = 0; m < moveTotal; m++) {
+                        sp.moves.add(new int[] { level, 1 + random.nextInt(moveCount) });
+                        level = Math.min(100, level + 3 + random.nextInt(8));
+                    }
+                    species[sp.number] = sp;
+                }
+                number += familySize;
+            }
+        }
+
+        private void distributeStats(SpeciesData sp, int total) {
+            int[] weights = new int[6];
+            int weightSum = 0;
+            for (int i = 0; i < 6; i++) {
+                weights[i] = 2 + random.nextInt(5);
+                weightSum += weights[i];
+            }
+            int[] stats = new int[6];
+            for (int i = 0; i < 6; i++) {
+                stats[i] = Math.max(5, Math.min(255, total * weights[i] / weightSum));
+            }
+            sp.hp = stats[0];
+            sp.attack = stats[1];
+            sp.defense = stats[2];
+            sp.speed = stats[3];
+            sp.spatk = stats[4];
+            sp.spdef = stats[5];
+        }
+
+        // A pronounceable name that hasn't been handed out yet
+        protected String uniqueName(int maxLength) {
+            while (true) {
+                StringBuilder name = new StringBuilder();
+                int parts = 2 + random.nextInt(2);
+                for (int i = 0; i < parts; i++) {
+                    name.append(syllables[random.nextInt(syllables.length)]);
+                }
+                if (name.length() <= maxLength && usedNames.add(name.toString())) {
+                    return name.toString();
+                }
+            }
+        }
+
+        // A random name that may repeat, for things the handlers don't tell apart by name
+        protected String shortName(int minLength, int maxLength) {
+            StringBuilder name = new StringBuilder();
+            int length = minLength + random.nextInt(maxLength - minLength + 1);
+            while (name.length() < length) {
+                name.append((char) ('A' + random.nextInt(26)));
+            }
+            return name.toString();
+        }
+
+        protected SpeciesData randomSpecies() {
+            return species[1 + random.nextInt(species.length - 1)];
+        }
+
+        protected int randomLevel() {
+            return 2 + random.nextInt(55);
+        }
+
+        protected void putAscii(int offset, String text) {
+            image.putBytes(offset, text.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private static int[] validTypes(Type[] typeTable) {
+            int count = 0;
+            int[] types = new int[typeTable.length];
+            for (int i = 0; i < typeTable.length && i < 0x80; i++) {
+                if (typeTable[i] != null) {
+                    types[count++] = i;
+                }
+            }
+            return Arrays.copyOf(types, count);
+        }
+    }
+
+    // Things the two Game Boy generations share: text, banked pointers and bank-local allocation
+    private abstract static class GBBuilder extends Builder {
+
+        GBBuilder(String iniFile, String romName, int generation, int size) {
+            super(iniFile, romName, generation, size, GBConstants.maxRomSize);
+            if (size < GBConstants.minRomSize || size % GBConstants.bankSize != 0) {
+                throw new IllegalArgumentException("Game Boy images must be a whole number of banks of at least 0x"
+                        + Integer.toHexString(GBConstants.minRomSize) + " bytes");
+            }
+        }
+
+        protected static int bankOf(int offset) {
+            return offset / GBConstants.bankSize;
+        }
+
+        protected static int pointer(int offset) {
+            return offset < GBConstants.bankSize ? offset : offset % GBConstants.bankSize + GBConstants.bankSize;
+        }
+
+        protected int allocateInBank(int length, int bank) {
+            return image.allocate(length, bank * GBConstants.bankSize, (bank + 1) * GBConstants.bankSize, 1);
+        }
+
+        protected int allocateInBank(byte[] bytes, int bank) {
+            int offset = allocateInBank(bytes.length, bank);
+            image.putBytes(offset, bytes);
+            return offset;
+        }
+
+        // The first of banks that has room
+        protected int allocateInBanks(int length, int firstBank, int lastBank) {
+            for (int bank = firstBank; bank <= lastBank; bank++) {
+                try {
+                    return allocateInBank(length, bank);
+                } catch (IllegalStateException ex) {
+                    // full, try the next one
+                }
+            }
+            throw new IllegalStateException(String.format("No room for 0x%X bytes in banks 0x%X-0x%X", length,
+                    firstBank, lastBank));
+        }
+
+        protected static byte[] text(String text) {
+            byte[] encoded = new byte[text.length() + 1];
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                encoded[i] = (byte) (c == ' ' ? 0x7F : 0x80 + (c - 'A'));
+            }
+            encoded[text.length()] = (byte) GBConstants.stringTerminator;
+            return encoded;
+        }
+
+        protected void putFixedLengthText(int offset, String text, int length) {
+            image.putFixedLength(offset, text(text), length, GBConstants.stringTerminator);
+        }
+
+        protected int putTextList(int offset, List<String> texts) {
+            for (String text : texts) {
+                byte[] encoded = text(text);
+                image.putBytes(offset, encoded);
+                offset += encoded.length;
+            }
+            return offset;
+        }
+    }
+
+    private static class Gen1Builder extends GBBuilder {
+        private static final int mapCount = 0xF8, unusedMap = 0xED;
+
+        private int[] dexToInternal;
+        private int[] mapBanks, mapAddresses;
+
+        Gen1Builder(int size) {
+            super("gen1_offsets.ini", "Red (U)", 1, size);
+        }
+
+        @Override
+        byte[] build() {
+            putAscii(GBConstants.romSigOffset, section.string("Game"));
+            image.put(GBConstants.jpFlagOffset, section.value("NonJapanese"));
+            image.put(GBConstants.versionOffset, section.value("Version"));
+
+            createSpecies(151, Gen1Constants.typeTable, section.value("MoveCount"), 7, 1, 0x54);
+            writePokemon();
+            writeMovesetsAndEvolutions();
+            writeMaps();
+            writeWildPokemon();
+            writeTrainers();
+            writeStartersAndStatics();
+            return image.data;
+        }
+
+        private int internal(SpeciesData sp) {
+            return dexToInternal[sp.number];
+        }
+
+        // 151 real species spread over the internal ids, the rest are left as MissingNo.
+        private void writePokemon() {
+            int internalCount = section.value("InternalPokemonCount");
+            List<Integer> internalIds = new ArrayList<>();
+            for (int i = 1; i <= internalCount; i++) {
+                internalIds.add(i);
+            }
+            Collections.shuffle(internalIds, random);
+            dexToInternal = new int[species.length];
+            int[] internalToDex = new int[internalCount + 1];
+            for (int dex = 1; dex < species.length; dex++) {
+                dexToInternal[dex] = internalIds.get(dex - 1);
+                internalToDex[dexToInternal[dex]] = dex;
+            }
+
+            int dexOrder = section.value("PokedexOrder");
+            int names = section.value("PokemonNamesOffset");
+            int nameLength = section.value("PokemonNamesLength");
+            for (int i = 1; i <= internalCount; i++) {
+                image.put(dexOrder + i - 1, internalToDex[i]);
+                String name = internalToDex[i] == 0 ? "MISSINGNO" : species[internalToDex[i]].name;
+                putFixedLengthText(names + (i - 1) * nameLength, name, nameLength);
+            }
+
+            int stats = section.value("PokemonStatsOffset");
+            for (int dex = 1; dex < species.length; dex++) {
+                int offset = dex == Species.mew ? section.value("MewStatsOffset")
+                        : stats + (dex - 1) * Gen1Constants.baseStatsEntrySize;
+                SpeciesData sp = species[dex];
+                image.putFixedLength(offset, new byte[0], Gen1Constants.baseStatsEntrySize, 0);
+                image.put(offset, dex);
+                image.put(offset + Gen1Constants.bsHPOffset, sp.hp);
+                image.put(offset + Gen1Constants.bsAttackOffset, sp.attack);
+                image.put(offset + Gen1Constants.bsDefenseOffset, sp.defense);
+                image.put(offset + Gen1Constants.bsSpeedOffset, sp.speed);
+                image.put(offset + Gen1Constants.bsSpecialOffset, sp.spatk);
+                image.put(offset + Gen1Constants.bsPrimaryTypeOffset, sp.primaryType);
+                image.put(offset + Gen1Constants.bsSecondaryTypeOffset, sp.secondaryType);
+                image.put(offset + Gen1Constants.bsCatchRateOffset, sp.catchRate);
+                image.put(offset + Gen1Constants.bsExpYieldOffset, sp.expYield);
+                image.put(offset + Gen1Constants.bsFrontSpriteOffset - 1, 0x55);
+                image.putWord(offset + Gen1Constants.bsFrontSpriteOffset, 0x4000 + dex * 0x40);
+                image.put(offset + Gen1Constants.bsGrowthCurveOffset, sp.growthCurve);
+            }
+        }
+
+        // Evolutions and level-up moves share one pointer table; the save rewrites the area after
+        // the table and the extra space at the end of the bank, so the data goes there too
+        private void writeMovesetsAndEvolutions() {
+            int table = section.value("PokemonMovesetsTableOffset");
+            int internalCount = section.value("InternalPokemonCount");
+            int bank = bankOf(table);
+            int dataStart = table + internalCount * 2;
+            int extraSpace = section.value("PokemonMovesetsExtraSpaceOffset");
+            int bankEnd = (bank + 1) * GBConstants.bankSize;
+            image.reserve(table, internalCount * 2);
+            image.reserve(dataStart + section.value("PokemonMovesetsDataSize"),
+                    extraSpace - dataStart - section.value("PokemonMovesetsDataSize"));
+
+            int nullEntry = -1;
+            int[] internalToDex = new int[internalCount + 1];
+            for (int dex = 1; dex < species.length; dex++) {
+                internalToDex[dexToInternal[dex]] = dex;
+            }
+            for (int i = 1; i <= internalCount; i++) {
+                int offset;
+                if (internalToDex[i] == 0) {
+                    if (nullEntry < 0) {
+                        nullEntry = image.allocate(new byte[] { 0, 0 }, dataStart, bankEnd, 1);
+                    }
+                    offset = nullEntry;
+                } else {
+                    ByteArrayOutputStream entry = new ByteArrayOutputStream();
+                    SpeciesData sp = species[internalToDex[i]];
+                    if (sp.evolvesTo != 0) {
+                        entry.write(EvolutionType.LEVEL.toIndex(1));
+                        entry.write(sp.evolutionLevel);
+                        entry.write(internal(species[sp.evolvesTo]));
+                    }
+                    entry.write(0);
+                    // the first moves are in the base stats, the rest are learnt later
+                    for (int[] move : sp.moves.subList(1, sp.moves.size())) {
+                        entry.write(move[0]);
+                        entry.write(move[1]);
+                    }
+                    entry.write(0);
+                    offset = image.allocate(entry.toByteArray(), dataStart, bankEnd, 1);
+                }
+                image.putWord(table + (i - 1) * 2, pointer(offset));
+            }
+            image.reserve(dataStart, bankEnd - dataStart);
+        }
+
+        // A web of maps that all hang off map 0 through warps, with items and trainers in them, and
+        // the map name table that covers them
+        private void writeMaps() {
+            int banksTable = section.value("MapBanks");
+            int addressTable = section.value("MapAddresses");
+            image.reserve(banksTable, mapCount);
+            image.reserve(addressTable, mapCount * 2);
+            mapBanks = new int[mapCount];
+            mapAddresses = new int[mapCount];
+            for (int map = 0; map < mapCount; map++) {
+                if (map == unusedMap) {
+                    image.put(banksTable + map, 0);
+                    image.putWord(addressTable + map * 2, 0);
+                    continue;
+                }
+                ByteArrayOutputStream header = new ByteArrayOutputStream();
+                // tileset, height, width, blocks, text and script pointers, no connections
+                header.write(random.nextInt(0x18));
+                header.write(4 + random.nextInt(20));
+                header.write(4 + random.nextInt(20));
+                for (int i = 0; i < 6; i++) {
+                    header.write(random.nextInt(256));
+                }
+                header.write(0);
+                int objectsAt = header.size();
+                header.write(0);
+                header.write(0);
+
+                header.write(random.nextInt(256));
+                List<Integer> warpsTo = new ArrayList<>();
+                if (map + 1 < mapCount) {
+                    warpsTo.add(map + 1 == unusedMap ? map + 2 : map + 1);
+                }
+                int extraWarps = random.nextInt(3);
+                for (int i = 0; i < extraWarps; i++) {
+                    int target = random.nextInt(mapCount);
+                    warpsTo.add(target == unusedMap ? 0 : target);
+                }
+                header.write(warpsTo.size());
+                for (int target : warpsTo) {
+                    header.write(random.nextInt(32));
+                    header.write(random.nextInt(32));
+                    header.write(random.nextInt(4));
+                    header.write(target);
+                }
+                int signs = random.nextInt(3);
+                header.write(signs);
+                for (int i = 0; i < signs; i++) {
+                    header.write(random.nextInt(32));
+                    header.write(random.nextInt(32));
+                    header.write(1 + i);
+                }
+                int entities = random.nextInt(6);
+                header.write(entities);
+                for (int i = 0; i < entities; i++) {
+                    header.write(1 + random.nextInt(0x40));
+                    header.write(4 + random.nextInt(28));
+                    header.write(4 + random.nextInt(28));
+                    header.write(0xFE);
+                    header.write(random.nextInt(0x14));
+                    int kind = random.nextInt(3);
+                    if (kind == 0) {
+                        // item ball
+                        header.write(0x80 | (1 + i));
+                        header.write(1 + random.nextInt(0x53));
+                    } else if (kind == 1) {
+                        // trainer: class and which of its trainers
+                        header.write(0x40 | (1 + i));
+                        header.write(0xC9 + random.nextInt(Gen1Constants.trainerClassCount));
+                        header.write(1 + random.nextInt(4));
+                    } else {
+                        header.write(1 + i);
+                    }
+                }
+                byte[] bytes = header.toByteArray();
+                int offset = allocateInBanks(bytes.length, 0x12, 0x3F);
+                int objects = pointer(offset + objectsAt + 2);
+                bytes[objectsAt] = (byte) objects;
+                bytes[objectsAt + 1] = (byte) (objects >> 8);
+                image.putBytes(offset, bytes);
+                mapBanks[map] = bankOf(offset);
+                mapAddresses[map] = pointer(offset);
+                image.put(banksTable + map, mapBanks[map]);
+                image.putWord(addressTable + map * 2, mapAddresses[map]);
+            }
+
+            // 0x25 towns and routes with their own names, then ranges of maps named after one of
+            // them (buildings) or after a place of their own
+            int nameTable = section.value("MapNameTableOffset");
+            int nameBank = bankOf(nameTable);
+            List<Integer> rangeEnds = new ArrayList<>();
+            for (int end = 0x25 + 1 + random.nextInt(8); end < mapCount; end += 1 + random.nextInt(8)) {
+                rangeEnds.add(end);
+            }
+            rangeEnds.add(mapCount);
+            image.reserve(nameTable, 0x25 * 3 + rangeEnds.size() * 4 + 1);
+            int[] externalNames = new int[0x25];
+            for (int i = 0; i < 0x25; i++) {
+                externalNames[i] = allocateInBank(text(uniqueName(10)), nameBank);
+                image.put(nameTable + i * 3, i);
+                image.putWord(nameTable + i * 3 + 1, pointer(externalNames[i]));
+            }
+            int offset = nameTable + 0x25 * 3;
+            for (int end : rangeEnds) {
+                int nameOffset = random.nextBoolean() ? externalNames[random.nextInt(0x25)]
+                        : allocateInBank(text(uniqueName(10)), nameBank);
+                image.put(offset, end);
+                image.put(offset + 1, 0);
+                image.putWord(offset + 2, pointer(nameOffset));
+                offset += 4;
+            }
+            image.put(offset, 0xFF);
+        }
+
+        // One encounter table per map, some shared and some empty, then the fishing tables
+        private void writeWildPokemon() {
+            int table = section.value("WildPokemonTableOffset");
+            int bank = bankOf(table);
+            image.reserve(table, mapCount * 2 + 2);
+            int superRodTable = section.value("SuperRodTableOffset");
+            int superRodMaps = 30 + random.nextInt(10);
+            image.reserve(superRodTable, superRodMaps * 3 + 1);
+
+            int emptyTable = allocateInBank(new byte[] { 0, 0 }, bank);
+            int previous = emptyTable;
+            for (int map = 0; map < mapCount; map++) {
+                int roll = random.nextInt(10);
+                int offset;
+                if (roll < 5) {
+                    ByteArrayOutputStream set = new ByteArrayOutputStream();
+                    set.write(10 + random.nextInt(16));
+                    writeEncounterSlots(set);
+                    if (random.nextInt(6) == 0) {
+                        set.write(5 + random.nextInt(5));
+                        writeEncounterSlots(set);
+                    } else {
+                        set.write(0);
+                    }
+                    offset = allocateInBank(set.toByteArray(), bank);
+                } else if (roll < 7) {
+                    offset = previous;
+                } else {
+                    offset = emptyTable;
+                }
+                previous = offset;
+                image.putWord(table + map * 2, pointer(offset));
+            }
+            image.putWord(table + mapCount * 2, Gen1Constants.encounterTableEnd);
+
+            int oldRod = section.value("OldRodOffset");
+            image.put(oldRod, 0x3E);
+            image.put(oldRod + 1, internal(randomSpecies()));
+            image.put(oldRod + 2, 5);
+            int goodRod = section.value("GoodRodOffset");
+            for (int slot = 0; slot < 2; slot++) {
+                image.put(goodRod + slot * 2, 10);
+                image.put(goodRod + slot * 2 + 1, internal(randomSpecies()));
+            }
+
+            int setOffset = 0;
+            for (int i = 0; i < superRodMaps; i++) {
+                if (i == 0 || random.nextInt(3) != 0) {
+                    byte[] set = new byte[9];
+                    set[0] = 4;
+                    for (int slot = 0; slot < 4; slot++) {
+                        set[1 + slot * 2] = (byte) (15 + random.nextInt(25));
+                        set[2 + slot * 2] = (byte) internal(randomSpecies());
+                    }
+                    setOffset = allocateInBank(set, bankOf(superRodTable));
+                }
+                image.put(superRodTable + i * 3, random.nextInt(mapCount));
+                image.putWord(superRodTable + i * 3 + 1, pointer(setOffset));
+            }
+            image.put(superRodTable + superRodMaps * 3, 0xFF);
+        }
+
+        private void writeEncounterSlots(ByteArrayOutputStream set) {
+            for (int slot = 0; slot < Gen1Constants.encounterTableSize; slot++) {
+                set.write(randomLevel());
+                set.write(internal(randomSpecies()));
+            }
+        }
+
+        // Trainers of each class one after another, as many as TrainerDataClassCounts expects
+        private void writeTrainers() {
+            int table = section.value("TrainerDataTableOffset");
+            int bank = bankOf(table);
+            int[] classCounts = section.array("TrainerDataClassCounts");
+            int[] classNameOffsets = section.array("TrainerClassNamesOffsets");
+            int classNames = classNameOffsets[classNameOffsets.length - 1];
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < Gen1Constants.trainerClassCount; i++) {
+                names.add(shortName(4, 10));
+            }
+            image.reserve(table, Gen1Constants.trainerClassCount * 2);
+            putTextList(classNames, names);
+
+            for (int trainerClass = 1; trainerClass <= Gen1Constants.trainerClassCount; trainerClass++) {
+                ByteArrayOutputStream trainers = new ByteArrayOutputStream();
+                for (int trainer = 0; trainer < classCounts[trainerClass]; trainer++) {
+                    int partySize = 1 + random.nextInt(4);
+                    if (random.nextInt(4) == 0) {
+                        trainers.write(0xFF);
+                        for (int i = 0; i < partySize; i++) {
+                            trainers.write(randomLevel());
+                            trainers.write(internal(randomSpecies()));
+                        }
+                    } else {
+                        trainers.write(randomLevel());
+                        for (int i = 0; i < partySize; i++) {
+                            trainers.write(internal(randomSpecies()));
+                        }
+                    }
+                    trainers.write(0);
+                }
+                // classes without trainers still get a pointer
+                trainers.write(0);
+                int offset = allocateInBank(trainers.toByteArray(), bank);
+                image.putWord(table + (trainerClass - 1) * 2, pointer(offset));
+            }
+        }
+
+        private void writeStartersAndStatics() {
+            for (int i = 1; i <= 3; i++) {
+                SpeciesData starter = starter(i);
+                for (int offset : section.array("StarterOffsets" + i)) {
+                    image.put(offset, internal(starter));
+                }
+            }
+            writeStatics(section.statics("StaticPokemon"));
+            writeStatics(section.statics("StaticPokemonGhostMarowak"));
+        }
+
+        // The first three species that have two evolutions
+        private SpeciesData starter(int which) {
+            int found = 0;
+            for (int dex = 1; dex < species.length; dex++) {
+                SpeciesData sp = species[dex];
+                if (sp.evolvesTo != 0 && species[sp.evolvesTo].evolvesTo != 0 && ++found == which) {
+                    return sp;
+                }
+            }
+            return species[which];
+        }
+
+        private void writeStatics(List<int[][]> statics) {
+            for (int[][] entry : statics) {
+                SpeciesData sp = randomSpecies();
+                for (int offset : entry[0]) {
+                    image.put(offset, internal(sp));
+                }
+                for (int offset : entry[1]) {
+                    image.put(offset, randomLevel());
+                }
+            }
+        }
+    }
+
+    private static class Gen2Builder extends GBBuilder {
+        private static final int itemCount = 256, moveNameBank = 0x6C;
+
+        // [group][map] pairs of the maps, both counted from 1 as the encounter tables use them
+        private final List<int[]> maps = new ArrayList<>();
+
+        Gen2Builder(int size) {
+            super("gen2_offsets.ini", "Gold (U)", 2, size);
+        }
+
+        @Override
+        byte[] build() {
+            image.putBytes(GBConstants.romSigOffset, "POKEMON_GLD".getBytes(StandardCharsets.US_ASCII));
+            putAscii(GBConstants.romCodeOffset, section.string("Game"));
+            image.put(GBConstants.jpFlagOffset, section.value("NonJapanese"));
+            image.put(GBConstants.versionOffset, section.value("Version"));
+
+            createSpecies(Gen2Constants.pokemonCount, Gen2Constants.typeTable, Gen2Constants.moveCount, 9, 1,
+                    itemCount - 1);
+            writePokemon();
+            writeMoves();
+            writeNames();
+            writeMovesetsAndEvolutions();
+            writeMaps();
+            writeWildPokemon();
+            writeTrainers();
+            writeStartersAndStatics();
+            return image.data;
+        }
+
+        private void writePokemon() {
+            int names = section.value("PokemonNamesOffset");
+            int nameLength = section.value("PokemonNamesLength");
+            int stats = section.value("PokemonStatsOffset");
+            for (int dex = 1; dex < species.length; dex++) {
+                SpeciesData sp = species[dex];
+                putFixedLengthText(names + (dex - 1) * nameLength, sp.name, nameLength);
+                int offset = stats + (dex - 1) * Gen2Constants.baseStatsEntrySize;
+                image.putFixedLength(offset, new byte[0], Gen2Constants.baseStatsEntrySize, 0);
+                image.put(offset, dex);
+                image.put(offset + Gen2Constants.bsHPOffset, sp.hp);
+                image.put(offset + Gen2Constants.bsAttackOffset, sp.attack);
+                image.put(offset + Gen2Constants.bsDefenseOffset, sp.defense);
+                image.put(offset + Gen2Constants.bsSpeedOffset, sp.speed);
+                image.put(offset + Gen2Constants.bsSpAtkOffset, sp.spatk);
+                image.put(offset + Gen2Constants.bsSpDefOffset, sp.spdef);
+                image.put(offset + Gen2Constants.bsPrimaryTypeOffset, sp.primaryType);
+                image.put(offset + Gen2Constants.bsSecondaryTypeOffset, sp.secondaryType);
+                image.put(offset + Gen2Constants.bsCatchRateOffset, sp.catchRate);
+                image.put(offset + Gen2Constants.bsCatchRateOffset + 1, sp.expYield);
+                image.put(offset + Gen2Constants.bsCommonHeldItemOffset, sp.heldItem);
+                image.put(offset + Gen2Constants.bsRareHeldItemOffset, sp.heldItem);
+                image.put(offset + Gen2Constants.bsRareHeldItemOffset + 1, sp.genderRatio);
+                image.put(offset + Gen2Constants.bsPicDimensionsOffset, 0x55 + 0x11 * random.nextInt(3));
+                image.put(offset + Gen2Constants.bsGrowthCurveOffset, sp.growthCurve);
+            }
+        }
+
+        private void writeMoves() {
+            int[] types = new int[species.length - 1];
+            for (int dex = 1; dex < species.length; dex++) {
+                types[dex - 1] = species[dex].primaryType;
+            }
+            int moveData = section.value("MoveDataOffset");
+            for (int move = 1; move <= Gen2Constants.moveCount; move++) {
+                int offset = moveData + (move - 1) * 7;
+                boolean status = random.nextInt(4) == 0;
+                image.put(offset, move);
+                image.put(offset + 1, status ? 1 + random.nextInt(0x10) : 0);
+                image.put(offset + 2, status ? 0 : 20 + 5 * random.nextInt(20));
+                image.put(offset + 3, types[random.nextInt(types.length)]);
+                image.put(offset + 4, 0xB2 + random.nextInt(0x4E));
+                image.put(offset + 5, 5 * (1 + random.nextInt(8)));
+                image.put(offset + 6, 0);
+            }
+            List<String> moveNames = new ArrayList<>();
+            for (int move = 1; move <= Gen2Constants.moveCount; move++) {
+                moveNames.add(shortName(4, 12));
+            }
+            putTextList(section.value("MoveNamesOffset"), moveNames);
+        }
+
+        private void writeNames() {
+            // both lists have to fit in front of whatever comes after them
+            List<String> itemNames = new ArrayList<>();
+            for (int item = 0; item < itemCount; item++) {
+                itemNames.add(shortName(3, 7));
+            }
+            int itemNamesEnd = putTextList(section.value("ItemNamesOffset"), itemNames);
+            List<String> classNames = new ArrayList<>();
+            for (int i = 0; i < section.value("TrainerClassAmount"); i++) {
+                classNames.add(shortName(3, 6));
+            }
+            int classNamesOffset = section.value("TrainerClassNamesOffset");
+            int classNamesEnd = putTextList(classNamesOffset, classNames);
+            if (itemNamesEnd > classNamesOffset || classNamesEnd > section.value("PokemonNamesOffset")) {
+                throw new IllegalStateException("Name lists overlap");
+            }
+        }
+
+        // Like Gen 1 but without a data size: the save rewrites everything from the table to the
+        // end of its bank
+        private void writeMovesetsAndEvolutions() {
+            int table = section.value("PokemonMovesetsTableOffset");
+            int bank = bankOf(table);
+            int bankEnd = (bank + 1) * GBConstants.bankSize;
+            image.reserve(table, Gen2Constants.pokemonCount * 2);
+            for (int dex = 1; dex < species.length; dex++) {
+                SpeciesData sp = species[dex];
+                ByteArrayOutputStream entry = new ByteArrayOutputStream();
+                if (sp.evolvesTo != 0) {
+                    entry.write(EvolutionType.LEVEL.toIndex(2));
+                    entry.write(sp.evolutionLevel);
+                    entry.write(sp.evolvesTo);
+                }
+                entry.write(0);
+                for (int[] move : sp.moves) {
+                    entry.write(move[0]);
+                    entry.write(move[1]);
+                }
+                entry.write(0);
+                int offset = image.allocate(entry.toByteArray(), table, bankEnd, 1);
+                image.putWord(table + (dex - 1) * 2, pointer(offset));
+            }
+            image.reserve(table, bankEnd - table);
+        }
+
+        // Landmarks, then map groups whose headers are packed back to back in the header bank, each
+        // map with a second header and an event header holding warps, signs, hidden items and people
+        private void writeMaps() {
+            int landmarkTable = section.value("LandmarkTableOffset");
+            int landmarkCount = section.value("LandmarkCount");
+            int landmarkBank = bankOf(landmarkTable);
+            image.reserve(landmarkTable, landmarkCount * 4);
+            for (int i = 0; i < landmarkCount; i++) {
+                int name = allocateInBank(text(uniqueName(10)), landmarkBank);
+                image.put(landmarkTable + i * 4, random.nextInt(160));
+                image.put(landmarkTable + i * 4 + 1, random.nextInt(144));
+                image.putWord(landmarkTable + i * 4 + 2, pointer(name));
+            }
+
+            int groupTable = section.value("MapHeaders");
+            int headerBank = bankOf(groupTable);
+            int[] groupSizes = new int[Gen2Constants.mapGroupCount];
+            int mapTotal = 0;
+            for (int group = 0; group < groupSizes.length; group++) {
+                groupSizes[group] = group == groupSizes.length - 1 ? Gen2Constants.mapsInLastGroup
+                        : 4 + random.nextInt(20);
+                mapTotal += groupSizes[group];
+            }
+            image.reserve(groupTable, groupSizes.length * 2);
+            int headers = allocateInBank(mapTotal * 9, headerBank);
+            int offset = headers;
+            for (int group = 0; group < groupSizes.length; group++) {
+                image.putWord(groupTable + group * 2, pointer(offset));
+                for (int map = 0; map < groupSizes[group]; map++) {
+                    int second = writeMapScripts();
+                    image.put(offset, bankOf(second));
+                    image.put(offset + 1, 1 + random.nextInt(0x1C));
+                    image.put(offset + 2, 1 + random.nextInt(6));
+                    image.putWord(offset + 3, pointer(second));
+                    image.put(offset + 5, random.nextInt(landmarkCount));
+                    image.put(offset + 6, random.nextInt(0x40));
+                    image.put(offset + 7, random.nextInt(0x10));
+                    image.put(offset + 8, random.nextInt(12) + 1);
+                    maps.add(new int[] { group + 1, map + 1 });
+                    offset += 9;
+                }
+            }
+        }
+
+        // The second map header and event header of one map, in the same bank; returns the former
+        private int writeMapScripts() {
+            ByteArrayOutputStream events = new ByteArrayOutputStream();
+            events.write(0);
+            events.write(0);
+            int warps = 1 + random.nextInt(4);
+            events.write(warps);
+            for (int i = 0; i < warps * 5; i++) {
+                events.write(random.nextInt(32));
+            }
+            int triggers = random.nextInt(2);
+            events.write(triggers);
+            for (int i = 0; i < triggers * 8; i++) {
+                events.write(random.nextInt(32));
+            }
+            int signposts = random.nextInt(4);
+            events.write(signposts);
+            List<Integer> hiddenItems = new ArrayList<>();
+            for (int i = 0; i < signposts; i++) {
+                boolean hiddenItem = random.nextInt(3) == 0;
+                events.write(random.nextInt(32));
+                events.write(random.nextInt(32));
+                events.write(hiddenItem ? 7 : 0);
+                if (hiddenItem) {
+                    hiddenItems.add(events.size());
+                }
+                events.write(0);
+                events.write(0);
+            }
+            int people = random.nextInt(6);
+            events.write(people);
+            List<Integer> itemBalls = new ArrayList<>();
+            for (int p = 0; p < people; p++) {
+                boolean itemBall = random.nextInt(3) == 0;
+                for (int i = 0; i < 13; i++) {
+                    if (i == 7) {
+                        events.write(itemBall ? 1 : 0);
+                    } else if (i == 9 && itemBall) {
+                        itemBalls.add(events.size());
+                        events.write(0);
+                    } else if (i == 10 && itemBall) {
+                        events.write(0);
+                    } else {
+                        events.write(random.nextInt(32));
+                    }
+                }
+            }
+
+            byte[] eventBytes = events.toByteArray();
+            int total = 12 + eventBytes.length + hiddenItems.size() * 3 + itemBalls.size() * 2;
+            int second = allocateInBanks(total, 0x30, 0x3F);
+            int eventHeader = second + 12;
+            int itemData = eventHeader + eventBytes.length;
+            for (int at : hiddenItems) {
+                image.put(itemData, random.nextInt(256));
+                image.put(itemData + 1, random.nextInt(8));
+                image.put(itemData + 2, 1 + random.nextInt(itemCount - 1));
+                eventBytes[at] = (byte) pointer(itemData);
+                eventBytes[at + 1] = (byte) (pointer(itemData) >> 8);
+                itemData += 3;
+            }
+            for (int at : itemBalls) {
+                image.put(itemData, 1 + random.nextInt(itemCount - 1));
+                image.put(itemData + 1, 1);
+                eventBytes[at] = (byte) pointer(itemData);
+                eventBytes[at + 1] = (byte) (pointer(itemData) >> 8);
+                itemData += 2;
+            }
+            image.putBytes(eventHeader, eventBytes);
+
+            image.put(second, random.nextInt(0x20));
+            image.put(second + 1, 4 + random.nextInt(20));
+            image.put(second + 2, 4 + random.nextInt(20));
+            image.put(second + 3, random.nextInt(0x80));
+            image.putWord(second + 4, 0x4000 + random.nextInt(0x4000));
+            image.put(second + 6, bankOf(second));
+            image.putWord(second + 7, 0x4000 + random.nextInt(0x4000));
+            image.putWord(second + 9, pointer(eventHeader));
+            image.put(second + 11, 0);
+            return second;
+        }
+
+        // Johto, Kanto and special land and sea tables back to back, then fishing, headbutt and
+        // the Bug Catching Contest
+        private void writeWildPokemon() {
+            int offset = section.value("WildPokemonOffset");
+            int[] tableSizes = new int[] { 60 + random.nextInt(20), 20 + random.nextInt(10), 40 + random.nextInt(10),
+                    15 + random.nextInt(8), 2 + random.nextInt(3), 1 + random.nextInt(2) };
+            for (int list = 0; list < tableSizes.length; list++) {
+                boolean land = list % 2 == 0;
+                for (int i = 0; i < tableSizes[list]; i++) {
+                    int[] map = maps.get(random.nextInt(maps.size()));
+                    image.put(offset, map[0]);
+                    image.put(offset + 1, map[1]);
+                    if (land) {
+                        for (int time = 0; time < 3; time++) {
+                            image.put(offset + 2 + time, 5 + random.nextInt(20));
+                        }
+                        offset += 5;
+                        for (int slot = 0; slot < 3 * Gen2Constants.landEncounterSlots; slot++) {
+                            image.put(offset++, randomLevel());
+                            image.put(offset++, randomSpecies().number);
+                        }
+                    } else {
+                        image.put(offset + 2, 2 + random.nextInt(8));
+                        offset += 3;
+                        for (int slot = 0; slot < Gen2Constants.seaEncounterSlots; slot++) {
+                            image.put(offset++, randomLevel());
+                            image.put(offset++, randomSpecies().number);
+                        }
+                    }
+                }
+                image.put(offset++, 0xFF);
+            }
+
+            offset = section.value("FishingWildsOffset");
+            for (int group = 0; group < Gen2Constants.fishingGroupCount; group++) {
+                int rate = 0;
+                for (int i = 0; i < Gen2Constants.pokesPerFishingGroup; i++) {
+                    rate = Math.min(0xFF, rate + 1 + random.nextInt(40));
+                    image.put(offset++, i == Gen2Constants.pokesPerFishingGroup - 1 ? 0xFF : rate);
+                    image.put(offset++, randomSpecies().number);
+                    image.put(offset++, randomLevel());
+                }
+            }
+
+            offset = section.value("HeadbuttWildsOffset");
+            for (int set = 0; set < section.value("HeadbuttTableSize"); set++) {
+                int slots = 4 + random.nextInt(4);
+                for (int i = 0; i < slots; i++) {
+                    image.put(offset++, 5 + random.nextInt(20));
+                    image.put(offset++, randomSpecies().number);
+                    image.put(offset++, randomLevel());
+                }
+                image.put(offset++, 0xFF);
+            }
+
+            offset = section.value("BCCWildsOffset");
+            for (int i = 0; i < 10; i++) {
+                int level = randomLevel();
+                image.put(offset++, 5 + random.nextInt(20));
+                image.put(offset++, randomSpecies().number);
+                image.put(offset++, level);
+                image.put(offset++, level + random.nextInt(4));
+            }
+            image.put(offset, 0xFF);
+        }
+
+        // Named trainers with any of the four party layouts, class after class
+        private void writeTrainers() {
+            int table = section.value("TrainerDataTableOffset");
+            int bank = bankOf(table);
+            int classCount = section.value("TrainerClassAmount");
+            int[] classCounts = section.array("TrainerDataClassCounts");
+            image.reserve(table, classCount * 2);
+            for (int trainerClass = 0; trainerClass < classCount; trainerClass++) {
+                ByteArrayOutputStream trainers = new ByteArrayOutputStream();
+                for (int trainer = 0; trainer < classCounts[trainerClass]; trainer++) {
+                    byte[] name = text(shortName(3, 7));
+                    trainers.write(name, 0, name.length);
+                    int dataType = random.nextInt(5) == 0 ? 1 + random.nextInt(3) : 0;
+                    trainers.write(dataType);
+                    int partySize = 1 + random.nextInt(random.nextInt(6) + 1);
+                    for (int i = 0; i < partySize; i++) {
+                        SpeciesData sp = randomSpecies();
+                        trainers.write(randomLevel());
+                        trainers.write(sp.number);
+                        if ((dataType & 2) == 2) {
+                            trainers.write(random.nextInt(itemCount));
+                        }
+                        if ((dataType & 1) == 1) {
+                            for (int move = 0; move < 4; move++) {
+                                trainers.write(move < sp.moves.size() ? sp.moves.get(move)[1] : 0);
+                            }
+                        }
+                    }
+                    trainers.write(0xFF);
+                }
+                if (trainers.size() == 0) {
+                    trainers.write(0xFF);
+                }
+                int offset = allocateInBank(trainers.toByteArray(), bank);
+                image.putWord(table + trainerClass * 2, pointer(offset));
+            }
+        }
+
+        private void writeStartersAndStatics() {
+            for (int i = 1; i <= 3; i++) {
+                SpeciesData starter = species[1 + (i - 1) * 3];
+                for (int offset : section.array("StarterOffsets" + i)) {
+                    image.put(offset, starter.number);
+                }
+            }
+            for (int offset : section.array("StarterHeldItems")) {
+                image.put(offset, 1 + random.nextInt(itemCount - 1));
+            }
+            for (int[][] entry : section.statics("StaticPokemon")) {
+                SpeciesData sp = randomSpecies();
+                for (int offset : entry[0]) {
+                    image.put(offset, sp.number);
+                }
+                for (int offset : entry[1]) {
+                    image.put(offset, randomLevel());
+                }
+            }
+            // the last "species" of a Game Corner prize is the name shown in the menu
+            int nameLength = section.value("GameCornerPokemonNameLength");
+            for (int[][] entry : section.statics("StaticPokemonGameCorner")) {
+                SpeciesData sp = randomSpecies();
+                for (int i = 0; i < entry[0].length - 1; i++) {
+                    image.put(entry[0][i], sp.number);
+                }
+                StringBuilder paddedName = new StringBuilder(sp.name);
+                while (paddedName.length() < nameLength - 1) {
+                    paddedName.append(' ');
+                }
+                putFixedLengthText(entry[0][entry[0].length - 1], paddedName.toString(), nameLength);
+                for (int offset : entry[1]) {
+                    image.put(offset, randomLevel());
+                }
+            }
+
+            byte[] evoLocator = Gen2Constants.friendshipValueForEvoLocator.bytes();
+            int locator = allocateInBanks(evoLocator.length + 1, 0x10, 0x10);
+            image.putBytes(locator, evoLocator);
+            image.put(locator + evoLocator.length, 220);
+        }
+    }
+
+    private static class Gen3Builder extends Builder {
+        private static final int mapBankCount = 34, mapLabelCount = 213;
+        private static final int codeStart = 0x1000, codeEnd = 0x200000;
+
+        private final int dataStart, dataEnd;
+        private int internalCount;
+        private int[] dexToInternal;
+        private final List<int[]> maps = new ArrayList<>();
+
+        Gen3Builder(int size) {
+            super("gen3_offsets.ini", "Emerald (U)", 3, size, gbaMaxRomSize);
+            // the vanilla game's own data sits below its free space; expanded images keep theirs above
+            // the first 16 MB, where hacks repoint tables to
+            int freeSpace = section.value("FreeSpace");
+            if (size > gbaVanillaRomSize) {
+                dataStart = gbaVanillaRomSize;
+                dataEnd = size;
+            } else {
+                dataStart = 0x700000;
+                dataEnd = freeSpace;
+            }
+            image.fill(freeSpace, Math.min(gbaVanillaRomSize, size) - freeSpace, 0xFF);
+        }
+
+        @Override
+        byte[] build() {
+            putAscii(0xA0, "POKEMON EMER");
+            putAscii(0xAC, section.string("Game"));
+            putAscii(0xB0, "01");
+            image.put(0xB2, 0x96);
+            image.put(0xBC, section.value("Version"));
+
+            internalCount = section.value("PokemonCount");
+            createSpecies(Gen3Constants.unhackedRealPokedex, Gen3Constants.typeTable, section.value("MoveCount"), 12,
+                    Gen3Constants.highestAbilityIndex, section.value("ItemCount"));
+            writePokemon();
+            writeMovesetsAndEvolutions();
+            writeMovesItemsAndAbilities();
+            writeMaps();
+            writeWildPokemon();
+            writeTrainers();
+            writeStartersAndStatics();
+            return image.data;
+        }
+
+        private int allocate(int length) {
+            return image.allocate(length, dataStart, dataEnd, 4);
+        }
+
+        private int allocate(byte[] bytes) {
+            return image.allocate(bytes, dataStart, dataEnd, 4);
+        }
+
+        private void putPointer(int offset, int target) {
+            image.putLong(offset, target + gbaRomBase);
+        }
+
+        // A code pattern the handler searches for, followed by the pointer it is after
+        private void putPointerAfter(SearchPattern prefix, int target) {
+            byte[] code = prefix.bytes();
+            int offset = image.allocate(code.length + 4, codeStart, codeEnd, 4);
+            image.putBytes(offset, code);
+            putPointer(offset + code.length, target);
+        }
+
+        private static byte[] text(String text) {
+            byte[] encoded = new byte[text.length() + 1];
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                encoded[i] = (byte) (c == ' ' ? 0x00 : 0xBB + (c - 'A'));
+            }
+            encoded[text.length()] = (byte) Gen3Constants.textTerminator;
+            return encoded;
+        }
+
+        private void putFixedLengthText(int offset, String text, int length) {
+            image.putFixedLength(offset, text(text), length, Gen3Constants.textTerminator);
+        }
+
+        private int internal(SpeciesData sp) {
+            return dexToInternal[sp.number];
+        }
+
+        /**
+         * Internal ids follow the real games: Kanto and Johto first, then 25 unused slots that are
+         * numbered 387-411 in the dex order, then Hoenn. The handler relies on that last dex number
+         * to recognise an unhacked ROM.
+         */
+        private void writePokemon() {
+            int placeholders = Gen3Constants.unhackedMaxPokedex - Gen3Constants.unhackedRealPokedex;
+            int hoennStart = Gen3Constants.hoennPokesStart;
+            dexToInternal = new int[species.length];
+            int[] internalToDex = new int[internalCount + 1];
+            for (int i = 1; i <= internalCount; i++) {
+                if (i < hoennStart) {
+                    internalToDex[i] = i;
+                } else if (i < hoennStart + placeholders) {
+                    internalToDex[i] = Gen3Constants.unhackedRealPokedex + 1 + (i - hoennStart);
+                } else {
+                    internalToDex[i] = i - placeholders;
+                }
+                if (internalToDex[i] < species.length) {
+                    dexToInternal[internalToDex[i]] = i;
+                }
+            }
+
+            int dexOrder = allocate(internalCount * 2);
+            for (int i = 1; i <= internalCount; i++) {
+                image.putWord(dexOrder + (i - 1) * 2, internalToDex[i]);
+            }
+            putPointerAfter(Gen3Constants.pokedexOrderPointerPrefix, allocate(internalCount * 2));
+            putPointerAfter(Gen3Constants.pokedexOrderPointerPrefix, dexOrder);
+
+            int nameLength = section.value("PokemonNameLength");
+            int names = allocate((internalCount + 1) * nameLength);
+            int stats = allocate((internalCount + 1) * Gen3Constants.baseStatsEntrySize);
+            int frontSprites = allocate((internalCount + 1) * 8);
+            int palettes = allocate((internalCount + 1) * 8);
+            putPointer(Gen3Constants.efrlgPokemonNamesPointer, names);
+            putPointer(Gen3Constants.efrlgPokemonStatsPointer, stats);
+            putPointer(Gen3Constants.efrlgFrontSpritesPointer, frontSprites);
+            putPointer(Gen3Constants.efrlgPokemonPalettesPointer, palettes);
+            SpeciesData placeholder = new SpeciesData();
+            placeholder.name = "";
+            placeholder.hp = placeholder.attack = placeholder.defense = placeholder.speed = 50;
+            placeholder.spatk = placeholder.spdef = 50;
+            for (int i = 0; i <= internalCount; i++) {
+                SpeciesData sp = internalToDex[i] > 0 && internalToDex[i] < species.length ? species[internalToDex[i]]
+                        : placeholder;
+                putFixedLengthText(names + i * nameLength, i == 0 ? "" : sp.name, nameLength);
+                int offset = stats + i * Gen3Constants.baseStatsEntrySize;
+                image.putFixedLength(offset, new byte[0], Gen3Constants.baseStatsEntrySize, 0);
+                image.put(offset + Gen3Constants.bsHPOffset, sp.hp);
+                image.put(offset + Gen3Constants.bsAttackOffset, sp.attack);
+                image.put(offset + Gen3Constants.bsDefenseOffset, sp.defense);
+                image.put(offset + Gen3Constants.bsSpeedOffset, sp.speed);
+                image.put(offset + Gen3Constants.bsSpAtkOffset, sp.spatk);
+                image.put(offset + Gen3Constants.bsSpDefOffset, sp.spdef);
+                image.put(offset + Gen3Constants.bsPrimaryTypeOffset, sp.primaryType);
+                image.put(offset + Gen3Constants.bsSecondaryTypeOffset, sp.secondaryType);
+                image.put(offset + Gen3Constants.bsCatchRateOffset, sp.catchRate);
+                image.put(offset + Gen3Constants.bsCatchRateOffset + 1, sp.expYield);
+                image.putWord(offset + Gen3Constants.bsCommonHeldItemOffset, sp.heldItem);
+                image.putWord(offset + Gen3Constants.bsRareHeldItemOffset, sp.heldItem);
+                image.put(offset + Gen3Constants.bsGenderRatioOffset, sp.genderRatio);
+                image.put(offset + Gen3Constants.bsGrowthCurveOffset, sp.growthCurve);
+                image.put(offset + Gen3Constants.bsAbility1Offset, sp.ability1);
+                image.put(offset + Gen3Constants.bsAbility2Offset, sp.ability2);
+                putPointer(frontSprites + i * 8, dataStart);
+                putPointer(palettes + i * 8, dataStart);
+            }
+
+            // Deoxys' forme stats, and the obedience checks that setting statics patches
+            SpeciesData deoxys = species[Species.deoxys];
+            byte[] deoxysStatPrefix = SearchPattern.compile(section.string("DeoxysStatPrefix")).bytes();
+            int deoxysStats = image.allocate(deoxysStatPrefix.length + 12, codeStart, codeEnd, 4);
+            image.putBytes(deoxysStats, deoxysStatPrefix);
+            int[] formeStats = new int[] { deoxys.hp, deoxys.attack, deoxys.defense, deoxys.speed, deoxys.spatk,
+                    deoxys.spdef };
+            for (int i = 0; i < formeStats.length; i++) {
+                image.putWord(deoxysStats + deoxysStatPrefix.length + i * 2, formeStats[i]);
+            }
+            byte[] obeyCode = Gen3Constants.deoxysObeyCode.bytes();
+            int obey = image.allocate(Gen3Constants.mewObeyOffsetFromDeoxysObey + 2, codeStart, codeEnd, 4);
+            image.putBytes(obey, obeyCode);
+            image.putWord(obey + Gen3Constants.mewObeyOffsetFromDeoxysObey,
+                    ((Gen3Constants.gbaCmpRxOpcode | Gen3Constants.gbaR0) << 8) | Species.mew);
+        }
+
+        private void writeMovesetsAndEvolutions() {
+            int movesets = section.value("PokemonMovesets");
+            int evolutions = section.value("PokemonEvolutions");
+            image.reserve(movesets, (internalCount + 1) * 4);
+            image.reserve(evolutions, (internalCount + 1) * 0x28);
+            int emptyMoveset = allocate(new byte[] { (byte) 0xFF, (byte) 0xFF });
+            for (int i = 0; i <= internalCount; i++) {
+                image.putFixedLength(evolutions + i * 0x28, new byte[0], 0x28, 0);
+                putPointer(movesets + i * 4, emptyMoveset);
+            }
+            for (int dex = 1; dex < species.length; dex++) {
+                SpeciesData sp = species[dex];
+                byte[] moves = new byte[sp.moves.size() * 2 + 2];
+                for (int m = 0; m < sp.moves.size(); m++) {
+                    int[] move = sp.moves.get(m);
+                    moves[m * 2] = (byte) move[1];
+                    moves[m * 2 + 1] = (byte) ((move[0] << 1) | (move[1] >> 8));
+                }
+                moves[moves.length - 2] = moves[moves.length - 1] = (byte) 0xFF;
+                putPointer(movesets + internal(sp) * 4, allocate(moves));
+                if (sp.evolvesTo != 0) {
+                    int offset = evolutions + internal(sp) * 0x28;
+                    image.putWord(offset, EvolutionType.LEVEL.toIndex(3));
+                    image.putWord(offset + 2, sp.evolutionLevel);
+                    image.putWord(offset + 4, internal(species[sp.evolvesTo]));
+                }
+            }
+        }
+
+        private void writeMovesItemsAndAbilities() {
+            int moveCount = section.value("MoveCount");
+            int moveNameLength = section.value("MoveNameLength");
+            int moveNames = allocate((moveCount + 1) * moveNameLength);
+            int moveData = allocate((moveCount + 1) * 12);
+            putPointer(Gen3Constants.efrlgMoveNamesPointer, moveNames);
+            putPointer(Gen3Constants.efrlgMoveDataPointer, moveData);
+            for (int move = 0; move <= moveCount; move++) {
+                putFixedLengthText(moveNames + move * moveNameLength, shortName(4, moveNameLength - 1),
+                        moveNameLength);
+                int offset = moveData + move * 12;
+                boolean status = random.nextInt(4) == 0;
+                image.putFixedLength(offset, new byte[0], 12, 0);
+                image.put(offset, status ? 1 + random.nextInt(0x10) : 0);
+                image.put(offset + 1, status ? 0 : 20 + 5 * random.nextInt(20));
+                image.put(offset + 2, species[1 + random.nextInt(species.length - 1)].primaryType);
+                image.put(offset + 3, 70 + random.nextInt(31));
+                image.put(offset + 4, 5 * (1 + random.nextInt(8)));
+            }
+
+            int itemCount = section.value("ItemCount");
+            int itemSize = section.value("ItemEntrySize");
+            int items = allocate((itemCount + 1) * itemSize);
+            putPointer(Gen3Constants.efrlgItemDataPointer, items);
+            for (int item = 0; item <= itemCount; item++) {
+                int offset = items + item * itemSize;
+                image.putFixedLength(offset, new byte[0], itemSize, 0);
+                putFixedLengthText(offset, shortName(3, 12), 14);
+                image.putWord(offset + 14, item);
+                image.putWord(offset + 16, 100 * random.nextInt(30));
+            }
+
+            int abilityNameLength = section.value("AbilityNameLength");
+            int abilities = allocate((Gen3Constants.highestAbilityIndex + 1) * abilityNameLength);
+            putPointer(Gen3Constants.efrlgAbilityNamesPointer, abilities);
+            for (int ability = 0; ability <= Gen3Constants.highestAbilityIndex; ability++) {
+                putFixedLengthText(abilities + ability * abilityNameLength, shortName(4, abilityNameLength - 1),
+                        abilityNameLength);
+            }
+        }
+
+        /**
+         * Map banks as the handler sizes them: each bank's list of header pointers runs up to the
+         * next list, and the last one up to the bank table itself. Every map has events with
+         * people (some of them item balls) and signposts (some of them hidden items).
+         */
+        private void writeMaps() {
+            int[] bankSizes = new int[mapBankCount];
+            int mapTotal = 0;
+            for (int bank = 0; bank < mapBankCount; bank++) {
+                bankSizes[bank] = 1 + random.nextInt(random.nextInt(40) + 2);
+                mapTotal += bankSizes[bank];
+            }
+            int lists = allocate(mapTotal * 4 + (mapBankCount + 1) * 4);
+            int bankTable = lists + mapTotal * 4;
+            image.putLong(bankTable + mapBankCount * 4, 0);
+
+            int labels = allocate(mapLabelCount * 8);
+            for (int label = 0; label < mapLabelCount; label++) {
+                image.putLong(labels + label * 8, random.nextInt());
+                putPointer(labels + label * 8 + 4, allocate(text(uniqueName(12))));
+            }
+
+            int itemBall = section.value("ItemBallPic");
+            int plainScript = allocate(new byte[] { 0x0F, 0x00, 0x00, 0x00, 0x00, 0x08, 0x09, 0x02, 0x02 });
+            int list = lists;
+            for (int bank = 0; bank < mapBankCount; bank++) {
+                putPointer(bankTable + bank * 4, list);
+                for (int map = 0; map < bankSizes[bank]; map++) {
+                    int header = allocate(0x1C);
+                    image.putFixedLength(header, new byte[0], 0x1C, 0);
+                    image.putLong(header, 0);
+                    putPointer(header + 4, writeMapEvents(itemBall, plainScript));
+                    image.putWord(header + 0x10, 0x100 + random.nextInt(0x60));
+                    image.putWord(header + 0x12, 1 + random.nextInt(0x1A0));
+                    image.put(header + 0x14, random.nextInt(mapLabelCount));
+                    image.put(header + 0x16, random.nextInt(0x10));
+                    image.put(header + 0x17, random.nextInt(9));
+                    putPointer(list, header);
+                    maps.add(new int[] { bank, map });
+                    list += 4;
+                }
+            }
+            putPointerAfter(Gen3Constants.mapBanksPointerPrefix, bankTable);
+            putPointerAfter(Gen3Constants.rseMapLabelsPointerPrefix, labels);
+        }
+
+        private int writeMapEvents(int itemBall, int plainScript) {
+            int people = random.nextInt(8);
+            int signposts = random.nextInt(5);
+            int events = allocate(20);
+            image.putFixedLength(events, new byte[0], 20, 0);
+            image.put(events, people);
+            image.put(events + 3, signposts);
+            if (people > 0) {
+                int peopleOffset = allocate(people * 24);
+                putPointer(events + 4, peopleOffset);
+                for (int p = 0; p < people; p++) {
+                    int offset = peopleOffset + p * 24;
+                    boolean isItemBall = random.nextInt(3) == 0;
+                    image.putFixedLength(offset, new byte[0], 24, 0);
+                    image.put(offset, p + 1);
+                    image.put(offset + 1, isItemBall ? itemBall : 1 + random.nextInt(itemBall - 1));
+                    image.putWord(offset + 4, random.nextInt(40));
+                    image.putWord(offset + 6, random.nextInt(40));
+                    int script = plainScript;
+                    if (isItemBall) {
+                        // giveitem: setvar 0x8000 item, setvar 0x8001 1, callstd 1
+                        int item = 1 + random.nextInt(section.value("ItemCount") - 1);
+                        script = allocate(new byte[] { 0x1A, 0x00, (byte) 0x80, (byte) item, (byte) (item >> 8), 0x1A,
+                                0x01, (byte) 0x80, 0x01, 0x00, 0x09, 0x01, 0x02 });
+                    }
+                    putPointer(offset + 16, script);
+                }
+            }
+            if (signposts > 0) {
+                int signOffset = allocate(signposts * 12);
+                putPointer(events + 16, signOffset);
+                for (int sp = 0; sp < signposts; sp++) {
+                    int offset = signOffset + sp * 12;
+                    boolean hiddenItem = random.nextBoolean();
+                    image.putWord(offset, random.nextInt(40));
+                    image.putWord(offset + 2, random.nextInt(40));
+                    image.put(offset + 4, 3);
+                    image.put(offset + 5, hiddenItem ? 7 : 0);
+                    image.putWord(offset + 6, 0);
+                    if (hiddenItem) {
+                        image.putWord(offset + 8, 1 + random.nextInt(section.value("ItemCount") - 1));
+                        image.putWord(offset + 10, 0x1F4 + random.nextInt(0x60));
+                    } else {
+                        putPointer(offset + 8, plainScript);
+                    }
+                }
+            }
+            return events;
+        }
+
+        // Maps with grass, surfing, rock smash and fishing areas; areas are sometimes shared
+        private void writeWildPokemon() {
+            int[] slots = new int[] { Gen3Constants.grassSlots, Gen3Constants.surfingSlots,
+                    Gen3Constants.rockSmashSlots, Gen3Constants.fishingSlots };
+            int[] odds = new int[] { 3, 5, 12, 6 };
+            int[] lastAreas = new int[slots.length];
+            List<int[]> wildMaps = new ArrayList<>();
+            for (int[] map : maps) {
+                if (random.nextInt(3) == 0) {
+                    wildMaps.add(map);
+                }
+            }
+            int table = allocate((wildMaps.size() + 1) * 20);
+            for (int m = 0; m < wildMaps.size(); m++) {
+                int offset = table + m * 20;
+                image.put(offset, wildMaps.get(m)[0]);
+                image.put(offset + 1, wildMaps.get(m)[1]);
+                image.putWord(offset + 2, 0);
+                for (int kind = 0; kind < slots.length; kind++) {
+                    int area = 0;
+                    if (kind == 0 || random.nextInt(odds[kind]) == 0) {
+                        if (lastAreas[kind] != 0 && random.nextInt(10) == 0) {
+                            area = lastAreas[kind];
+                        } else {
+                            area = writeWildArea(slots[kind]);
+                            lastAreas[kind] = area;
+                        }
+                    }
+                    if (area == 0) {
+                        image.putLong(offset + 4 + kind * 4, 0);
+                    } else {
+                        putPointer(offset + 4 + kind * 4, area);
+                    }
+                }
+            }
+            image.putFixedLength(table + wildMaps.size() * 20, new byte[0], 20, 0);
+            image.put(table + wildMaps.size() * 20, 0xFF);
+            image.put(table + wildMaps.size() * 20 + 1, 0xFF);
+            putPointerAfter(Gen3Constants.wildPokemonPointerPrefix, table);
+        }
+
+        private int writeWildArea(int slots) {
+            int data = allocate(slots * 4);
+            for (int i = 0; i < slots; i++) {
+                int level = randomLevel();
+                image.put(data + i * 4, level);
+                image.put(data + i * 4 + 1, level + random.nextInt(5));
+                image.putWord(data + i * 4 + 2, internal(randomSpecies()));
+            }
+            int area = allocate(8);
+            image.putLong(area, 5 + random.nextInt(20));
+            putPointer(area + 4, data);
+            return area;
+        }
+
+        private void writeTrainers() {
+            int classCount = section.value("TrainerClassCount");
+            int classNameLength = section.value("TrainerClassNameLength");
+            int classNames = section.value("TrainerClassNames");
+            for (int i = 0; i < classCount; i++) {
+                putFixedLengthText(classNames + i * classNameLength, shortName(3, classNameLength - 1),
+                        classNameLength);
+            }
+
+            int trainers = section.value("TrainerData");
+            int entrySize = section.value("TrainerEntrySize");
+            int trainerCount = section.value("TrainerCount");
+            int nameLength = section.value("TrainerNameLength");
+            image.reserve(trainers, trainerCount * entrySize);
+            image.putFixedLength(trainers, new byte[0], entrySize, 0);
+            for (int i = 1; i < trainerCount; i++) {
+                int offset = trainers + i * entrySize;
+                int dataType = random.nextInt(5) == 0 ? 1 + random.nextInt(3) : 0;
+                int partySize = 1 + random.nextInt(random.nextInt(6) + 1);
+                image.putFixedLength(offset, new byte[0], entrySize, 0);
+                image.put(offset, dataType);
+                image.put(offset + 1, random.nextInt(classCount));
+                image.put(offset + 2, random.nextInt(0x100));
+                image.put(offset + 3, random.nextInt(0x50));
+                putFixedLengthText(offset + 4, shortName(3, nameLength - 1), nameLength);
+                image.put(offset + 24, random.nextInt(8) == 0 ? 1 : 0);
+                image.put(offset + 28, random.nextInt(8));
+                image.put(offset + entrySize - 8, partySize);
+
+                int memberSize = (dataType & 1) == 1 ? 16 : 8;
+                int party = allocate(partySize * memberSize);
+                for (int p = 0; p < partySize; p++) {
+                    int member = party + p * memberSize;
+                    SpeciesData sp = randomSpecies();
+                    image.putFixedLength(member, new byte[0], memberSize, 0);
+                    image.putWord(member, random.nextInt(4) == 0 ? 0xFF : 0);
+                    image.putWord(member + 2, randomLevel());
+                    image.putWord(member + 4, internal(sp));
+                    int next = member + 6;
+                    if ((dataType & 2) == 2) {
+                        image.putWord(next, 1 + random.nextInt(section.value("ItemCount") - 1));
+                        next += 2;
+                    }
+                    if ((dataType & 1) == 1) {
+                        for (int move = 0; move < 4; move++) {
+                            image.putWord(next + move * 2, move < sp.moves.size() ? sp.moves.get(move)[1] : 0);
+                        }
+                    }
+                }
+                putPointer(offset + entrySize - 4, party);
+            }
+        }
+
+        private void writeStartersAndStatics() {
+            int starters = section.value("StarterPokemon");
+            image.putWord(starters, internal(species[1]));
+            image.putWord(starters + Gen3Constants.rseStarter2Offset, internal(species[4]));
+            image.putWord(starters + Gen3Constants.rseStarter3Offset, internal(species[7]));
+
+            for (int[][] entry : section.statics("StaticPokemon")) {
+                writeStatic(entry, randomSpecies());
+            }
+            for (int[][] entry : section.statics("RoamingPokemon")) {
+                writeStatic(entry, randomSpecies());
+            }
+            image.putWord(section.value("StaticFirstBattleSpeciesOffset"), internal(randomSpecies()));
+            image.put(section.value("StaticFirstBattleLevelOffset"), 2);
+            image.putWord(section.value("IntroCryOffset"), internal(randomSpecies()));
+            image.putWord(section.value("IntroSpriteOffset"), internal(randomSpecies()));
+        }
+
+        private void writeStatic(int[][] entry, SpeciesData sp) {
+            for (int offset : entry[0]) {
+                image.putWord(offset, internal(sp));
+            }
+            for (int offset : entry[1]) {
+                image.put(offset, randomLevel());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int generation = 3;
+        Integer size = null;
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-g":
+                    generation = Integer.parseInt(args[++i]);
+                    break;
+                case "-s":
+                    size = Integer.parseInt(args[++i]) * 1024;
+                    break;
+                default:
+                    output = args[i];
+                    break;
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage: SyntheticRomGenerator [-g generation] [-s sizeInKB] output");
+            System.exit(1);
+        }
+        int imageSize = size != null ? size : defaultSize(generation);
+        generate(generation, imageSize, output);
+        System.out.println(String.format("Wrote a %d KB Gen %d image to %s", imageSize / 1024, generation, output));
+    }
+}
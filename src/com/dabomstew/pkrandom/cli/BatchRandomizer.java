@@ -0,0 +1,323 @@
+package com.dabomstew.pkrandom.cli;
+
+/*----------------------------------------------------------------------------*/
+/*--  BatchRandomizer.java - runs many randomization jobs on a bounded      --*/
+/*--                         pool of worker threads.                        --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import com.dabomstew.pkrandom.FileFunctions;
+import com.dabomstew.pkrandom.LogSink;
+import com.dabomstew.pkrandom.RandomSource;
+import com.dabomstew.pkrandom.Randomizer;
+import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.StageStatistics;
+import com.dabomstew.pkrandom.StructuredLog;
+import com.dabomstew.pkrandom.romhandlers.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class BatchRandomizer {
+
+    private final static ResourceBundle bundle = java.util.ResourceBundle.getBundle("com/dabomstew/pkrandom/newgui/Bundle");
+
+    private final RomDetector romDetector = new RomDetector(
+            new Gen1RomHandler.Factory(),
+            new Gen2RomHandler.Factory(),
+            new Gen3RomHandler.Factory()
+    );
+
+    // Settings files and source ROMs are shared by every job that uses the same path, so each one is
+    // only read and parsed once per batch regardless of how many seeds are run from it.
+    private final Map<String, FutureTask<Settings>> settingsCache = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<Optional<RomSnapshot>>> snapshotCache = new ConcurrentHashMap<>();
+
+    private final int threads;
+    private boolean saveAsPatch;
+    private boolean saveLogs, saveStructuredLogs, gzipLogs;
+    private StageStatistics stageStatistics;
+
+    public BatchRandomizer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchRandomizer(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Batch needs at least one worker thread");
+        }
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Write IPS/BPS patches against the source ROMs instead of full randomized images
+    public void setSaveAsPatch(boolean saveAsPatch) {
+        this.saveAsPatch = saveAsPatch;
+    }
+
+    // Stream a spoiler log and/or a StructuredLog next to each output, optionally gzipped; by default
+    // no log is made at all
+    public void setSpoilerLogs(boolean saveLogs, boolean saveStructuredLogs, boolean gzipLogs) {
+        this.saveLogs = saveLogs;
+        this.saveStructuredLogs = saveStructuredLogs;
+        this.gzipLogs = gzipLogs;
+    }
+
+    // Measure every stage of every job and print percentiles per stage after the summary; null to
+    // measure nothing
+    public void setStageStatistics(StageStatistics stageStatistics) {
+        this.stageStatistics = stageStatistics;
+    }
+
+    /**
+     * Reads a job manifest. Each non-empty line that doesn't start with # describes one job as
+     * tab-separated fields: settings file, source ROM, destination ROM and, optionally, a seed.
+     */
+    public static List<Job> readManifest(String manifestFilePath) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(manifestFilePath), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length < 3 || fields.length > 4) {
+                    throw new IOException(String.format("Invalid job on line %d of %s: expected 3 or 4 tab-separated fields",
+                            lineNumber, manifestFilePath));
+                }
+                Long seed = null;
+                if (fields.length == 4) {
+                    try {
+                        seed = Long.parseLong(fields[3].trim());
+                    } catch (NumberFormatException ex) {
+                        throw new IOException(String.format("Invalid seed on line %d of %s: %s", lineNumber,
+                                manifestFilePath, fields[3]));
+                    }
+                }
+                jobs.add(new Job(fields[0].trim(), fields[1].trim(), fields[2].trim(), seed));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Runs every job on a fixed pool of worker threads, printing one line per finished job and a
+     * summary at the end. Each running job owns its own RomHandler, forked from a snapshot of its
+     * source ROM; nothing but the parsed settings and the snapshots is shared between workers.
+     */
+    public List<JobResult> run(List<Job> jobs, PrintStream out) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<JobResult> completion = new ExecutorCompletionService<>(pool);
+        long batchStart = System.nanoTime();
+        List<JobResult> results = new ArrayList<>(jobs.size());
+        try {
+            for (Job job : jobs) {
+                completion.submit(() -> runJob(job));
+            }
+            for (int i = 0; i < jobs.size(); i++) {
+                JobResult result;
+                try {
+                    result = completion.take().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    // runJob catches everything it can report on, so this is a programming error
+                    throw new RuntimeException(e.getCause());
+                }
+                results.add(result);
+                out.println(String.format("[%d/%d] %s", i + 1, jobs.size(), result));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long batchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart);
+
+        int failures = (int) results.stream().filter(r -> !r.isSuccess()).count();
+        out.println(String.format("Jobs: %d, succeeded: %d, failed: %d, threads: %d", results.size(),
+                results.size() - failures, failures, threads));
+        out.println(String.format("Wall time: %d ms, throughput: %.2f jobs/s", batchMillis,
+                batchMillis == 0 ? 0.0 : results.size() * 1000.0 / batchMillis));
+        if (stageStatistics != null) {
+            stageStatistics.print(out);
+        }
+        return results;
+    }
+
+    public JobResult runJob(Job job) {
+        long start = System.nanoTime();
+        try {
+            Settings settings = settingsFor(job.getSettingsFilePath());
+            File romFileHandler = new File(job.getSourceRomFilePath());
+            RomSnapshot snapshot = snapshotFor(romFileHandler.getAbsolutePath()).orElse(null);
+            if (snapshot == null) {
+                return new JobResult(job, false, elapsedMillis(start),
+                        String.format(bundle.getString("GUI.unsupportedRom"), romFileHandler.getName()));
+            }
+
+            RandomSource randomSource = new RandomSource();
+            RomHandler romHandler = snapshot.fork(randomSource);
+
+            File fh = FileFunctions.fixFilename(new File(job.getDestinationRomFilePath()),
+                    saveAsPatch ? romHandler.getDefaultPatchExtension() : romHandler.getDefaultExtension());
+            String filename = fh.getAbsolutePath();
+
+            Randomizer randomizer = new Randomizer(settings, romHandler, randomSource);
+            randomizer.setSaveAsPatch(saveAsPatch);
+            randomizer.setStageListener(stageStatistics);
+            try (LogSink verboseLog = saveLogs ? LogSink.forRom(filename, gzipLogs) : LogSink.disabled();
+                 StructuredLog structuredLog = saveStructuredLogs ? StructuredLog.forRom(filename, gzipLogs)
+                         : StructuredLog.disabled()) {
+                randomizer.setStructuredLog(structuredLog);
+                if (job.getSeed() != null) {
+                    randomizer.randomize(filename, verboseLog, job.getSeed());
+                } else {
+                    randomizer.randomize(filename, verboseLog);
+                }
+            }
+            return new JobResult(job, true, elapsedMillis(start), null);
+        } catch (Exception e) {
+            return new JobResult(job, false, elapsedMillis(start), e.toString());
+        }
+    }
+
+    private Settings settingsFor(String settingsFilePath) {
+        return loadOnce(settingsCache.computeIfAbsent(settingsFilePath, path -> new FutureTask<>(() -> {
+            try (FileInputStream fis = new FileInputStream(path)) {
+                return Settings.read(fis);
+            }
+        })));
+    }
+
+    private Optional<RomSnapshot> snapshotFor(String romFilePath) {
+        return loadOnce(snapshotCache.computeIfAbsent(romFilePath, path -> new FutureTask<>(() -> {
+            RomHandler.Factory rhf = romDetector.factoryFor(path);
+            return rhf == null ? Optional.empty() : Optional.of(RomSnapshot.load(rhf, path));
+        })));
+    }
+
+    // Reading a file takes long enough that it shouldn't happen inside computeIfAbsent, which would
+    // block every other worker whose path lands in the same bin, so the caches only hold the tasks.
+    // The first worker to ask runs the load and the rest wait for it; a load that failed fails the
+    // same way for every job that needs it, without being tried again.
+    private static <T> T loadOnce(FutureTask<T> load) {
+        load.run();
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    public static class Job {
+        private final String settingsFilePath;
+        private final String sourceRomFilePath;
+        private final String destinationRomFilePath;
+        private final Long seed;
+
+        public Job(String settingsFilePath, String sourceRomFilePath, String destinationRomFilePath, Long seed) {
+            this.settingsFilePath = settingsFilePath;
+            this.sourceRomFilePath = sourceRomFilePath;
+            this.destinationRomFilePath = destinationRomFilePath;
+            this.seed = seed;
+        }
+
+        public String getSettingsFilePath() {
+            return settingsFilePath;
+        }
+
+        public String getSourceRomFilePath() {
+            return sourceRomFilePath;
+        }
+
+        public String getDestinationRomFilePath() {
+            return destinationRomFilePath;
+        }
+
+        public Long getSeed() {
+            return seed;
+        }
+
+        @Override
+        public String toString() {
+            return new File(sourceRomFilePath).getName() + " + " + new File(settingsFilePath).getName() + " -> "
+                    + destinationRomFilePath;
+        }
+    }
+
+    public static class JobResult {
+        private final Job job;
+        private final boolean success;
+        private final long elapsedMillis;
+        private final String error;
+
+        public JobResult(Job job, boolean success, long elapsedMillis, String error) {
+            this.job = job;
+            this.success = success;
+            this.elapsedMillis = elapsedMillis;
+            this.error = error;
+        }
+
+        public Job getJob() {
+            return job;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            if (success) {
+                return String.format("OK   %s (%d ms)", job, elapsedMillis);
+            }
+            return String.format("FAIL %s (%d ms): %s", job, elapsedMillis, error);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.dabomstew.pkrandom.cli;
 
 import com.dabomstew.pkrandom.FileFunctions;
+import com.dabomstew.pkrandom.LogSink;
 import com.dabomstew.pkrandom.RandomSource;
 import com.dabomstew.pkrandom.Randomizer;
 import com.dabomstew.pkrandom.Settings;
+import com.dabomstew.pkrandom.StageStatistics;
+import com.dabomstew.pkrandom.StructuredLog;
 import com.dabomstew.pkrandom.romhandlers.*;
 
 import java.io.*;
@@ -11,20 +14,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.stream.IntStream;
 
 public class CliRandomizer {
 
     private final static ResourceBundle bundle = java.util.ResourceBundle.getBundle("com/dabomstew/pkrandom/newgui/Bundle");
 
     private static boolean performDirectRandomization(String settingsFilePath, String sourceRomFilePath,
-                                                      String destinationRomFilePath, boolean saveAsDirectory) {
+                                                      String destinationRomFilePath, boolean saveAsDirectory,
+                                                      boolean saveAsPatch, boolean saveLog, boolean saveStructuredLog,
+                                                      boolean gzipLog) {
         // borrowed directly from NewRandomizerGUI()
-        RomHandler.Factory[] checkHandlers = new RomHandler.Factory[] {
+        RomDetector romDetector = new RomDetector(
                 new Gen1RomHandler.Factory(),
                 new Gen2RomHandler.Factory(),
                 new Gen3RomHandler.Factory()
-        };
+        );
 
         Settings settings;
         try {
@@ -38,42 +42,38 @@ public class CliRandomizer {
             return false;
         }
 
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PrintStream log;
-        try {
-            log = new PrintStream(baos, false, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            log = new PrintStream(baos);
-        }
-
-        final PrintStream verboseLog = log;
-
         try {
             File romFileHandler = new File(sourceRomFilePath);
             RomHandler romHandler;
 
-            for (RomHandler.Factory rhf : checkHandlers) {
-                if (rhf.isLoadable(romFileHandler.getAbsolutePath())) {
-                    romHandler = rhf.create(RandomSource.instance());
-                    romHandler.loadRom(romFileHandler.getAbsolutePath());
+            RomHandler.Factory rhf = romDetector.factoryFor(romFileHandler.getAbsolutePath());
+            if (rhf != null) {
+                RandomSource randomSource = new RandomSource();
+                romHandler = rhf.create(randomSource);
+                romHandler.loadRom(romFileHandler.getAbsolutePath());
 
-                    File fh = new File(destinationRomFilePath);
-                    if (!saveAsDirectory) {
-                        List<String> extensions = new ArrayList<>(Arrays.asList("sgb", "gbc", "gba", "nds", "cxi"));
-                        extensions.remove(romHandler.getDefaultExtension());
+                File fh = new File(destinationRomFilePath);
+                if (!saveAsDirectory) {
+                    List<String> extensions = new ArrayList<>(Arrays.asList("sgb", "gbc", "gba", "nds", "cxi"));
+                    extensions.remove(romHandler.getDefaultExtension());
 
-                        fh = FileFunctions.fixFilename(fh, romHandler.getDefaultExtension());
-                    }
+                    fh = FileFunctions.fixFilename(fh, saveAsPatch ? romHandler.getDefaultPatchExtension()
+                            : romHandler.getDefaultExtension());
+                }
 
-                    String filename = fh.getAbsolutePath();
+                String filename = fh.getAbsolutePath();
 
-                    Randomizer randomizer = new Randomizer(settings, romHandler);
+                Randomizer randomizer = new Randomizer(settings, romHandler, randomSource);
+                randomizer.setSaveAsPatch(saveAsPatch);
+                try (LogSink verboseLog = saveLog ? LogSink.forRom(filename, gzipLog) : LogSink.disabled();
+                     StructuredLog structuredLog = saveStructuredLog ? StructuredLog.forRom(filename, gzipLog)
+                             : StructuredLog.disabled()) {
+                    randomizer.setStructuredLog(structuredLog);
                     randomizer.randomize(filename, verboseLog);
-                    verboseLog.close();
-                    System.out.println("Randomized successfully!");
-                    // this is the only successful exit, everything else will return false at the end of the function
-                    return true;
                 }
+                System.out.println("Randomized successfully!");
+                // this is the only successful exit, everything else will return false at the end of the function
+                return true;
             }
             // if we get here it means no rom handlers matched the ROM file
             System.err.printf(bundle.getString("GUI.unsupportedRom") + "%n", romFileHandler.getName());
@@ -88,8 +88,12 @@ public class CliRandomizer {
         String sourceRomFilePath = null;
         String outputRomFilePath = null;
         boolean saveAsDirectory = false;
+        boolean saveAsPatch = false;
+        boolean saveLog = false;
+        boolean saveStructuredLog = false;
+        boolean gzipLog = false;
 
-        List<String> allowedFlags = Arrays.asList("-i", "-o", "-s", "-d", "-u", "-l", "--help");
+        List<String> allowedFlags = Arrays.asList("-i", "-o", "-s", "-d", "-u", "-l", "-j", "-z", "-p", "--help");
         for (int i = 0; i < args.length; i++) {
             if (allowedFlags.contains(args[i])) {
                 switch(args[i]) {
@@ -102,6 +106,18 @@ public class CliRandomizer {
                     case "-s":
                         settingsFilePath = args[i + 1];
                         break;
+                    case "-p":
+                        saveAsPatch = true;
+                        break;
+                    case "-l":
+                        saveLog = true;
+                        break;
+                    case "-j":
+                        saveStructuredLog = true;
+                        break;
+                    case "-z":
+                        gzipLog = true;
+                        break;
                     default:
                         break;
                 }
@@ -112,30 +128,142 @@ public class CliRandomizer {
                 settingsFilePath,
                 sourceRomFilePath,
                 outputRomFilePath,
-                saveAsDirectory
+                saveAsDirectory,
+                saveAsPatch,
+                saveLog,
+                saveStructuredLog,
+                gzipLog
         );
         return processResult ? 0 : 1;
     }
 
     public static void main(String[] args) {
+        String manifestFilePath = null;
         String baseDir = "D:\\pkmn";
+        int threads = Runtime.getRuntime().availableProcessors();
+        int totalIterations = 0;
+        boolean saveAsPatch = false;
+        boolean saveLogs = false;
+        boolean saveStructuredLogs = false;
+        boolean gzipLogs = false;
+        boolean stageStatistics = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-p":
+                    saveAsPatch = true;
+                    break;
+                case "-l":
+                    saveLogs = true;
+                    break;
+                case "-j":
+                    saveStructuredLogs = true;
+                    break;
+                case "-z":
+                    gzipLogs = true;
+                    break;
+                case "-x":
+                    stageStatistics = true;
+                    break;
+                case "-m":
+                    manifestFilePath = valueAfter(args, i++);
+                    break;
+                case "-b":
+                    baseDir = valueAfter(args, i++);
+                    break;
+                case "-t":
+                    threads = parsePositive(valueAfter(args, i++), "thread count");
+                    break;
+                case "-c":
+                    RomOffsetCache.setDirectory(new File(valueAfter(args, i++)));
+                    break;
+                default:
+                    if (args[i].startsWith("-") || totalIterations != 0) {
+                        exitWithUsage("Unexpected argument " + args[i]);
+                    }
+                    totalIterations = parsePositive(args[i], "iteration count");
+                    break;
+            }
+        }
+        if (manifestFilePath == null && totalIterations == 0) {
+            exitWithUsage("Missing iteration count");
+        }
+
+        List<BatchRandomizer.Job> jobs;
+        if (manifestFilePath != null) {
+            try {
+                jobs = BatchRandomizer.readManifest(manifestFilePath);
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(1);
+                return;
+            }
+        } else if (!new File(baseDir + "\\settings").isDirectory() || !new File(baseDir + "\\source").isDirectory()) {
+            exitWithUsage("Expected settings and source directories under " + baseDir);
+            return;
+        } else {
+            jobs = jobsFromDirectories(baseDir, totalIterations);
+        }
+
+        BatchRandomizer batch = new BatchRandomizer(threads);
+        batch.setSaveAsPatch(saveAsPatch);
+        batch.setSpoilerLogs(saveLogs, saveStructuredLogs, gzipLogs);
+        if (stageStatistics) {
+            batch.setStageStatistics(new StageStatistics());
+        }
+        List<BatchRandomizer.JobResult> results = batch.run(jobs, System.out);
+        long failures = results.stream().filter(r -> !r.isSuccess()).count();
+        System.out.println("Count of Total Failures: " + failures);
+    }
+
+    private static String valueAfter(String[] args, int flagIndex) {
+        if (flagIndex + 1 == args.length) {
+            exitWithUsage("Missing value for " + args[flagIndex]);
+        }
+        return args[flagIndex + 1];
+    }
+
+    private static int parsePositive(String value, String name) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        exitWithUsage("Invalid " + name + ": " + value);
+        return 0;
+    }
+
+    private static void exitWithUsage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: CliRandomizer [-t threads] [-c offsetCacheDir] [-p] [-l] [-j] [-z] [-x] "
+                + "(-m manifestFile | [-b baseDir] totalIterations)");
+        System.exit(1);
+    }
+
+    // Every (source ROM x settings file) pair under baseDir, repeated so that the whole batch comes to
+    // roughly totalIterations jobs. Each job gets its own output file so that workers never share one.
+    private static List<BatchRandomizer.Job> jobsFromDirectories(String baseDir, int totalIterations) {
         File settingsDir = new File(baseDir + "\\settings");
         File sourceDir = new File(baseDir + "\\source");
         String randomizedDir = baseDir + "\\randomized\\";
 
-        int failures =
-        Arrays.stream(sourceDir.listFiles()).mapToInt(genDir -> {
-            int iters = (int) Math.max(Math.ceil(Integer.parseInt(args[0]) / genDir.listFiles().length / settingsDir.listFiles().length), 1);
-            return Arrays.stream(genDir.listFiles()).mapToInt(srcFile -> {
-                return Arrays.stream(settingsDir.listFiles()).mapToInt( settings -> {
-                    return IntStream.range(0, iters).map( idx ->{
-                        System.out.print(String.format("[%s] %s - %s (%d/%d): ", genDir.getName(), srcFile.getName(), settings.getName().split("\\.")[0], idx + 1, iters));
-                        return invoke(new String[]{"-s", settings.getAbsolutePath(), "-i", srcFile.getAbsolutePath(), "-o", randomizedDir + srcFile.getName()});
-                    }).sum();
-                }).sum();
-            }).sum();
-
-        }).sum();
-        System.out.println("Count of Total Failures: " + failures);
+        List<BatchRandomizer.Job> jobs = new ArrayList<>();
+        for (File genDir : sourceDir.listFiles()) {
+            int iters = (int) Math.max(Math.ceil(totalIterations / genDir.listFiles().length / settingsDir.listFiles().length), 1);
+            for (File srcFile : genDir.listFiles()) {
+                for (File settings : settingsDir.listFiles()) {
+                    String settingsName = settings.getName().split("\\.")[0];
+                    for (int idx = 0; idx < iters; idx++) {
+                        String destination = String.format("%s%s_%s_%d_%s", randomizedDir, genDir.getName(),
+                                settingsName, idx + 1, srcFile.getName());
+                        jobs.add(new BatchRandomizer.Job(settings.getAbsolutePath(), srcFile.getAbsolutePath(),
+                                destination, null));
+                    }
+                }
+            }
+        }
+        return jobs;
     }
 }
@@ -27,6 +27,7 @@ package com.dabomstew.pkrandom.constants;
 import java.util.Arrays;
 import java.util.List;
 
+import com.dabomstew.pkrandom.SearchPattern;
 import com.dabomstew.pkrandom.pokemon.Trainer;
 import com.dabomstew.pkrandom.pokemon.Type;
 
@@ -80,7 +81,7 @@ public class Gen2Constants {
     public static final int priorityHitEffectIndex = 0x67, protectEffectIndex = 0x6F, endureEffectIndex = 0x74,
             forceSwitchEffectIndex = 0x1C,counterEffectIndex = 0x59, mirrorCoatEffectIndex = 0x90;
 
-    public static final String friendshipValueForEvoLocator = "FEDCDA";
+    public static final SearchPattern friendshipValueForEvoLocator = SearchPattern.compile("FEDCDA");
 
     private static Type[] constructTypeTable() {
         Type[] table = new Type[256];
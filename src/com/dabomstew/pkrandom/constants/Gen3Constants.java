@@ -26,6 +26,7 @@ package com.dabomstew.pkrandom.constants;
 
 import java.util.*;
 
+import com.dabomstew.pkrandom.SearchPattern;
 import com.dabomstew.pkrandom.pokemon.Trainer;
 import com.dabomstew.pkrandom.pokemon.Type;
 
@@ -39,25 +40,25 @@ public class Gen3Constants {
     public static final int romCodeOffset = 0xAC;
     public static final int romVersionOffset = 0xBC;
 
-    public static final String wildPokemonPointerPrefix = "0348048009E00000FFFF0000";
+    public static final SearchPattern wildPokemonPointerPrefix = SearchPattern.compile("0348048009E00000FFFF0000");
 
-    public static final String mapBanksPointerPrefix = "80180068890B091808687047";
+    public static final SearchPattern mapBanksPointerPrefix = SearchPattern.compile("80180068890B091808687047");
 
-    public static final String rsPokemonNamesPointerSuffix = "30B50025084CC8F7";
+    public static final SearchPattern rsPokemonNamesPointerSuffix = SearchPattern.compile("30B50025084CC8F7");
 
-    public static final String frlgMapLabelsPointerPrefix = "AC470000AE470000B0470000";
+    public static final SearchPattern frlgMapLabelsPointerPrefix = SearchPattern.compile("AC470000AE470000B0470000");
 
-    public static final String rseMapLabelsPointerPrefix = "C078288030BC01BC00470000";
+    public static final SearchPattern rseMapLabelsPointerPrefix = SearchPattern.compile("C078288030BC01BC00470000");
 
-    public static final String pokedexOrderPointerPrefix = "0448814208D0481C0004000C05E00000";
+    public static final SearchPattern pokedexOrderPointerPrefix = SearchPattern.compile("0448814208D0481C0004000C05E00000");
 
-    public static final String rsFrontSpritesPointerPrefix = "05E0";
+    public static final SearchPattern rsFrontSpritesPointerPrefix = SearchPattern.compile("05E0");
 
-    public static final String rsFrontSpritesPointerSuffix = "1068191C";
+    public static final SearchPattern rsFrontSpritesPointerSuffix = SearchPattern.compile("1068191C");
 
-    public static final String rsPokemonPalettesPointerPrefix = "04D90148006817E0";
+    public static final SearchPattern rsPokemonPalettesPointerPrefix = SearchPattern.compile("04D90148006817E0");
 
-    public static final String rsPokemonPalettesPointerSuffix = "080C064A11404840";
+    public static final SearchPattern rsPokemonPalettesPointerSuffix = SearchPattern.compile("080C064A11404840");
 
 
     public static final int efrlgPokemonNamesPointer = 0x144, efrlgMoveNamesPointer = 0x148,
@@ -89,17 +90,17 @@ public class Gen3Constants {
 
     public static final int grassSlots = 12, surfingSlots = 5, rockSmashSlots = 5, fishingSlots = 10;
 
-    public static final String deoxysObeyCode = "CD21490088420FD0";
+    public static final SearchPattern deoxysObeyCode = SearchPattern.compile("CD21490088420FD0");
 
     public static final int mewObeyOffsetFromDeoxysObey = 0x16;
 
-    public static final String levelEvoKantoDexCheckCode = "972814DD";
+    public static final SearchPattern levelEvoKantoDexCheckCode = SearchPattern.compile("972814DD");
 
-    public static final String stoneEvoKantoDexCheckCode = "972808D9";
+    public static final SearchPattern stoneEvoKantoDexCheckCode = SearchPattern.compile("972808D9");
 
     public static final int levelEvoKantoDexJumpAmount = 0x14, stoneEvoKantoDexJumpAmount = 0x08;
 
-    public static final String friendshipValueForEvoLocator = "DB2900D8";
+    public static final SearchPattern friendshipValueForEvoLocator = SearchPattern.compile("DB2900D8");
 
     public static final int unhackedMaxPokedex = 411, unhackedRealPokedex = 386, hoennPokesStart = 252;
 
@@ -25,7 +25,6 @@ package com.dabomstew.pkrandom.pokemon;
 /*----------------------------------------------------------------------------*/
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -33,7 +32,7 @@ public class EncounterSet {
 
     public int rate;
     public List<Encounter> encounters = new ArrayList<>();
-    public Set<Pokemon> bannedPokemon = new HashSet<>();
+    public Set<Pokemon> bannedPokemon = new PokemonSet();
     public String displayName;
     public int offset;
 
@@ -33,4 +33,11 @@ public class Gen1Pokemon extends Pokemon {
         shuffledStatsOrder = Arrays.asList(0, 1, 2, 3, 4);
     }
 
+    @Override
+    public Gen1Pokemon copy() {
+        Gen1Pokemon copy = new Gen1Pokemon();
+        copyInto(copy);
+        return copy;
+    }
+
 }
@@ -79,6 +79,45 @@ public class Pokemon implements Comparable<Pokemon> {
         return name + formeSuffix;
     }
 
+    // Copies everything but the evolutions and the baseForme link, which refer to other Pokemon
+    // and have to be rebuilt by whoever copies the whole set.
+    public Pokemon copy() {
+        Pokemon copy = new Pokemon();
+        copyInto(copy);
+        return copy;
+    }
+
+    protected void copyInto(Pokemon copy) {
+        copy.name = name;
+        copy.number = number;
+        copy.formeSuffix = formeSuffix;
+        copy.formeNumber = formeNumber;
+        copy.actuallyCosmetic = actuallyCosmetic;
+        copy.primaryType = primaryType;
+        copy.secondaryType = secondaryType;
+        copy.hp = hp;
+        copy.attack = attack;
+        copy.defense = defense;
+        copy.spatk = spatk;
+        copy.spdef = spdef;
+        copy.speed = speed;
+        copy.special = special;
+        copy.ability1 = ability1;
+        copy.ability2 = ability2;
+        copy.ability3 = ability3;
+        copy.catchRate = catchRate;
+        copy.expYield = expYield;
+        copy.guaranteedHeldItem = guaranteedHeldItem;
+        copy.commonHeldItem = commonHeldItem;
+        copy.rareHeldItem = rareHeldItem;
+        copy.darkGrassHeldItem = darkGrassHeldItem;
+        copy.genderRatio = genderRatio;
+        copy.frontSpritePointer = frontSpritePointer;
+        copy.picDimensions = picDimensions;
+        copy.growthCurve = growthCurve;
+        copy.shuffledStatsOrder = Arrays.asList(shuffledStatsOrder.toArray(new Integer[0]));
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -0,0 +1,59 @@
+package com.dabomstew.pkrandom.pokemon;
+
+/*----------------------------------------------------------------------------*/
+/*--  PokemonCounts.java - a count for each Pokemon, kept in an int array   --*/
+/*--                     indexed by species number.                         --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.util.Arrays;
+
+/**
+ * How many times each Pokemon has been counted, telling Pokemon apart by number as Pokemon.equals
+ * does. The counts are plain ints indexed by number, and their total is kept as they go up, so the
+ * average over the Pokemon counted so far comes without a pass over them.
+ */
+public class PokemonCounts {
+
+    private int[] counts = new int[0];
+    // how many Pokemon have been counted at least once, and the sum of their counts
+    private int counted;
+    private long total;
+
+    public int get(Pokemon pk) {
+        return pk.number < counts.length ? counts[pk.number] : 0;
+    }
+
+    public void increment(Pokemon pk) {
+        if (pk.number >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(pk.number + 1, counts.length * 2));
+        }
+        if (counts[pk.number]++ == 0) {
+            counted++;
+        }
+        total++;
+    }
+
+    // The average count of the Pokemon counted at least once, or 0 if none have been
+    public double average() {
+        return counted == 0 ? 0 : (double) total / counted;
+    }
+}
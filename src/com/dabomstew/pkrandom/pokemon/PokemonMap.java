@@ -0,0 +1,50 @@
+package com.dabomstew.pkrandom.pokemon;
+
+/*----------------------------------------------------------------------------*/
+/*--  PokemonMap.java - values looked up by a Pokemon's species number      --*/
+/*--                  in an array.                                          --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.util.Arrays;
+
+/**
+ * Values keyed by Pokemon, which like Pokemon.equals tells them apart by number alone. The values
+ * sit in an array indexed by number, so a lookup is an array read rather than a hash or a walk
+ * down a tree.
+ */
+public class PokemonMap<V> {
+
+    private Object[] values = new Object[0];
+
+    // The value for pk, or null if there is none
+    @SuppressWarnings("unchecked")
+    public V get(Pokemon pk) {
+        return pk.number < values.length ? (V) values[pk.number] : null;
+    }
+
+    public void put(Pokemon pk, V value) {
+        if (pk.number >= values.length) {
+            values = Arrays.copyOf(values, Math.max(pk.number + 1, values.length * 2));
+        }
+        values[pk.number] = value;
+    }
+}
@@ -0,0 +1,123 @@
+package com.dabomstew.pkrandom.pokemon;
+
+/*----------------------------------------------------------------------------*/
+/*--  PokemonSet.java - a set of Pokemon kept as a bitset of their          --*/
+/*--                  species numbers.                                      --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.util.*;
+
+/**
+ * A set of Pokemon that, like Pokemon.equals, tells them apart by number alone. Membership is a
+ * bit per number, so contains, add and remove cost the same however big the set is, and iteration
+ * goes in number order like a TreeSet's. Adding a Pokemon whose number is already in keeps the one
+ * that was there.
+ */
+public class PokemonSet extends AbstractSet<Pokemon> {
+
+    private final BitSet numbers = new BitSet();
+    // the member with each number
+    private Pokemon[] members = new Pokemon[0];
+    private int size;
+
+    public PokemonSet() {
+    }
+
+    public PokemonSet(Collection<? extends Pokemon> pokemon) {
+        addAll(pokemon);
+    }
+
+    @Override
+    public boolean add(Pokemon pk) {
+        if (numbers.get(pk.number)) {
+            return false;
+        }
+        if (pk.number >= members.length) {
+            members = Arrays.copyOf(members, Math.max(pk.number + 1, members.length * 2));
+        }
+        numbers.set(pk.number);
+        members[pk.number] = pk;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Pokemon && numbers.get(((Pokemon) o).number);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        int number = ((Pokemon) o).number;
+        numbers.clear(number);
+        members[number] = null;
+        size--;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        numbers.clear();
+        Arrays.fill(members, null);
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Pokemon> iterator() {
+        return new Iterator<Pokemon>() {
+            private int next = numbers.nextSetBit(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Pokemon next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = numbers.nextSetBit(next + 1);
+                return members[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                PokemonSet.this.remove(members[last]);
+                last = -1;
+            }
+        };
+    }
+}
@@ -25,66 +25,39 @@ package com.dabomstew.pkrandom.romhandlers;
 /*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
 /*----------------------------------------------------------------------------*/
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileNotFoundException;
 import java.io.PrintStream;
-import java.io.UnsupportedEncodingException;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
-import java.util.Scanner;
 
-import com.dabomstew.pkrandom.FileFunctions;
 import com.dabomstew.pkrandom.constants.GBConstants;
 
 public abstract class AbstractGBCRomHandler extends AbstractGBRomHandler {
 
-    private String[] tb;
-    private Map<String, Byte> d;
-    private int longestTableToken;
+    private TextTable textTable;
 
     public AbstractGBCRomHandler(Random random) {
         super(random);
     }
 
-    protected void clearTextTables() {
-        tb = new String[256];
-        d = new HashMap<String, Byte>();
-        longestTableToken = 0;
+    @Override
+    protected void forkFrom(AbstractGBRomHandler template) {
+        super.forkFrom(template);
+        // text tables are never changed after loading
+        AbstractGBCRomHandler other = (AbstractGBCRomHandler) template;
+        textTable = other.textTable;
     }
 
-    protected void readTextTable(String name) {
-        try {
-            Scanner sc = new Scanner(FileFunctions.openConfig(name + ".tbl"), "UTF-8");
-            while (sc.hasNextLine()) {
-                String q = sc.nextLine();
-                if (!q.trim().isEmpty()) {
-                    String[] r = q.split("=", 2);
-                    int hexcode = Integer.parseInt(r[0], 16);
-                    if (tb[hexcode] != null) {
-                        String oldMatch = tb[hexcode];
-                        tb[hexcode] = null;
-                        if (d.get(oldMatch) == hexcode) {
-                            d.remove(oldMatch);
-                        }
-                    }
-                    tb[hexcode] = r[1];
-                    longestTableToken = Math.max(longestTableToken, r[1].length());
-                    d.put(r[1], (byte) hexcode);
-                }
-            }
-            sc.close();
-        } catch (FileNotFoundException e) {
-        }
-
+    // The tables are laid over each other in order, so later ones override earlier ones
+    protected void loadTextTables(String... names) {
+        textTable = TextTable.load(names);
     }
 
     protected String readString(int offset, int maxLength) {
         StringBuilder string = new StringBuilder();
         for (int c = 0; c < maxLength; c++) {
-            int currChar = rom[offset + c] & 0xFF;
-            if (tb[currChar] != null) {
-                string.append(tb[currChar]);
+            int currChar = readByte(offset + c) & 0xFF;
+            String decoded = textTable.decode(currChar);
+            if (decoded != null) {
+                string.append(decoded);
             } else {
                 if (currChar == GBConstants.stringTerminator) {
                     break;
@@ -98,27 +71,15 @@ public abstract class AbstractGBCRomHandler extends AbstractGBRomHandler {
 
     protected int lengthOfStringAt(int offset, boolean textEngineMode) {
         int len = 0;
-        while (rom[offset + len] != GBConstants.stringTerminator
-                && (!textEngineMode || (rom[offset + len] != GBConstants.stringPrintedTextEnd && rom[offset + len] != GBConstants.stringPrintedTextPromptEnd))) {
+        while (readByte(offset + len) != GBConstants.stringTerminator
+                && (!textEngineMode || (readByte(offset + len) != GBConstants.stringPrintedTextEnd && readByte(offset + len) != GBConstants.stringPrintedTextPromptEnd))) {
             len++;
         }
         return len;
     }
 
     protected byte[] translateString(String text) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        while (text.length() != 0) {
-            int i = Math.max(0, longestTableToken - text.length());{
-                while (!(d.containsKey(text.substring(0, longestTableToken - i)) || (i == longestTableToken))) {
-                    i++;
-                }
-                {
-                    baos.write(d.get(text.substring(0, longestTableToken - i)) & 0xFF);
-                    text = text.substring(longestTableToken - i);
-                }
-            }
-        }
-        return baos.toByteArray();
+        return textTable.encoder().encode(text);
     }
 
     protected String readFixedLengthString(int offset, int length) {
@@ -130,16 +91,16 @@ public abstract class AbstractGBCRomHandler extends AbstractGBRomHandler {
     protected void writeFixedLengthString(String str, int offset, int length) {
         byte[] translated = translateString(str);
         int len = Math.min(translated.length, length);
-        System.arraycopy(translated, 0, rom, offset, len);
+        writeBytes(offset, translated, 0, len);
         while (len < length) {
-            rom[offset + len] = GBConstants.stringTerminator;
+            writeByte(offset + len, GBConstants.stringTerminator);
             len++;
         }
     }
 
     protected void writeVariableLengthString(String str, int offset) {
         byte[] translated = translateString(str);
-        System.arraycopy(translated, 0, rom, offset, translated.length);
+        writeBytes(offset, translated);
     }
 
     protected int makeGBPointer(int offset) {
@@ -160,36 +121,4 @@ public abstract class AbstractGBCRomHandler extends AbstractGBRomHandler {
         return readString(offset, Integer.MAX_VALUE);
     }
 
-    protected static boolean romSig(byte[] rom, String sig) {
-        try {
-            int sigOffset = GBConstants.romSigOffset;
-            byte[] sigBytes = sig.getBytes("US-ASCII");
-            for (int i = 0; i < sigBytes.length; i++) {
-                if (rom[sigOffset + i] != sigBytes[i]) {
-                    return false;
-                }
-            }
-            return true;
-        } catch (UnsupportedEncodingException ex) {
-            return false;
-        }
-
-    }
-
-    protected static boolean romCode(byte[] rom, String code) {
-        try {
-            int sigOffset = GBConstants.romCodeOffset;
-            byte[] sigBytes = code.getBytes("US-ASCII");
-            for (int i = 0; i < sigBytes.length; i++) {
-                if (rom[sigOffset + i] != sigBytes[i]) {
-                    return false;
-                }
-            }
-            return true;
-        } catch (UnsupportedEncodingException ex) {
-            return false;
-        }
-
-    }
-
 }
@@ -31,12 +31,23 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Random;
 
 public abstract class AbstractGBRomHandler extends AbstractRomHandler {
 
-    protected byte[] rom;
-    protected byte[] originalRom;
+    // The working image. Only the pages that have been written to are held on the heap; the rest
+    // is read from originalRom.
+    protected CopyOnWriteRom rom;
+    // The ROM as it was on disk: a read-only mapping of the file, shared with every handler forked
+    // from this one. Only rom, the working image, is private to a handler.
+    protected ByteBuffer originalRom;
+    private File originalRomFile;
+    // Everything written to rom since it was loaded. Writes have to go through writeByte, writeBytes,
+    // writeWord or applyPatch for this to stay complete.
+    private DirtyRanges dirtyRanges = new DirtyRanges();
+
+    private static final int romHeaderSize = 0x200;
 
     public AbstractGBRomHandler(Random random) {
         super(random);
@@ -44,10 +55,10 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
 
     @Override
     public boolean loadRom(String filename) {
-        byte[] loaded = loadFile(filename);
-        this.rom = loaded;
-        this.originalRom = new byte[rom.length];
-        System.arraycopy(rom, 0, originalRom, 0, rom.length);
+        this.originalRom = mapFile(filename);
+        this.originalRomFile = new File(filename);
+        this.rom = new CopyOnWriteRom(originalRom);
+        dirtyRanges = new DirtyRanges();
         loadedRom();
         return true;
     }
@@ -56,8 +67,39 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
     public boolean saveRomFile(String filename, long seed) {
         savingRom();
         try {
+            unmapIfOverwriting(filename);
+            FileOutputStream fos = new FileOutputStream(filename);
+            rom.writeTo(fos);
+            fos.close();
+            return true;
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Sets this handler up as if it had just loaded the same ROM as template, without reading the
+     * file or parsing it again. Subclasses copy their own parsed state on top of this: anything a
+     * randomization can modify must be copied, since template is shared by every fork.
+     */
+    protected void forkFrom(AbstractGBRomHandler template) {
+        this.rom = new CopyOnWriteRom(template.rom);
+        this.originalRom = template.originalRom;
+        this.originalRomFile = template.originalRomFile;
+        this.dirtyRanges = new DirtyRanges(template.dirtyRanges);
+    }
+
+    @Override
+    public boolean saveRomPatch(String filename, long seed) {
+        savingRom();
+        try {
+            // only the ranges that were written to can differ from the original
+            int[] ranges = dirtyRanges.toArray();
+            byte[] patch = rom.length() > FileFunctions.ipsMaxSize ? FileFunctions.createBPSPatch(originalRom, rom, ranges)
+                    : FileFunctions.createIPSPatch(originalRom, rom, ranges);
+            unmapIfOverwriting(filename);
             FileOutputStream fos = new FileOutputStream(filename);
-            fos.write(rom);
+            fos.write(patch);
             fos.close();
             return true;
         } catch (IOException ex) {
@@ -65,18 +107,49 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
         }
     }
 
+    @Override
+    public String getDefaultPatchExtension() {
+        // IPS can only address the first 16 MB
+        return rom.length() > FileFunctions.ipsMaxSize ? "bps" : "ips";
+    }
+
+    /**
+     * The byte ranges of the ROM that have been written to since it was loaded, coalesced. Bytes
+     * outside of them are guaranteed to equal the original image; bytes inside may or may not.
+     */
+    public DirtyRanges getModifiedRanges() {
+        return dirtyRanges;
+    }
+
+    // Enough of the start of the ROM for the header checks, which work on arrays
+    protected byte[] readHeader() {
+        return readBytes(0, Math.min(romHeaderSize, rom.length()));
+    }
+
     public abstract void loadedRom();
 
     public abstract void savingRom();
 
-    protected static byte[] loadFile(String filename) {
+    protected static ByteBuffer mapFile(String filename) {
         try {
-            return FileFunctions.readFileFullyIntoBuffer(filename);
+            return FileFunctions.mapFileReadOnly(filename);
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    // Truncating a mapped file makes any later access to the mapping fault, so if the ROM is about
+    // to be written over its own source, switch to a private copy of the original first.
+    private void unmapIfOverwriting(String filename) throws IOException {
+        if (originalRomFile != null && new File(filename).getCanonicalFile().equals(originalRomFile.getCanonicalFile())) {
+            byte[] copy = new byte[originalRom.capacity()];
+            originalRom.duplicate().get(copy);
+            originalRom = ByteBuffer.wrap(copy).asReadOnlyBuffer();
+            rom.replaceBase(originalRom);
+            originalRomFile = null;
+        }
+    }
+
     protected static byte[] loadFilePartial(String filename, int maxBytes) {
         try {
             File fh = new File(filename);
@@ -90,8 +163,18 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
         }
     }
 
+    protected byte readByte(int offset) {
+        return rom.get(offset);
+    }
+
+    protected byte[] readBytes(int offset, int length) {
+        byte[] data = new byte[length];
+        rom.get(offset, data, 0, length);
+        return data;
+    }
+
     protected int readWord(int offset) {
-        return readWord(rom, offset);
+        return (rom.get(offset) & 0xFF) + ((rom.get(offset + 1) & 0xFF) << 8);
     }
 
     protected int readWord(byte[] data, int offset) {
@@ -99,7 +182,9 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
     }
 
     protected void writeWord(int offset, int value) {
-        writeWord(rom, offset, value);
+        rom.set(offset, (byte) (value % 0x100));
+        rom.set(offset + 1, (byte) ((value / 0x100) % 0x100));
+        dirtyRanges.add(offset, offset + 2);
     }
 
     protected void writeWord(byte[] data, int offset, int value) {
@@ -107,4 +192,22 @@ public abstract class AbstractGBRomHandler extends AbstractRomHandler {
         data[offset + 1] = (byte) ((value / 0x100) % 0x100);
     }
 
+    protected void writeByte(int offset, int value) {
+        rom.set(offset, (byte) value);
+        dirtyRanges.add(offset, offset + 1);
+    }
+
+    protected void writeBytes(int offset, byte[] data) {
+        writeBytes(offset, data, 0, data.length);
+    }
+
+    protected void writeBytes(int offset, byte[] data, int dataOffset, int length) {
+        rom.set(offset, data, dataOffset, length);
+        dirtyRanges.add(offset, offset + length);
+    }
+
+    protected void applyPatch(String patchName) throws IOException {
+        FileFunctions.applyPatch(rom.length(), patchName, this::writeBytes);
+    }
+
 }
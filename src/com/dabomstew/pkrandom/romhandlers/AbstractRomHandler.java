@@ -29,6 +29,7 @@ package com.dabomstew.pkrandom.romhandlers;
 /*----------------------------------------------------------------------------*/
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.dabomstew.pkrandom.*;
@@ -41,9 +42,11 @@ public abstract class AbstractRomHandler implements RomHandler {
     protected List<Pokemon> mainPokemonListInclFormes;
     private List<Pokemon> noLegendaryList, onlyLegendaryList, ultraBeastList;
     private List<Pokemon> noLegendaryListInclFormes, onlyLegendaryListInclFormes;
+    // what pokemonOfType returns for each type, with and without legendaries
+    private Map<Type, List<Pokemon>> pokemonByType, noLegendaryPokemonByType;
     private List<Pokemon> pickedStarters;
     protected final Random random;
-    private Map<Pokemon, Integer> placementHistory = new HashMap<>();
+    private PokemonCounts placementHistory = new PokemonCounts();
     private int fullyEvolvedRandomSeed;
     boolean isORAS = false;
 
@@ -88,6 +91,27 @@ public abstract class AbstractRomHandler implements RomHandler {
                 noLegendaryListInclFormes.add(p);
             }
         }
+
+        pokemonByType = new EnumMap<>(Type.class);
+        noLegendaryPokemonByType = new EnumMap<>(Type.class);
+        for (Type type : Type.values()) {
+            pokemonByType.put(type, new ArrayList<>());
+            noLegendaryPokemonByType.put(type, new ArrayList<>());
+        }
+        for (Pokemon pk : mainPokemonList) {
+            if (pk != null && !pk.actuallyCosmetic) {
+                for (Type type : Type.values()) {
+                    if (pk.primaryType == type || pk.secondaryType == type) {
+                        pokemonByType.get(type).add(pk);
+                        if (!pk.isLegendary()) {
+                            noLegendaryPokemonByType.get(type).add(pk);
+                        }
+                    }
+                }
+            }
+        }
+        pokemonByType.replaceAll((type, pokes) -> Collections.unmodifiableList(pokes));
+        noLegendaryPokemonByType.replaceAll((type, pokes) -> Collections.unmodifiableList(pokes));
     }
 
     public Pokemon randomPokemon() {
@@ -204,7 +228,7 @@ public abstract class AbstractRomHandler implements RomHandler {
                 }
 
                 // Build area map using type theme.
-                Map<Pokemon, Pokemon> areaMap = new TreeMap<>();
+                PokemonMap<Pokemon> areaMap = new PokemonMap<>();
                 for (Pokemon areaPk : inArea) {
                     int picked = this.random.nextInt(possiblePokemon.size());
                     Pokemon pickedMN = possiblePokemon.get(picked);
@@ -220,23 +244,20 @@ public abstract class AbstractRomHandler implements RomHandler {
             List<Pokemon> allowedPokes;
 
             allowedPokes = new ArrayList<>(mainPokemonList);
+            PowerLevelIndex allowedByPower = new PowerLevelIndex(allowedPokes);
 
             for (EncounterSet area : scrambledEncounters) {
                 // Poke-set
                 Set<Pokemon> inArea = pokemonInArea(area);
                 // Build area map using randoms
-                Map<Pokemon, Pokemon> areaMap = new TreeMap<>();
-                List<Pokemon> usedPks = new ArrayList<>();
-                List<Pokemon> localAllowed = allowedPokes;
-                if (area.bannedPokemon.size() > 0) {
-                    localAllowed = new ArrayList<>(allowedPokes);
-                    localAllowed.removeAll(area.bannedPokemon);
-                }
+                PokemonMap<Pokemon> areaMap = new PokemonMap<>();
+                // the area's banned Pokemon, and the ones already used in it
+                Set<Pokemon> excluded = new PokemonSet(area.bannedPokemon);
                 for (Pokemon areaPk : inArea) {
-                    Pokemon picked = pickWildPowerLvlReplacement(localAllowed, areaPk, false, usedPks, 100);
+                    Pokemon picked = pickWildPowerLvlReplacement(allowedByPower, areaPk, false, excluded, 100);
 
                     areaMap.put(areaPk, picked);
-                    usedPks.add(picked);
+                    excluded.add(picked);
                 }
                 for (Encounter enc : area.encounters) {
                     // Apply the map
@@ -259,6 +280,8 @@ public abstract class AbstractRomHandler implements RomHandler {
 
         // Set up Pokemon pool
         cachedReplacementLists = new TreeMap<>();
+        cachedPowerLevelIndexes = new IdentityHashMap<>();
+        resetFullyEvolvedCache();
         cachedAllList = noLegendaries ? new ArrayList<>(noLegendaryList) : new ArrayList<>(
                 mainPokemonList);
         cachedAllList =
@@ -367,12 +390,7 @@ public abstract class AbstractRomHandler implements RomHandler {
 
             List<Pokemon> evolvesIntoTheWrongType = new ArrayList<>();
             if (typeForTrainer != null) {
-                List<Pokemon> pokemonOfType = pokemonOfType(typeForTrainer, noLegendaries);
-                for (Pokemon pk : pokemonOfType) {
-                    if (!pokemonOfType.contains(fullyEvolve(pk, t.index))) {
-                        evolvesIntoTheWrongType.add(pk);
-                    }
-                }
+                evolvesIntoTheWrongType = evolvesOutOfType(typeForTrainer, noLegendaries, t.index);
             }
 
             List<TrainerPokemon> trainerPokemonList = new ArrayList<>(t.pokemon);
@@ -382,8 +400,7 @@ public abstract class AbstractRomHandler implements RomHandler {
 
                 Pokemon oldPK = tp.pokemon;
 
-                bannedList = new ArrayList<>();
-                bannedList.addAll(usedAsUniqueList);
+                bannedList = new PokemonSet(usedAsUniqueList);
 
                 Pokemon newPK = pickTrainerPokeReplacement(
                                 oldPK,
@@ -497,7 +514,7 @@ public abstract class AbstractRomHandler implements RomHandler {
                             .stream()
                             .filter(pk -> !pk.actuallyCosmetic)
                             .collect(Collectors.toList());
-            List<Pokemon> pokemonLeft = new ArrayList<>(!allowAltFormes ? mainPokemonList : listInclFormesExclCosmetics);
+            PowerLevelIndex pokemonLeft = new PowerLevelIndex(!allowAltFormes ? mainPokemonList : listInclFormesExclCosmetics);
 
             List<Integer> mainGameLegendaries = getMainGameLegendaries();
             for (StaticEncounter old : currentStaticPokemon) {
@@ -628,16 +645,9 @@ public abstract class AbstractRomHandler implements RomHandler {
         ));
     }
 
+    // Not to be modified; the lists are shared by every caller
     private List<Pokemon> pokemonOfType(Type type, boolean noLegendaries) {
-        List<Pokemon> typedPokes = new ArrayList<>();
-        for (Pokemon pk : mainPokemonList) {
-            if (pk != null && (!noLegendaries || !pk.isLegendary()) && !pk.actuallyCosmetic) {
-                if (pk.primaryType == type || pk.secondaryType == type) {
-                    typedPokes.add(pk);
-                }
-            }
-        }
-        return typedPokes;
+        return (noLegendaries ? noLegendaryPokemonByType : pokemonByType).get(type);
     }
 
     private List<Pokemon> allPokemonWithoutNull() {
@@ -653,7 +663,7 @@ public abstract class AbstractRomHandler implements RomHandler {
     }
 
     private Set<Pokemon> pokemonInArea(EncounterSet area) {
-        Set<Pokemon> inArea = new TreeSet<>();
+        Set<Pokemon> inArea = new PokemonSet();
         for (Encounter enc : area.encounters) {
             inArea.add(enc.pokemon);
         }
@@ -845,12 +855,76 @@ public abstract class AbstractRomHandler implements RomHandler {
         }
     }
 
-    private Pokemon fullyEvolve(Pokemon pokemon, int trainerIndex) {
+    // fullyEvolve's results, and the Pokemon of each type that fully evolve out of it, for each split
+    // index; only good while evolutions stay as they are, so they're reset for each trainer randomization
+    private Map<Integer, PokemonMap<Pokemon>> fullyEvolvedBySplit;
+    private Map<Integer, Map<Type, List<Pokemon>>> evolvesOutOfTypeBySplit;
+    // a multiple of every number of split evolutions, so that fullyEvolvedRandomSeed + trainerIndex
+    // picks the same splits as its remainder modulo this, the split index
+    private int splitEvolutionPeriod;
+
+    private void resetFullyEvolvedCache() {
+        fullyEvolvedBySplit = new HashMap<>();
+        evolvesOutOfTypeBySplit = new HashMap<>();
+        splitEvolutionPeriod = 1;
+        for (List<Pokemon> pokes : Arrays.asList(mainPokemonList, mainPokemonListInclFormes)) {
+            for (Pokemon pk : pokes) {
+                int splits = pk.evolutionsFrom.size();
+                if (splits > 1 && splitEvolutionPeriod % splits != 0) {
+                    splitEvolutionPeriod = splitEvolutionPeriod / gcd(splitEvolutionPeriod, splits) * splits;
+                }
+            }
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    // The Pokemon of type that fully evolve into one that isn't, as the given trainer would evolve them.
+    // noLegendaries must be the same on every call between resets.
+    private List<Pokemon> evolvesOutOfType(Type type, boolean noLegendaries, int trainerIndex) {
+        List<Pokemon> pokemonOfType = pokemonOfType(type, noLegendaries);
+        if (pokemonOfType.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int split = splitIndex(trainerIndex);
+        List<Pokemon> evolvesOut = evolvesOutOfTypeBySplit
+                .computeIfAbsent(split, s -> new EnumMap<>(Type.class))
+                .get(type);
+        if (evolvesOut == null) {
+            Set<Pokemon> ofType = new PokemonSet(pokemonOfType);
+            evolvesOut = new ArrayList<>();
+            for (Pokemon pk : pokemonOfType) {
+                if (!ofType.contains(fullyEvolve(pk, trainerIndex))) {
+                    evolvesOut.add(pk);
+                }
+            }
+            evolvesOutOfTypeBySplit.get(split).put(type, evolvesOut);
+        }
+        return new ArrayList<>(evolvesOut);
+    }
+
+    private int splitIndex(int trainerIndex) {
         // If the fullyEvolvedRandomSeed hasn't been set yet, set it here.
         if (this.fullyEvolvedRandomSeed == -1) {
             this.fullyEvolvedRandomSeed = random.nextInt(GlobalConstants.LARGEST_NUMBER_OF_SPLIT_EVOS);
         }
+        return (this.fullyEvolvedRandomSeed + trainerIndex) % splitEvolutionPeriod;
+    }
 
+    private Pokemon fullyEvolve(Pokemon pokemon, int trainerIndex) {
+        int split = splitIndex(trainerIndex);
+        PokemonMap<Pokemon> fullyEvolved = fullyEvolvedBySplit.computeIfAbsent(split, s -> new PokemonMap<>());
+        Pokemon evolved = fullyEvolved.get(pokemon);
+        if (evolved == null) {
+            evolved = fullyEvolveBySplit(pokemon, split);
+            fullyEvolved.put(pokemon, evolved);
+        }
+        return evolved;
+    }
+
+    private Pokemon fullyEvolveBySplit(Pokemon pokemon, int split) {
         Set<Pokemon> seenMons = new HashSet<>();
         seenMons.add(pokemon);
 
@@ -877,7 +951,7 @@ public abstract class AbstractRomHandler implements RomHandler {
             // We want to make split evolutions deterministic, but still random on a seed-to-seed basis.
             // Therefore, we take a random value (which is generated once per seed) and add it to the trainer's
             // index to get a pseudorandom number that can be used to decide which split to take.
-            int evolutionIndex = (this.fullyEvolvedRandomSeed + trainerIndex) % pokemon.evolutionsFrom.size();
+            int evolutionIndex = split % pokemon.evolutionsFrom.size();
             pokemon = pokemon.evolutionsFrom.get(evolutionIndex).to;
             seenMons.add(pokemon);
         }
@@ -887,15 +961,18 @@ public abstract class AbstractRomHandler implements RomHandler {
 
     private Map<Type, List<Pokemon>> cachedReplacementLists;
     private List<Pokemon> cachedAllList;
-    private List<Pokemon> bannedList = new ArrayList<>();
-    private List<Pokemon> usedAsUniqueList = new ArrayList<>();
+    // cachedAllList and the cachedReplacementLists, indexed as they're first picked from
+    private Map<List<Pokemon>, PowerLevelIndex> cachedPowerLevelIndexes;
+    private Set<Pokemon> bannedList = new PokemonSet();
+    private Set<Pokemon> usedAsUniqueList = new PokemonSet();
 
 
     private Pokemon pickTrainerPokeReplacement(Pokemon current, boolean usePowerLevels, Type type,
                                                boolean noLegendaries, boolean wonderGuardAllowed,
                                                boolean usePlacementHistory) {
         List<Pokemon> pickFrom;
-        List<Pokemon> withoutBannedPokemon;
+        // which of pickFrom can be picked; they're filtered as they're looked at rather than copied
+        Predicate<Pokemon> allowed = pk -> true;
 
         pickFrom = cachedAllList;
 
@@ -903,12 +980,9 @@ public abstract class AbstractRomHandler implements RomHandler {
         if (usePlacementHistory) {
             // "Distributed" settings
             double placementAverage = getPlacementAverage();
-            pickFrom = pickFrom
-                    .stream()
-                    .filter(pk -> getPlacementHistory(pk) < placementAverage * 2)
-                    .collect(Collectors.toList());
-            if (pickFrom.isEmpty()) {
-                pickFrom = cachedAllList;
+            Predicate<Pokemon> underused = pk -> getPlacementHistory(pk) < placementAverage * 2;
+            if (pickFrom.stream().anyMatch(underused)) {
+                allowed = underused;
             }
         } else if (type != null && cachedReplacementLists != null) {
             // "Type Themed" settings
@@ -921,23 +995,25 @@ public abstract class AbstractRomHandler implements RomHandler {
             }
         }
 
-        withoutBannedPokemon = pickFrom.stream().filter(pk -> !bannedList.contains(pk)).collect(Collectors.toList());
-        if (!withoutBannedPokemon.isEmpty()) {
-            pickFrom = withoutBannedPokemon;
+        if (!bannedList.isEmpty()) {
+            Predicate<Pokemon> notBanned = allowed.and(pk -> !bannedList.contains(pk));
+            if (pickFrom.stream().anyMatch(notBanned)) {
+                allowed = notBanned;
+            }
         }
 
         if (usePowerLevels) {
             // start with within 10% and add 5% either direction till we find
             // something
+            PowerLevelIndex byPower = cachedPowerLevelIndexes.computeIfAbsent(pickFrom, PowerLevelIndex::new);
             int currentBST = current.bstForPowerLevels();
             int minTarget = currentBST - currentBST / 10;
             int maxTarget = currentBST + currentBST / 10;
             List<Pokemon> canPick = new ArrayList<>();
             int expandRounds = 0;
             while (canPick.isEmpty() || (canPick.size() < 3 && expandRounds < 2)) {
-                for (Pokemon pk : pickFrom) {
-                    if (pk.bstForPowerLevels() >= minTarget
-                            && pk.bstForPowerLevels() <= maxTarget
+                for (Pokemon pk : byPower.inRange(minTarget, maxTarget)) {
+                    if (allowed.test(pk)
                             && (wonderGuardAllowed || (pk.ability1 != Abilities.wonderGuard
                                     && pk.ability2 != Abilities.wonderGuard && pk.ability3 != Abilities.wonderGuard))) {
                         canPick.add(pk);
@@ -966,15 +1042,21 @@ public abstract class AbstractRomHandler implements RomHandler {
             }
             return chosenPokemon;
         } else {
-            if (wonderGuardAllowed) {
-                return pickFrom.get(this.random.nextInt(pickFrom.size()));
+            pickFrom = pickFrom.stream().filter(allowed).collect(Collectors.toList());
+            List<Pokemon> canPick = pickFrom.stream()
+                    .filter(pk -> wonderGuardAllowed || (pk.ability1 != Abilities.wonderGuard
+                            && pk.ability2 != Abilities.wonderGuard && pk.ability3 != Abilities.wonderGuard))
+                    .collect(Collectors.toList());
+            // nothing but Wonder Guard left: better one of those than no replacement at all
+            if (canPick.isEmpty()) {
+                canPick = pickFrom;
             }
+            return canPick.get(this.random.nextInt(canPick.size()));
         }
-        return null;
     }
 
-    private Pokemon pickWildPowerLvlReplacement(List<Pokemon> pokemonPool, Pokemon current, boolean banSamePokemon,
-            List<Pokemon> usedUp, int bstBalanceLevel) {
+    private Pokemon pickWildPowerLvlReplacement(PowerLevelIndex pokemonPool, Pokemon current, boolean banSamePokemon,
+            Set<Pokemon> usedUp, int bstBalanceLevel) {
         // start with within 10% and add 5% either direction till we find
         // something
         int balancedBST = bstBalanceLevel * 10 + 250;
@@ -982,15 +1064,19 @@ public abstract class AbstractRomHandler implements RomHandler {
         int minTarget = currentBST - currentBST / 10;
         int maxTarget = currentBST + currentBST / 10;
         List<Pokemon> canPick = new ArrayList<>();
+        Set<Pokemon> picked = new PokemonSet();
+        // each round only has to look at what the wider window adds
+        int lookedAtMin = Integer.MAX_VALUE, lookedAtMax = Integer.MIN_VALUE;
         int expandRounds = 0;
         while (canPick.isEmpty() || (canPick.size() < 3 && expandRounds < 3)) {
-            for (Pokemon pk : pokemonPool) {
-                if (pk.bstForPowerLevels() >= minTarget && pk.bstForPowerLevels() <= maxTarget
-                        && (!banSamePokemon || pk != current) && (usedUp == null || !usedUp.contains(pk))
-                        && !canPick.contains(pk)) {
+            for (Pokemon pk : pokemonPool.inRange(minTarget, maxTarget, lookedAtMin, lookedAtMax)) {
+                if ((!banSamePokemon || pk != current) && (usedUp == null || !usedUp.contains(pk))
+                        && picked.add(pk)) {
                     canPick.add(pk);
                 }
             }
+            lookedAtMin = minTarget;
+            lookedAtMax = maxTarget;
             minTarget -= currentBST / 20;
             maxTarget += currentBST / 20;
             expandRounds++;
@@ -1011,7 +1097,7 @@ public abstract class AbstractRomHandler implements RomHandler {
         return result;
     }
 
-    private Pokemon pickStaticPowerLvlReplacement(List<Pokemon> pokemonPool, Pokemon current, boolean banSamePokemon,
+    private Pokemon pickStaticPowerLvlReplacement(PowerLevelIndex pokemonPool, Pokemon current, boolean banSamePokemon,
                                                   boolean limitBST) {
         // start with within 10% and add 5% either direction till we find
         // something
@@ -1019,14 +1105,17 @@ public abstract class AbstractRomHandler implements RomHandler {
         int minTarget = limitBST ? currentBST - currentBST / 5 : currentBST - currentBST / 10;
         int maxTarget = limitBST ? currentBST : currentBST + currentBST / 10;
         List<Pokemon> canPick = new ArrayList<>();
+        Set<Pokemon> picked = new PokemonSet();
+        int lookedAtMin = Integer.MAX_VALUE, lookedAtMax = Integer.MIN_VALUE;
         int expandRounds = 0;
         while (canPick.isEmpty() || (canPick.size() < 3 && expandRounds < 3)) {
-            for (Pokemon pk : pokemonPool) {
-                if (pk.bstForPowerLevels() >= minTarget && pk.bstForPowerLevels() <= maxTarget
-                        && (!banSamePokemon || pk != current) && !canPick.contains(pk)) {
+            for (Pokemon pk : pokemonPool.inRange(minTarget, maxTarget, lookedAtMin, lookedAtMax)) {
+                if ((!banSamePokemon || pk != current) && picked.add(pk)) {
                     canPick.add(pk);
                 }
             }
+            lookedAtMin = minTarget;
+            lookedAtMax = maxTarget;
             minTarget -= currentBST / 20;
             maxTarget += currentBST / 20;
             expandRounds++;
@@ -1038,16 +1127,52 @@ public abstract class AbstractRomHandler implements RomHandler {
 
 
     private void setPlacementHistory(Pokemon newPK) {
-        Integer history = getPlacementHistory(newPK);
-        placementHistory.put(newPK, history + 1);
+        placementHistory.increment(newPK);
     }
 
     private int getPlacementHistory(Pokemon newPK) {
-        return placementHistory.getOrDefault(newPK, 0);
+        return placementHistory.get(newPK);
     }
 
     private double getPlacementAverage() {
-        return placementHistory.values().stream().mapToInt(e -> e).average().orElse(0);
+        return placementHistory.average();
+    }
+
+    /**
+     * Deep copies one or more Pokemon arrays for a handler forked from a RomSnapshot. A Pokemon that
+     * appears in several arrays (or several times in one) maps to a single copy, and evolutions and
+     * formes are re-linked between the copies in their original order.
+     */
+    protected static Pokemon[][] copyPokemon(Pokemon[]... arrays) {
+        Map<Pokemon, Pokemon> copies = new IdentityHashMap<>();
+        Pokemon[][] result = new Pokemon[arrays.length][];
+        for (int a = 0; a < arrays.length; a++) {
+            result[a] = new Pokemon[arrays[a].length];
+            for (int i = 0; i < arrays[a].length; i++) {
+                Pokemon pk = arrays[a][i];
+                if (pk != null) {
+                    result[a][i] = copies.computeIfAbsent(pk, Pokemon::copy);
+                }
+            }
+        }
+
+        Map<Evolution, Evolution> evoCopies = new IdentityHashMap<>();
+        for (Map.Entry<Pokemon, Pokemon> entry : copies.entrySet()) {
+            Pokemon pk = entry.getKey(), copy = entry.getValue();
+            copy.baseForme = pk.baseForme == null ? null : copies.get(pk.baseForme);
+            for (Evolution evo : pk.evolutionsFrom) {
+                Evolution evoCopy = new Evolution(copies.get(evo.from), copies.get(evo.to), evo.carryStats, evo.type,
+                        evo.extraInfo);
+                evoCopies.put(evo, evoCopy);
+                copy.evolutionsFrom.add(evoCopy);
+            }
+        }
+        for (Map.Entry<Pokemon, Pokemon> entry : copies.entrySet()) {
+            for (Evolution evo : entry.getKey().evolutionsTo) {
+                entry.getValue().evolutionsTo.add(evoCopies.get(evo));
+            }
+        }
+        return result;
     }
 
     /* Default Implementations */
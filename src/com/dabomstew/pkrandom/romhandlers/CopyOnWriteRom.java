@@ -0,0 +1,309 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  CopyOnWriteRom.java - a writable ROM image made of pages that are     --*/
+/*--                        only copied from the original when written.     --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import com.dabomstew.pkrandom.FileFunctions;
+import com.dabomstew.pkrandom.RomFunctions;
+import com.dabomstew.pkrandom.SearchPattern;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ROM image split into 4 KB pages over a read-only base. Reading an untouched page goes straight
+ * to the base; the first write to a page copies it, so the heap used by an image is proportional
+ * to how much of it has been written rather than to the size of the ROM.
+ */
+public class CopyOnWriteRom implements FileFunctions.ByteSource {
+
+    private static final int pageShift = 12;
+    private static final int pageSize = 1 << pageShift;
+    private static final int pageMask = pageSize - 1;
+
+    private ByteBuffer base;
+    private final int length;
+    // null for a page that still equals the base
+    private final byte[][] pages;
+    // whether pages[i] belongs to this image; if not it is shared with the image this was copied
+    // from and has to be copied before it can be written to
+    private final boolean[] ownedPages;
+    private int copiedPages;
+    // every occurrence in the base of the needles indexBase was given, keyed by the wrapped needle;
+    // neither the map nor the arrays are ever changed, so copies can share them
+    private Map<ByteBuffer, int[]> baseOccurrences = Collections.emptyMap();
+
+    public CopyOnWriteRom(ByteBuffer base) {
+        this.base = base;
+        this.length = base.limit();
+        int pageCount = (length + pageMask) >>> pageShift;
+        this.pages = new byte[pageCount][];
+        this.ownedPages = new boolean[pageCount];
+    }
+
+    /**
+     * Copies toCopy in constant time per page: written pages are shared until either image writes
+     * to them again. toCopy itself must not be written to afterwards, since it still owns them.
+     */
+    public CopyOnWriteRom(CopyOnWriteRom toCopy) {
+        this.base = toCopy.base;
+        this.length = toCopy.length;
+        this.pages = toCopy.pages.clone();
+        this.ownedPages = new boolean[pages.length];
+        this.baseOccurrences = toCopy.baseOccurrences;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public byte get(int offset) {
+        byte[] page = pages[offset >>> pageShift];
+        return page != null ? page[offset & pageMask] : base.get(offset);
+    }
+
+    @Override
+    public void get(int offset, byte[] dst, int dstOffset, int count) {
+        checkRange(offset, count);
+        while (count > 0) {
+            int index = offset >>> pageShift, inPage = offset & pageMask;
+            int chunk = Math.min(count, pageLength(index) - inPage);
+            byte[] page = pages[index];
+            if (page != null) {
+                System.arraycopy(page, inPage, dst, dstOffset, chunk);
+            } else {
+                copyFromBase(offset, dst, dstOffset, chunk);
+            }
+            offset += chunk;
+            dstOffset += chunk;
+            count -= chunk;
+        }
+    }
+
+    // Switches to another copy of the same original bytes, e.g. before the mapped file is overwritten
+    public void replaceBase(ByteBuffer newBase) {
+        if (newBase.limit() != length) {
+            throw new IllegalArgumentException("New base has a different length");
+        }
+        base = newBase;
+    }
+
+    public void set(int offset, byte value) {
+        writablePage(offset >>> pageShift)[offset & pageMask] = value;
+    }
+
+    public void set(int offset, byte[] src, int srcOffset, int count) {
+        checkRange(offset, count);
+        while (count > 0) {
+            int index = offset >>> pageShift, inPage = offset & pageMask;
+            int chunk = Math.min(count, pageLength(index) - inPage);
+            System.arraycopy(src, srcOffset, writablePage(index), inPage, chunk);
+            offset += chunk;
+            srcOffset += chunk;
+            count -= chunk;
+        }
+    }
+
+    /**
+     * Finds every needle in the base in one pass, so that later searches for any of them, in this
+     * image or in copies of it, only have to look at pages that have been written to.
+     */
+    public void indexBase(List<byte[]> needles) {
+        RomFunctions.MultiPatternSearch searcher = new RomFunctions.MultiPatternSearch(needles);
+        int[][] found = searcher.occurrences(base, 0, length);
+        Map<ByteBuffer, int[]> occurrences = new HashMap<>(baseOccurrences);
+        for (int n = 0; n < found.length; n++) {
+            occurrences.put(ByteBuffer.wrap(searcher.needle(n)), found[n]);
+        }
+        baseOccurrences = occurrences;
+    }
+
+    // Indexes needle with occurrences already known to be all of its occurrences in the base
+    public void indexBase(byte[] needle, int[] occurrences) {
+        Map<ByteBuffer, int[]> indexed = new HashMap<>(baseOccurrences);
+        indexed.put(ByteBuffer.wrap(needle.clone()), occurrences.clone());
+        baseOccurrences = indexed;
+    }
+
+    // Every occurrence of needle in the base, overlapping or not; null if it hasn't been indexed
+    public int[] indexedOccurrences(byte[] needle) {
+        int[] occurrences = baseOccurrences.get(ByteBuffer.wrap(needle));
+        return occurrences == null ? null : occurrences.clone();
+    }
+
+    /**
+     * The offsets of needle in the image, as RomFunctions.search would find them in a flat copy:
+     * left to right, without overlaps. Runs of untouched pages are searched in the base directly, or
+     * looked up if the needle has been indexed, and only matches that could touch a written page are
+     * checked against the pages.
+     */
+    public int[] search(SearchPattern pattern) {
+        return search(pattern, Integer.MAX_VALUE);
+    }
+
+    public int[] search(byte[] needle) {
+        return search(SearchPattern.of(needle));
+    }
+
+    // The first offset search would return, found without looking past it; -1 if there is none
+    public int searchFirst(SearchPattern pattern) {
+        int[] found = search(pattern, 1);
+        return found.length == 0 ? -1 : found[0];
+    }
+
+    public int searchFirst(byte[] needle) {
+        return searchFirst(SearchPattern.of(needle));
+    }
+
+    private int[] search(SearchPattern pattern, int maxResults) {
+        byte[] needle = pattern.bytes();
+        int[] indexed = baseOccurrences.get(ByteBuffer.wrap(needle));
+        int[] results = new int[0];
+        int count = 0;
+        // the earliest a match may start without overlapping the previous one
+        int next = 0;
+        int index = 0;
+        while (index < pages.length && count < maxResults) {
+            int runEnd = index;
+            while (runEnd < pages.length && pages[runEnd] == null) {
+                runEnd++;
+            }
+            if (runEnd > index) {
+                // matches entirely inside the untouched run
+                int runStart = Math.max(next, index << pageShift), runLimit = Math.min(runEnd << pageShift, length);
+                int[] found;
+                if (maxResults == 1) {
+                    int first = indexed != null
+                            ? RomFunctions.firstOccurrence(indexed, needle.length, runStart, runLimit)
+                            : RomFunctions.searchFirst(base, runStart, runLimit, pattern);
+                    found = first < 0 ? new int[0] : new int[] { first };
+                } else {
+                    found = indexed != null
+                            ? RomFunctions.nonOverlapping(indexed, needle.length, runStart, runLimit)
+                            : RomFunctions.search(base, runStart, runLimit, pattern);
+                }
+                if (found.length > 0) {
+                    results = Arrays.copyOf(results, count + found.length);
+                    System.arraycopy(found, 0, results, count, found.length);
+                    count += found.length;
+                    next = found[found.length - 1] + needle.length;
+                }
+                index = runEnd;
+            }
+            while (runEnd < pages.length && pages[runEnd] != null) {
+                runEnd++;
+            }
+            if (runEnd > index) {
+                // matches that touch at least one written page
+                int start = Math.max(next, (index << pageShift) - needle.length + 1);
+                int end = Math.min(runEnd << pageShift, length - needle.length + 1);
+                for (int offset = start; offset < end && count < maxResults; offset++) {
+                    if (matchesAt(offset, needle)) {
+                        if (count == results.length) {
+                            results = Arrays.copyOf(results, Math.max(16, count * 2));
+                        }
+                        results[count++] = offset;
+                        next = offset + needle.length;
+                        offset = next - 1;
+                    }
+                }
+                index = runEnd;
+            }
+        }
+        return count == results.length ? results : Arrays.copyOf(results, count);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        byte[] buffer = new byte[pageSize];
+        for (int index = 0; index < pages.length; index++) {
+            int count = pageLength(index);
+            if (pages[index] != null) {
+                out.write(pages[index], 0, count);
+            } else {
+                copyFromBase(index << pageShift, buffer, 0, count);
+                out.write(buffer, 0, count);
+            }
+        }
+    }
+
+    public byte[] toByteArray() {
+        byte[] copy = new byte[length];
+        get(0, copy, 0, length);
+        return copy;
+    }
+
+    // Pages this image has had to allocate, for keeping an eye on per-job memory
+    public int getCopiedPages() {
+        return copiedPages;
+    }
+
+    private boolean matchesAt(int offset, byte[] needle) {
+        for (int i = 0; i < needle.length; i++) {
+            if (get(offset + i) != needle[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte[] writablePage(int index) {
+        if (!ownedPages[index]) {
+            byte[] page = new byte[pageLength(index)];
+            if (pages[index] != null) {
+                System.arraycopy(pages[index], 0, page, 0, page.length);
+            } else {
+                copyFromBase(index << pageShift, page, 0, page.length);
+            }
+            pages[index] = page;
+            ownedPages[index] = true;
+            copiedPages++;
+        }
+        return pages[index];
+    }
+
+    private void copyFromBase(int offset, byte[] dst, int dstOffset, int count) {
+        ByteBuffer source = base.duplicate();
+        source.position(offset);
+        source.get(dst, dstOffset, count);
+    }
+
+    // the last page is cut short so that it can't be indexed past the end of the ROM
+    private int pageLength(int index) {
+        return Math.min(pageSize, length - (index << pageShift));
+    }
+
+    private void checkRange(int offset, int count) {
+        if (offset < 0 || count < 0 || offset > length - count) {
+            throw new ArrayIndexOutOfBoundsException("Range " + offset + "+" + count + " is outside the ROM");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  DirtyRanges.java - the coalesced set of byte ranges that have been    --*/
+/*--                     written to in a ROM image.                         --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records [start, end) byte ranges as they are written and keeps them sorted, with overlapping and
+ * adjacent ranges merged. Handlers mostly write sequentially, so the range currently being
+ * extended is kept aside and only merged into the map when a write lands somewhere else.
+ */
+public class DirtyRanges {
+
+    private final TreeMap<Integer, Integer> ranges;
+    private int pendingStart = -1, pendingEnd = -1;
+
+    public DirtyRanges() {
+        ranges = new TreeMap<>();
+    }
+
+    public DirtyRanges(DirtyRanges toCopy) {
+        ranges = new TreeMap<>(toCopy.ranges);
+        pendingStart = toCopy.pendingStart;
+        pendingEnd = toCopy.pendingEnd;
+    }
+
+    public void add(int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        if (pendingStart >= 0 && start <= pendingEnd && end >= pendingStart) {
+            pendingStart = Math.min(pendingStart, start);
+            pendingEnd = Math.max(pendingEnd, end);
+            return;
+        }
+        flush();
+        pendingStart = start;
+        pendingEnd = end;
+    }
+
+    public boolean isEmpty() {
+        return pendingStart < 0 && ranges.isEmpty();
+    }
+
+    public void clear() {
+        ranges.clear();
+        pendingStart = pendingEnd = -1;
+    }
+
+    // number of separate ranges
+    public int size() {
+        flush();
+        return ranges.size();
+    }
+
+    public long totalBytes() {
+        flush();
+        long total = 0;
+        for (Map.Entry<Integer, Integer> range : ranges.entrySet()) {
+            total += range.getValue() - range.getKey();
+        }
+        return total;
+    }
+
+    // the ranges as sorted, flattened [start, end) pairs
+    public int[] toArray() {
+        flush();
+        int[] result = new int[ranges.size() * 2];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> range : ranges.entrySet()) {
+            result[i++] = range.getKey();
+            result[i++] = range.getValue();
+        }
+        return result;
+    }
+
+    private void flush() {
+        if (pendingStart < 0) {
+            return;
+        }
+        int start = pendingStart, end = pendingEnd;
+        pendingStart = pendingEnd = -1;
+
+        Map.Entry<Integer, Integer> before = ranges.floorEntry(start);
+        if (before != null && before.getValue() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+            ranges.remove(before.getKey());
+        }
+        Map.Entry<Integer, Integer> after;
+        while ((after = ranges.ceilingEntry(start)) != null && after.getKey() <= end) {
+            end = Math.max(end, after.getValue());
+            ranges.remove(after.getKey());
+        }
+        ranges.put(start, end);
+    }
+
+    @Override
+    public String toString() {
+        int[] flat = toArray();
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < flat.length; i += 2) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format("0x%X-0x%X", flat[i], flat[i + 1]));
+        }
+        return sb.append("]").toString();
+    }
+}
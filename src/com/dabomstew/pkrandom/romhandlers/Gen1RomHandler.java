@@ -42,18 +42,18 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
     public static class Factory extends RomHandler.Factory {
 
         @Override
-        public Gen1RomHandler create(Random random, PrintStream logStream) {
-            return new Gen1RomHandler(random);
+        public Gen1RomHandler create(RandomSource randomSource, PrintStream logStream) {
+            return new Gen1RomHandler(randomSource.random());
         }
 
-        public boolean isLoadable(String filename) {
-            long fileLength = new File(filename).length();
-            if (fileLength > 8 * 1024 * 1024) {
-                return false;
-            }
-            byte[] loaded = loadFilePartial(filename, 0x1000);
-            // nope
-            return loaded.length != 0 && detectRomInner(loaded, (int) fileLength);
+        @Override
+        public RomHeaderIndex<?> romIndex() {
+            return romIndex;
+        }
+
+        @Override
+        public boolean isLoadableLength(long fileLength) {
+            return fileLength >= GBConstants.minRomSize && fileLength <= GBConstants.maxRomSize;
         }
     }
 
@@ -81,6 +81,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
 
     private static class RomEntry {
         private String name;
+        // the part of the offsets ini still to be parsed into this entry; null once it has been
+        private OffsetsIni.Section section;
         private String romName;
         private int version, nonJapanese;
         private String extraTableFile;
@@ -94,108 +96,126 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         private Map<Type, Integer> extraTypeReverse = new HashMap<>();
 
         private int getValue(String key) {
-            if (!entries.containsKey(key)) {
-                entries.put(key, 0);
-            }
-            return entries.get(key);
+            // entries are shared by every handler loaded from this version, so never write to them here
+            return entries.getOrDefault(key, 0);
         }
     }
 
+    private static OffsetsIni offsetsIni;
     private static List<RomEntry> roms;
+    private static RomHeaderIndex<RomEntry> romIndex;
 
     static {
         loadROMInfo();
+        romIndex = new RomHeaderIndex<>();
+        for (RomEntry re : roms) {
+            // entries with a CRC in the header are never matched by header alone
+            if (re.crcInHeader == -1) {
+                romIndex.add(re, RomHeaderIndex.Field.ascii(GBConstants.romSigOffset, re.romName),
+                        RomHeaderIndex.Field.unsignedByte(GBConstants.versionOffset, re.version),
+                        RomHeaderIndex.Field.unsignedByte(GBConstants.jpFlagOffset, re.nonJapanese));
+            }
+        }
     }
 
+    // Only finds the sections of the ini and what their ROMs are identified by; the rest of a
+    // section is parsed by parsed, the first time its entry is needed
     private static void loadROMInfo() {
+        offsetsIni = OffsetsIni.load("gen1_offsets.ini", "Game", "Version", "NonJapanese", "CRCInHeader");
         roms = new ArrayList<>();
-        RomEntry current = null;
-        try {
-            Scanner sc = new Scanner(FileFunctions.openConfig("gen1_offsets.ini"), "UTF-8");
-            while (sc.hasNextLine()) {
-                String q = sc.nextLine().trim();
-                if (q.contains("//")) {
-                    q = q.substring(0, q.indexOf("//")).trim();
-                }
-                if (!q.isEmpty()) {
-                    if (q.startsWith("[") && q.endsWith("]")) {
-                        // New rom
-                        current = new RomEntry();
-                        current.name = q.substring(1, q.length() - 1);
-                        roms.add(current);
-                    } else {
-                        String[] r = q.split("=", 2);
-                        r[1] = r[1].trim();
-                        r[0] = r[0].trim();
-                        // Static Pokemon?
-                        if (r[0].equals("StaticPokemon{}")) {
-                            current.staticPokemon.add(parseStaticPokemon(r[1]));
-                        } else if (r[0].equals("StaticPokemonGhostMarowak{}")) {
-                            StaticPokemon ghostMarowak = parseStaticPokemon(r[1]);
-                            current.staticPokemon.add(ghostMarowak);
-                            current.ghostMarowakOffsets = ghostMarowak.speciesOffsets;
-                        } else if (r[0].equals("TMText[]")) {
-                        } else if (r[0].equals("Game")) {
-                            current.romName = r[1];
-                        } else if (r[0].equals("Version")) {
-                            current.version = parseRIInt(r[1]);
-                        } else if (r[0].equals("NonJapanese")) {
-                            current.nonJapanese = parseRIInt(r[1]);
-                        } else if (r[0].equals("Type")) {
-                            current.isYellow = r[1].equalsIgnoreCase("Yellow");
-                        } else if (r[0].equals("ExtraTableFile")) {
-                            current.extraTableFile = r[1];
-                        } else if (r[0].equals("CRCInHeader")) {
-                            current.crcInHeader = parseRIInt(r[1]);
-                        } else if (r[0].equals("CRC32")) {
-                        } else if (r[0].endsWith("Tweak")) {
-                            current.tweakFiles.put(r[0], r[1]);
-                        } else if (r[0].equals("ExtraTypes")) {
-                        } else if (r[0].equals("CopyFrom")) {
-                            for (RomEntry otherEntry : roms) {
-                                if (r[1].equalsIgnoreCase(otherEntry.name)) {
-                                    // copy from here
-                                    boolean cSP = (current.getValue("CopyStaticPokemon") == 1);
-                                    boolean cTT = (current.getValue("CopyTMText") == 1);
-                                    current.arrayEntries.putAll(otherEntry.arrayEntries);
-                                    current.entries.putAll(otherEntry.entries);
-                                    if (cSP) {
-                                        current.staticPokemon.addAll(otherEntry.staticPokemon);
-                                        current.ghostMarowakOffsets = otherEntry.ghostMarowakOffsets;
-                                        current.entries.put("StaticPokemonSupport", 1);
-                                    } else {
-                                        current.entries.put("StaticPokemonSupport", 0);
-                                    }
-                                    if (cTT) {
-                                    }
-                                    current.extraTableFile = otherEntry.extraTableFile;
-                                }
-                            }
+        for (OffsetsIni.Section section : offsetsIni.sections()) {
+            RomEntry entry = new RomEntry();
+            entry.name = section.getName();
+            entry.section = section;
+            entry.romName = section.value("Game");
+            if (section.value("Version") != null) {
+                entry.version = parseRIInt(section.value("Version"));
+            }
+            if (section.value("NonJapanese") != null) {
+                entry.nonJapanese = parseRIInt(section.value("NonJapanese"));
+            }
+            if (section.value("CRCInHeader") != null) {
+                entry.crcInHeader = parseRIInt(section.value("CRCInHeader"));
+            }
+            roms.add(entry);
+        }
+    }
+
+    // current, after parsing its section if that hasn't been done yet
+    private static synchronized RomEntry parsed(RomEntry current) {
+        if (current.section == null) {
+            return current;
+        }
+        List<String> lines = offsetsIni.lines(current.section);
+        current.section = null;
+        for (String q : lines) {
+            String[] r = q.split("=", 2);
+            r[1] = r[1].trim();
+            r[0] = r[0].trim();
+            // Static Pokemon?
+            if (r[0].equals("StaticPokemon{}")) {
+                current.staticPokemon.add(parseStaticPokemon(r[1]));
+            } else if (r[0].equals("StaticPokemonGhostMarowak{}")) {
+                StaticPokemon ghostMarowak = parseStaticPokemon(r[1]);
+                current.staticPokemon.add(ghostMarowak);
+                current.ghostMarowakOffsets = ghostMarowak.speciesOffsets;
+            } else if (r[0].equals("TMText[]")) {
+            } else if (r[0].equals("Game")) {
+                current.romName = r[1];
+            } else if (r[0].equals("Version")) {
+                current.version = parseRIInt(r[1]);
+            } else if (r[0].equals("NonJapanese")) {
+                current.nonJapanese = parseRIInt(r[1]);
+            } else if (r[0].equals("Type")) {
+                current.isYellow = r[1].equalsIgnoreCase("Yellow");
+            } else if (r[0].equals("ExtraTableFile")) {
+                current.extraTableFile = r[1];
+            } else if (r[0].equals("CRCInHeader")) {
+                current.crcInHeader = parseRIInt(r[1]);
+            } else if (r[0].equals("CRC32")) {
+            } else if (r[0].endsWith("Tweak")) {
+                current.tweakFiles.put(r[0], r[1]);
+            } else if (r[0].equals("ExtraTypes")) {
+            } else if (r[0].equals("CopyFrom")) {
+                for (RomEntry otherEntry : roms.subList(0, roms.indexOf(current) + 1)) {
+                    if (r[1].equalsIgnoreCase(otherEntry.name)) {
+                        parsed(otherEntry);
+                        // copy from here
+                        boolean cSP = (current.getValue("CopyStaticPokemon") == 1);
+                        boolean cTT = (current.getValue("CopyTMText") == 1);
+                        current.arrayEntries.putAll(otherEntry.arrayEntries);
+                        current.entries.putAll(otherEntry.entries);
+                        if (cSP) {
+                            current.staticPokemon.addAll(otherEntry.staticPokemon);
+                            current.ghostMarowakOffsets = otherEntry.ghostMarowakOffsets;
+                            current.entries.put("StaticPokemonSupport", 1);
                         } else {
-                            if (r[1].startsWith("[") && r[1].endsWith("]")) {
-                                String[] offsets = r[1].substring(1, r[1].length() - 1).split(",");
-                                {
-                                    int[] offs = new int[offsets.length];
-                                    int c = 0;
-                                    for (String off : offsets) {
-                                        offs[c++] = parseRIInt(off);
-                                    }
-                                    current.arrayEntries.put(r[0], offs);
-                                }
-
-                            } else {
-                                int offs = parseRIInt(r[1]);
-                                current.entries.put(r[0], offs);
-                            }
+                            current.entries.put("StaticPokemonSupport", 0);
                         }
+                        if (cTT) {
+                        }
+                        current.extraTableFile = otherEntry.extraTableFile;
                     }
                 }
+            } else {
+                if (r[1].startsWith("[") && r[1].endsWith("]")) {
+                    String[] offsets = r[1].substring(1, r[1].length() - 1).split(",");
+                    {
+                        int[] offs = new int[offsets.length];
+                        int c = 0;
+                        for (String off : offsets) {
+                            offs[c++] = parseRIInt(off);
+                        }
+                        current.arrayEntries.put(r[0], offs);
+                    }
+
+                } else {
+                    int offs = parseRIInt(r[1]);
+                    current.entries.put(r[0], offs);
+                }
             }
-            sc.close();
-        } catch (FileNotFoundException e) {
-            System.err.println("File not found!");
         }
-
+        return current;
     }
 
     private static StaticPokemon parseStaticPokemon(String staticPokemonString) {
@@ -259,21 +279,16 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
     private String[] mapNames;
     private SubMap[] maps;
 
-    public static boolean detectRomInner(byte[] rom, int romSize) {
-        // size check
-        return romSize >= GBConstants.minRomSize && romSize <= GBConstants.maxRomSize && checkRomEntry(rom) != null;
-    }
-
     @Override
     public void loadedRom() {
-        romEntry = checkRomEntry(this.rom);
+        romEntry = checkRomEntry(readHeader());
         pokeNumToRBYTable = new int[256];
         pokeRBYToNumTable = new int[256];
         maps = new SubMap[256];
-        clearTextTables();
-        readTextTable("gameboy_jpn");
         if (romEntry.extraTableFile != null && !romEntry.extraTableFile.equalsIgnoreCase("none")) {
-            readTextTable(romEntry.extraTableFile);
+            loadTextTables("gameboy_jpn", romEntry.extraTableFile);
+        } else {
+            loadTextTables("gameboy_jpn");
         }
         loadPokedexOrder();
         loadPokemonStats();
@@ -282,12 +297,26 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         loadMapNames();
     }
 
+    @Override
+    protected void forkFrom(AbstractGBRomHandler template) {
+        super.forkFrom(template);
+        Gen1RomHandler other = (Gen1RomHandler) template;
+        romEntry = other.romEntry;
+        pokeNumToRBYTable = other.pokeNumToRBYTable;
+        pokeRBYToNumTable = other.pokeRBYToNumTable;
+        pokedexCount = other.pokedexCount;
+        pokes = copyPokemon(other.pokes)[0];
+        pokemonList = Arrays.asList(pokes);
+        maps = other.maps;
+        mapNames = other.mapNames;
+    }
+
     private void loadPokedexOrder() {
         int pkmnCount = romEntry.getValue("InternalPokemonCount");
         int orderOffset = romEntry.getValue("PokedexOrder");
         pokedexCount = 0;
         for (int i = 1; i <= pkmnCount; i++) {
-            int pokedexNum = rom[orderOffset + i - 1] & 0xFF;
+            int pokedexNum = readByte(orderOffset + i - 1) & 0xFF;
             pokeRBYToNumTable[i] = pokedexNum;
             if (pokedexNum != 0 && pokeNumToRBYTable[pokedexNum] == 0) {
                 pokeNumToRBYTable[pokedexNum] = i;
@@ -297,17 +326,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
     }
 
     private static RomEntry checkRomEntry(byte[] rom) {
-        int version = rom[GBConstants.versionOffset] & 0xFF;
-        int nonjap = rom[GBConstants.jpFlagOffset] & 0xFF;
-        // Check for specific CRC first
-        // Now check for non-specific-CRC entries
-        for (RomEntry re : roms) {
-            if (romSig(rom, re.romName) && re.version == version && re.nonJapanese == nonjap && re.crcInHeader == -1) {
-                return re;
-            }
-        }
-        // Not found
-        return null;
+        RomEntry re = romIndex.lookup(rom);
+        return re == null ? null : parsed(re);
     }
 
     @Override
@@ -373,22 +393,22 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
     }
 
     private void loadBasicPokeStats(Pokemon pkmn, int offset) {
-        pkmn.hp = rom[offset + Gen1Constants.bsHPOffset] & 0xFF;
-        pkmn.attack = rom[offset + Gen1Constants.bsAttackOffset] & 0xFF;
-        pkmn.defense = rom[offset + Gen1Constants.bsDefenseOffset] & 0xFF;
-        pkmn.speed = rom[offset + Gen1Constants.bsSpeedOffset] & 0xFF;
-        pkmn.special = rom[offset + Gen1Constants.bsSpecialOffset] & 0xFF;
+        pkmn.hp = readByte(offset + Gen1Constants.bsHPOffset) & 0xFF;
+        pkmn.attack = readByte(offset + Gen1Constants.bsAttackOffset) & 0xFF;
+        pkmn.defense = readByte(offset + Gen1Constants.bsDefenseOffset) & 0xFF;
+        pkmn.speed = readByte(offset + Gen1Constants.bsSpeedOffset) & 0xFF;
+        pkmn.special = readByte(offset + Gen1Constants.bsSpecialOffset) & 0xFF;
         // Type
-        pkmn.primaryType = idToType(rom[offset + Gen1Constants.bsPrimaryTypeOffset] & 0xFF);
-        pkmn.secondaryType = idToType(rom[offset + Gen1Constants.bsSecondaryTypeOffset] & 0xFF);
+        pkmn.primaryType = idToType(readByte(offset + Gen1Constants.bsPrimaryTypeOffset) & 0xFF);
+        pkmn.secondaryType = idToType(readByte(offset + Gen1Constants.bsSecondaryTypeOffset) & 0xFF);
         // Only one type?
         if (pkmn.secondaryType == pkmn.primaryType) {
             pkmn.secondaryType = null;
         }
 
-        pkmn.catchRate = rom[offset + Gen1Constants.bsCatchRateOffset] & 0xFF;
-        pkmn.expYield = rom[offset + Gen1Constants.bsExpYieldOffset] & 0xFF;
-        pkmn.growthCurve = ExpCurve.fromByte(rom[offset + Gen1Constants.bsGrowthCurveOffset]);
+        pkmn.catchRate = readByte(offset + Gen1Constants.bsCatchRateOffset) & 0xFF;
+        pkmn.expYield = readByte(offset + Gen1Constants.bsExpYieldOffset) & 0xFF;
+        pkmn.growthCurve = ExpCurve.fromByte(readByte(offset + Gen1Constants.bsGrowthCurveOffset));
         pkmn.frontSpritePointer = readWord(offset + Gen1Constants.bsFrontSpriteOffset);
 
         pkmn.guaranteedHeldItem = -1;
@@ -398,20 +418,20 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
     }
 
     private void saveBasicPokeStats(Pokemon pkmn, int offset) {
-        rom[offset + Gen1Constants.bsHPOffset] = (byte) pkmn.hp;
-        rom[offset + Gen1Constants.bsAttackOffset] = (byte) pkmn.attack;
-        rom[offset + Gen1Constants.bsDefenseOffset] = (byte) pkmn.defense;
-        rom[offset + Gen1Constants.bsSpeedOffset] = (byte) pkmn.speed;
-        rom[offset + Gen1Constants.bsSpecialOffset] = (byte) pkmn.special;
-        rom[offset + Gen1Constants.bsPrimaryTypeOffset] = typeToByte(pkmn.primaryType);
+        writeByte(offset + Gen1Constants.bsHPOffset, (byte) pkmn.hp);
+        writeByte(offset + Gen1Constants.bsAttackOffset, (byte) pkmn.attack);
+        writeByte(offset + Gen1Constants.bsDefenseOffset, (byte) pkmn.defense);
+        writeByte(offset + Gen1Constants.bsSpeedOffset, (byte) pkmn.speed);
+        writeByte(offset + Gen1Constants.bsSpecialOffset, (byte) pkmn.special);
+        writeByte(offset + Gen1Constants.bsPrimaryTypeOffset, typeToByte(pkmn.primaryType));
         if (pkmn.secondaryType == null) {
-            rom[offset + Gen1Constants.bsSecondaryTypeOffset] = rom[offset + Gen1Constants.bsPrimaryTypeOffset];
+            writeByte(offset + Gen1Constants.bsSecondaryTypeOffset, readByte(offset + Gen1Constants.bsPrimaryTypeOffset));
         } else {
-            rom[offset + Gen1Constants.bsSecondaryTypeOffset] = typeToByte(pkmn.secondaryType);
+            writeByte(offset + Gen1Constants.bsSecondaryTypeOffset, typeToByte(pkmn.secondaryType));
         }
-        rom[offset + Gen1Constants.bsCatchRateOffset] = (byte) pkmn.catchRate;
-        rom[offset + Gen1Constants.bsGrowthCurveOffset] = pkmn.growthCurve.toByte();
-        rom[offset + Gen1Constants.bsExpYieldOffset] = (byte) pkmn.expYield;
+        writeByte(offset + Gen1Constants.bsCatchRateOffset, (byte) pkmn.catchRate);
+        writeByte(offset + Gen1Constants.bsGrowthCurveOffset, pkmn.growthCurve.toByte());
+        writeByte(offset + Gen1Constants.bsExpYieldOffset, (byte) pkmn.expYield);
     }
 
     private String[] readPokemonNames() {
@@ -429,10 +449,10 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
     public List<Pokemon> getStarters() {
         // Get the starters
         List<Pokemon> starters = new ArrayList<>();
-        starters.add(pokes[pokeRBYToNumTable[rom[romEntry.arrayEntries.get("StarterOffsets1")[0]] & 0xFF]]);
-        starters.add(pokes[pokeRBYToNumTable[rom[romEntry.arrayEntries.get("StarterOffsets2")[0]] & 0xFF]]);
+        starters.add(pokes[pokeRBYToNumTable[readByte(romEntry.arrayEntries.get("StarterOffsets1")[0]) & 0xFF]]);
+        starters.add(pokes[pokeRBYToNumTable[readByte(romEntry.arrayEntries.get("StarterOffsets2")[0]) & 0xFF]]);
         if (!romEntry.isYellow) {
-            starters.add(pokes[pokeRBYToNumTable[rom[romEntry.arrayEntries.get("StarterOffsets3")[0]] & 0xFF]]);
+            starters.add(pokes[pokeRBYToNumTable[readByte(romEntry.arrayEntries.get("StarterOffsets3")[0]) & 0xFF]]);
         }
         return starters;
     }
@@ -450,7 +470,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
             byte starter = (byte) pokeNumToRBYTable[newStarters.get(i).number];
             int[] offsets = romEntry.arrayEntries.get("StarterOffsets" + (i + 1));
             for (int offset : offsets) {
-                rom[offset] = starter;
+                writeByte(offset, starter);
             }
         }
 
@@ -504,39 +524,39 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
                 // Branch to our new routine(s)
 
                 // Turn bytes on
-                rom[pkDexOnOffset] = GBConstants.gbZ80Jump;
+                writeByte(pkDexOnOffset, GBConstants.gbZ80Jump);
                 writeWord(pkDexOnOffset + 1, offsetForOnRoutine);
-                rom[pkDexOnOffset + 3] = GBConstants.gbZ80Nop;
-                rom[pkDexOnOffset + 4] = GBConstants.gbZ80Nop;
+                writeByte(pkDexOnOffset + 3, GBConstants.gbZ80Nop);
+                writeByte(pkDexOnOffset + 4, GBConstants.gbZ80Nop);
 
                 // Turn bytes off
-                rom[pkDexOffOffset] = GBConstants.gbZ80Jump;
+                writeByte(pkDexOffOffset, GBConstants.gbZ80Jump);
                 writeWord(pkDexOffOffset + 1, offsetForOffRoutine);
-                rom[pkDexOffOffset + 3] = GBConstants.gbZ80Nop;
+                writeByte(pkDexOffOffset + 3, GBConstants.gbZ80Nop);
 
                 // Put together the two scripts
-                rom[writeOffRoutineTo] = GBConstants.gbZ80XorA;
+                writeByte(writeOffRoutineTo, GBConstants.gbZ80XorA);
                 int turnOnOffset = writeOnRoutineTo;
                 int turnOffOffset = writeOffRoutineTo + 1;
                 for (int ramOffset : onValues.keySet()) {
                     int onValue = onValues.get(ramOffset);
                     // Turn on code
-                    rom[turnOnOffset++] = GBConstants.gbZ80LdA;
-                    rom[turnOnOffset++] = (byte) onValue;
+                    writeByte(turnOnOffset++, GBConstants.gbZ80LdA);
+                    writeByte(turnOnOffset++, (byte) onValue);
                     // Turn on code for ram writing
-                    rom[turnOnOffset++] = GBConstants.gbZ80LdAToFar;
-                    rom[turnOnOffset++] = (byte) (ramOffset % 0x100);
-                    rom[turnOnOffset++] = (byte) (ramOffset / 0x100);
+                    writeByte(turnOnOffset++, GBConstants.gbZ80LdAToFar);
+                    writeByte(turnOnOffset++, (byte) (ramOffset % 0x100));
+                    writeByte(turnOnOffset++, (byte) (ramOffset / 0x100));
                     // Turn off code for ram writing
-                    rom[turnOffOffset++] = GBConstants.gbZ80LdAToFar;
-                    rom[turnOffOffset++] = (byte) (ramOffset % 0x100);
-                    rom[turnOffOffset++] = (byte) (ramOffset / 0x100);
+                    writeByte(turnOffOffset++, GBConstants.gbZ80LdAToFar);
+                    writeByte(turnOffOffset++, (byte) (ramOffset % 0x100));
+                    writeByte(turnOffOffset++, (byte) (ramOffset / 0x100));
                 }
                 // Jump back
-                rom[turnOnOffset++] = GBConstants.gbZ80Jump;
+                writeByte(turnOnOffset++, GBConstants.gbZ80Jump);
                 writeWord(turnOnOffset, retOnOffset);
 
-                rom[turnOffOffset++] = GBConstants.gbZ80Jump;
+                writeByte(turnOffOffset++, GBConstants.gbZ80Jump);
                 writeWord(turnOffOffset, retOffOffset);
             }
 
@@ -554,8 +574,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
             // cp 147
             // jr c, .asm_1cfb3    <- this is where "offset" is
             // Write two nops to patch out the jump
-            rom[offset] =  GBConstants.gbZ80Nop;
-            rom[offset + 1] =  GBConstants.gbZ80Nop;
+            writeByte(offset,  GBConstants.gbZ80Nop);
+            writeByte(offset + 1,  GBConstants.gbZ80Nop);
         }
 
         return true;
@@ -573,7 +593,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
 
         Pokemon ghostMarowak = pokes[Species.marowak];
         if (canChangeStaticPokemon()) {
-            ghostMarowak = pokes[pokeRBYToNumTable[rom[romEntry.ghostMarowakOffsets[0]] & 0xFF]];
+            ghostMarowak = pokes[pokeRBYToNumTable[readByte(romEntry.ghostMarowakOffsets[0]) & 0xFF]];
         }
 
         // grass & water
@@ -590,7 +610,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
                 usedOffsets.add(offset);
                 // grass and water are exactly the same
                 for (int a = 0; a < 2; a++) {
-                    int rate = rom[offset++] & 0xFF;
+                    int rate = readByte(offset++) & 0xFF;
                     if (rate > 0) {
                         // there is data here
                         EncounterSet thisSet = new EncounterSet();
@@ -602,8 +622,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
                         }
                         for (int slot = 0; slot < Gen1Constants.encounterTableSize; slot++) {
                             Encounter enc = new Encounter();
-                            enc.level = rom[offset] & 0xFF;
-                            enc.pokemon = pokes[pokeRBYToNumTable[rom[offset + 1] & 0xFF]];
+                            enc.level = readByte(offset) & 0xFF;
+                            enc.pokemon = pokes[pokeRBYToNumTable[readByte(offset + 1) & 0xFF]];
                             thisSet.encounters.add(enc);
                             offset += 2;
                         }
@@ -625,8 +645,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         EncounterSet oldRodSet = new EncounterSet();
         oldRodSet.displayName = "Old Rod Fishing";
         Encounter oldRodEnc = new Encounter();
-        oldRodEnc.level = rom[oldRodOffset + 2] & 0xFF;
-        oldRodEnc.pokemon = pokes[pokeRBYToNumTable[rom[oldRodOffset + 1] & 0xFF]];
+        oldRodEnc.level = readByte(oldRodOffset + 2) & 0xFF;
+        oldRodEnc.pokemon = pokes[pokeRBYToNumTable[readByte(oldRodOffset + 1) & 0xFF]];
         oldRodSet.encounters.add(oldRodEnc);
         oldRodSet.bannedPokemon.add(ghostMarowak);
         encounters.add(oldRodSet);
@@ -637,8 +657,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         goodRodSet.displayName = "Good Rod Fishing";
         for (int grSlot = 0; grSlot < 2; grSlot++) {
             Encounter enc = new Encounter();
-            enc.level = rom[goodRodOffset + grSlot * 2] & 0xFF;
-            enc.pokemon = pokes[pokeRBYToNumTable[rom[goodRodOffset + grSlot * 2 + 1] & 0xFF]];
+            enc.level = readByte(goodRodOffset + grSlot * 2) & 0xFF;
+            enc.pokemon = pokes[pokeRBYToNumTable[readByte(goodRodOffset + grSlot * 2 + 1) & 0xFF]];
             goodRodSet.encounters.add(enc);
         }
         goodRodSet.bannedPokemon.add(ghostMarowak);
@@ -647,14 +667,14 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         // super rod
         if (romEntry.isYellow) {
             int superRodOffset = romEntry.getValue("SuperRodTableOffset");
-            while ((rom[superRodOffset] & 0xFF) != 0xFF) {
-                int map = rom[superRodOffset++] & 0xFF;
+            while ((readByte(superRodOffset) & 0xFF) != 0xFF) {
+                int map = readByte(superRodOffset++) & 0xFF;
                 EncounterSet thisSet = new EncounterSet();
                 thisSet.displayName = "Super Rod Fishing on " + mapNames[map];
                 for (int encN = 0; encN < Gen1Constants.yellowSuperRodTableSize; encN++) {
                     Encounter enc = new Encounter();
-                    enc.level = rom[superRodOffset + 1] & 0xFF;
-                    enc.pokemon = pokes[pokeRBYToNumTable[rom[superRodOffset] & 0xFF]];
+                    enc.level = readByte(superRodOffset + 1) & 0xFF;
+                    enc.pokemon = pokes[pokeRBYToNumTable[readByte(superRodOffset) & 0xFF]];
                     thisSet.encounters.add(enc);
                     superRodOffset += 2;
                 }
@@ -666,8 +686,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
             int superRodOffset = romEntry.getValue("SuperRodTableOffset");
             int superRodBank = bankOf(superRodOffset);
             List<Integer> usedSROffsets = new ArrayList<>();
-            while ((rom[superRodOffset] & 0xFF) != 0xFF) {
-                int map = rom[superRodOffset++] & 0xFF;
+            while ((readByte(superRodOffset) & 0xFF) != 0xFF) {
+                int map = readByte(superRodOffset++) & 0xFF;
                 int setOffset = calculateOffset(superRodBank, readWord(superRodOffset));
                 superRodOffset += 2;
                 if (!usedSROffsets.contains(setOffset)) {
@@ -675,11 +695,11 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
                     EncounterSet thisSet = new EncounterSet();
                     thisSet.displayName = "Super Rod Fishing on " + mapNames[map];
                     thisSet.offset = setOffset;
-                    int pokesInSet = rom[setOffset++] & 0xFF;
+                    int pokesInSet = readByte(setOffset++) & 0xFF;
                     for (int encN = 0; encN < pokesInSet; encN++) {
                         Encounter enc = new Encounter();
-                        enc.level = rom[setOffset] & 0xFF;
-                        enc.pokemon = pokes[pokeRBYToNumTable[rom[setOffset + 1] & 0xFF]];
+                        enc.level = readByte(setOffset) & 0xFF;
+                        enc.pokemon = pokes[pokeRBYToNumTable[readByte(setOffset + 1) & 0xFF]];
                         thisSet.encounters.add(enc);
                         setOffset += 2;
                     }
@@ -713,14 +733,14 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
                 usedOffsets.add(offset);
                 // grass and water are exactly the same
                 for (int a = 0; a < 2; a++) {
-                    int rate = rom[offset++] & 0xFF;
+                    int rate = readByte(offset++) & 0xFF;
                     if (rate > 0) {
                         // there is data here
                         EncounterSet thisSet = encsetit.next();
                         for (int slot = 0; slot < Gen1Constants.encounterTableSize; slot++) {
                             Encounter enc = thisSet.encounters.get(slot);
-                            rom[offset] = (byte) enc.level;
-                            rom[offset + 1] = (byte) pokeNumToRBYTable[enc.pokemon.number];
+                            writeByte(offset, (byte) enc.level);
+                            writeByte(offset + 1, (byte) pokeNumToRBYTable[enc.pokemon.number]);
                             offset += 2;
                         }
                     }
@@ -733,28 +753,28 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         int oldRodOffset = romEntry.getValue("OldRodOffset");
         EncounterSet oldRodSet = encsetit.next();
         Encounter oldRodEnc = oldRodSet.encounters.get(0);
-        rom[oldRodOffset + 2] = (byte) oldRodEnc.level;
-        rom[oldRodOffset + 1] = (byte) pokeNumToRBYTable[oldRodEnc.pokemon.number];
+        writeByte(oldRodOffset + 2, (byte) oldRodEnc.level);
+        writeByte(oldRodOffset + 1, (byte) pokeNumToRBYTable[oldRodEnc.pokemon.number]);
 
         // good rod
         int goodRodOffset = romEntry.getValue("GoodRodOffset");
         EncounterSet goodRodSet = encsetit.next();
         for (int grSlot = 0; grSlot < 2; grSlot++) {
             Encounter enc = goodRodSet.encounters.get(grSlot);
-            rom[goodRodOffset + grSlot * 2] = (byte) enc.level;
-            rom[goodRodOffset + grSlot * 2 + 1] = (byte) pokeNumToRBYTable[enc.pokemon.number];
+            writeByte(goodRodOffset + grSlot * 2, (byte) enc.level);
+            writeByte(goodRodOffset + grSlot * 2 + 1, (byte) pokeNumToRBYTable[enc.pokemon.number]);
         }
 
         // super rod
         if (romEntry.isYellow) {
             int superRodOffset = romEntry.getValue("SuperRodTableOffset");
-            while ((rom[superRodOffset] & 0xFF) != 0xFF) {
+            while ((readByte(superRodOffset) & 0xFF) != 0xFF) {
                 superRodOffset++;
                 EncounterSet thisSet = encsetit.next();
                 for (int encN = 0; encN < Gen1Constants.yellowSuperRodTableSize; encN++) {
                     Encounter enc = thisSet.encounters.get(encN);
-                    rom[superRodOffset + 1] = (byte) enc.level;
-                    rom[superRodOffset] = (byte) pokeNumToRBYTable[enc.pokemon.number];
+                    writeByte(superRodOffset + 1, (byte) enc.level);
+                    writeByte(superRodOffset, (byte) pokeNumToRBYTable[enc.pokemon.number]);
                     superRodOffset += 2;
                 }
             }
@@ -763,18 +783,18 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
             int superRodOffset = romEntry.getValue("SuperRodTableOffset");
             int superRodBank = bankOf(superRodOffset);
             List<Integer> usedSROffsets = new ArrayList<>();
-            while ((rom[superRodOffset] & 0xFF) != 0xFF) {
+            while ((readByte(superRodOffset) & 0xFF) != 0xFF) {
                 superRodOffset++;
                 int setOffset = calculateOffset(superRodBank, readWord(superRodOffset));
                 superRodOffset += 2;
                 if (!usedSROffsets.contains(setOffset)) {
                     usedSROffsets.add(setOffset);
-                    int pokesInSet = rom[setOffset++] & 0xFF;
+                    int pokesInSet = readByte(setOffset++) & 0xFF;
                     EncounterSet thisSet = encsetit.next();
                     for (int encN = 0; encN < pokesInSet; encN++) {
                         Encounter enc = thisSet.encounters.get(encN);
-                        rom[setOffset] = (byte) enc.level;
-                        rom[setOffset + 1] = (byte) pokeNumToRBYTable[enc.pokemon.number];
+                        writeByte(setOffset, (byte) enc.level);
+                        writeByte(setOffset + 1, (byte) pokeNumToRBYTable[enc.pokemon.number]);
                         setOffset += 2;
                     }
                 }
@@ -818,25 +838,25 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
                 tr.index = index;
                 tr.trainerclass = i;
                 tr.fullDisplayName = tcname;
-                int dataType = rom[offs] & 0xFF;
+                int dataType = readByte(offs) & 0xFF;
                 if (dataType == 0xFF) {
                     // "Special" trainer
                     tr.poketype = 1;
                     offs++;
-                    while (rom[offs] != 0x0) {
+                    while (readByte(offs) != 0x0) {
                         TrainerPokemon tpk = new TrainerPokemon();
-                        tpk.level = rom[offs] & 0xFF;
-                        tpk.pokemon = pokes[pokeRBYToNumTable[rom[offs + 1] & 0xFF]];
+                        tpk.level = readByte(offs) & 0xFF;
+                        tpk.pokemon = pokes[pokeRBYToNumTable[readByte(offs + 1) & 0xFF]];
                         tr.pokemon.add(tpk);
                         offs += 2;
                     }
                 } else {
                     tr.poketype = 0;
                     offs++;
-                    while (rom[offs] != 0x0) {
+                    while (readByte(offs) != 0x0) {
                         TrainerPokemon tpk = new TrainerPokemon();
                         tpk.level = dataType;
-                        tpk.pokemon = pokes[pokeRBYToNumTable[rom[offs] & 0xFF]];
+                        tpk.pokemon = pokes[pokeRBYToNumTable[readByte(offs) & 0xFF]];
                         tr.pokemon.add(tpk);
                         offs++;
                     }
@@ -881,32 +901,32 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
                 if (tr.poketype == 0) {
                     // Regular trainer
                     int fixedLevel = tr.pokemon.get(0).level;
-                    rom[offs] = (byte) fixedLevel;
+                    writeByte(offs, (byte) fixedLevel);
                     offs++;
                     while (tPokes.hasNext()) {
                         TrainerPokemon tpk = tPokes.next();
-                        rom[offs] = (byte) pokeNumToRBYTable[tpk.pokemon.number];
+                        writeByte(offs, (byte) pokeNumToRBYTable[tpk.pokemon.number]);
                         offs++;
                     }
                 } else {
                     // Special trainer
-                    rom[offs] = (byte) 0xFF;
+                    writeByte(offs, (byte) 0xFF);
                     offs++;
                     while (tPokes.hasNext()) {
                         TrainerPokemon tpk = tPokes.next();
-                        rom[offs] = (byte) tpk.level;
-                        rom[offs + 1] = (byte) pokeNumToRBYTable[tpk.pokemon.number];
+                        writeByte(offs, (byte) tpk.level);
+                        writeByte(offs + 1, (byte) pokeNumToRBYTable[tpk.pokemon.number]);
                         offs += 2;
                     }
                 }
-                rom[offs] = 0;
+                writeByte(offs, 0);
                 offs++;
             }
         }
 
         // Custom Moves AI Table
         // Zero it out entirely.
-        rom[romEntry.getValue("ExtraTrainerMovesTableOffset")] = (byte) 0xFF;
+        writeByte(romEntry.getValue("ExtraTrainerMovesTableOffset"), (byte) 0xFF);
 
         // Champion Rival overrides in Red/Blue
         if (!isYellow()) {
@@ -914,8 +934,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
             int champRivalJump = romEntry.getValue("GymLeaderMovesTableOffset")
                     - Gen1Constants.champRivalOffsetFromGymLeaderMoves;
             // nop out this jump
-            rom[champRivalJump] = GBConstants.gbZ80Nop;
-            rom[champRivalJump + 1] = GBConstants.gbZ80Nop;
+            writeByte(champRivalJump, GBConstants.gbZ80Nop);
+            writeByte(champRivalJump + 1, GBConstants.gbZ80Nop);
         }
 
     }
@@ -943,21 +963,21 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         }
 
         public Pokemon getPokemon(Gen1RomHandler rh) {
-            return rh.pokes[rh.pokeRBYToNumTable[rh.rom[speciesOffsets[0]] & 0xFF]];
+            return rh.pokes[rh.pokeRBYToNumTable[rh.readByte(speciesOffsets[0]) & 0xFF]];
         }
 
         public void setPokemon(Gen1RomHandler rh, Pokemon pkmn) {
             for (int offset : speciesOffsets) {
-                rh.rom[offset] = (byte) rh.pokeNumToRBYTable[pkmn.number];
+                rh.writeByte(offset, (byte) rh.pokeNumToRBYTable[pkmn.number]);
             }
         }
 
-        public int getLevel(byte[] rom, int i) {
-            return rom[levelOffsets[i]];
+        public int getLevel(Gen1RomHandler rh, int i) {
+            return rh.readByte(levelOffsets[i]);
         }
 
-        public void setLevel(byte[] rom, int level, int i) {
-            rom[levelOffsets[i]] = (byte) level;
+        public void setLevel(Gen1RomHandler rh, int level, int i) {
+            rh.writeByte(levelOffsets[i], (byte) level);
         }
     }
 
@@ -968,7 +988,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
             for (StaticPokemon sp : romEntry.staticPokemon) {
                 StaticEncounter se = new StaticEncounter();
                 se.pkmn = sp.getPokemon(this);
-                se.level = sp.getLevel(rom, 0);
+                se.level = sp.getLevel(this, 0);
                 statics.add(se);
             }
         }
@@ -981,7 +1001,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
             StaticEncounter se = staticPokemon.get(i);
             StaticPokemon sp = romEntry.staticPokemon.get(i);
             sp.setPokemon(this, se.pkmn);
-            sp.setLevel(rom, se.level, 0);
+            sp.setLevel(this, se.level, 0);
         }
 
         return true;
@@ -1019,11 +1039,11 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
             if (pokeRBYToNumTable[i] != 0) {
                 int thisPoke = pokeRBYToNumTable[i];
                 Pokemon pkmn = pokes[thisPoke];
-                while (rom[realPointer] != 0) {
-                    int method = rom[realPointer];
+                while (readByte(realPointer) != 0) {
+                    int method = readByte(realPointer);
                     EvolutionType type = EvolutionType.fromIndex(1, method);
-                    int otherPoke = pokeRBYToNumTable[rom[realPointer + 2 + (type == EvolutionType.STONE ? 1 : 0)] & 0xFF];
-                    int extraInfo = rom[realPointer + 1] & 0xFF;
+                    int otherPoke = pokeRBYToNumTable[readByte(realPointer + 2 + (type == EvolutionType.STONE ? 1 : 0)) & 0xFF];
+                    int extraInfo = readByte(realPointer + 1) & 0xFF;
                     Evolution evo = new Evolution(pkmn, pokes[otherPoke], true, type, extraInfo);
                     if (!pkmn.evolutionsFrom.contains(evo)) {
                         pkmn.evolutionsFrom.add(evo);
@@ -1142,7 +1162,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
 
     private void applyFastestTextPatch() {
         if (romEntry.getValue("TextDelayFunctionOffset") != 0) {
-            rom[romEntry.getValue("TextDelayFunctionOffset")] = GBConstants.gbZ80Ret;
+            writeByte(romEntry.getValue("TextDelayFunctionOffset"), GBConstants.gbZ80Ret);
         }
     }
 
@@ -1151,8 +1171,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         // First off, intro Pokemon
         // 160 add yellow intro random
         int introPokemon = pokeNumToRBYTable[this.randomPokemon().number];
-        rom[romEntry.getValue("IntroPokemonOffset")] = (byte) introPokemon;
-        rom[romEntry.getValue("IntroCryOffset")] = (byte) introPokemon;
+        writeByte(romEntry.getValue("IntroPokemonOffset"), (byte) introPokemon);
+        writeByte(romEntry.getValue("IntroCryOffset"), (byte) introPokemon);
 
     }
 
@@ -1191,11 +1211,11 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
 
         SubMap map = new SubMap();
         maps[mapID] = map;
-        map.addr = calculateOffset(rom[mapBanks + mapID] & 0xFF, readWord(mapAddresses + mapID * 2));
+        map.addr = calculateOffset(readByte(mapBanks + mapID) & 0xFF, readWord(mapAddresses + mapID * 2));
         map.bank = bankOf(map.addr);
 
         map.header = new MapHeader();
-        map.header.connect_byte = rom[map.addr + 9] & 0xFF;
+        map.header.connect_byte = readByte(map.addr + 9) & 0xFF;
 
         int cb = map.header.connect_byte;
         map.n_cons = ((cb & 8) >> 3) + ((cb & 4) >> 2) + ((cb & 2) >> 1) + (cb & 1);
@@ -1206,7 +1226,7 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         for (int i = 0; i < map.n_cons; i++) {
             int tcon_offs = cons_offset + i * 11;
             Connection con = new Connection();
-            con.index = rom[tcon_offs] & 0xFF;
+            con.index = readByte(tcon_offs) & 0xFF;
             map.cons[i] = con;
             preloadMap(mapBanks, mapAddresses, con.index);
         }
@@ -1216,29 +1236,29 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         // +0 is the border tile (ignore)
         // +1 is warp count
 
-        int n_warps = rom[map.obj_addr + 1] & 0xFF;
+        int n_warps = readByte(map.obj_addr + 1) & 0xFF;
         int offs = map.obj_addr + 2;
         for (int i = 0; i < n_warps; i++) {
             // track this warp
-            int to_map = rom[offs + 3] & 0xFF;
+            int to_map = readByte(offs + 3) & 0xFF;
             preloadMap(mapBanks, mapAddresses, to_map);
             offs += 4;
         }
 
         // Now we're pointing to sign count
-        int n_signs = rom[offs++] & 0xFF;
+        int n_signs = readByte(offs++) & 0xFF;
         offs += n_signs * 3;
 
         // Finally, entities, which contain the items
         map.itemOffsets = new ArrayList<>();
-        int n_entities = rom[offs++] & 0xFF;
+        int n_entities = readByte(offs++) & 0xFF;
         for (int i = 0; i < n_entities; i++) {
             // Read text ID
-            int tid = rom[offs + 5] & 0xFF;
+            int tid = readByte(offs + 5) & 0xFF;
             if ((tid & (1 << 6)) > 0) {
                 // trainer
                 offs += 8;
-            } else if ((tid & (1 << 7)) > 0 && (rom[offs + 6] != 0x00)) {
+            } else if ((tid & (1 << 7)) > 0 && (readByte(offs + 6) != 0x00)) {
                 // item
                 map.itemOffsets.add(offs + 6);
                 offs += 7;
@@ -1265,8 +1285,8 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         // internal names
         int lastMaxMap = 0x25;
         Map<Integer, Integer> previousMapCounts = new HashMap<>();
-        while ((rom[mapNameTableOffset] & 0xFF) != 0xFF) {
-            int maxMap = rom[mapNameTableOffset] & 0xFF;
+        while ((readByte(mapNameTableOffset) & 0xFF) != 0xFF) {
+            int maxMap = readByte(mapNameTableOffset) & 0xFF;
             int nameOffset = calculateOffset(mapNameBank, readWord(mapNameTableOffset + 2));
             String actualName = readVariableLengthString(nameOffset).trim();
             if (usedExternal.contains(nameOffset)) {
@@ -1375,15 +1395,15 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
                     // copy old
                     int movesOffset = oldDataOffset;
                     // move past evos
-                    while (rom[movesOffset] != 0x00) {
-                        int method = rom[movesOffset] & 0xFF;
+                    while (readByte(movesOffset) != 0x00) {
+                        int method = readByte(movesOffset) & 0xFF;
                         movesOffset += (method == 2) ? 4 : 3;
                     }
                     movesOffset++;
                     // copy moves
-                    while (rom[movesOffset] != 0x00) {
-                        dataStream.write(rom[movesOffset++] & 0xFF);
-                        dataStream.write(rom[movesOffset++] & 0xFF);
+                    while (readByte(movesOffset) != 0x00) {
+                        dataStream.write(readByte(movesOffset++) & 0xFF);
+                        dataStream.write(readByte(movesOffset++) & 0xFF);
                     }
                 }
                 // terminator
@@ -1432,10 +1452,10 @@ public class Gen1RomHandler extends AbstractGBCRomHandler {
         }
 
         // Done, write final results to ROM
-        System.arraycopy(pointerTable, 0, rom, movesEvosStart, pointerTable.length);
-        System.arraycopy(mainDataBlock, 0, rom, mainDataBlockOffset, mainDataBlock.length);
+        writeBytes(movesEvosStart, pointerTable);
+        writeBytes(mainDataBlockOffset, mainDataBlock);
         if (extraSpaceEnabled) {
-            System.arraycopy(extraDataBlock, 0, rom, extraSpaceOffset, extraDataBlock.length);
+            writeBytes(extraSpaceOffset, extraDataBlock);
         }
     }
 
@@ -40,18 +40,18 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     public static class Factory extends RomHandler.Factory {
 
         @Override
-        public Gen2RomHandler create(Random random, PrintStream logStream) {
-            return new Gen2RomHandler(random);
+        public Gen2RomHandler create(RandomSource randomSource, PrintStream logStream) {
+            return new Gen2RomHandler(randomSource.random());
         }
 
-        public boolean isLoadable(String filename) {
-            long fileLength = new File(filename).length();
-            if (fileLength > 8 * 1024 * 1024) {
-                return false;
-            }
-            byte[] loaded = loadFilePartial(filename, 0x1000);
-            // nope
-            return loaded.length != 0 && detectRomInner(loaded, (int) fileLength);
+        @Override
+        public RomHeaderIndex<?> romIndex() {
+            return romIndex;
+        }
+
+        @Override
+        public boolean isLoadableLength(long fileLength) {
+            return fileLength >= GBConstants.minRomSize && fileLength <= GBConstants.maxRomSize;
         }
     }
 
@@ -61,6 +61,8 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
 
     private static class RomEntry {
         private String name;
+        // the part of the offsets ini still to be parsed into this entry; null once it has been
+        private OffsetsIni.Section section;
         private String romCode;
         private int version, nonJapanese;
         private String extraTableFile;
@@ -73,111 +75,126 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         private List<StaticPokemon> staticPokemon = new ArrayList<>();
 
         private int getValue(String key) {
-            if (!entries.containsKey(key)) {
-                entries.put(key, 0);
-            }
-            return entries.get(key);
+            // entries are shared by every handler loaded from this version, so never write to them here
+            return entries.getOrDefault(key, 0);
         }
     }
+    private static OffsetsIni offsetsIni;
     private static List<RomEntry> roms;
+    private static RomHeaderIndex<RomEntry> romIndex;
 
     static {
         loadROMInfo();
+        romIndex = new RomHeaderIndex<>();
+        for (RomEntry re : roms) {
+            // entries with a CRC in the header are never matched by header alone
+            if (re.crcInHeader == -1) {
+                romIndex.add(re, RomHeaderIndex.Field.ascii(GBConstants.romCodeOffset, re.romCode),
+                        RomHeaderIndex.Field.unsignedByte(GBConstants.versionOffset, re.version),
+                        RomHeaderIndex.Field.unsignedByte(GBConstants.jpFlagOffset, re.nonJapanese));
+            }
+        }
     }
 
+    // Only finds the sections of the ini and what their ROMs are identified by; the rest of a
+    // section is parsed by parsed, the first time its entry is needed
     private static void loadROMInfo() {
+        offsetsIni = OffsetsIni.load("gen2_offsets.ini", "Game", "Version", "NonJapanese");
         roms = new ArrayList<>();
-        RomEntry current = null;
-        try {
-            Scanner sc = new Scanner(FileFunctions.openConfig("gen2_offsets.ini"), "UTF-8");
-            while (sc.hasNextLine()) {
-                String q = sc.nextLine().trim();
-                if (q.contains("//")) {
-                    q = q.substring(0, q.indexOf("//")).trim();
-                }
-                if (!q.isEmpty()) {
-                    if (q.startsWith("[") && q.endsWith("]")) {
-                        // New rom
-                        current = new RomEntry();
-                        current.name = q.substring(1, q.length() - 1);
-                        roms.add(current);
-                    } else {
-                        String[] r = q.split("=", 2);
-                        if (r.length == 1) {
+        for (OffsetsIni.Section section : offsetsIni.sections()) {
+            RomEntry entry = new RomEntry();
+            entry.name = section.getName();
+            entry.section = section;
+            entry.romCode = section.value("Game");
+            if (section.value("Version") != null) {
+                entry.version = parseRIInt(section.value("Version"));
+            }
+            if (section.value("NonJapanese") != null) {
+                entry.nonJapanese = parseRIInt(section.value("NonJapanese"));
+            }
+            roms.add(entry);
+        }
+    }
+
+    // current, after parsing its section if that hasn't been done yet
+    private static synchronized RomEntry parsed(RomEntry current) {
+        if (current.section == null) {
+            return current;
+        }
+        List<String> lines = offsetsIni.lines(current.section);
+        current.section = null;
+        for (String q : lines) {
+            String[] r = q.split("=", 2);
+            if (r.length == 1) {
+            }
+            if (r[1].endsWith("\r\n")) {
+            }
+            r[1] = r[1].trim();
+            r[0] = r[0].trim();
+            if (r[0].equals("StaticPokemon{}")) {
+                current.staticPokemon.add(parseStaticPokemon(r[1], false));
+            } else if (r[0].equals("StaticPokemonGameCorner{}")) {
+                current.staticPokemon.add(parseStaticPokemon(r[1], true));
+            } else if (r[0].equals("TMText[]")) {
+            } else if (r[0].equals("Game")) {
+                current.romCode = r[1];
+            } else if (r[0].equals("Version")) {
+                current.version = parseRIInt(r[1]);
+            } else if (r[0].equals("NonJapanese")) {
+                current.nonJapanese = parseRIInt(r[1]);
+            } else if (r[0].equals("Type")) {
+                current.isCrystal = r[1].equalsIgnoreCase("Crystal");
+            } else if (r[0].equals("ExtraTableFile")) {
+                current.extraTableFile = r[1];
+            } else if (r[0].equals("CRCInHeader")) {
+            } else if (r[0].equals("CRC32")) {
+            } else if (r[0].endsWith("Tweak")) {
+                current.codeTweaks.put(r[0], r[1]);
+            } else if (r[0].equals("CopyFrom")) {
+                for (RomEntry otherEntry : roms.subList(0, roms.indexOf(current) + 1)) {
+                    if (r[1].equalsIgnoreCase(otherEntry.name)) {
+                        parsed(otherEntry);
+                        // copy from here
+                        boolean cSP = (current.getValue("CopyStaticPokemon") == 1);
+                        boolean cTT = (current.getValue("CopyTMText") == 1);
+                        current.arrayEntries.putAll(otherEntry.arrayEntries);
+                        current.entries.putAll(otherEntry.entries);
+                        current.strings.putAll(otherEntry.strings);
+                        if (cSP) {
+                            current.staticPokemon.addAll(otherEntry.staticPokemon);
+                            current.entries.put("StaticPokemonSupport", 1);
+                        } else {
+                            current.entries.put("StaticPokemonSupport", 0);
+                            current.entries.remove("StaticPokemonOddEggOffset");
+                            current.entries.remove("StaticPokemonOddEggDataSize");
                         }
-                        if (r[1].endsWith("\r\n")) {
+                        if (cTT) {
                         }
-                        r[1] = r[1].trim();
-                        r[0] = r[0].trim();
-                        if (r[0].equals("StaticPokemon{}")) {
-                            current.staticPokemon.add(parseStaticPokemon(r[1], false));
-                        } else if (r[0].equals("StaticPokemonGameCorner{}")) {
-                            current.staticPokemon.add(parseStaticPokemon(r[1], true));
-                        } else if (r[0].equals("TMText[]")) {
-                        } else if (r[0].equals("Game")) {
-                            current.romCode = r[1];
-                        } else if (r[0].equals("Version")) {
-                            current.version = parseRIInt(r[1]);
-                        } else if (r[0].equals("NonJapanese")) {
-                            current.nonJapanese = parseRIInt(r[1]);
-                        } else if (r[0].equals("Type")) {
-                            current.isCrystal = r[1].equalsIgnoreCase("Crystal");
-                        } else if (r[0].equals("ExtraTableFile")) {
-                            current.extraTableFile = r[1];
-                        } else if (r[0].equals("CRCInHeader")) {
-                        } else if (r[0].equals("CRC32")) {
-                        } else if (r[0].endsWith("Tweak")) {
-                            current.codeTweaks.put(r[0], r[1]);
-                        } else if (r[0].equals("CopyFrom")) {
-                            for (RomEntry otherEntry : roms) {
-                                if (r[1].equalsIgnoreCase(otherEntry.name)) {
-                                    // copy from here
-                                    boolean cSP = (current.getValue("CopyStaticPokemon") == 1);
-                                    boolean cTT = (current.getValue("CopyTMText") == 1);
-                                    current.arrayEntries.putAll(otherEntry.arrayEntries);
-                                    current.entries.putAll(otherEntry.entries);
-                                    current.strings.putAll(otherEntry.strings);
-                                    if (cSP) {
-                                        current.staticPokemon.addAll(otherEntry.staticPokemon);
-                                        current.entries.put("StaticPokemonSupport", 1);
-                                    } else {
-                                        current.entries.put("StaticPokemonSupport", 0);
-                                        current.entries.remove("StaticPokemonOddEggOffset");
-                                        current.entries.remove("StaticPokemonOddEggDataSize");
-                                    }
-                                    if (cTT) {
-                                    }
-                                    current.extraTableFile = otherEntry.extraTableFile;
-                                }
-                            }
-                        } else if (r[0].endsWith("Locator") || r[0].endsWith("Prefix")) {
-                            current.strings.put(r[0], r[1]);
-                        } else {
-                            if (r[1].startsWith("[") && r[1].endsWith("]")) {
-                                String[] offsets = r[1].substring(1, r[1].length() - 1).split(",");
-                                if (offsets.length == 1 && offsets[0].trim().isEmpty()) {
-                                    current.arrayEntries.put(r[0], new int[0]);
-                                } else {
-                                    int[] offs = new int[offsets.length];
-                                    int c = 0;
-                                    for (String off : offsets) {
-                                        offs[c++] = parseRIInt(off);
-                                    }
-                                    current.arrayEntries.put(r[0], offs);
-                                }
-                            } else {
-                                int offs = parseRIInt(r[1]);
-                                current.entries.put(r[0], offs);
-                            }
+                        current.extraTableFile = otherEntry.extraTableFile;
+                    }
+                }
+            } else if (r[0].endsWith("Locator") || r[0].endsWith("Prefix")) {
+                current.strings.put(r[0], r[1]);
+            } else {
+                if (r[1].startsWith("[") && r[1].endsWith("]")) {
+                    String[] offsets = r[1].substring(1, r[1].length() - 1).split(",");
+                    if (offsets.length == 1 && offsets[0].trim().isEmpty()) {
+                        current.arrayEntries.put(r[0], new int[0]);
+                    } else {
+                        int[] offs = new int[offsets.length];
+                        int c = 0;
+                        for (String off : offsets) {
+                            offs[c++] = parseRIInt(off);
                         }
+                        current.arrayEntries.put(r[0], offs);
                     }
+                } else {
+                    int offs = parseRIInt(r[1]);
+                    current.entries.put(r[0], offs);
                 }
             }
-            sc.close();
-        } catch (FileNotFoundException e) {
-            System.err.println("File not found!");
         }
-
+        return current;
     }
 
     private static StaticPokemon parseStaticPokemon(String staticPokemonString, boolean isGameCorner) {
@@ -250,18 +267,13 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     private String[][] mapNames;
     private String[] landmarkNames;
 
-    private static boolean detectRomInner(byte[] rom, int romSize) {
-        // size check
-        return romSize >= GBConstants.minRomSize && romSize <= GBConstants.maxRomSize && checkRomEntry(rom) != null;
-    }
-
     @Override
     public void loadedRom() {
-        romEntry = checkRomEntry(this.rom);
-        clearTextTables();
-        readTextTable("gameboy_jpn");
+        romEntry = checkRomEntry(readHeader());
         if (romEntry.extraTableFile != null && !romEntry.extraTableFile.equalsIgnoreCase("none")) {
-            readTextTable(romEntry.extraTableFile);
+            loadTextTables("gameboy_jpn", romEntry.extraTableFile);
+        } else {
+            loadTextTables("gameboy_jpn");
         }
 
         havePatchedFleeing = false;
@@ -273,19 +285,24 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         loadItemNames();
     }
 
+    @Override
+    protected void forkFrom(AbstractGBRomHandler template) {
+        super.forkFrom(template);
+        Gen2RomHandler other = (Gen2RomHandler) template;
+        romEntry = other.romEntry;
+        havePatchedFleeing = other.havePatchedFleeing;
+        pokes = copyPokemon(other.pokes)[0];
+        pokemonList = Arrays.asList(pokes);
+        moves = other.moves;
+        landmarkNames = other.landmarkNames;
+        mapNames = other.mapNames;
+        itemOffs = other.itemOffs;
+        itemNames = other.itemNames;
+    }
+
     private static RomEntry checkRomEntry(byte[] rom) {
-        int version = rom[GBConstants.versionOffset] & 0xFF;
-        int nonjap = rom[GBConstants.jpFlagOffset] & 0xFF;
-        RomEntry r = null;
-        // Now check for non-specific-CRC entries
-        for (RomEntry re : roms) {
-            if (romCode(rom, re.romCode) && re.version == version && re.nonJapanese == nonjap && re.crcInHeader == -1) {
-                r = re;
-                break;
-            }
-        }
-        // Not found
-        return r;
+        RomEntry re = romIndex.lookup(rom);
+        return re == null ? null : parsed(re);
     }
 
     @Override
@@ -349,11 +366,11 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             moves[i].name = moveNames[i];
             moves[i].number = i;
             moves[i].internalId = i;
-            moves[i].effectIndex = rom[offs + (i - 1) * 7 + 1] & 0xFF;
-            moves[i].hitratio = ((rom[offs + (i - 1) * 7 + 4] & 0xFF)) / 255.0 * 100;
-            moves[i].power = rom[offs + (i - 1) * 7 + 2] & 0xFF;
-            moves[i].pp = rom[offs + (i - 1) * 7 + 5] & 0xFF;
-            moves[i].type = Gen2Constants.typeTable[rom[offs + (i - 1) * 7 + 3]];
+            moves[i].effectIndex = readByte(offs + (i - 1) * 7 + 1) & 0xFF;
+            moves[i].hitratio = ((readByte(offs + (i - 1) * 7 + 4) & 0xFF)) / 255.0 * 100;
+            moves[i].power = readByte(offs + (i - 1) * 7 + 2) & 0xFF;
+            moves[i].pp = readByte(offs + (i - 1) * 7 + 5) & 0xFF;
+            moves[i].type = Gen2Constants.typeTable[readByte(offs + (i - 1) * 7 + 3)];
 
             if (i == Moves.tripleKick) {
                 moves[i].hitCount = 2.71; // this assumes the first hit lands
@@ -373,7 +390,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
                 moves[i].priority = 1;
             }
 
-            double secondaryEffectChance = ((rom[offs + (i - 1) * 7 + 6] & 0xFF)) / 255.0 * 100;
+            double secondaryEffectChance = ((readByte(offs + (i - 1) * 7 + 6) & 0xFF)) / 255.0 * 100;
             loadStatChangesFromEffect(moves[i], secondaryEffectChance);
             loadStatusFromEffect(moves[i], secondaryEffectChance);
             loadMiscMoveInfoFromEffect(moves[i], secondaryEffectChance);
@@ -630,12 +647,12 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     private void saveMoves() {
         int offs = romEntry.getValue("MoveDataOffset");
         for (int i = 1; i <= 251; i++) {
-            rom[offs + (i - 1) * 7 + 1] = (byte) moves[i].effectIndex;
-            rom[offs + (i - 1) * 7 + 2] = (byte) moves[i].power;
-            rom[offs + (i - 1) * 7 + 3] = Gen2Constants.typeToByte(moves[i].type);
+            writeByte(offs + (i - 1) * 7 + 1, (byte) moves[i].effectIndex);
+            writeByte(offs + (i - 1) * 7 + 2, (byte) moves[i].power);
+            writeByte(offs + (i - 1) * 7 + 3, Gen2Constants.typeToByte(moves[i].type));
             int hitratio = (int) Math.round(moves[i].hitratio * 2.55);
-            rom[offs + (i - 1) * 7 + 4] = (byte) hitratio;
-            rom[offs + (i - 1) * 7 + 5] = (byte) moves[i].pp;
+            writeByte(offs + (i - 1) * 7 + 4, (byte) hitratio);
+            writeByte(offs + (i - 1) * 7 + 5, (byte) moves[i].pp);
         }
     }
 
@@ -644,47 +661,47 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     }
 
     private void loadBasicPokeStats(Pokemon pkmn, int offset) {
-        pkmn.hp = rom[offset + Gen2Constants.bsHPOffset] & 0xFF;
-        pkmn.attack = rom[offset + Gen2Constants.bsAttackOffset] & 0xFF;
-        pkmn.defense = rom[offset + Gen2Constants.bsDefenseOffset] & 0xFF;
-        pkmn.speed = rom[offset + Gen2Constants.bsSpeedOffset] & 0xFF;
-        pkmn.spatk = rom[offset + Gen2Constants.bsSpAtkOffset] & 0xFF;
-        pkmn.spdef = rom[offset + Gen2Constants.bsSpDefOffset] & 0xFF;
+        pkmn.hp = readByte(offset + Gen2Constants.bsHPOffset) & 0xFF;
+        pkmn.attack = readByte(offset + Gen2Constants.bsAttackOffset) & 0xFF;
+        pkmn.defense = readByte(offset + Gen2Constants.bsDefenseOffset) & 0xFF;
+        pkmn.speed = readByte(offset + Gen2Constants.bsSpeedOffset) & 0xFF;
+        pkmn.spatk = readByte(offset + Gen2Constants.bsSpAtkOffset) & 0xFF;
+        pkmn.spdef = readByte(offset + Gen2Constants.bsSpDefOffset) & 0xFF;
         // Type
-        pkmn.primaryType = Gen2Constants.typeTable[rom[offset + Gen2Constants.bsPrimaryTypeOffset] & 0xFF];
-        pkmn.secondaryType = Gen2Constants.typeTable[rom[offset + Gen2Constants.bsSecondaryTypeOffset] & 0xFF];
+        pkmn.primaryType = Gen2Constants.typeTable[readByte(offset + Gen2Constants.bsPrimaryTypeOffset) & 0xFF];
+        pkmn.secondaryType = Gen2Constants.typeTable[readByte(offset + Gen2Constants.bsSecondaryTypeOffset) & 0xFF];
         // Only one type?
         if (pkmn.secondaryType == pkmn.primaryType) {
             pkmn.secondaryType = null;
         }
-        pkmn.catchRate = rom[offset + Gen2Constants.bsCatchRateOffset] & 0xFF;
+        pkmn.catchRate = readByte(offset + Gen2Constants.bsCatchRateOffset) & 0xFF;
         pkmn.guaranteedHeldItem = -1;
-        pkmn.commonHeldItem = rom[offset + Gen2Constants.bsCommonHeldItemOffset] & 0xFF;
-        pkmn.rareHeldItem = rom[offset + Gen2Constants.bsRareHeldItemOffset] & 0xFF;
+        pkmn.commonHeldItem = readByte(offset + Gen2Constants.bsCommonHeldItemOffset) & 0xFF;
+        pkmn.rareHeldItem = readByte(offset + Gen2Constants.bsRareHeldItemOffset) & 0xFF;
         pkmn.darkGrassHeldItem = -1;
-        pkmn.growthCurve = ExpCurve.fromByte(rom[offset + Gen2Constants.bsGrowthCurveOffset]);
-        pkmn.picDimensions = rom[offset + Gen2Constants.bsPicDimensionsOffset] & 0xFF;
+        pkmn.growthCurve = ExpCurve.fromByte(readByte(offset + Gen2Constants.bsGrowthCurveOffset));
+        pkmn.picDimensions = readByte(offset + Gen2Constants.bsPicDimensionsOffset) & 0xFF;
 
     }
 
     private void saveBasicPokeStats(Pokemon pkmn, int offset) {
-        rom[offset + Gen2Constants.bsHPOffset] = (byte) pkmn.hp;
-        rom[offset + Gen2Constants.bsAttackOffset] = (byte) pkmn.attack;
-        rom[offset + Gen2Constants.bsDefenseOffset] = (byte) pkmn.defense;
-        rom[offset + Gen2Constants.bsSpeedOffset] = (byte) pkmn.speed;
-        rom[offset + Gen2Constants.bsSpAtkOffset] = (byte) pkmn.spatk;
-        rom[offset + Gen2Constants.bsSpDefOffset] = (byte) pkmn.spdef;
-        rom[offset + Gen2Constants.bsPrimaryTypeOffset] = Gen2Constants.typeToByte(pkmn.primaryType);
+        writeByte(offset + Gen2Constants.bsHPOffset, (byte) pkmn.hp);
+        writeByte(offset + Gen2Constants.bsAttackOffset, (byte) pkmn.attack);
+        writeByte(offset + Gen2Constants.bsDefenseOffset, (byte) pkmn.defense);
+        writeByte(offset + Gen2Constants.bsSpeedOffset, (byte) pkmn.speed);
+        writeByte(offset + Gen2Constants.bsSpAtkOffset, (byte) pkmn.spatk);
+        writeByte(offset + Gen2Constants.bsSpDefOffset, (byte) pkmn.spdef);
+        writeByte(offset + Gen2Constants.bsPrimaryTypeOffset, Gen2Constants.typeToByte(pkmn.primaryType));
         if (pkmn.secondaryType == null) {
-            rom[offset + Gen2Constants.bsSecondaryTypeOffset] = rom[offset + Gen2Constants.bsPrimaryTypeOffset];
+            writeByte(offset + Gen2Constants.bsSecondaryTypeOffset, readByte(offset + Gen2Constants.bsPrimaryTypeOffset));
         } else {
-            rom[offset + Gen2Constants.bsSecondaryTypeOffset] = Gen2Constants.typeToByte(pkmn.secondaryType);
+            writeByte(offset + Gen2Constants.bsSecondaryTypeOffset, Gen2Constants.typeToByte(pkmn.secondaryType));
         }
-        rom[offset + Gen2Constants.bsCatchRateOffset] = (byte) pkmn.catchRate;
+        writeByte(offset + Gen2Constants.bsCatchRateOffset, (byte) pkmn.catchRate);
 
-        rom[offset + Gen2Constants.bsCommonHeldItemOffset] = (byte) pkmn.commonHeldItem;
-        rom[offset + Gen2Constants.bsRareHeldItemOffset] = (byte) pkmn.rareHeldItem;
-        rom[offset + Gen2Constants.bsGrowthCurveOffset] = pkmn.growthCurve.toByte();
+        writeByte(offset + Gen2Constants.bsCommonHeldItemOffset, (byte) pkmn.commonHeldItem);
+        writeByte(offset + Gen2Constants.bsRareHeldItemOffset, (byte) pkmn.rareHeldItem);
+        writeByte(offset + Gen2Constants.bsGrowthCurveOffset, pkmn.growthCurve.toByte());
     }
 
     private String[] readPokemonNames() {
@@ -701,9 +718,9 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     public List<Pokemon> getStarters() {
         // Get the starters
         List<Pokemon> starters = new ArrayList<>();
-        starters.add(pokes[rom[romEntry.arrayEntries.get("StarterOffsets1")[0]] & 0xFF]);
-        starters.add(pokes[rom[romEntry.arrayEntries.get("StarterOffsets2")[0]] & 0xFF]);
-        starters.add(pokes[rom[romEntry.arrayEntries.get("StarterOffsets3")[0]] & 0xFF]);
+        starters.add(pokes[readByte(romEntry.arrayEntries.get("StarterOffsets1")[0]) & 0xFF]);
+        starters.add(pokes[readByte(romEntry.arrayEntries.get("StarterOffsets2")[0]) & 0xFF]);
+        starters.add(pokes[readByte(romEntry.arrayEntries.get("StarterOffsets3")[0]) & 0xFF]);
         return starters;
     }
 
@@ -715,7 +732,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             byte starter = (byte) newStarters.get(i).number;
             int[] offsets = romEntry.arrayEntries.get("StarterOffsets" + (i + 1));
             for (int offset : offsets) {
-                rom[offset] = starter;
+                writeByte(offset, starter);
             }
         }
 
@@ -753,16 +770,16 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             es.displayName = "Fishing Group " + (k + 1);
             for (int i = 0; i < Gen2Constants.pokesPerFishingGroup; i++) {
                 offset++;
-                int pokeNum = rom[offset++] & 0xFF;
-                int level = rom[offset++] & 0xFF;
+                int pokeNum = readByte(offset++) & 0xFF;
+                int level = readByte(offset++) & 0xFF;
                 if (pokeNum == 0) {
                     if (!useTimeOfDay) {
                         // read the encounter they put here for DAY
                         int specialOffset = rootOffset + Gen2Constants.fishingGroupEntryLength
                                 * Gen2Constants.pokesPerFishingGroup * Gen2Constants.fishingGroupCount + level * 4 + 2;
                         Encounter enc = new Encounter();
-                        enc.pokemon = pokes[rom[specialOffset] & 0xFF];
-                        enc.level = rom[specialOffset + 1] & 0xFF;
+                        enc.pokemon = pokes[readByte(specialOffset) & 0xFF];
+                        enc.level = readByte(specialOffset + 1) & 0xFF;
                         es.encounters.add(enc);
                     }
                     // else will be handled by code below
@@ -782,10 +799,10 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         for (int i = 0; i < limit; i++) {
             EncounterSet es = new EncounterSet();
             es.displayName = "Headbutt Trees Set " + (i + 1);
-            while ((rom[offset] & 0xFF) != 0xFF) {
+            while ((readByte(offset) & 0xFF) != 0xFF) {
                 offset++;
-                int pokeNum = rom[offset++] & 0xFF;
-                int level = rom[offset++] & 0xFF;
+                int pokeNum = readByte(offset++) & 0xFF;
+                int level = readByte(offset++) & 0xFF;
                 Encounter enc = new Encounter();
                 enc.pokemon = pokes[pokeNum];
                 enc.level = level;
@@ -799,12 +816,12 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         offset = romEntry.getValue("BCCWildsOffset");
         EncounterSet bccES = new EncounterSet();
         bccES.displayName = "Bug Catching Contest";
-        while ((rom[offset] & 0xFF) != 0xFF) {
+        while ((readByte(offset) & 0xFF) != 0xFF) {
             offset++;
             Encounter enc = new Encounter();
-            enc.pokemon = pokes[rom[offset++] & 0xFF];
-            enc.level = rom[offset++] & 0xFF;
-            enc.maxLevel = rom[offset++] & 0xFF;
+            enc.pokemon = pokes[readByte(offset++) & 0xFF];
+            enc.level = readByte(offset++) & 0xFF;
+            enc.maxLevel = readByte(offset++) & 0xFF;
             bccES.encounters.add(enc);
         }
         // Unown is banned for Bug Catching Contest (5/8/2016)
@@ -815,20 +832,20 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     }
 
     private int readLandEncounters(int offset, List<EncounterSet> areas) {
-        while ((rom[offset] & 0xFF) != 0xFF) {
-            int mapBank = rom[offset] & 0xFF;
-            int mapNumber = rom[offset + 1] & 0xFF;
+        while ((readByte(offset) & 0xFF) != 0xFF) {
+            int mapBank = readByte(offset) & 0xFF;
+            int mapNumber = readByte(offset + 1) & 0xFF;
             String mapName = mapNames[mapBank][mapNumber];
             {
                 // Use Day only
                 EncounterSet encset = new EncounterSet();
-                encset.rate = rom[offset + 3] & 0xFF;
+                encset.rate = readByte(offset + 3) & 0xFF;
                 encset.displayName = mapName + " Grass/Cave";
                 for (int j = 0; j < Gen2Constants.landEncounterSlots; j++) {
                     Encounter enc = new Encounter();
-                    enc.level = rom[offset + 5 + Gen2Constants.landEncounterSlots * 2 + (j * 2)] & 0xFF;
+                    enc.level = readByte(offset + 5 + Gen2Constants.landEncounterSlots * 2 + (j * 2)) & 0xFF;
                     enc.maxLevel = 0;
-                    enc.pokemon = pokes[rom[offset + 5 + Gen2Constants.landEncounterSlots * 2 + (j * 2) + 1] & 0xFF];
+                    enc.pokemon = pokes[readByte(offset + 5 + Gen2Constants.landEncounterSlots * 2 + (j * 2) + 1) & 0xFF];
                     encset.encounters.add(enc);
                 }
                 areas.add(encset);
@@ -839,18 +856,18 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     }
 
     private int readSeaEncounters(int offset, List<EncounterSet> areas) {
-        while ((rom[offset] & 0xFF) != 0xFF) {
-            int mapBank = rom[offset] & 0xFF;
-            int mapNumber = rom[offset + 1] & 0xFF;
+        while ((readByte(offset) & 0xFF) != 0xFF) {
+            int mapBank = readByte(offset) & 0xFF;
+            int mapNumber = readByte(offset + 1) & 0xFF;
             String mapName = mapNames[mapBank][mapNumber];
             EncounterSet encset = new EncounterSet();
-            encset.rate = rom[offset + 2] & 0xFF;
+            encset.rate = readByte(offset + 2) & 0xFF;
             encset.displayName = mapName + " Surfing";
             for (int j = 0; j < Gen2Constants.seaEncounterSlots; j++) {
                 Encounter enc = new Encounter();
-                enc.level = rom[offset + 3 + (j * 2)] & 0xFF;
+                enc.level = readByte(offset + 3 + (j * 2)) & 0xFF;
                 enc.maxLevel = 0;
-                enc.pokemon = pokes[rom[offset + 3 + (j * 2) + 1] & 0xFF];
+                enc.pokemon = pokes[readByte(offset + 3 + (j * 2) + 1) & 0xFF];
                 encset.encounters.add(enc);
             }
             areas.add(encset);
@@ -877,17 +894,17 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             Iterator<Encounter> encs = es.encounters.iterator();
             for (int i = 0; i < Gen2Constants.pokesPerFishingGroup; i++) {
                 offset++;
-                if (rom[offset] == 0) {
+                if (readByte(offset) == 0) {
                     if (!useTimeOfDay) {
                         // overwrite with a static encounter
                         Encounter enc = encs.next();
-                        rom[offset++] = (byte) enc.pokemon.number;
-                        rom[offset++] = (byte) enc.level;
+                        writeByte(offset++, (byte) enc.pokemon.number);
+                        writeByte(offset++, (byte) enc.level);
                     }
                 } else {
                     Encounter enc = encs.next();
-                    rom[offset++] = (byte) enc.pokemon.number;
-                    rom[offset++] = (byte) enc.level;
+                    writeByte(offset++, (byte) enc.pokemon.number);
+                    writeByte(offset++, (byte) enc.level);
                 }
             }
         }
@@ -898,11 +915,11 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         for (int i = 0; i < limit; i++) {
             EncounterSet es = areas.next();
             Iterator<Encounter> encs = es.encounters.iterator();
-            while ((rom[offset] & 0xFF) != 0xFF) {
+            while ((readByte(offset) & 0xFF) != 0xFF) {
                 Encounter enc = encs.next();
                 offset++;
-                rom[offset++] = (byte) enc.pokemon.number;
-                rom[offset++] = (byte) enc.level;
+                writeByte(offset++, (byte) enc.pokemon.number);
+                writeByte(offset++, (byte) enc.level);
             }
             offset++;
         }
@@ -911,18 +928,18 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         offset = romEntry.getValue("BCCWildsOffset");
         EncounterSet bccES = areas.next();
         Iterator<Encounter> bccEncs = bccES.encounters.iterator();
-        while ((rom[offset] & 0xFF) != 0xFF) {
+        while ((readByte(offset) & 0xFF) != 0xFF) {
             offset++;
             Encounter enc = bccEncs.next();
-            rom[offset++] = (byte) enc.pokemon.number;
-            rom[offset++] = (byte) enc.level;
-            rom[offset++] = (byte) enc.maxLevel;
+            writeByte(offset++, (byte) enc.pokemon.number);
+            writeByte(offset++, (byte) enc.level);
+            writeByte(offset++, (byte) enc.maxLevel);
         }
 
     }
 
     private int writeLandEncounters(int offset, Iterator<EncounterSet> areas) {
-        while ((rom[offset] & 0xFF) != 0xFF) {
+        while ((readByte(offset) & 0xFF) != 0xFF) {
             {
                 // Write the set to all 3 equally
                 EncounterSet encset = areas.next();
@@ -930,8 +947,8 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
                     Iterator<Encounter> encountersHere = encset.encounters.iterator();
                     for (int j = 0; j < Gen2Constants.landEncounterSlots; j++) {
                         Encounter enc = encountersHere.next();
-                        rom[offset + 5 + (i * Gen2Constants.landEncounterSlots * 2) + (j * 2)] = (byte) enc.level;
-                        rom[offset + 5 + (i * Gen2Constants.landEncounterSlots * 2) + (j * 2) + 1] = (byte) enc.pokemon.number;
+                        writeByte(offset + 5 + (i * Gen2Constants.landEncounterSlots * 2) + (j * 2), (byte) enc.level);
+                        writeByte(offset + 5 + (i * Gen2Constants.landEncounterSlots * 2) + (j * 2) + 1, (byte) enc.pokemon.number);
                     }
                 }
             }
@@ -941,13 +958,13 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     }
 
     private int writeSeaEncounters(int offset, Iterator<EncounterSet> areas) {
-        while ((rom[offset] & 0xFF) != 0xFF) {
+        while ((readByte(offset) & 0xFF) != 0xFF) {
             EncounterSet encset = areas.next();
             Iterator<Encounter> encountersHere = encset.encounters.iterator();
             for (int j = 0; j < Gen2Constants.seaEncounterSlots; j++) {
                 Encounter enc = encountersHere.next();
-                rom[offset + 3 + (j * 2)] = (byte) enc.level;
-                rom[offset + 3 + (j * 2) + 1] = (byte) enc.pokemon.number;
+                writeByte(offset + 3 + (j * 2), (byte) enc.level);
+                writeByte(offset + 3 + (j * 2) + 1, (byte) enc.pokemon.number);
             }
             offset += 3 + Gen2Constants.seaEncounterSlots * 2;
         }
@@ -983,21 +1000,21 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
                 tr.name = name;
                 tr.fullDisplayName = tcnames.get(i) + " " + name;
                 offs += lengthOfStringAt(offs, false) + 1;
-                int dataType = rom[offs] & 0xFF;
+                int dataType = readByte(offs) & 0xFF;
                 tr.poketype = dataType;
                 offs++;
-                while ((rom[offs] & 0xFF) != 0xFF) {
+                while ((readByte(offs) & 0xFF) != 0xFF) {
                     TrainerPokemon tp = new TrainerPokemon();
-                    tp.level = rom[offs] & 0xFF;
-                    tp.pokemon = pokes[rom[offs + 1] & 0xFF];
+                    tp.level = readByte(offs) & 0xFF;
+                    tp.pokemon = pokes[readByte(offs + 1) & 0xFF];
                     offs += 2;
                     if ((dataType & 2) == 2) {
-                        tp.heldItem = rom[offs] & 0xFF;
+                        tp.heldItem = readByte(offs) & 0xFF;
                         offs++;
                     }
                     if ((dataType & 1) == 1) {
                         for (int move = 0; move < 4; move++) {
-                            tp.moves[move] = rom[offs + move] & 0xFF;
+                            tp.moves[move] = readByte(offs + move) & 0xFF;
                         }
                         offs += 4;
                     }
@@ -1050,33 +1067,33 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
                 writeFixedLengthString(tr.name, offs, trnamelen + 1);
                 offs += trnamelen + 1;
                 // Write out new trainer data
-                rom[offs++] = (byte) tr.poketype;
+                writeByte(offs++, (byte) tr.poketype);
                 Iterator<TrainerPokemon> tPokes = tr.pokemon.iterator();
                 for (int tpnum = 0; tpnum < tr.pokemon.size(); tpnum++) {
                     TrainerPokemon tp = tPokes.next();
-                    rom[offs] = (byte) tp.level;
-                    rom[offs + 1] = (byte) tp.pokemon.number;
+                    writeByte(offs, (byte) tp.level);
+                    writeByte(offs + 1, (byte) tp.pokemon.number);
                     offs += 2;
                     if (tr.pokemonHaveItems()) {
-                        rom[offs] = (byte) tp.heldItem;
+                        writeByte(offs, (byte) tp.heldItem);
                         offs++;
                     }
                     if (tr.pokemonHaveCustomMoves()) {
                         if (tp.resetMoves) {
                             int[] pokeMoves = RomFunctions.getMovesAtLevel(tp.pokemon.number, movesets, tp.level);
                             for (int m = 0; m < 4; m++) {
-                                rom[offs + m] = (byte) pokeMoves[m];
+                                writeByte(offs + m, (byte) pokeMoves[m]);
                             }
                         } else {
-                            rom[offs] = (byte) tp.moves[0];
-                            rom[offs + 1] = (byte) tp.moves[1];
-                            rom[offs + 2] = (byte) tp.moves[2];
-                            rom[offs + 3] = (byte) tp.moves[3];
+                            writeByte(offs, (byte) tp.moves[0]);
+                            writeByte(offs + 1, (byte) tp.moves[1]);
+                            writeByte(offs + 2, (byte) tp.moves[2]);
+                            writeByte(offs + 3, (byte) tp.moves[3]);
                         }
                         offs += 4;
                     }
                 }
-                rom[offs] = (byte) 0xFF;
+                writeByte(offs, (byte) 0xFF);
                 offs++;
             }
         }
@@ -1102,8 +1119,8 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             int realPointer = calculateOffset(bankOf(pointersOffset), pointer);
             Pokemon pkmn = pokes[i];
             // Skip over evolution data
-            while (rom[realPointer] != 0) {
-                if (rom[realPointer] == 5) {
+            while (readByte(realPointer) != 0) {
+                if (readByte(realPointer) == 5) {
                     realPointer += 4;
                 } else {
                     realPointer += 3;
@@ -1111,10 +1128,10 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             }
             List<MoveLearnt> ourMoves = new ArrayList<>();
             realPointer++;
-            while (rom[realPointer] != 0) {
+            while (readByte(realPointer) != 0) {
                 MoveLearnt learnt = new MoveLearnt();
-                learnt.level = rom[realPointer] & 0xFF;
-                learnt.move = rom[realPointer + 1] & 0xFF;
+                learnt.level = readByte(realPointer) & 0xFF;
+                learnt.move = readByte(realPointer + 1) & 0xFF;
                 ourMoves.add(learnt);
                 realPointer += 2;
             }
@@ -1133,25 +1150,25 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         }
 
         public Pokemon getPokemon(Gen2RomHandler rh) {
-            return rh.pokes[rh.rom[speciesOffsets[0]] & 0xFF];
+            return rh.pokes[rh.readByte(speciesOffsets[0]) & 0xFF];
         }
 
         public void setPokemon(Gen2RomHandler rh, Pokemon pkmn) {
             for (int offset : speciesOffsets) {
-                rh.rom[offset] = (byte) pkmn.number;
+                rh.writeByte(offset, (byte) pkmn.number);
             }
         }
 
-        public int getLevel(byte[] rom, int i) {
+        public int getLevel(Gen2RomHandler rh, int i) {
             if (levelOffsets.length <= i) {
                 return 1;
             }
-            return rom[levelOffsets[i]];
+            return rh.readByte(levelOffsets[i]);
         }
 
-        public void setLevel(byte[] rom, int level, int i) {
+        public void setLevel(Gen2RomHandler rh, int level, int i) {
             if (levelOffsets.length > i) { // Might not have a level entry e.g., it's an egg
-                rom[levelOffsets[i]] = (byte) level;
+                rh.writeByte(levelOffsets[i], (byte) level);
             }
         }
     }
@@ -1162,7 +1179,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             // Last offset is a pointer to the name
             int offsetSize = speciesOffsets.length;
             for (int i = 0; i < offsetSize - 1; i++) {
-                rh.rom[speciesOffsets[i]] = (byte) pkmn.number;
+                rh.writeByte(speciesOffsets[i], (byte) pkmn.number);
             }
             rh.writePaddedPokemonName(pkmn.name, rh.romEntry.getValue("GameCornerPokemonNameLength"),
                     speciesOffsets[offsetSize - 1]);
@@ -1182,7 +1199,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
                 StaticPokemon sp = romEntry.staticPokemon.get(i);
                 StaticEncounter se = new StaticEncounter();
                 se.pkmn = sp.getPokemon(this);
-                se.level = sp.getLevel(rom, 0);
+                se.level = sp.getLevel(this, 0);
                 se.isEgg = Arrays.stream(staticEggOffsets).anyMatch(x-> x == currentOffset);
                 statics.add(se);
             }
@@ -1192,7 +1209,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             int oeSize = romEntry.getValue("StaticPokemonOddEggDataSize");
             for (int i = 0; i < Gen2Constants.oddEggPokemonCount; i++) {
                 StaticEncounter se = new StaticEncounter();
-                se.pkmn = pokes[rom[oeOffset + i * oeSize] & 0xFF];
+                se.pkmn = pokes[readByte(oeOffset + i * oeSize) & 0xFF];
                 se.isEgg = true;
                 statics.add(se);
             }
@@ -1211,7 +1228,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             StaticEncounter currentStatic = statics.next();
             StaticPokemon sp = romEntry.staticPokemon.get(i);
             sp.setPokemon(this, currentStatic.pkmn);
-            sp.setLevel(rom, currentStatic.level, 0);
+            sp.setLevel(this, currentStatic.level, 0);
         }
 
         if (romEntry.getValue("StaticPokemonOddEggOffset") > 0) {
@@ -1219,7 +1236,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             int oeSize = romEntry.getValue("StaticPokemonOddEggDataSize");
             for (int i = 0; i < Gen2Constants.oddEggPokemonCount; i++) {
                 int oddEggPokemonNumber = statics.next().pkmn.number;
-                rom[oeOffset + i * oeSize] = (byte) oddEggPokemonNumber;
+                writeByte(oeOffset + i * oeSize, (byte) oddEggPokemonNumber);
                 setMovesForOddEggPokemon(oddEggPokemonNumber, oeOffset + i * oeSize);
             }
         }
@@ -1256,8 +1273,8 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
                 move = level5Moveset.remove();
                 pp = moves.get(move).pp; // This assumes the ordering of moves matches the internal order
             }
-            rom[oddEggPokemonOffset + 2 + i] = (byte) move;
-            rom[oddEggPokemonOffset + 23 + i] = (byte) pp;
+            writeByte(oddEggPokemonOffset + 2 + i, (byte) move);
+            writeByte(oddEggPokemonOffset + 23 + i, (byte) pp);
         }
     }
 
@@ -1279,17 +1296,11 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     private void writePaddedPokemonName(String name, int length, int offset) {
         String paddedName = String.format("%-" + length + "s", name);
         byte[] rawData = translateString(paddedName);
-        System.arraycopy(rawData, 0, rom, offset, length);
+        writeBytes(offset, rawData, 0, length);
     }
 
-    private static int find(byte[] haystack, String hexString) {
-        byte[] searchFor = new byte[hexString.length() / 2];
-        for (int i = 0; i < searchFor.length; i++) {
-            searchFor[i] = (byte) Integer.parseInt(hexString.substring(i * 2, i * 2 + 2), 16);
-        }
-        List<Integer> found = RomFunctions.search(haystack, searchFor);
-        return found.get(0);
-
+    private static int find(CopyOnWriteRom haystack, SearchPattern pattern) {
+        return haystack.searchFirst(pattern);
     }
 
     private void populateEvolutions() {
@@ -1305,34 +1316,34 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             int pointer = readWord(pointersOffset + (i - 1) * 2);
             int realPointer = calculateOffset(bankOf(pointersOffset), pointer);
             Pokemon pkmn = pokes[i];
-            while (rom[realPointer] != 0) {
-                int method = rom[realPointer] & 0xFF;
-                int otherPoke = rom[realPointer + 2 + (method == 5 ? 1 : 0)] & 0xFF;
+            while (readByte(realPointer) != 0) {
+                int method = readByte(realPointer) & 0xFF;
+                int otherPoke = readByte(realPointer + 2 + (method == 5 ? 1 : 0)) & 0xFF;
                 EvolutionType type = EvolutionType.fromIndex(2, method);
                 int extraInfo = 0;
                 if (type == EvolutionType.TRADE) {
-                    int itemNeeded = rom[realPointer + 1] & 0xFF;
+                    int itemNeeded = readByte(realPointer + 1) & 0xFF;
                     if (itemNeeded != 0xFF) {
                         type = EvolutionType.TRADE_ITEM;
                         extraInfo = itemNeeded;
                     }
                 } else if (type == EvolutionType.LEVEL_ATTACK_HIGHER) {
-                    int tyrogueCond = rom[realPointer + 2] & 0xFF;
+                    int tyrogueCond = readByte(realPointer + 2) & 0xFF;
                     if (tyrogueCond == 2) {
                         type = EvolutionType.LEVEL_DEFENSE_HIGHER;
                     } else if (tyrogueCond == 3) {
                         type = EvolutionType.LEVEL_ATK_DEF_SAME;
                     }
-                    extraInfo = rom[realPointer + 1] & 0xFF;
+                    extraInfo = readByte(realPointer + 1) & 0xFF;
                 } else if (type == EvolutionType.HAPPINESS) {
-                    int happCond = rom[realPointer + 1] & 0xFF;
+                    int happCond = readByte(realPointer + 1) & 0xFF;
                     if (happCond == 2) {
                         type = EvolutionType.HAPPINESS_DAY;
                     } else if (happCond == 3) {
                         type = EvolutionType.HAPPINESS_NIGHT;
                     }
                 } else {
-                    extraInfo = rom[realPointer + 1] & 0xFF;
+                    extraInfo = readByte(realPointer + 1) & 0xFF;
                 }
                 Evolution evo = new Evolution(pokes[i], pokes[otherPoke], true, type, extraInfo);
                 if (!pkmn.evolutionsFrom.contains(evo)) {
@@ -1398,8 +1409,8 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             offset++;
 
             // Amount of required happiness for all happiness evolutions.
-            if (rom[offset] == (byte)220) {
-                rom[offset] = (byte)160;
+            if (readByte(offset) == (byte)220) {
+                writeByte(offset, (byte)160);
             }
         }
     }
@@ -1481,7 +1492,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
 
     private void applyFastestTextPatch() {
         if (romEntry.getValue("TextDelayFunctionOffset") != 0) {
-            rom[romEntry.getValue("TextDelayFunctionOffset")] = GBConstants.gbZ80Ret;
+            writeByte(romEntry.getValue("TextDelayFunctionOffset"), GBConstants.gbZ80Ret);
         }
     }
 
@@ -1496,8 +1507,8 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
             pokemon = this.random.nextInt(Gen2Constants.pokemonCount) + 1;
         }
 
-        rom[romEntry.getValue("IntroSpriteOffset")] = (byte) pokemon;
-        rom[romEntry.getValue("IntroCryOffset")] = (byte) pokemon;
+        writeByte(romEntry.getValue("IntroSpriteOffset"), (byte) pokemon);
+        writeByte(romEntry.getValue("IntroCryOffset"), (byte) pokemon);
 
     }
 
@@ -1510,7 +1521,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         int itemNameOffset = origOffset;
         for (int index = 1; index <= 0x100; index++) {
             int startOfText = itemNameOffset;
-            while ((rom[itemNameOffset] & 0xFF) != GBConstants.stringTerminator) {
+            while ((readByte(itemNameOffset) & 0xFF) != GBConstants.stringTerminator) {
                 itemNameOffset++;
             }
             itemNameOffset++;
@@ -1521,9 +1532,9 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     private void patchFleeing() {
         havePatchedFleeing = true;
         int offset = romEntry.getValue("FleeingDataOffset");
-        rom[offset] = (byte) 0xFF;
-        rom[offset + Gen2Constants.fleeingSetTwoOffset] = (byte) 0xFF;
-        rom[offset + Gen2Constants.fleeingSetThreeOffset] = (byte) 0xFF;
+        writeByte(offset, (byte) 0xFF);
+        writeByte(offset + Gen2Constants.fleeingSetTwoOffset, (byte) 0xFF);
+        writeByte(offset + Gen2Constants.fleeingSetThreeOffset, (byte) 0xFF);
     }
 
     private void loadLandmarkNames() {
@@ -1572,17 +1583,17 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
     private void processMapAt(int offset, int mapBank, int mapNumber) {
 
         // second map header
-        int smhBank = rom[offset] & 0xFF;
+        int smhBank = readByte(offset) & 0xFF;
         int smhPointer = readWord(offset + 3);
         int smhOffset = calculateOffset(smhBank, smhPointer);
 
         // map name
-        int mapLandmark = rom[offset + 5] & 0xFF;
+        int mapLandmark = readByte(offset + 5) & 0xFF;
         mapNames[mapBank][mapNumber] = landmarkNames[mapLandmark];
 
         // event header
         // event header is in same bank as script header
-        int ehBank = rom[smhOffset + 6] & 0xFF;
+        int ehBank = readByte(smhOffset + 6) & 0xFF;
         int ehPointer = readWord(smhOffset + 9);
         int ehOffset = calculateOffset(ehBank, ehPointer);
 
@@ -1590,21 +1601,21 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         ehOffset += 2;
 
         // warps
-        int warpCount = rom[ehOffset++] & 0xFF;
+        int warpCount = readByte(ehOffset++) & 0xFF;
         // warps are skipped
         ehOffset += warpCount * 5;
 
         // xy triggers
-        int triggerCount = rom[ehOffset++] & 0xFF;
+        int triggerCount = readByte(ehOffset++) & 0xFF;
         // xy triggers are skipped
         ehOffset += triggerCount * 8;
 
         // signposts
-        int signpostCount = rom[ehOffset++] & 0xFF;
+        int signpostCount = readByte(ehOffset++) & 0xFF;
         // we do care about these
         for (int sp = 0; sp < signpostCount; sp++) {
             // type=7 are hidden items
-            int spType = rom[ehOffset + sp * 5 + 2] & 0xFF;
+            int spType = readByte(ehOffset + sp * 5 + 2) & 0xFF;
             if (spType == 7) {
                 // get event pointer
                 int spPointer = readWord(ehOffset + sp * 5 + 3);
@@ -1617,11 +1628,11 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
         ehOffset += signpostCount * 5;
 
         // visible objects/people
-        int peopleCount = rom[ehOffset++] & 0xFF;
+        int peopleCount = readByte(ehOffset++) & 0xFF;
         // we also care about these
         for (int p = 0; p < peopleCount; p++) {
             // color_function & 1 = 1 if itemball
-            int pColorFunction = rom[ehOffset + p * 13 + 7];
+            int pColorFunction = readByte(ehOffset + p * 13 + 7);
             if ((pColorFunction & 1) == 1) {
                 // get event pointer
                 int pPointer = readWord(ehOffset + p * 13 + 9);
@@ -1709,23 +1720,23 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
                 // copy old
                 int movesOffset = oldDataOffset;
                 // move past evos
-                while (rom[movesOffset] != 0x00) {
-                    int method = rom[movesOffset] & 0xFF;
+                while (readByte(movesOffset) != 0x00) {
+                    int method = readByte(movesOffset) & 0xFF;
                     movesOffset += (method == 5) ? 4 : 3;
                 }
                 movesOffset++;
                 // copy moves
-                while (rom[movesOffset] != 0x00) {
-                    dataBlock[offsetInData++] = rom[movesOffset++];
-                    dataBlock[offsetInData++] = rom[movesOffset++];
+                while (readByte(movesOffset) != 0x00) {
+                    dataBlock[offsetInData++] = readByte(movesOffset++);
+                    dataBlock[offsetInData++] = readByte(movesOffset++);
                 }
             }
             // terminator
             dataBlock[offsetInData++] = 0x00;
         }
         // write new data
-        System.arraycopy(pointerTable, 0, rom, movesEvosStart, pointerTable.length);
-        System.arraycopy(dataBlock, 0, rom, dataBlockOffset, dataBlock.length);
+        writeBytes(movesEvosStart, pointerTable);
+        writeBytes(dataBlockOffset, dataBlock);
     }
 
     @Override
@@ -1733,7 +1744,7 @@ public class Gen2RomHandler extends AbstractGBCRomHandler {
 /*        if (romEntry.getValue("CheckValueOffset") > 0) {
             int cvOffset = romEntry.getValue("CheckValueOffset");
             for (int i = 0; i < 4; i++) {
-                rom[cvOffset + i] = (byte) ((value >> (3 - i) * 8) & 0xFF);
+                writeByte(cvOffset + i, (byte) ((value >> (3 - i) * 8) & 0xFF));
             }
         }*/
     }
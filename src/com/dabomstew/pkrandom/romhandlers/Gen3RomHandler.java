@@ -39,14 +39,13 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
     public static class Factory extends RomHandler.Factory {
 
         @Override
-        public Gen3RomHandler create(Random random, PrintStream logStream) {
-            return new Gen3RomHandler(random);
+        public Gen3RomHandler create(RandomSource randomSource, PrintStream logStream) {
+            return new Gen3RomHandler(randomSource.random());
         }
 
-        public boolean isLoadable(String filename) {
-            byte[] loaded = loadFilePartial(filename, 0x100000);
-            // nope
-            return loaded.length != 0 && detectRomInner(loaded);
+        @Override
+        public RomHeaderIndex<?> romIndex() {
+            return romIndex;
         }
     }
 
@@ -56,6 +55,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
     private static class RomEntry {
         private String name;
+        // the part of the offsets ini still to be parsed into this entry; null once it has been
+        private OffsetsIni.Section section;
         private String romCode;
         private String tableFile;
         private int version;
@@ -97,115 +98,125 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         }
     }
 
+    private static OffsetsIni offsetsIni;
     private static List<RomEntry> roms;
+    private static RomHeaderIndex<RomEntry> romIndex;
 
     static {
         loadROMInfo();
+        romIndex = new RomHeaderIndex<>();
+        for (RomEntry re : roms) {
+            romIndex.add(re, RomHeaderIndex.Field.ascii(Gen3Constants.romCodeOffset, re.romCode),
+                    RomHeaderIndex.Field.unsignedByte(Gen3Constants.romVersionOffset, re.version));
+        }
     }
 
+    // Only finds the sections of the ini and what their ROMs are identified by; the rest of a
+    // section is parsed by parsed, the first time its entry is needed
     private static void loadROMInfo() {
+        offsetsIni = OffsetsIni.load("gen3_offsets.ini", "Game", "Version");
         roms = new ArrayList<>();
-        RomEntry current = null;
-        try {
-            Scanner sc = new Scanner(FileFunctions.openConfig("gen3_offsets.ini"), "UTF-8");
-            while (sc.hasNextLine()) {
-                String q = sc.nextLine().trim();
-                if (q.contains("//")) {
-                    q = q.substring(0, q.indexOf("//")).trim();
+        for (OffsetsIni.Section section : offsetsIni.sections()) {
+            RomEntry entry = new RomEntry();
+            entry.name = section.getName();
+            entry.section = section;
+            entry.romCode = section.value("Game");
+            if (section.value("Version") != null) {
+                entry.version = parseRIInt(section.value("Version"));
+            }
+            roms.add(entry);
+        }
+    }
+
+    // current, after parsing its section if that hasn't been done yet
+    private static synchronized RomEntry parsed(RomEntry current) {
+        if (current.section == null) {
+            return current;
+        }
+        List<String> lines = offsetsIni.lines(current.section);
+        current.section = null;
+        for (String q : lines) {
+            String[] r = q.split("=", 2);
+            r[1] = r[1].trim();
+            // Static Pokemon?
+            if (r[0].equals("StaticPokemon{}")) {
+                current.staticPokemon.add(parseStaticPokemon(r[1]));
+            } else if (r[0].equals("RoamingPokemon{}")) {
+                current.roamingPokemon.add(parseStaticPokemon(r[1]));
+            } else if (r[0].equals("TMText[]")) {
+                if (r[1].startsWith("[") && r[1].endsWith("]")) {
                 }
-                if (!q.isEmpty()) {
-                    if (q.startsWith("[") && q.endsWith("]")) {
-                        // New rom
-                        current = new RomEntry();
-                        current.name = q.substring(1, q.length() - 1);
-                        roms.add(current);
-                    } else {
-                        String[] r = q.split("=", 2);
-                        r[1] = r[1].trim();
-                        // Static Pokemon?
-                        if (r[0].equals("StaticPokemon{}")) {
-                            current.staticPokemon.add(parseStaticPokemon(r[1]));
-                        } else if (r[0].equals("RoamingPokemon{}")) {
-                            current.roamingPokemon.add(parseStaticPokemon(r[1]));
-                        } else if (r[0].equals("TMText[]")) {
-                            if (r[1].startsWith("[") && r[1].endsWith("]")) {
-                            }
-                        } else if (r[0].equals("MoveTutorText[]")) {
-                            if (r[1].startsWith("[") && r[1].endsWith("]")) {
-                            }
-                        } else if (r[0].equals("Game")) {
-                            current.romCode = r[1];
-                        } else if (r[0].equals("Version")) {
-                            current.version = parseRIInt(r[1]);
-                        } else if (r[0].equals("Type")) {
-                            if (r[1].equalsIgnoreCase("Ruby")) {
-                                current.romType = Gen3Constants.RomType_Ruby;
-                            } else if (r[1].equalsIgnoreCase("Sapp")) {
-                                current.romType = Gen3Constants.RomType_Sapp;
-                            } else if (r[1].equalsIgnoreCase("Em")) {
-                                current.romType = Gen3Constants.RomType_Em;
-                            } else if (r[1].equalsIgnoreCase("FRLG")) {
-                                current.romType = Gen3Constants.RomType_FRLG;
-                            } else {
-                            }
-                        } else if (r[0].equals("TableFile")) {
-                            current.tableFile = r[1];
-                        } else if (r[0].equals("CopyStaticPokemon")) {
-                            int csp = parseRIInt(r[1]);
-                            current.copyStaticPokemon = (csp > 0);
-                        } else if (r[0].equals("CRC32")) {
-                            current.expectedCRC32 = parseRILong("0x" + r[1]);
-                        } else if (r[0].endsWith("Tweak")) {
-                            current.codeTweaks.put(r[0], r[1]);
-                        } else if (r[0].equals("CopyFrom")) {
-                            for (RomEntry otherEntry : roms) {
-                                if (r[1].equalsIgnoreCase(otherEntry.name)) {
-                                    // copy from here
-                                    current.arrayEntries.putAll(otherEntry.arrayEntries);
-                                    current.entries.putAll(otherEntry.entries);
-                                    current.strings.putAll(otherEntry.strings);
-                                    boolean cTT = (current.getValue("CopyTMText") == 1);
-                                    if (current.copyStaticPokemon) {
-                                        current.staticPokemon.addAll(otherEntry.staticPokemon);
-                                        current.roamingPokemon.addAll(otherEntry.roamingPokemon);
-                                        current.entries.put("StaticPokemonSupport", 1);
-                                    } else {
-                                        current.entries.put("StaticPokemonSupport", 0);
-                                    }
-                                    if (cTT) {
-                                        /*current.tmmtTexts.addAll(otherEntry.tmmtTexts);*/
-                                    }
-                                    current.tableFile = otherEntry.tableFile;
-                                }
-                            }
-                        } else if (r[0].endsWith("Locator") || r[0].endsWith("Prefix")) {
-                            current.strings.put(r[0], r[1]);
+            } else if (r[0].equals("MoveTutorText[]")) {
+                if (r[1].startsWith("[") && r[1].endsWith("]")) {
+                }
+            } else if (r[0].equals("Game")) {
+                current.romCode = r[1];
+            } else if (r[0].equals("Version")) {
+                current.version = parseRIInt(r[1]);
+            } else if (r[0].equals("Type")) {
+                if (r[1].equalsIgnoreCase("Ruby")) {
+                    current.romType = Gen3Constants.RomType_Ruby;
+                } else if (r[1].equalsIgnoreCase("Sapp")) {
+                    current.romType = Gen3Constants.RomType_Sapp;
+                } else if (r[1].equalsIgnoreCase("Em")) {
+                    current.romType = Gen3Constants.RomType_Em;
+                } else if (r[1].equalsIgnoreCase("FRLG")) {
+                    current.romType = Gen3Constants.RomType_FRLG;
+                } else {
+                }
+            } else if (r[0].equals("TableFile")) {
+                current.tableFile = r[1];
+            } else if (r[0].equals("CopyStaticPokemon")) {
+                int csp = parseRIInt(r[1]);
+                current.copyStaticPokemon = (csp > 0);
+            } else if (r[0].equals("CRC32")) {
+                current.expectedCRC32 = parseRILong("0x" + r[1]);
+            } else if (r[0].endsWith("Tweak")) {
+                current.codeTweaks.put(r[0], r[1]);
+            } else if (r[0].equals("CopyFrom")) {
+                for (RomEntry otherEntry : roms.subList(0, roms.indexOf(current) + 1)) {
+                    if (r[1].equalsIgnoreCase(otherEntry.name)) {
+                        parsed(otherEntry);
+                        // copy from here
+                        current.arrayEntries.putAll(otherEntry.arrayEntries);
+                        current.entries.putAll(otherEntry.entries);
+                        current.strings.putAll(otherEntry.strings);
+                        boolean cTT = (current.getValue("CopyTMText") == 1);
+                        if (current.copyStaticPokemon) {
+                            current.staticPokemon.addAll(otherEntry.staticPokemon);
+                            current.roamingPokemon.addAll(otherEntry.roamingPokemon);
+                            current.entries.put("StaticPokemonSupport", 1);
                         } else {
-                            if (r[1].startsWith("[") && r[1].endsWith("]")) {
-                                String[] offsets = r[1].substring(1, r[1].length() - 1).split(",");
-                                if (offsets.length == 1 && offsets[0].trim().isEmpty()) {
-                                    current.arrayEntries.put(r[0], new int[0]);
-                                } else {
-                                    int[] offs = new int[offsets.length];
-                                    int c = 0;
-                                    for (String off : offsets) {
-                                        offs[c++] = parseRIInt(off);
-                                    }
-                                    current.arrayEntries.put(r[0], offs);
-                                }
-                            } else {
-                                int offs = parseRIInt(r[1]);
-                                current.entries.put(r[0], offs);
-                            }
+                            current.entries.put("StaticPokemonSupport", 0);
+                        }
+                        if (cTT) {
+                            /*current.tmmtTexts.addAll(otherEntry.tmmtTexts);*/
                         }
+                        current.tableFile = otherEntry.tableFile;
                     }
                 }
+            } else if (r[0].endsWith("Locator") || r[0].endsWith("Prefix")) {
+                current.strings.put(r[0], r[1]);
+            } else {
+                if (r[1].startsWith("[") && r[1].endsWith("]")) {
+                    String[] offsets = r[1].substring(1, r[1].length() - 1).split(",");
+                    if (offsets.length == 1 && offsets[0].trim().isEmpty()) {
+                        current.arrayEntries.put(r[0], new int[0]);
+                    } else {
+                        int[] offs = new int[offsets.length];
+                        int c = 0;
+                        for (String off : offsets) {
+                            offs[c++] = parseRIInt(off);
+                        }
+                        current.arrayEntries.put(r[0], offs);
+                    }
+                } else {
+                    int offs = parseRIInt(r[1]);
+                    current.entries.put(r[0], offs);
+                }
             }
-            sc.close();
-        } catch (FileNotFoundException e) {
-            System.err.println("File not found!");
         }
-
+        return current;
     }
 
     private static int parseRIInt(String off) {
@@ -262,83 +273,42 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         return sp;
     }
 
-    private void loadTextTable(String filename) {
-        try {
-            Scanner sc = new Scanner(FileFunctions.openConfig(filename + ".tbl"), "UTF-8");
-            while (sc.hasNextLine()) {
-                String q = sc.nextLine();
-                if (!q.trim().isEmpty()) {
-                    String[] r = q.split("=", 2);
-                    tb[Integer.parseInt(r[0], 16)] = r[1];
-                    d.put(r[1], (byte) Integer.parseInt(r[0], 16));
-                }
-            }
-            sc.close();
-        } catch (FileNotFoundException e) {
-            System.err.println("File not found!");
-        }
-
-    }
-
     // This ROM's data
     private Pokemon[] pokes, pokesInternal;
     private List<Pokemon> pokemonList;
     private int numRealPokemon;
     private RomEntry romEntry;
     private boolean havePatchedObedience;
-    private String[] tb;
-    public Map<String, Byte> d;
-    private String[] abilityNames;
-    private String[] itemNames;
-    private boolean mapLoadingDone;
-    private List<Integer> itemOffs;
-    private String[][] mapNames;
+    private TextTable textTable;
+    // decoded as they're read; nothing the handler writes overlaps these tables
+    private LazyNameTable abilityNames;
+    private LazyNameTable itemNames;
+    private LazyNameTable mapLabelNames;
     private boolean isRomHack;
     private int[] internalToPokedex, pokedexToInternal;
     private int pokedexCount;
     private String[] pokeNames;
 
-    private static boolean detectRomInner(byte[] rom) {
-        boolean match = false;
-        for (RomEntry re : roms) {
-            if (romCode(rom, re.romCode) && (rom[Gen3Constants.romVersionOffset] & 0xFF) == re.version) {
-                match = true;
-                break;
-            }
-        }
-        return match;
-    }
-
     @Override
     public void loadedRom() {
-        for (RomEntry re : roms) {
-            if (romCode(rom, re.romCode) && (rom[0xBC] & 0xFF) == re.version) {
-                romEntry = new RomEntry(re); // clone so we can modify
-                break;
-            }
+        RomEntry re = romIndex.lookup(readHeader());
+        if (re != null) {
+            romEntry = new RomEntry(parsed(re)); // clone so we can modify
         }
 
-        tb = new String[256];
-        d = new HashMap<>();
         isRomHack = false;
 
-        // Pokemon count stuff, needs to be available first
-        List<Integer> pokedexOrderPrefixes = findMultiple(rom, Gen3Constants.pokedexOrderPointerPrefix);
-        romEntry.entries.put("PokedexOrder", readPointer(pokedexOrderPrefixes.get(1) + 16));
+        // everything found by searching comes from the offset cache if this ROM has been loaded before
+        List<byte[]> patterns = searchedPatterns();
+        RomOffsetCache offsetCache = new RomOffsetCache(originalRom);
+        if (!restoreDiscoveredOffsets(offsetCache.load(), patterns)) {
+            // one pass over the ROM finds every code pattern this handler will look for
+            rom.indexBase(patterns);
+            discoverOffsets();
+            offsetCache.store(discoveredOffsets(patterns));
+        }
 
-        // Pokemon names offset
-        if (romEntry.romType == Gen3Constants.RomType_Ruby || romEntry.romType == Gen3Constants.RomType_Sapp) {
-            int baseNomOffset = find(rom, Gen3Constants.rsPokemonNamesPointerSuffix);
-            romEntry.entries.put("PokemonNames", readPointer(baseNomOffset - 4));
-            romEntry.entries.put(
-                    "FrontSprites",
-                    readPointer(findPointerPrefixAndSuffix(Gen3Constants.rsFrontSpritesPointerPrefix,
-                            Gen3Constants.rsFrontSpritesPointerSuffix)));
-            romEntry.entries.put(
-                    "PokemonPalettes",
-                    readPointer(findPointerPrefixAndSuffix(Gen3Constants.rsPokemonPalettesPointerPrefix,
-                            Gen3Constants.rsPokemonPalettesPointerSuffix)));
-        } else {
+        if (romEntry.romType != Gen3Constants.RomType_Ruby && romEntry.romType != Gen3Constants.RomType_Sapp) {
             romEntry.entries.put("PokemonNames", readPointer(Gen3Constants.efrlgPokemonNamesPointer));
             romEntry.entries.put("MoveNames", readPointer(Gen3Constants.efrlgMoveNamesPointer));
             romEntry.entries.put("AbilityNames", readPointer(Gen3Constants.efrlgAbilityNamesPointer));
@@ -351,7 +321,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
                     romEntry.getValue("MoveTutorData") + romEntry.getValue("MoveTutorMoves") * 2);
         }
 
-        loadTextTable(romEntry.tableFile);
+        textTable = TextTable.load(romEntry.tableFile);
 
 
         loadPokemonNames();
@@ -360,12 +330,41 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         constructPokemonList();
         populateEvolutions();
 
+        loadAbilityNames();
+        loadItemNames();
+        loadMapLabelNames();
+    }
+
+    // The entries discoverOffsets puts into romEntry, besides MapBankSizes
+    private static final String[] discoveredEntries = { "PokedexOrder", "PokemonNames", "FrontSprites",
+            "PokemonPalettes", "WildPokemon", "MapHeaders", "MapBankCount", "MapLabels" };
+
+    // Finds the tables whose offsets aren't fixed for this ROM by searching for the code that uses them
+    private void discoverOffsets() {
+        // Pokemon count stuff, needs to be available first
+        int[] pokedexOrderPrefixes = findMultiple(rom, Gen3Constants.pokedexOrderPointerPrefix);
+        romEntry.entries.put("PokedexOrder", readPointer(pokedexOrderPrefixes[1] + 16));
+
+        // Pokemon names offset
+        if (romEntry.romType == Gen3Constants.RomType_Ruby || romEntry.romType == Gen3Constants.RomType_Sapp) {
+            int baseNomOffset = find(rom, Gen3Constants.rsPokemonNamesPointerSuffix);
+            romEntry.entries.put("PokemonNames", readPointer(baseNomOffset - 4));
+            romEntry.entries.put(
+                    "FrontSprites",
+                    readPointer(findPointerPrefixAndSuffix(Gen3Constants.rsFrontSpritesPointerPrefix,
+                            Gen3Constants.rsFrontSpritesPointerSuffix)));
+            romEntry.entries.put(
+                    "PokemonPalettes",
+                    readPointer(findPointerPrefixAndSuffix(Gen3Constants.rsPokemonPalettesPointerPrefix,
+                            Gen3Constants.rsPokemonPalettesPointerSuffix)));
+        }
+
         // Get wild Pokemon offset
-        int baseWPOffset = findMultiple(rom, Gen3Constants.wildPokemonPointerPrefix).get(0);
+        int baseWPOffset = findMultiple(rom, Gen3Constants.wildPokemonPointerPrefix)[0];
         romEntry.entries.put("WildPokemon", readPointer(baseWPOffset + 12));
 
         // map banks
-        int baseMapsOffset = findMultiple(rom, Gen3Constants.mapBanksPointerPrefix).get(0);
+        int baseMapsOffset = findMultiple(rom, Gen3Constants.mapBanksPointerPrefix)[0];
         romEntry.entries.put("MapHeaders", readPointer(baseMapsOffset + 12));
         this.determineMapBankSizes();
 
@@ -377,25 +376,106 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int baseMLOffset = find(rom, Gen3Constants.rseMapLabelsPointerPrefix);
             romEntry.entries.put("MapLabels", readPointer(baseMLOffset + 12));
         }
+    }
 
-        mapLoadingDone = false;
-        loadAbilityNames();
-        loadItemNames();
+    // What discoverOffsets found, along with the pattern index it searched, for the offset cache
+    private RomOffsetCache.Entry discoveredOffsets(List<byte[]> patterns) {
+        RomOffsetCache.Entry discovered = new RomOffsetCache.Entry();
+        for (String name : discoveredEntries) {
+            if (romEntry.entries.containsKey(name)) {
+                discovered.entries().put(name, romEntry.entries.get(name));
+            }
+        }
+        discovered.arrayEntries().put("MapBankSizes", romEntry.arrayEntries.get("MapBankSizes"));
+        for (byte[] pattern : patterns) {
+            discovered.putOccurrences(pattern, rom.indexedOccurrences(pattern));
+        }
+        return discovered;
     }
 
-    private int findPointerPrefixAndSuffix(String prefix, String suffix) {
-        byte[] searchPref = new byte[prefix.length() / 2];
-        for (int i = 0; i < searchPref.length; i++) {
-            searchPref[i] = (byte) Integer.parseInt(prefix.substring(i * 2, i * 2 + 2), 16);
+    // Puts back what an earlier discoverOffsets found in this ROM; false if cached can't be used.
+    // Only the pattern occurrences are taken as they are, since the cache has checked each of them
+    // against the image. Every offset is read again from the code they point at and has to come out
+    // the same as the cached one, so a file that got the pointers wrong is never trusted.
+    private boolean restoreDiscoveredOffsets(RomOffsetCache.Entry cached, List<byte[]> patterns) {
+        if (cached == null || !cached.hasOccurrences(patterns) || !cached.arrayEntries().containsKey("MapBankSizes")) {
+            return false;
+        }
+        for (byte[] pattern : patterns) {
+            rom.indexBase(pattern, cached.occurrences(pattern));
+        }
+        try {
+            discoverOffsets();
+        } catch (RuntimeException ex) {
+            // occurrences that don't lead to a pointer; searching again will say what's really there
+            return false;
         }
-        byte[] searchSuff = new byte[suffix.length() / 2];
-        for (int i = 0; i < searchSuff.length; i++) {
-            searchSuff[i] = (byte) Integer.parseInt(suffix.substring(i * 2, i * 2 + 2), 16);
+        for (String name : discoveredEntries) {
+            if (!Objects.equals(cached.entries().get(name), romEntry.entries.get(name))) {
+                return false;
+            }
         }
-        if (searchPref.length >= searchSuff.length) {
+        return Arrays.equals(cached.arrayEntries().get("MapBankSizes"), romEntry.arrayEntries.get("MapBankSizes"));
+    }
+
+    @Override
+    protected void forkFrom(AbstractGBRomHandler template) {
+        super.forkFrom(template);
+        Gen3RomHandler other = (Gen3RomHandler) template;
+        romEntry = new RomEntry(other.romEntry);
+        textTable = other.textTable;
+        isRomHack = other.isRomHack;
+        internalToPokedex = other.internalToPokedex;
+        pokedexToInternal = other.pokedexToInternal;
+        pokedexCount = other.pokedexCount;
+        pokeNames = other.pokeNames;
+        Pokemon[][] copies = copyPokemon(other.pokes, other.pokesInternal);
+        pokes = copies[0];
+        pokesInternal = copies[1];
+        pokemonList = Arrays.asList(pokes);
+        numRealPokemon = other.numRealPokemon;
+        havePatchedObedience = other.havePatchedObedience;
+        abilityNames = other.abilityNames;
+        itemNames = other.itemNames;
+        mapLabelNames = other.mapLabelNames;
+    }
+
+    // Every fixed pattern that find, findMultiple and findPointerPrefixAndSuffix are used with for this ROM
+    private List<byte[]> searchedPatterns() {
+        List<SearchPattern> patterns = new ArrayList<>();
+        patterns.add(Gen3Constants.pokedexOrderPointerPrefix);
+        if (romEntry.romType == Gen3Constants.RomType_Ruby || romEntry.romType == Gen3Constants.RomType_Sapp) {
+            patterns.add(Gen3Constants.rsPokemonNamesPointerSuffix);
+            patterns.add(Gen3Constants.rsFrontSpritesPointerPrefix);
+            patterns.add(Gen3Constants.rsFrontSpritesPointerSuffix);
+            patterns.add(Gen3Constants.rsPokemonPalettesPointerPrefix);
+            patterns.add(Gen3Constants.rsPokemonPalettesPointerSuffix);
+        } else if (romEntry.strings.get("DeoxysStatPrefix") != null) {
+            patterns.add(SearchPattern.compile(romEntry.strings.get("DeoxysStatPrefix")));
+        }
+        patterns.add(Gen3Constants.wildPokemonPointerPrefix);
+        patterns.add(Gen3Constants.mapBanksPointerPrefix);
+        if (romEntry.romType == Gen3Constants.RomType_FRLG) {
+            patterns.add(Gen3Constants.frlgMapLabelsPointerPrefix);
+            patterns.add(Gen3Constants.levelEvoKantoDexCheckCode);
+            patterns.add(Gen3Constants.stoneEvoKantoDexCheckCode);
+        } else {
+            patterns.add(Gen3Constants.rseMapLabelsPointerPrefix);
+        }
+        patterns.add(Gen3Constants.deoxysObeyCode);
+        patterns.add(Gen3Constants.friendshipValueForEvoLocator);
+
+        List<byte[]> needles = new ArrayList<>();
+        for (SearchPattern pattern : patterns) {
+            needles.add(pattern.bytes());
+        }
+        return needles;
+    }
+
+    private int findPointerPrefixAndSuffix(SearchPattern searchPref, SearchPattern searchSuff) {
+        if (searchPref.length() >= searchSuff.length()) {
             // Prefix first
-            List<Integer> offsets = RomFunctions.search(rom, searchPref);
-            return offsets.stream().findFirst().orElse(-1);
+            return rom.searchFirst(searchPref);
             /*for (int prefOffset : offsets) {
                 int ptrOffset = prefOffset + searchPref.length;
                 boolean suffixMatch = true;
@@ -406,13 +486,12 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             }*/
         } else {
             // Suffix first
-            List<Integer> offsets = RomFunctions.search(rom, searchSuff);
-            return offsets.stream().findFirst().orElse(-1);
+            return rom.searchFirst(searchSuff);
 /*            for (int suffOffset : offsets) {
                 int ptrOffset = suffOffset - 4;
                 boolean prefixMatch = true;
                 for (int i = 0; i < searchPref.length; i++) {
-                    if (rom[ptrOffset - searchPref.length + i] != searchPref[i]) {
+                    if (readByte(ptrOffset - searchPref.length + i) != searchPref[i]) {
                         prefixMatch = false;
                         break;
                     }
@@ -437,7 +516,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         internalToPokedex = new int[numInternalPokes + 1];
         pokedexToInternal = new int[numInternalPokes + 1];
         for (int i = 1; i <= numInternalPokes; i++) {
-            int dexEntry = readWord(rom, pdOffset + (i - 1) * 2);
+            int dexEntry = readWord(pdOffset + (i - 1) * 2);
             if (dexEntry != 0) {
                 internalToPokedex[i] = dexEntry;
                 // take the first pokemon only for each dex entry
@@ -494,10 +573,10 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         // the only times these hardcoded stats are ignored are during Link Battles. Since not many people
         // are using the randomizer to battle against others, let's just always use these stats.
         if (romEntry.romType == Gen3Constants.RomType_FRLG || romEntry.romType == Gen3Constants.RomType_Em) {
-            String deoxysStatPrefix = romEntry.strings.get("DeoxysStatPrefix");
+            SearchPattern deoxysStatPrefix = SearchPattern.compile(romEntry.strings.get("DeoxysStatPrefix"));
             int offset = find(deoxysStatPrefix);
             if (offset > 0) {
-                offset += deoxysStatPrefix.length() / 2; // because it was a prefix
+                offset += deoxysStatPrefix.length(); // because it was a prefix
                 Pokemon deoxys = pokes[Species.deoxys];
                 deoxys.hp = readWord(offset);
                 deoxys.attack = readWord(offset + 2);
@@ -525,10 +604,10 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         // Make sure to write to the hardcoded Deoxys stat location, since otherwise it will just have vanilla
         // stats no matter what settings the user selected.
         if (romEntry.romType == Gen3Constants.RomType_FRLG || romEntry.romType == Gen3Constants.RomType_Em) {
-            String deoxysStatPrefix = romEntry.strings.get("DeoxysStatPrefix");
+            SearchPattern deoxysStatPrefix = SearchPattern.compile(romEntry.strings.get("DeoxysStatPrefix"));
             int offset = find(deoxysStatPrefix);
             if (offset > 0) {
-                offset += deoxysStatPrefix.length() / 2; // because it was a prefix
+                offset += deoxysStatPrefix.length(); // because it was a prefix
                 Pokemon deoxys = pokes[Species.deoxys];
                 writeWord(offset, deoxys.hp);
                 writeWord(offset + 2, deoxys.attack);
@@ -543,24 +622,24 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
     }
 
     private void loadBasicPokeStats(Pokemon pkmn, int offset) {
-        pkmn.hp = rom[offset + Gen3Constants.bsHPOffset] & 0xFF;
-        pkmn.attack = rom[offset + Gen3Constants.bsAttackOffset] & 0xFF;
-        pkmn.defense = rom[offset + Gen3Constants.bsDefenseOffset] & 0xFF;
-        pkmn.speed = rom[offset + Gen3Constants.bsSpeedOffset] & 0xFF;
-        pkmn.spatk = rom[offset + Gen3Constants.bsSpAtkOffset] & 0xFF;
-        pkmn.spdef = rom[offset + Gen3Constants.bsSpDefOffset] & 0xFF;
+        pkmn.hp = readByte(offset + Gen3Constants.bsHPOffset) & 0xFF;
+        pkmn.attack = readByte(offset + Gen3Constants.bsAttackOffset) & 0xFF;
+        pkmn.defense = readByte(offset + Gen3Constants.bsDefenseOffset) & 0xFF;
+        pkmn.speed = readByte(offset + Gen3Constants.bsSpeedOffset) & 0xFF;
+        pkmn.spatk = readByte(offset + Gen3Constants.bsSpAtkOffset) & 0xFF;
+        pkmn.spdef = readByte(offset + Gen3Constants.bsSpDefOffset) & 0xFF;
         // Type
-        pkmn.primaryType = Gen3Constants.typeTable[rom[offset + Gen3Constants.bsPrimaryTypeOffset] & 0xFF];
-        pkmn.secondaryType = Gen3Constants.typeTable[rom[offset + Gen3Constants.bsSecondaryTypeOffset] & 0xFF];
+        pkmn.primaryType = Gen3Constants.typeTable[readByte(offset + Gen3Constants.bsPrimaryTypeOffset) & 0xFF];
+        pkmn.secondaryType = Gen3Constants.typeTable[readByte(offset + Gen3Constants.bsSecondaryTypeOffset) & 0xFF];
         // Only one type?
         if (pkmn.secondaryType == pkmn.primaryType) {
             pkmn.secondaryType = null;
         }
-        pkmn.catchRate = rom[offset + Gen3Constants.bsCatchRateOffset] & 0xFF;
-        pkmn.growthCurve = ExpCurve.fromByte(rom[offset + Gen3Constants.bsGrowthCurveOffset]);
+        pkmn.catchRate = readByte(offset + Gen3Constants.bsCatchRateOffset) & 0xFF;
+        pkmn.growthCurve = ExpCurve.fromByte(readByte(offset + Gen3Constants.bsGrowthCurveOffset));
         // Abilities
-        pkmn.ability1 = rom[offset + Gen3Constants.bsAbility1Offset] & 0xFF;
-        pkmn.ability2 = rom[offset + Gen3Constants.bsAbility2Offset] & 0xFF;
+        pkmn.ability1 = readByte(offset + Gen3Constants.bsAbility1Offset) & 0xFF;
+        pkmn.ability2 = readByte(offset + Gen3Constants.bsAbility2Offset) & 0xFF;
 
         // Held Items?
         int item1 = readWord(offset + Gen3Constants.bsCommonHeldItemOffset);
@@ -578,31 +657,31 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         }
         pkmn.darkGrassHeldItem = -1;
 
-        pkmn.genderRatio = rom[offset + Gen3Constants.bsGenderRatioOffset] & 0xFF;
+        pkmn.genderRatio = readByte(offset + Gen3Constants.bsGenderRatioOffset) & 0xFF;
     }
 
     private void saveBasicPokeStats(Pokemon pkmn, int offset) {
-        rom[offset + Gen3Constants.bsHPOffset] = (byte) pkmn.hp;
-        rom[offset + Gen3Constants.bsAttackOffset] = (byte) pkmn.attack;
-        rom[offset + Gen3Constants.bsDefenseOffset] = (byte) pkmn.defense;
-        rom[offset + Gen3Constants.bsSpeedOffset] = (byte) pkmn.speed;
-        rom[offset + Gen3Constants.bsSpAtkOffset] = (byte) pkmn.spatk;
-        rom[offset + Gen3Constants.bsSpDefOffset] = (byte) pkmn.spdef;
-        rom[offset + Gen3Constants.bsPrimaryTypeOffset] = Gen3Constants.typeToByte(pkmn.primaryType);
+        writeByte(offset + Gen3Constants.bsHPOffset, (byte) pkmn.hp);
+        writeByte(offset + Gen3Constants.bsAttackOffset, (byte) pkmn.attack);
+        writeByte(offset + Gen3Constants.bsDefenseOffset, (byte) pkmn.defense);
+        writeByte(offset + Gen3Constants.bsSpeedOffset, (byte) pkmn.speed);
+        writeByte(offset + Gen3Constants.bsSpAtkOffset, (byte) pkmn.spatk);
+        writeByte(offset + Gen3Constants.bsSpDefOffset, (byte) pkmn.spdef);
+        writeByte(offset + Gen3Constants.bsPrimaryTypeOffset, Gen3Constants.typeToByte(pkmn.primaryType));
         if (pkmn.secondaryType == null) {
-            rom[offset + Gen3Constants.bsSecondaryTypeOffset] = rom[offset + Gen3Constants.bsPrimaryTypeOffset];
+            writeByte(offset + Gen3Constants.bsSecondaryTypeOffset, readByte(offset + Gen3Constants.bsPrimaryTypeOffset));
         } else {
-            rom[offset + Gen3Constants.bsSecondaryTypeOffset] = Gen3Constants.typeToByte(pkmn.secondaryType);
+            writeByte(offset + Gen3Constants.bsSecondaryTypeOffset, Gen3Constants.typeToByte(pkmn.secondaryType));
         }
-        rom[offset + Gen3Constants.bsCatchRateOffset] = (byte) pkmn.catchRate;
-        rom[offset + Gen3Constants.bsGrowthCurveOffset] = pkmn.growthCurve.toByte();
+        writeByte(offset + Gen3Constants.bsCatchRateOffset, (byte) pkmn.catchRate);
+        writeByte(offset + Gen3Constants.bsGrowthCurveOffset, pkmn.growthCurve.toByte());
 
-        rom[offset + Gen3Constants.bsAbility1Offset] = (byte) pkmn.ability1;
+        writeByte(offset + Gen3Constants.bsAbility1Offset, (byte) pkmn.ability1);
         if (pkmn.ability2 == 0) {
             // required to not break evos with random ability
-            rom[offset + Gen3Constants.bsAbility2Offset] = (byte) pkmn.ability1;
+            writeByte(offset + Gen3Constants.bsAbility2Offset, (byte) pkmn.ability1);
         } else {
-            rom[offset + Gen3Constants.bsAbility2Offset] = (byte) pkmn.ability2;
+            writeByte(offset + Gen3Constants.bsAbility2Offset, (byte) pkmn.ability2);
         }
 
         // Held items
@@ -614,7 +693,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             writeWord(offset + Gen3Constants.bsRareHeldItemOffset, pkmn.rareHeldItem);
         }
 
-        rom[offset + Gen3Constants.bsGenderRatioOffset] = (byte) pkmn.genderRatio;
+        writeByte(offset + Gen3Constants.bsGenderRatioOffset, (byte) pkmn.genderRatio);
     }
 
     private void loadPokemonNames() {
@@ -630,14 +709,15 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
     private String readString(int offset, int maxLength) {
         StringBuilder string = new StringBuilder();
         for (int c = 0; c < maxLength; c++) {
-            int currChar = rom[offset + c] & 0xFF;
-            if (tb[currChar] != null) {
-                string.append(tb[currChar]);
+            int currChar = readByte(offset + c) & 0xFF;
+            String decoded = textTable.decode(currChar);
+            if (decoded != null) {
+                string.append(decoded);
             } else {
                 if (currChar == Gen3Constants.textTerminator) {
                     break;
                 } else if (currChar == Gen3Constants.textVariable) {
-                    int nextChar = rom[offset + c + 1] & 0xFF;
+                    int nextChar = readByte(offset + c + 1) & 0xFF;
                     string.append("\\v").append(String.format("%02X", nextChar));
                     c++;
                 }
@@ -647,28 +727,20 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
     }
 
     private byte[] translateString(String text) {
-        List<Byte> data = new ArrayList<>();
-        while (text.length() != 0) {
-            int i = Math.max(0, 4 - text.length());
-            if (text.charAt(0) == '\\' && text.charAt(1) == 'v') {
-                data.add((byte) Gen3Constants.textVariable);
-                data.add((byte) Integer.parseInt(text.substring(2, 4), 16));
-                text = text.substring(4);
+        // a "\\vXX" variable takes four characters and two bytes, anything else at least one each
+        byte[] data = new byte[text.length()];
+        int length = 0;
+        int position = 0;
+        while (position < text.length()) {
+            if (text.charAt(position) == '\\' && text.charAt(position + 1) == 'v') {
+                data[length++] = (byte) Gen3Constants.textVariable;
+                data[length++] = (byte) Integer.parseInt(text.substring(position + 2, position + 4), 16);
+                position += 4;
             } else {
-                while (!(d.containsKey(text.substring(0, 4 - i)) || (i == 4))) {
-                    i++;
-                }
-               {
-                    data.add(d.get(text.substring(0, 4 - i)));
-                    text = text.substring(4 - i);
-                }
+                position += textTable.encoder().encodeToken(text, position, data, length++);
             }
         }
-        byte[] ret = new byte[data.size()];
-        for (int i = 0; i < ret.length; i++) {
-            ret[i] = data.get(i);
-        }
-        return ret;
+        return Arrays.copyOf(data, length);
     }
 
     private String readFixedLengthString(int offset, int length) {
@@ -682,47 +754,31 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
     private void writeFixedLengthString(String str, int offset, int length) {
         byte[] translated = translateString(str);
         int len = Math.min(translated.length, length);
-        System.arraycopy(translated, 0, rom, offset, len);
+        writeBytes(offset, translated, 0, len);
         if (len < length) {
-            rom[offset + len] = (byte) Gen3Constants.textTerminator;
+            writeByte(offset + len, (byte) Gen3Constants.textTerminator);
             len++;
         }
         while (len < length) {
-            rom[offset + len] = 0;
+            writeByte(offset + len, 0);
             len++;
         }
     }
 
     private int lengthOfStringAt(int offset) {
         int len = 0;
-        while ((rom[offset + (len++)] & 0xFF) != 0xFF) {
+        while ((readByte(offset + (len++)) & 0xFF) != 0xFF) {
         }
         return len - 1;
     }
 
-    private static boolean romCode(byte[] rom, String codeToCheck) {
-        try {
-            int sigOffset = Gen3Constants.romCodeOffset;
-            byte[] sigBytes = codeToCheck.getBytes("US-ASCII");
-            for (int i = 0; i < sigBytes.length; i++) {
-                if (rom[sigOffset + i] != sigBytes[i]) {
-                    return false;
-                }
-            }
-            return true;
-        } catch (UnsupportedEncodingException ex) {
-            return false;
-        }
-
-    }
-
     private int readPointer(int offset) {
         return readLong(offset) - 0x8000000;
     }
 
     private int readLong(int offset) {
-        return (rom[offset] & 0xFF) + ((rom[offset + 1] & 0xFF) << 8) + ((rom[offset + 2] & 0xFF) << 16)
-                + (((rom[offset + 3] & 0xFF)) << 24);
+        return (readByte(offset) & 0xFF) + ((readByte(offset + 1) & 0xFF) << 8) + ((readByte(offset + 2) & 0xFF) << 16)
+                + (((readByte(offset + 3) & 0xFF)) << 24);
     }
 
     private void writePointer(int offset, int pointer) {
@@ -730,10 +786,10 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
     }
 
     private void writeLong(int offset, int value) {
-        rom[offset] = (byte) (value & 0xFF);
-        rom[offset + 1] = (byte) ((value >> 8) & 0xFF);
-        rom[offset + 2] = (byte) ((value >> 16) & 0xFF);
-        rom[offset + 3] = (byte) (((value >> 24) & 0xFF));
+        writeByte(offset, (byte) (value & 0xFF));
+        writeByte(offset + 1, (byte) ((value >> 8) & 0xFF));
+        writeByte(offset + 2, (byte) ((value >> 16) & 0xFF));
+        writeByte(offset + 3, (byte) (((value >> 24) & 0xFF)));
     }
 
     @Override
@@ -795,12 +851,12 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             if (romEntry.romCode.charAt(3) != 'J' && romEntry.romCode.charAt(3) != 'B') {
                 // Update PROF. Oak's descriptions for each starter
                 // First result for each STARTERNAME is the text we need
-                List<Integer> bulbasaurFoundTexts = RomFunctions.search(rom, translateString(pokes[Gen3Constants.frlgBaseStarter1].name.toUpperCase()));
-                List<Integer> charmanderFoundTexts = RomFunctions.search(rom, translateString(pokes[Gen3Constants.frlgBaseStarter2].name.toUpperCase()));
-                List<Integer> squirtleFoundTexts = RomFunctions.search(rom, translateString(pokes[Gen3Constants.frlgBaseStarter3].name.toUpperCase()));
-                writeFRLGStarterText(bulbasaurFoundTexts, newStarters.get(0), "you want to go with\\nthe ");
-                writeFRLGStarterText(charmanderFoundTexts, newStarters.get(1), "you’re claiming the\\n");
-                writeFRLGStarterText(squirtleFoundTexts, newStarters.get(2), "you’ve decided on the\\n");
+                int bulbasaurFoundText = rom.searchFirst(translateString(pokes[Gen3Constants.frlgBaseStarter1].name.toUpperCase()));
+                int charmanderFoundText = rom.searchFirst(translateString(pokes[Gen3Constants.frlgBaseStarter2].name.toUpperCase()));
+                int squirtleFoundText = rom.searchFirst(translateString(pokes[Gen3Constants.frlgBaseStarter3].name.toUpperCase()));
+                writeFRLGStarterText(bulbasaurFoundText, newStarters.get(0), "you want to go with\\nthe ");
+                writeFRLGStarterText(charmanderFoundText, newStarters.get(1), "you’re claiming the\\n");
+                writeFRLGStarterText(squirtleFoundText, newStarters.get(2), "you’ve decided on the\\n");
             }
         }
         return true;
@@ -812,9 +868,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         return 3;
     }
 
-    private void writeFRLGStarterText(List<Integer> foundTexts, Pokemon pkmn, String oakText) {
-        if (foundTexts.size() > 0) {
-            int offset = foundTexts.get(0);
+    private void writeFRLGStarterText(int offset, Pokemon pkmn, String oakText) {
+        if (offset >= 0) {
             String pokeName = pkmn.name;
             String pokeType = pkmn.primaryType == null ? "???" : pkmn.primaryType.toString();
             if (pokeType.equals("NORMAL") && pkmn.secondaryType != null) {
@@ -828,24 +883,19 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
     @Override
     public List<EncounterSet> getEncounters(boolean useTimeOfDay) {
-        if (!mapLoadingDone) {
-            preprocessMaps();
-            mapLoadingDone = true;
-        }
-
         int startOffs = romEntry.getValue("WildPokemon");
         List<EncounterSet> encounterAreas = new ArrayList<>();
         Set<Integer> seenOffsets = new TreeSet<>();
         int offs = startOffs;
         while (true) {
             // Read pointers
-            int bank = rom[offs] & 0xFF;
-            int map = rom[offs + 1] & 0xFF;
+            int bank = readByte(offs) & 0xFF;
+            int map = readByte(offs + 1) & 0xFF;
             if (bank == 0xFF && map == 0xFF) {
                 break;
             }
 
-            String mapName = mapNames[bank][map];
+            String mapName = mapName(bank, map);
 
             int grassPokes = readPointer(offs + 4);
             int waterPokes = readPointer(offs + 8);
@@ -853,22 +903,22 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int fishPokes = readPointer(offs + 16);
 
             // Add pokemanz
-            if (grassPokes >= 0 && grassPokes < rom.length && rom[grassPokes] != 0
+            if (grassPokes >= 0 && grassPokes < rom.length() && readByte(grassPokes) != 0
                     && !seenOffsets.contains(readPointer(grassPokes + 4))) {
                 encounterAreas.add(readWildArea(grassPokes, Gen3Constants.grassSlots, mapName + " Grass/Cave"));
                 seenOffsets.add(readPointer(grassPokes + 4));
             }
-            if (waterPokes >= 0 && waterPokes < rom.length && rom[waterPokes] != 0
+            if (waterPokes >= 0 && waterPokes < rom.length() && readByte(waterPokes) != 0
                     && !seenOffsets.contains(readPointer(waterPokes + 4))) {
                 encounterAreas.add(readWildArea(waterPokes, Gen3Constants.surfingSlots, mapName + " Surfing"));
                 seenOffsets.add(readPointer(waterPokes + 4));
             }
-            if (treePokes >= 0 && treePokes < rom.length && rom[treePokes] != 0
+            if (treePokes >= 0 && treePokes < rom.length() && readByte(treePokes) != 0
                     && !seenOffsets.contains(readPointer(treePokes + 4))) {
                 encounterAreas.add(readWildArea(treePokes, Gen3Constants.rockSmashSlots, mapName + " Rock Smash"));
                 seenOffsets.add(readPointer(treePokes + 4));
             }
-            if (fishPokes >= 0 && fishPokes < rom.length && rom[fishPokes] != 0
+            if (fishPokes >= 0 && fishPokes < rom.length() && readByte(fishPokes) != 0
                     && !seenOffsets.contains(readPointer(fishPokes + 4))) {
                 encounterAreas.add(readWildArea(fishPokes, Gen3Constants.fishingSlots, mapName + " Fishing"));
                 seenOffsets.add(readPointer(fishPokes + 4));
@@ -901,7 +951,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
     private EncounterSet readWildArea(int offset, int numOfEntries, String setName) {
         EncounterSet thisSet = new EncounterSet();
-        thisSet.rate = rom[offset];
+        thisSet.rate = readByte(offset);
         thisSet.displayName = setName;
         // Grab the *real* pointer to data
         int dataOffset = readPointer(offset + 4);
@@ -909,8 +959,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         for (int i = 0; i < numOfEntries; i++) {
             // min, max, species, species
             Encounter enc = new Encounter();
-            enc.level = rom[dataOffset + i * 4];
-            enc.maxLevel = rom[dataOffset + i * 4 + 1];
+            enc.level = readByte(dataOffset + i * 4);
+            enc.maxLevel = readByte(dataOffset + i * 4 + 1);
             enc.pokemon = pokesInternal[readWord(dataOffset + i * 4 + 2)];
 
             thisSet.encounters.add(enc);
@@ -929,8 +979,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         int offs = startOffs;
         while (true) {
             // Read pointers
-            int bank = rom[offs] & 0xFF;
-            int map = rom[offs + 1] & 0xFF;
+            int bank = readByte(offs) & 0xFF;
+            int map = readByte(offs + 1) & 0xFF;
             if (bank == 0xFF && map == 0xFF) {
                 break;
             }
@@ -941,22 +991,22 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int fishPokes = readPointer(offs + 16);
 
             // Add pokemanz
-            if (grassPokes >= 0 && grassPokes < rom.length && rom[grassPokes] != 0
+            if (grassPokes >= 0 && grassPokes < rom.length() && readByte(grassPokes) != 0
                     && !seenOffsets.contains(readPointer(grassPokes + 4))) {
                 writeWildArea(grassPokes, Gen3Constants.grassSlots, encounterAreas.next());
                 seenOffsets.add(readPointer(grassPokes + 4));
             }
-            if (waterPokes >= 0 && waterPokes < rom.length && rom[waterPokes] != 0
+            if (waterPokes >= 0 && waterPokes < rom.length() && readByte(waterPokes) != 0
                     && !seenOffsets.contains(readPointer(waterPokes + 4))) {
                 writeWildArea(waterPokes, Gen3Constants.surfingSlots, encounterAreas.next());
                 seenOffsets.add(readPointer(waterPokes + 4));
             }
-            if (treePokes >= 0 && treePokes < rom.length && rom[treePokes] != 0
+            if (treePokes >= 0 && treePokes < rom.length() && readByte(treePokes) != 0
                     && !seenOffsets.contains(readPointer(treePokes + 4))) {
                 writeWildArea(treePokes, Gen3Constants.rockSmashSlots, encounterAreas.next());
                 seenOffsets.add(readPointer(treePokes + 4));
             }
-            if (fishPokes >= 0 && fishPokes < rom.length && rom[fishPokes] != 0
+            if (fishPokes >= 0 && fishPokes < rom.length() && readByte(fishPokes) != 0
                     && !seenOffsets.contains(readPointer(fishPokes + 4))) {
                 writeWildArea(fishPokes, Gen3Constants.fishingSlots, encounterAreas.next());
                 seenOffsets.add(readPointer(fishPokes + 4));
@@ -993,11 +1043,11 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             Trainer tr = new Trainer();
             tr.offset = trOffset;
             tr.index = i;
-            int trainerclass = rom[trOffset + 1] & 0xFF;
-            tr.trainerclass = (rom[trOffset + 2] & 0x80) > 0 ? 1 : 0;
+            int trainerclass = readByte(trOffset + 1) & 0xFF;
+            tr.trainerclass = (readByte(trOffset + 2) & 0x80) > 0 ? 1 : 0;
 
-            int pokeDataType = rom[trOffset] & 0xFF;
-            int numPokes = rom[trOffset + (entryLen - 8)] & 0xFF;
+            int pokeDataType = readByte(trOffset) & 0xFF;
+            int numPokes = readByte(trOffset + (entryLen - 8)) & 0xFF;
             int pointerToPokes = readPointer(trOffset + (entryLen - 4));
             tr.poketype = pokeDataType;
             tr.name = this.readVariableLengthString(trOffset + 4);
@@ -1093,8 +1143,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int newPokeCount = tr.pokemon.size();
 
             // write out new data first...
-            rom[trOffset] = (byte) tr.poketype;
-            rom[trOffset + (entryLen - 8)] = (byte) newPokeCount;
+            writeByte(trOffset, (byte) tr.poketype);
+            writeByte(trOffset + (entryLen - 8), (byte) newPokeCount);
 
             // now, do we need to repoint?
             int pointerToPokes = readPointer(trOffset + (entryLen - 4));
@@ -1182,10 +1232,10 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int moveDataLoc = readPointer(offsToPtr);
             List<MoveLearnt> moves = new ArrayList<>();
             {
-                while ((rom[moveDataLoc] & 0xFF) != 0xFF || (rom[moveDataLoc + 1] & 0xFF) != 0xFF) {
-                    int move = (rom[moveDataLoc] & 0xFF);
-                    int level = (rom[moveDataLoc + 1] & 0xFE) >> 1;
-                    if ((rom[moveDataLoc + 1] & 0x01) == 0x01) {
+                while ((readByte(moveDataLoc) & 0xFF) != 0xFF || (readByte(moveDataLoc + 1) & 0xFF) != 0xFF) {
+                    int move = (readByte(moveDataLoc) & 0xFF);
+                    int level = (readByte(moveDataLoc + 1) & 0xFE) >> 1;
+                    if ((readByte(moveDataLoc + 1) & 0x01) == 0x01) {
                         move += 0x100;
                     }
                     MoveLearnt ml = new MoveLearnt();
@@ -1220,16 +1270,16 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             }
         }
 
-        public int getLevel(byte[] rom, int i) {
+        public int getLevel(Gen3RomHandler parent, int i) {
             if (levelOffsets.length <= i) {
                 return 1;
             }
-            return rom[levelOffsets[i]];
+            return parent.readByte(levelOffsets[i]);
         }
 
-        public void setLevel(byte[] rom, int level, int i) {
+        public void setLevel(Gen3RomHandler parent, int level, int i) {
             if (levelOffsets.length > i) { // Might not have a level entry e.g., it's an egg
-                rom[levelOffsets[i]] = (byte) level;
+                parent.writeByte(levelOffsets[i], (byte) level);
             }
         }
     }
@@ -1247,7 +1297,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             StaticPokemon staticPK = staticsHere.get(i);
             StaticEncounter se = new StaticEncounter();
             se.pkmn = staticPK.getPokemon(this);
-            se.level = staticPK.getLevel(rom, 0);
+            se.level = staticPK.getLevel(this, 0);
             se.isEgg = Arrays.stream(staticEggOffsets).anyMatch(x-> x == currentOffset);
             statics.add(se);
         }
@@ -1259,7 +1309,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             if (species == 0xFFFF) {
                 // Patch hasn't been applied, so apply it first
                 try {
-                    FileFunctions.applyPatch(rom, romEntry.codeTweaks.get("StaticFirstBattleTweak"));
+                    applyPatch(romEntry.codeTweaks.get("StaticFirstBattleTweak"));
                     species = readWord(startingSpeciesOffset);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
@@ -1267,7 +1317,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             }
             Pokemon pkmn = pokesInternal[species];
             int startingLevelOffset = romEntry.getValue("StaticFirstBattleLevelOffset");
-            int level = rom[startingLevelOffset];
+            int level = readByte(startingLevelOffset);
             StaticEncounter se = new StaticEncounter();
             se.pkmn = pkmn;
             se.level = level;
@@ -1279,7 +1329,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             if (species == 0xFFFF) {
                 // Patch hasn't been applied, so apply it first
                 try {
-                    FileFunctions.applyPatch(rom, romEntry.codeTweaks.get("GhostMarowakTweak"));
+                    applyPatch(romEntry.codeTweaks.get("GhostMarowakTweak"));
                     species = readWord(ghostMarowakOffsets[0]);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
@@ -1287,7 +1337,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             }
             Pokemon pkmn = pokesInternal[species];
             int[] startingLevelOffsets = romEntry.arrayEntries.get("GhostMarowakLevelOffsets");
-            int level = rom[startingLevelOffsets[0]];
+            int level = readByte(startingLevelOffsets[0]);
             StaticEncounter se = new StaticEncounter();
             se.pkmn = pkmn;
             se.level = level;
@@ -1312,7 +1362,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
         for (int i = 0; i < staticsHere.size(); i++) {
             staticsHere.get(i).setPokemon(this, staticPokemon.get(i).pkmn);
-            staticsHere.get(i).setLevel(rom, staticPokemon.get(i).level, 0);
+            staticsHere.get(i).setLevel(this, staticPokemon.get(i).level, 0);
         }
 
         if (romEntry.codeTweaks.get("StaticFirstBattleTweak") != null) {
@@ -1320,7 +1370,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int startingSpeciesOffset = romEntry.getValue("StaticFirstBattleSpeciesOffset");
             writeWord(startingSpeciesOffset, pokedexToInternal[startingFirstBattle.pkmn.number]);
             int startingLevelOffset = romEntry.getValue("StaticFirstBattleLevelOffset");
-            rom[startingLevelOffset] = (byte) startingFirstBattle.level;
+            writeByte(startingLevelOffset, (byte) startingFirstBattle.level);
         } else if (romEntry.codeTweaks.get("GhostMarowakTweak") != null) {
             StaticEncounter ghostMarowak = staticPokemon.get(romEntry.getValue("GhostMarowakOffset"));
             int[] ghostMarowakSpeciesOffsets = romEntry.arrayEntries.get("GhostMarowakSpeciesOffsets");
@@ -1329,7 +1379,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             }
             int[] ghostMarowakLevelOffsets = romEntry.arrayEntries.get("GhostMarowakLevelOffsets");
             for (int i = 0; i < ghostMarowakLevelOffsets.length; i++) {
-                rom[ghostMarowakLevelOffsets[i]] = (byte) ghostMarowak.level;
+                writeByte(ghostMarowakLevelOffsets[i], (byte) ghostMarowak.level);
             }
 
             // The code for creating Ghost Marowak tries to ensure the Pokemon is female. If the Pokemon
@@ -1339,7 +1389,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int ghostMarowakGenderOffset = romEntry.getValue("GhostMarowakGenderOffset");
             if (ghostMarowak.pkmn.genderRatio == 0 || ghostMarowak.pkmn.genderRatio == 0xFF) {
                 // 0x00 is 100% male, and 0xFF is indeterminate gender
-                rom[ghostMarowakGenderOffset] = (byte) ghostMarowak.pkmn.genderRatio;
+                writeByte(ghostMarowakGenderOffset, (byte) ghostMarowak.pkmn.genderRatio);
             }
         }
 
@@ -1349,7 +1399,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
     private void getRoamers(List<StaticEncounter> statics) throws IOException {
         if (romEntry.romType == Gen3Constants.RomType_Ruby) {
-            int firstSpecies = readWord(rom, romEntry.roamingPokemon.get(0).speciesOffsets[0]);
+            int firstSpecies = readWord(romEntry.roamingPokemon.get(0).speciesOffsets[0]);
             if (firstSpecies == 0) {
                 // Before applying the patch, the first species offset will be pointing to
                 // the lower bytes of 0x2000000, so when it reads a word, it will be 0.
@@ -1358,30 +1408,30 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             StaticPokemon roamer = romEntry.roamingPokemon.get(0);
             StaticEncounter se = new StaticEncounter();
             se.pkmn = roamer.getPokemon(this);
-            se.level = roamer.getLevel(rom, 0);
+            se.level = roamer.getLevel(this, 0);
             statics.add(se);
         } else if (romEntry.romType == Gen3Constants.RomType_Sapp) {
             StaticPokemon roamer = romEntry.roamingPokemon.get(0);
             StaticEncounter se = new StaticEncounter();
             se.pkmn = roamer.getPokemon(this);
-            se.level = roamer.getLevel(rom, 0);
+            se.level = roamer.getLevel(this, 0);
             statics.add(se);
         } else if (romEntry.romType == Gen3Constants.RomType_FRLG && romEntry.codeTweaks.get("RoamingPokemonTweak") != null) {
-            int firstSpecies = readWord(rom, romEntry.roamingPokemon.get(0).speciesOffsets[0]);
+            int firstSpecies = readWord(romEntry.roamingPokemon.get(0).speciesOffsets[0]);
             if (firstSpecies == 0xFFFF) {
                 // This means that the IPS patch hasn't been applied yet, since the first species
                 // ID location is free space.
-                FileFunctions.applyPatch(rom, romEntry.codeTweaks.get("RoamingPokemonTweak"));
+                applyPatch(romEntry.codeTweaks.get("RoamingPokemonTweak"));
             }
             for (int i = 0; i < romEntry.roamingPokemon.size(); i++) {
                 StaticPokemon roamer = romEntry.roamingPokemon.get(i);
                 StaticEncounter se = new StaticEncounter();
                 se.pkmn = roamer.getPokemon(this);
-                se.level = roamer.getLevel(rom, 0);
+                se.level = roamer.getLevel(this, 0);
                 statics.add(se);
             }
         } else if (romEntry.romType == Gen3Constants.RomType_Em) {
-            int firstSpecies = readWord(rom, romEntry.roamingPokemon.get(0).speciesOffsets[0]);
+            int firstSpecies = readWord(romEntry.roamingPokemon.get(0).speciesOffsets[0]);
             if (firstSpecies >= pokesInternal.length) {
                 // Before applying the patch, the first species offset is a pointer with a huge value.
                 // Thus, this check is a good indicator that the patch needs to be applied.
@@ -1392,7 +1442,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
                 StaticPokemon roamer = romEntry.roamingPokemon.get(i);
                 StaticEncounter se = new StaticEncounter();
                 se.pkmn = roamer.getPokemon(this);
-                se.level = roamer.getLevel(rom, 0);
+                se.level = roamer.getLevel(this, 0);
 
                 // Link each roamer to their respective Southern Island static encounter so that
                 // they randomize to the same species.
@@ -1408,7 +1458,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             StaticPokemon roamer = romEntry.roamingPokemon.get(0);
             roamer.setPokemon(this, roamerEncounter.pkmn);
             for (int i = 0; i < roamer.levelOffsets.length; i++) {
-                roamer.setLevel(rom, roamerEncounter.level, i);
+                roamer.setLevel(this, roamerEncounter.level, i);
             }
         } else if (romEntry.romType == Gen3Constants.RomType_FRLG && romEntry.codeTweaks.get("RoamingPokemonTweak") != null) {
             for (int i = 0; i < romEntry.roamingPokemon.size(); i++) {
@@ -1417,7 +1467,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
                 StaticPokemon roamer = romEntry.roamingPokemon.get(i);
                 roamer.setPokemon(this, roamerEncounter.pkmn);
                 for (int j = 0; j < roamer.levelOffsets.length; j++) {
-                    roamer.setLevel(rom, roamerEncounter.level, j);
+                    roamer.setLevel(this, roamerEncounter.level, j);
                 }
             }
         } else if (romEntry.romType == Gen3Constants.RomType_Em) {
@@ -1428,7 +1478,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
                 StaticPokemon roamer = romEntry.roamingPokemon.get(i);
                 roamer.setPokemon(this, roamerEncounter.pkmn);
                 for (int j = 0; j < roamer.levelOffsets.length; j++) {
-                    roamer.setLevel(rom, roamerEncounter.level, j);
+                    roamer.setLevel(this, roamerEncounter.level, j);
                 }
             }
         }
@@ -1440,18 +1490,18 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         // The constant 0x2000000 is actually in the function twice, so we'll replace the first instance
         // with Latios's ID. First, change the "ldr r2, [pc, #0x68]" near the start of the function to
         // "ldr r2, [pc, #0x15C]" so it points to the second usage of 0x2000000
-        rom[offset + 22] = 0x57;
+        writeByte(offset + 22, 0x57);
 
         // In the space formerly occupied by the first 0x2000000, write Latios's ID
-        FileFunctions.writeFullInt(rom, offset + 128, pokedexToInternal[Species.latios]);
+        writeLong(offset + 128, pokedexToInternal[Species.latios]);
 
         // Where the original function computes Latios's ID by setting r0 to 0xCC << 1, just pc-relative
         // load our constant. We have four bytes of space to play with, and we need to make sure the offset
         // from the pc is 4-byte aligned; we need to nop for alignment and then perform the load.
-        rom[offset + 12] = 0x00;
-        rom[offset + 13] = 0x00;
-        rom[offset + 14] = 0x1C;
-        rom[offset + 15] = 0x48;
+        writeByte(offset + 12, 0x00);
+        writeByte(offset + 13, 0x00);
+        writeByte(offset + 14, 0x1C);
+        writeByte(offset + 15, 0x48);
 
         offset = romEntry.getValue("CreateInitialRoamerMonFunctionStartOffset");
 
@@ -1460,16 +1510,16 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         // some reason, Ruby very rarely does "pop { pc }" even though that seemingly works fine. By doing
         // that, we only need one instruction to return to the caller, giving us four bytes to write
         // Latios's species ID.
-        rom[offset + 182] = 0x00;
-        rom[offset + 183] = (byte) 0xBD;
-        FileFunctions.writeFullInt(rom, offset + 184, pokedexToInternal[Species.latios]);
+        writeByte(offset + 182, 0x00);
+        writeByte(offset + 183, (byte) 0xBD);
+        writeLong(offset + 184, pokedexToInternal[Species.latios]);
 
         // Now write a pc-relative load to this new species ID constant over the original move and lsl. Similar
         // to before, we need to write a nop first for alignment, then pc-relative load into r6.
-        rom[offset + 10] = 0x00;
-        rom[offset + 11] = 0x00;
-        rom[offset + 12] = 0x2A;
-        rom[offset + 13] = 0x4E;
+        writeByte(offset + 10, 0x00);
+        writeByte(offset + 11, 0x00);
+        writeByte(offset + 12, 0x2A);
+        writeByte(offset + 13, 0x4E);
     }
 
     private void applyEmeraldRoamerPatch() {
@@ -1479,52 +1529,40 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         // some room for it; the constant 0x03005D8C is actually in the function twice, so we'll replace the first
         // instance with Latios's ID. First, change the "ldr r0, [pc, #0xC]" at the start of the function to
         // "ldr r0, [pc, #0x104]", so it points to the second usage of 0x03005D8C
-        rom[offset + 14] = 0x41;
+        writeByte(offset + 14, 0x41);
 
         // In the space formerly occupied by the first 0x03005D8C, write Latios's ID
-        FileFunctions.writeFullInt(rom, offset + 28, pokedexToInternal[Species.latios]);
+        writeLong(offset + 28, pokedexToInternal[Species.latios]);
 
         // In the original function, we "lsl r0, r0, #0x10" then compare r0 to 0. The thing is, this left
         // shift doesn't actually matter, because 0 << 0x10 = 0, and [non-zero] << 0x10 = [non-zero].
         // Let's move the compare up to take its place and then load Latios's ID into r3 for use in another
         // branch later.
-        rom[offset + 8] = 0x00;
-        rom[offset + 9] = 0x28;
-        rom[offset + 10] = 0x04;
-        rom[offset + 11] = 0x4B;
+        writeByte(offset + 8, 0x00);
+        writeByte(offset + 9, 0x28);
+        writeByte(offset + 10, 0x04);
+        writeByte(offset + 11, 0x4B);
 
         // Lastly, in the branch that normally does r2 = 0xCC << 0x1 to compute Latios's ID, just mov r3
         // into r2, since it was loaded with his ID with the above code.
-        rom[offset + 48] = 0x1A;
-        rom[offset + 49] = 0x46;
-        rom[offset + 50] = 0x00;
-        rom[offset + 51] = 0x00;
+        writeByte(offset + 48, 0x1A);
+        writeByte(offset + 49, 0x46);
+        writeByte(offset + 50, 0x00);
+        writeByte(offset + 51, 0x00);
     }
 
     // For dynamic offsets later
-    private int find(String hexString) {
-        return find(rom, hexString);
+    private int find(SearchPattern pattern) {
+        return find(rom, pattern);
     }
 
-    private static int find(byte[] haystack, String hexString) {
-        byte[] searchFor = new byte[hexString.length() / 2];
-        for (int i = 0; i < searchFor.length; i++) {
-            searchFor[i] = (byte) Integer.parseInt(hexString.substring(i * 2, i * 2 + 2), 16);
-        }
-        List<Integer> found = RomFunctions.search(haystack, searchFor);
-        if (found.size() == 0) {
-            return -1; // not found
-        } else {
-            return found.get(0);
-        }
+    // -1 if not found
+    private static int find(CopyOnWriteRom haystack, SearchPattern pattern) {
+        return haystack.searchFirst(pattern);
     }
 
-    private static List<Integer> findMultiple(byte[] haystack, String hexString) {
-        byte[] searchFor = new byte[hexString.length() / 2];
-        for (int i = 0; i < searchFor.length; i++) {
-            searchFor[i] = (byte) Integer.parseInt(hexString.substring(i * 2, i * 2 + 2), 16);
-        }
-        return RomFunctions.search(haystack, searchFor);
+    private static int[] findMultiple(CopyOnWriteRom haystack, SearchPattern pattern) {
+        return haystack.search(pattern);
     }
 
     private void attemptObedienceEvolutionPatches() {
@@ -1547,10 +1585,10 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             // But MOVS R1, 0x0 (the version I know) is 2-byte
             // So we just use it twice...
             // the equivalent of nop'ing the second time.
-            rom[deoxysObOffset] = 0x00;
-            rom[deoxysObOffset + 1] = Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR1;
-            rom[deoxysObOffset + 2] = 0x00;
-            rom[deoxysObOffset + 3] = Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR1;
+            writeByte(deoxysObOffset, 0x00);
+            writeByte(deoxysObOffset + 1, Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR1);
+            writeByte(deoxysObOffset + 2, 0x00);
+            writeByte(deoxysObOffset + 3, Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR1);
             // Look for the mew check too... it's 0x16 ahead
             if (readWord(deoxysObOffset + Gen3Constants.mewObeyOffsetFromDeoxysObey) == (((Gen3Constants.gbaCmpRxOpcode | Gen3Constants.gbaR0) << 8) | (Species.mew))) {
                 // Bingo, thats CMP R0, 0x97
@@ -1735,18 +1773,18 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         int offset = find(rom, Gen3Constants.friendshipValueForEvoLocator);
         if (offset > 0) {
             // Amount of required happiness for HAPPINESS evolutions.
-            if (rom[offset] == (byte)219) {
-                rom[offset] = (byte)159;
+            if (readByte(offset) == (byte)219) {
+                writeByte(offset, (byte)159);
             }
             // FRLG doesn't have code to handle time-based evolutions.
             if (romEntry.romType != Gen3Constants.RomType_FRLG) {
                 // Amount of required happiness for HAPPINESS_DAY evolutions.
-                if (rom[offset + 38] == (byte)219) {
-                    rom[offset + 38] = (byte)159;
+                if (readByte(offset + 38) == (byte)219) {
+                    writeByte(offset + 38, (byte)159);
                 }
                 // Amount of required happiness for HAPPINESS_NIGHT evolutions.
-                if (rom[offset + 66] == (byte)219) {
-                    rom[offset + 66] = (byte)159;
+                if (readByte(offset + 66) == (byte)219) {
+                    writeByte(offset + 66, (byte)159);
                 }
             }
         }
@@ -1817,10 +1855,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
     private void loadAbilityNames() {
         int nameoffs = romEntry.getValue("AbilityNames");
         int namelen = romEntry.getValue("AbilityNameLength");
-        abilityNames = new String[Gen3Constants.highestAbilityIndex + 1];
-        for (int i = 0; i <= Gen3Constants.highestAbilityIndex; i++) {
-            abilityNames[i] = readFixedLengthString(nameoffs + namelen * i, namelen);
-        }
+        abilityNames = new LazyNameTable(Gen3Constants.highestAbilityIndex + 1,
+                i -> readFixedLengthString(nameoffs + namelen * i, namelen));
     }
 
     @Override
@@ -1841,8 +1877,8 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int frontSprites = romEntry.getValue("FrontSprites");
             int palettes = romEntry.getValue("PokemonPalettes");
 
-            rom[romEntry.getValue("IntroCryOffset")] = (byte) introPokemon;
-            rom[romEntry.getValue("IntroOtherOffset")] = (byte) introPokemon;
+            writeByte(romEntry.getValue("IntroCryOffset"), (byte) introPokemon);
+            writeByte(romEntry.getValue("IntroOtherOffset"), (byte) introPokemon);
 
             int spriteBase = romEntry.getValue("IntroSpriteOffset");
             writePointer(spriteBase, frontSprites + introPokemon * 8);
@@ -1859,25 +1895,25 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
             int otherCommand = romEntry.getValue("IntroOtherOffset");
 
             if (introPokemon > 255) {
-                rom[cryCommand] = (byte) 0xFF;
-                rom[cryCommand + 1] = Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR0;
+                writeByte(cryCommand, (byte) 0xFF);
+                writeByte(cryCommand + 1, Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR0);
 
-                rom[cryCommand + 2] = (byte) (introPokemon - 0xFF);
-                rom[cryCommand + 3] = Gen3Constants.gbaAddRxOpcode | Gen3Constants.gbaR0;
+                writeByte(cryCommand + 2, (byte) (introPokemon - 0xFF));
+                writeByte(cryCommand + 3, Gen3Constants.gbaAddRxOpcode | Gen3Constants.gbaR0);
 
-                rom[otherCommand] = (byte) 0xFF;
-                rom[otherCommand + 1] = Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR4;
+                writeByte(otherCommand, (byte) 0xFF);
+                writeByte(otherCommand + 1, Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR4);
 
-                rom[otherCommand + 2] = (byte) (introPokemon - 0xFF);
-                rom[otherCommand + 3] = Gen3Constants.gbaAddRxOpcode | Gen3Constants.gbaR4;
+                writeByte(otherCommand + 2, (byte) (introPokemon - 0xFF));
+                writeByte(otherCommand + 3, Gen3Constants.gbaAddRxOpcode | Gen3Constants.gbaR4);
             } else {
-                rom[cryCommand] = (byte) introPokemon;
-                rom[cryCommand + 1] = Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR0;
+                writeByte(cryCommand, (byte) introPokemon);
+                writeByte(cryCommand + 1, Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR0);
 
                 writeWord(cryCommand + 2, Gen3Constants.gbaNopOpcode);
 
-                rom[otherCommand] = (byte) introPokemon;
-                rom[otherCommand + 1] = Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR4;
+                writeByte(otherCommand, (byte) introPokemon);
+                writeByte(otherCommand + 1, Gen3Constants.gbaSetRxOpcode | Gen3Constants.gbaR4);
 
                 writeWord(otherCommand + 2, Gen3Constants.gbaNopOpcode);
             }
@@ -1912,7 +1948,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         // find map banks
         while (true) {
             int newMBOffset = readPointer(offset);
-            if (newMBOffset < 0 || newMBOffset >= rom.length) {
+            if (newMBOffset < 0 || newMBOffset >= rom.length()) {
                 break;
             }
             mapBankOffsets.add(newMBOffset);
@@ -1939,7 +1975,7 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
                     break;
                 }
                 int newMapOffset = readPointer(offset);
-                if (newMapOffset < 0 || newMapOffset >= rom.length) {
+                if (newMapOffset < 0 || newMapOffset >= rom.length()) {
                     break;
                 }
                 count++;
@@ -1952,89 +1988,32 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
         romEntry.arrayEntries.put("MapBankSizes", bankMapCounts);
     }
 
-    private void preprocessMaps() {
-        itemOffs = new ArrayList<>();
-        int bankCount = romEntry.getValue("MapBankCount");
-        int[] bankMapCounts = romEntry.arrayEntries.get("MapBankSizes");
-        int itemBall = romEntry.getValue("ItemBallPic");
-        mapNames = new String[bankCount][];
-        int mbpsOffset = romEntry.getValue("MapHeaders");
+    private void loadMapLabelNames() {
         int mapLabels = romEntry.getValue("MapLabels");
-        Map<Integer, String> mapLabelsM = new HashMap<>();
-        for (int bank = 0; bank < bankCount; bank++) {
-            int bankOffset = readPointer(mbpsOffset + bank * 4);
-            mapNames[bank] = new String[bankMapCounts[bank]];
-            for (int map = 0; map < bankMapCounts[bank]; map++) {
-                int mhOffset = readPointer(bankOffset + map * 4);
-
-                // map name
-                int mapLabel = rom[mhOffset + 0x14] & 0xFF;
-                if (mapLabelsM.containsKey(mapLabel)) {
-                    mapNames[bank][map] = mapLabelsM.get(mapLabel);
-                } else {
-                    if (romEntry.romType == Gen3Constants.RomType_FRLG) {
-                        mapNames[bank][map] = readVariableLengthString(readPointer(mapLabels
-                                + (mapLabel - Gen3Constants.frlgMapLabelsStart) * 4));
-                    } else {
-                        mapNames[bank][map] = readVariableLengthString(readPointer(mapLabels + mapLabel * 8 + 4));
-                    }
-                    mapLabelsM.put(mapLabel, mapNames[bank][map]);
-                }
-
-                // events
-                int eventOffset = readPointer(mhOffset + 4);
-                if (eventOffset >= 0 && eventOffset < rom.length) {
-
-                    int pCount = rom[eventOffset] & 0xFF;
-                    int spCount = rom[eventOffset + 3] & 0xFF;
-
-                    if (pCount > 0) {
-                        int peopleOffset = readPointer(eventOffset + 4);
-                        for (int p = 0; p < pCount; p++) {
-                            int pSprite = rom[peopleOffset + p * 24 + 1];
-                            if (pSprite == itemBall && readPointer(peopleOffset + p * 24 + 16) >= 0) {
-                                // Get script and look inside
-                                int scriptOffset = readPointer(peopleOffset + p * 24 + 16);
-                                if (rom[scriptOffset] == 0x1A && rom[scriptOffset + 1] == 0x00
-                                        && (rom[scriptOffset + 2] & 0xFF) == 0x80 && rom[scriptOffset + 5] == 0x1A
-                                        && rom[scriptOffset + 6] == 0x01 && (rom[scriptOffset + 7] & 0xFF) == 0x80
-                                        && rom[scriptOffset + 10] == 0x09
-                                        && (rom[scriptOffset + 11] == 0x00 || rom[scriptOffset + 11] == 0x01)) {
-                                    // item ball script
-                                    itemOffs.add(scriptOffset + 3);
-                                }
-                            }
-                        }
-
-                    }
+        if (romEntry.romType == Gen3Constants.RomType_FRLG) {
+            mapLabelNames = new LazyNameTable(256, mapLabel -> readVariableLengthString(readPointer(mapLabels
+                    + (mapLabel - Gen3Constants.frlgMapLabelsStart) * 4)));
+        } else {
+            mapLabelNames = new LazyNameTable(256,
+                    mapLabel -> readVariableLengthString(readPointer(mapLabels + mapLabel * 8 + 4)));
+        }
+    }
 
-                    if (spCount > 0) {
-                        int signpostsOffset = readPointer(eventOffset + 16);
-                        for (int sp = 0; sp < spCount; sp++) {
-                            int spType = rom[signpostsOffset + sp * 12 + 5];
-                            if (spType >= 5 && spType <= 7) {
-                                // hidden item
-                                int itemHere = readWord(signpostsOffset + sp * 12 + 8);
-                                if (itemHere != 0) {
-                                    // itemid 0 is coins
-                                    itemOffs.add(signpostsOffset + sp * 12 + 8);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+    private String mapName(int bank, int map) {
+        int[] bankMapCounts = romEntry.arrayEntries.get("MapBankSizes");
+        if (bank >= bankMapCounts.length || map >= bankMapCounts[bank]) {
+            throw new ArrayIndexOutOfBoundsException("No map " + bank + "." + map);
         }
+        int bankOffset = readPointer(romEntry.getValue("MapHeaders") + bank * 4);
+        int mhOffset = readPointer(bankOffset + map * 4);
+        return mapLabelNames.get(readByte(mhOffset + 0x14) & 0xFF);
     }
 
     private void loadItemNames() {
         int nameoffs = romEntry.getValue("ItemData");
         int structlen = romEntry.getValue("ItemEntrySize");
         int maxcount = romEntry.getValue("ItemCount");
-        itemNames = new String[maxcount + 1];
-        for (int i = 0; i <= maxcount; i++) {
-            itemNames[i] = readVariableLengthString(nameoffs + structlen * i);
-        }
+        itemNames = new LazyNameTable(maxcount + 1, i -> readVariableLengthString(nameoffs + structlen * i));
     }
 
     @Override
@@ -2078,14 +2057,14 @@ public class Gen3RomHandler extends AbstractGBRomHandler {
 
     private void applyRunningShoesIndoorsPatch() {
         if (romEntry.getValue("RunIndoorsTweakOffset") != 0) {
-            rom[romEntry.getValue("RunIndoorsTweakOffset")] = 0x00;
+            writeByte(romEntry.getValue("RunIndoorsTweakOffset"), 0x00);
         }
     }
 
     private void applyFastestTextPatch() {
         if(romEntry.codeTweaks.get("InstantTextTweak") != null) {
             try {
-                FileFunctions.applyPatch(rom, romEntry.codeTweaks.get("InstantTextTweak"));
+                applyPatch(romEntry.codeTweaks.get("InstantTextTweak"));
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
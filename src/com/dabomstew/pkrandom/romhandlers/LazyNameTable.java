@@ -0,0 +1,62 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  LazyNameTable.java - a table of names in a ROM, each decoded only     --*/
+/*--                       when it is first read.                           --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * A read-only list of names that decodes each one the first time it is asked for and keeps it, so
+ * loading a ROM costs nothing for tables a run never looks at. The decoder must keep returning the
+ * same name for an index, so it should only read parts of the ROM that are never written. Can be
+ * shared between forked handlers and read from several threads; at worst a name is decoded twice.
+ */
+public class LazyNameTable extends AbstractList<String> implements RandomAccess {
+
+    private final IntFunction<String> decoder;
+    private final AtomicReferenceArray<String> decoded;
+
+    public LazyNameTable(int size, IntFunction<String> decoder) {
+        this.decoder = decoder;
+        this.decoded = new AtomicReferenceArray<>(size);
+    }
+
+    @Override
+    public String get(int index) {
+        String name = decoded.get(index);
+        if (name == null) {
+            name = decoder.apply(index);
+            decoded.set(index, name);
+        }
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return decoded.length();
+    }
+}
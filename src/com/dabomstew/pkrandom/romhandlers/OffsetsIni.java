@@ -0,0 +1,151 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  OffsetsIni.java - splits a genN_offsets.ini into its ROM sections     --*/
+/*--                    without parsing them, so that each can be parsed    --*/
+/*--                    only once its ROM turns up.                         --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import com.dabomstew.pkrandom.FileFunctions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The text of an offsets ini, read in one go and cut into "[name]" sections by looking only at the
+ * first character of each line. Apart from a few keys asked for up front, such as the ones a ROM
+ * is identified by, nothing in a section is looked at until lines is called for it. Lines come out
+ * the way the handlers have always read them: trimmed, with "//" comments cut off and blank lines
+ * left out.
+ */
+public class OffsetsIni {
+
+    public static final class Section {
+        private final String name;
+        // the text after the "[name]" line, up to the next section
+        private final int start;
+        private int end;
+        private final Map<String, String> values = new HashMap<>();
+
+        private Section(String name, int start) {
+            this.name = name;
+            this.start = start;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // The last value the section gives one of the keys asked for up front, or null if it has none
+        public String value(String key) {
+            return values.get(key);
+        }
+    }
+
+    private final String text;
+    private final List<Section> sections = new ArrayList<>();
+
+    private OffsetsIni(String text, Collection<String> keys) {
+        this.text = text;
+        Section current = null;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            int first = lineStart;
+            while (first < lineEnd && Character.isWhitespace(text.charAt(first))) {
+                first++;
+            }
+            if (first < lineEnd && text.charAt(first) == '[') {
+                String line = clean(text.substring(first, lineEnd));
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    if (current != null) {
+                        current.end = lineStart;
+                    }
+                    current = new Section(line.substring(1, line.length() - 1), lineEnd);
+                    sections.add(current);
+                }
+            } else if (current != null) {
+                for (String key : keys) {
+                    if (text.startsWith(key, first)) {
+                        String[] r = clean(text.substring(first, lineEnd)).split("=", 2);
+                        if (r.length == 2 && r[0].trim().equals(key)) {
+                            current.values.put(key, r[1].trim());
+                        }
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (current != null) {
+            current.end = text.length();
+        }
+    }
+
+    // Reads filename from the config folder; keys are the ones every section's values are wanted for
+    public static OffsetsIni load(String filename, String... keys) {
+        try (InputStream in = FileFunctions.openConfig(filename)) {
+            if (in == null) {
+                throw new IOException("Config file not found: " + filename);
+            }
+            byte[] data = new byte[0x10000];
+            int length = 0, read;
+            while ((read = in.read(data, length, data.length - length)) != -1) {
+                length += read;
+                if (length == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+            }
+            return new OffsetsIni(new String(data, 0, length, StandardCharsets.UTF_8), Arrays.asList(keys));
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    // In the order they appear
+    public List<Section> sections() {
+        return Collections.unmodifiableList(sections);
+    }
+
+    public List<String> lines(Section section) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.substring(section.start, section.end).split("\n")) {
+            line = clean(line);
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static String clean(String line) {
+        line = line.trim();
+        if (line.contains("//")) {
+            line = line.substring(0, line.indexOf("//")).trim();
+        }
+        return line;
+    }
+}
@@ -0,0 +1,124 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  PowerLevelIndex.java - a pool of Pokemon sorted by power level, for   --*/
+/*--                         picking replacements of similar strength.      --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import com.dabomstew.pkrandom.pokemon.Pokemon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A pool of Pokemon sorted by bstForPowerLevels, so that the ones within a power level window are
+ * found by two binary searches rather than a scan of the whole pool. Windows still come back in
+ * the pool's own order, which the pickers rely on to draw the same Pokemon from the same random
+ * numbers as a scan would. Entries can be removed, as from the list the pool was made of.
+ */
+public class PowerLevelIndex {
+
+    private final List<Pokemon> pool;
+    // the pool positions sorted by power level, ties in pool order, and the power level of each
+    private final int[] positions;
+    private final int[] powerLevels;
+    private final boolean[] removed;
+
+    public PowerLevelIndex(List<Pokemon> pool) {
+        this.pool = new ArrayList<>(pool);
+        int[] bst = new int[pool.size()];
+        Integer[] sorted = new Integer[pool.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            bst[i] = this.pool.get(i).bstForPowerLevels();
+            sorted[i] = i;
+        }
+        // a stable sort, so equal power levels stay in pool order
+        Arrays.sort(sorted, (a, b) -> Integer.compare(bst[a], bst[b]));
+        positions = new int[sorted.length];
+        powerLevels = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            positions[i] = sorted[i];
+            powerLevels[i] = bst[sorted[i]];
+        }
+        removed = new boolean[sorted.length];
+    }
+
+    // The Pokemon whose power level is within [min, max], in pool order
+    public List<Pokemon> inRange(int min, int max) {
+        return inRange(min, max, Integer.MAX_VALUE, Integer.MIN_VALUE);
+    }
+
+    /**
+     * The Pokemon whose power level is within [min, max] but not within [skipMin, skipMax], in
+     * pool order. When a window is widened, this gives just the ones it didn't have before.
+     */
+    public List<Pokemon> inRange(int min, int max, int skipMin, int skipMax) {
+        int from = firstAtLeast(min), to = firstAbove(max);
+        int skipFrom = firstAtLeast(skipMin), skipTo = Math.max(skipFrom, firstAbove(skipMax));
+        int[] found = new int[Math.max(0, to - from)];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if ((i < skipFrom || i >= skipTo) && !removed[positions[i]]) {
+                found[count++] = positions[i];
+            }
+        }
+        Arrays.sort(found, 0, count);
+        List<Pokemon> inRange = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            inRange.add(pool.get(found[i]));
+        }
+        return inRange;
+    }
+
+    // Removes the earliest remaining entry equal to pk, as List.remove would
+    public void remove(Pokemon pk) {
+        int earliest = -1;
+        for (int position = 0; position < pool.size() && earliest < 0; position++) {
+            if (!removed[position] && pool.get(position).equals(pk)) {
+                earliest = position;
+            }
+        }
+        if (earliest >= 0) {
+            removed[earliest] = true;
+        }
+    }
+
+    // the first sorted index whose power level is at least powerLevel
+    private int firstAtLeast(int powerLevel) {
+        int low = 0, high = powerLevels.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (powerLevels[mid] < powerLevel) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // the first sorted index whose power level is above powerLevel
+    private int firstAbove(int powerLevel) {
+        return powerLevel == Integer.MAX_VALUE ? powerLevels.length : firstAtLeast(powerLevel + 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  RomDetector.java - works out which handler can load a ROM file from   --*/
+/*--                     a single read of its header.                       --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.io.File;
+
+/**
+ * Identifies ROM files for a fixed set of handler factories. The header signatures of every ROM
+ * the factories support go into one RomHeaderIndex, so a file is read once, only as far as the
+ * longest header, and looked up in one go however many factories there are. Factories are tried in
+ * the order given, as if each one's isLoadable were called in turn. Safe to share between threads.
+ */
+public class RomDetector {
+
+    public static final class Detection {
+        private final RomHandler.Factory factory;
+        private final Object romEntry;
+
+        private Detection(RomHandler.Factory factory, Object romEntry) {
+            this.factory = factory;
+            this.romEntry = romEntry;
+        }
+
+        public RomHandler.Factory getFactory() {
+            return factory;
+        }
+
+        // The handler's own description of the ROM, from its offsets ini
+        public Object getRomEntry() {
+            return romEntry;
+        }
+    }
+
+    private final RomHeaderIndex<Detection> index = new RomHeaderIndex<>();
+
+    public RomDetector(RomHandler.Factory... factories) {
+        for (RomHandler.Factory factory : factories) {
+            index.addAll(factory.romIndex(), romEntry -> new Detection(factory, romEntry));
+        }
+    }
+
+    // null if none of the factories can load filename
+    public Detection detect(String filename) {
+        long fileLength = new File(filename).length();
+        byte[] header = AbstractGBRomHandler.loadFilePartial(filename, index.headerLength());
+        if (header.length == 0) {
+            return null;
+        }
+        return index.lookup(header, detection -> detection.factory.isLoadableLength(fileLength));
+    }
+
+    // The factory that can load filename, or null
+    public RomHandler.Factory factoryFor(String filename) {
+        Detection detection = detect(filename);
+        return detection == null ? null : detection.factory;
+    }
+}
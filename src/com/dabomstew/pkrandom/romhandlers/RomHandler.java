@@ -29,23 +29,34 @@ import java.awt.image.BufferedImage;
 import java.io.PrintStream;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
 
 import com.dabomstew.pkrandom.MiscTweak;
+import com.dabomstew.pkrandom.RandomSource;
 import com.dabomstew.pkrandom.Settings;
 import com.dabomstew.pkrandom.pokemon.*;
 
 public interface RomHandler {
 
     abstract class Factory {
-        public RomHandler create(Random random) {
-            return create(random, null);
+        public RomHandler create(RandomSource randomSource) {
+            return create(randomSource, null);
         }
 
-        public abstract RomHandler create(Random random, PrintStream log);
+        public abstract RomHandler create(RandomSource randomSource, PrintStream log);
 
-        public abstract boolean isLoadable(String filename);
+        // Every ROM this factory's handlers support, keyed by header signature, in the order they are tried
+        public abstract RomHeaderIndex<?> romIndex();
+
+        // Whether a file this long can be loaded, once its header has matched one of romIndex
+        public boolean isLoadableLength(long fileLength) {
+            return true;
+        }
+
+        // Checking several factories this way reads the file once per factory; RomDetector reads it once
+        public boolean isLoadable(String filename) {
+            return new RomDetector(this).detect(filename) != null;
+        }
     }
 
     // =======================
@@ -56,6 +67,10 @@ public interface RomHandler {
 
     boolean saveRomFile(String filename, long seed);
 
+    // Writes a patch against the loaded ROM instead of the whole image, in the format named by
+    // getDefaultPatchExtension()
+    boolean saveRomPatch(String filename, long seed);
+
     // =============================================================
     // Methods relating to game updates for the 3DS and Switch games
     // =============================================================
@@ -252,6 +267,8 @@ public interface RomHandler {
 
     String getDefaultExtension();
 
+    String getDefaultPatchExtension();
+
     int internalStringLength(String string);
 
     void randomizeIntroPokemon();
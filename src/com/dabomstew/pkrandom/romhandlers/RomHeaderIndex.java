@@ -0,0 +1,148 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  RomHeaderIndex.java - finds what a ROM is from its header by hashing  --*/
+/*--                        the fields that tell ROMs apart.                --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Values keyed by header signatures, such as a game code, version and region byte. Signatures are
+ * grouped by which header bytes they look at, and each group is a hash table keyed by those bytes,
+ * so a lookup costs one probe per group however many signatures there are. When several signatures
+ * match, the one added first wins, just like a linear scan over them in the same order.
+ */
+public class RomHeaderIndex<T> {
+
+    // Header bytes a signature expects: value, starting at offset
+    public static final class Field {
+        private final int offset;
+        private final byte[] value;
+
+        private Field(int offset, byte[] value) {
+            this.offset = offset;
+            this.value = value;
+        }
+
+        public static Field ascii(int offset, String text) {
+            return new Field(offset, text.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        public static Field unsignedByte(int offset, int value) {
+            return new Field(offset, new byte[] { (byte) value });
+        }
+    }
+
+    // The signatures that look at the same bytes, keyed by what they expect there
+    private static class Shape {
+        private final int[] offsets, lengths;
+        private final int keyLength;
+        // in the order they were added
+        private final Map<ByteBuffer, List<Integer>> added = new HashMap<>();
+
+        Shape(int[] offsets, int[] lengths) {
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.keyLength = Arrays.stream(lengths).sum();
+        }
+
+        // The bytes of header this shape looks at, or null if header is too short for them
+        ByteBuffer key(byte[] header) {
+            byte[] key = new byte[keyLength];
+            int position = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                if (offsets[i] + lengths[i] > header.length) {
+                    return null;
+                }
+                System.arraycopy(header, offsets[i], key, position, lengths[i]);
+                position += lengths[i];
+            }
+            return ByteBuffer.wrap(key);
+        }
+    }
+
+    private final List<T> values = new ArrayList<>();
+    private final List<Field[]> signatures = new ArrayList<>();
+    private final Map<List<Integer>, Shape> shapes = new LinkedHashMap<>();
+    private int headerLength;
+
+    public void add(T value, Field... fields) {
+        Field[] sorted = fields.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(f -> f.offset));
+        int[] offsets = new int[sorted.length], lengths = new int[sorted.length];
+        List<Integer> layout = new ArrayList<>();
+        ByteBuffer key = ByteBuffer.allocate(Arrays.stream(sorted).mapToInt(f -> f.value.length).sum());
+        for (int i = 0; i < sorted.length; i++) {
+            offsets[i] = sorted[i].offset;
+            lengths[i] = sorted[i].value.length;
+            layout.add(offsets[i]);
+            layout.add(lengths[i]);
+            key.put(sorted[i].value);
+            headerLength = Math.max(headerLength, offsets[i] + lengths[i]);
+        }
+        key.flip();
+        Shape shape = shapes.computeIfAbsent(layout, l -> new Shape(offsets, lengths));
+        shape.added.computeIfAbsent(key, k -> new ArrayList<>()).add(values.size());
+        values.add(value);
+        signatures.add(sorted);
+    }
+
+    // Adds every signature of other, in its order, with its value mapped to one of this index
+    public <S> void addAll(RomHeaderIndex<S> other, Function<? super S, ? extends T> mapping) {
+        for (int i = 0; i < other.values.size(); i++) {
+            add(mapping.apply(other.values.get(i)), other.signatures.get(i));
+        }
+    }
+
+    // The value of the first signature header matches, or null if none does
+    public T lookup(byte[] header) {
+        return lookup(header, value -> true);
+    }
+
+    // The value of the first signature header matches whose value is accepted, or null if there is none
+    public T lookup(byte[] header, Predicate<? super T> accept) {
+        List<Integer> matches = new ArrayList<>();
+        for (Shape shape : shapes.values()) {
+            ByteBuffer key = shape.key(header);
+            if (key != null) {
+                matches.addAll(shape.added.getOrDefault(key, Collections.emptyList()));
+            }
+        }
+        Collections.sort(matches);
+        for (int index : matches) {
+            if (accept.test(values.get(index))) {
+                return values.get(index);
+            }
+        }
+        return null;
+    }
+
+    // How much of the start of a ROM lookup needs to see
+    public int headerLength() {
+        return headerLength;
+    }
+}
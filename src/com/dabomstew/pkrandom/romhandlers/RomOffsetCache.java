@@ -0,0 +1,236 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  RomOffsetCache.java - remembers, on disk, the offsets a handler had   --*/
+/*--                        to search a ROM for, so that loading the same   --*/
+/*--                        ROM again doesn't have to search it.            --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * The cache file of one ROM image, named after its length and CRC32. An entry holds the offsets a
+ * handler found by searching and the values it derived from them; since those depend on nothing
+ * but the ROM's bytes, a later load of the same image can take them instead of searching again.
+ * <p>
+ * A file that can't be read, was written by a different version or doesn't match the image is
+ * treated as missing, and failing to write one is ignored: the cache only ever saves time. Handlers
+ * should still check whatever they restore against the image before relying on it.
+ */
+public class RomOffsetCache {
+
+    private static final int magic = 0x5550524F;
+    // bump whenever the file layout or what handlers store in it changes
+    private static final int version = 1;
+
+    // per user, so that nobody else can put files where this user's loads will read them
+    private static volatile File directory = new File(System.getProperty("user.home"), ".upr-zx/offsets");
+
+    // Where cache files are kept; null turns the cache off
+    public static void setDirectory(File directory) {
+        RomOffsetCache.directory = directory;
+    }
+
+    public static File getDirectory() {
+        return directory;
+    }
+
+    public static class Entry {
+        private final Map<String, Integer> entries = new LinkedHashMap<>();
+        private final Map<String, int[]> arrayEntries = new LinkedHashMap<>();
+        private final Map<ByteBuffer, int[]> occurrences = new LinkedHashMap<>();
+
+        public Map<String, Integer> entries() {
+            return entries;
+        }
+
+        public Map<String, int[]> arrayEntries() {
+            return arrayEntries;
+        }
+
+        // Every offset needle was found at, as CopyOnWriteRom.indexedOccurrences gives them
+        public void putOccurrences(byte[] needle, int[] offsets) {
+            occurrences.put(ByteBuffer.wrap(needle.clone()), offsets.clone());
+        }
+
+        // null if the entry doesn't have them
+        public int[] occurrences(byte[] needle) {
+            int[] offsets = occurrences.get(ByteBuffer.wrap(needle));
+            return offsets == null ? null : offsets.clone();
+        }
+
+        public boolean hasOccurrences(List<byte[]> needles) {
+            for (byte[] needle : needles) {
+                if (!occurrences.containsKey(ByteBuffer.wrap(needle))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Cheap proof that the entry belongs to image: every stored occurrence is really there
+        private boolean matches(ByteBuffer image) {
+            for (Map.Entry<ByteBuffer, int[]> needle : occurrences.entrySet()) {
+                ByteBuffer expected = needle.getKey();
+                for (int offset : needle.getValue()) {
+                    if (offset < 0 || offset > image.limit() - expected.remaining()) {
+                        return false;
+                    }
+                    for (int i = 0; i < expected.remaining(); i++) {
+                        if (image.get(offset + i) != expected.get(i)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private final ByteBuffer image;
+    private final int crc;
+
+    // Checksums image once; load and store can then be called any number of times
+    public RomOffsetCache(ByteBuffer image) {
+        this.image = image;
+        CRC32 checksum = new CRC32();
+        ByteBuffer whole = image.duplicate();
+        whole.clear();
+        checksum.update(whole);
+        this.crc = (int) checksum.getValue();
+    }
+
+    public int getCRC32() {
+        return crc;
+    }
+
+    // The stored entry for this image, or null if there is none it can use
+    public Entry load() {
+        File file = file();
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != magic || in.readInt() != version || in.readInt() != image.limit()
+                    || in.readInt() != crc) {
+                return null;
+            }
+            Entry entry = new Entry();
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                entry.entries.put(in.readUTF(), in.readInt());
+            }
+            int arrayCount = in.readInt();
+            for (int i = 0; i < arrayCount; i++) {
+                entry.arrayEntries.put(in.readUTF(), readInts(in, image.limit()));
+            }
+            int needleCount = in.readInt();
+            for (int i = 0; i < needleCount; i++) {
+                byte[] needle = new byte[checkedLength(in.readInt(), image.limit())];
+                in.readFully(needle);
+                entry.occurrences.put(ByteBuffer.wrap(needle), readInts(in, image.limit()));
+            }
+            return entry.matches(image) ? entry : null;
+        } catch (IOException | RuntimeException ex) {
+            // unreadable or cut short: as good as missing
+            return null;
+        }
+    }
+
+    public void store(Entry entry) {
+        File file = file();
+        if (file == null) {
+            return;
+        }
+        File temp = null;
+        try {
+            file.getParentFile().mkdirs();
+            // written aside and moved into place, so that concurrent loads never see half a file
+            temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(magic);
+                out.writeInt(version);
+                out.writeInt(image.limit());
+                out.writeInt(crc);
+                out.writeInt(entry.entries.size());
+                for (Map.Entry<String, Integer> value : entry.entries.entrySet()) {
+                    out.writeUTF(value.getKey());
+                    out.writeInt(value.getValue());
+                }
+                out.writeInt(entry.arrayEntries.size());
+                for (Map.Entry<String, int[]> values : entry.arrayEntries.entrySet()) {
+                    out.writeUTF(values.getKey());
+                    writeInts(out, values.getValue());
+                }
+                out.writeInt(entry.occurrences.size());
+                for (Map.Entry<ByteBuffer, int[]> needle : entry.occurrences.entrySet()) {
+                    ByteBuffer bytes = needle.getKey().duplicate();
+                    out.writeInt(bytes.remaining());
+                    while (bytes.hasRemaining()) {
+                        out.writeByte(bytes.get());
+                    }
+                    writeInts(out, needle.getValue());
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            // the next load will just search again
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    private File file() {
+        File dir = directory;
+        return dir == null ? null : new File(dir, String.format("%08x-%x.offsets", crc, image.limit()));
+    }
+
+    // Nothing stored can have more elements than the image has bytes, so a larger count is garbage
+    private static int checkedLength(int length, int limit) throws IOException {
+        if (length < 0 || length > limit) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+
+    private static int[] readInts(DataInputStream in, int limit) throws IOException {
+        int[] values = new int[checkedLength(in.readInt(), limit)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  RomSnapshot.java - a base ROM that is loaded and parsed once, then    --*/
+/*--                     forked into a fresh handler for every seed.        --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import com.dabomstew.pkrandom.RandomSource;
+
+/**
+ * Holds a handler that has loaded a base ROM but is never randomized itself. Each call to fork
+ * returns a new handler in the same state as a fresh loadRom, at the cost of copying the Pokemon
+ * data instead of reading and parsing the file again; the ROM image itself is copy-on-write and
+ * shares every page the fork doesn't write to. Forking is thread-safe.
+ */
+public class RomSnapshot {
+
+    private final RomHandler.Factory factory;
+    private final AbstractGBRomHandler template;
+
+    private RomSnapshot(RomHandler.Factory factory, AbstractGBRomHandler template) {
+        this.factory = factory;
+        this.template = template;
+    }
+
+    public static RomSnapshot load(RomHandler.Factory factory, String filename) {
+        RomHandler handler = factory.create(new RandomSource());
+        if (!(handler instanceof AbstractGBRomHandler)) {
+            throw new UnsupportedOperationException("Snapshots are not supported for " + handler.getClass().getSimpleName());
+        }
+        handler.loadRom(filename);
+        return new RomSnapshot(factory, (AbstractGBRomHandler) handler);
+    }
+
+    public RomHandler fork(RandomSource randomSource) {
+        AbstractGBRomHandler handler = (AbstractGBRomHandler) factory.create(randomSource);
+        handler.forkFrom(template);
+        return handler;
+    }
+
+    public String getDefaultExtension() {
+        return template.getDefaultExtension();
+    }
+}
@@ -0,0 +1,139 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  TextEncoder.java - turns text into a game's character codes with a    --*/
+/*--                     longest-match walk over a trie of its text table.  --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The tokens of a text table, such as "A" or "[PK]", compiled into a trie so that text is encoded
+ * by walking it one character at a time and taking the longest token that matches, the way the
+ * handlers used to by looking up every shorter and shorter prefix in a map. Immutable once built.
+ */
+public final class TextEncoder {
+
+    // node n's children are edgeChars/edgeTargets[firstEdge[n] .. firstEdge[n + 1]), sorted by char
+    private final int[] firstEdge;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    // the code of the token that ends at a node, or -1 if none does
+    private final int[] codes;
+
+    // Compiles tokens, which maps each token to the code it is written as
+    public TextEncoder(Map<String, Byte> tokens) {
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> nodeCodes = new ArrayList<>();
+        children.add(new TreeMap<>());
+        nodeCodes.add(-1);
+        for (Map.Entry<String, Byte> token : tokens.entrySet()) {
+            String text = token.getKey();
+            if (text.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < text.length(); i++) {
+                Integer child = children.get(node).get(text.charAt(i));
+                if (child == null) {
+                    child = children.size();
+                    children.get(node).put(text.charAt(i), child);
+                    children.add(new TreeMap<>());
+                    nodeCodes.add(-1);
+                }
+                node = child;
+            }
+            nodeCodes.set(node, token.getValue() & 0xFF);
+        }
+
+        int nodeCount = children.size();
+        firstEdge = new int[nodeCount + 1];
+        edgeChars = new char[nodeCount - 1];
+        edgeTargets = new int[nodeCount - 1];
+        codes = new int[nodeCount];
+        int edge = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            firstEdge[node] = edge;
+            for (Map.Entry<Character, Integer> child : children.get(node).entrySet()) {
+                edgeChars[edge] = child.getKey();
+                edgeTargets[edge] = child.getValue();
+                edge++;
+            }
+            codes[node] = nodeCodes.get(node);
+        }
+        firstEdge[nodeCount] = edge;
+    }
+
+    public byte[] encode(String text) {
+        // every token is at least one character long, so there are never more codes than characters
+        byte[] encoded = new byte[text.length()];
+        int length = 0;
+        for (int position = 0; position < text.length(); length++) {
+            position += encodeToken(text, position, encoded, length);
+        }
+        return length == encoded.length ? encoded : Arrays.copyOf(encoded, length);
+    }
+
+    /**
+     * Writes the code of the longest token text has at position to out[outPosition] and returns how
+     * many characters it took up.
+     */
+    public int encodeToken(String text, int position, byte[] out, int outPosition) {
+        int node = 0, matchedCode = -1, matchedLength = 0;
+        for (int i = position; i < text.length(); i++) {
+            node = child(node, text.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (codes[node] >= 0) {
+                matchedCode = codes[node];
+                matchedLength = i - position + 1;
+            }
+        }
+        if (matchedCode < 0) {
+            throw new IllegalArgumentException("No character code for \"" + text.substring(position)
+                    + "\" in \"" + text + "\"");
+        }
+        out[outPosition] = (byte) matchedCode;
+        return matchedLength;
+    }
+
+    // -1 if node has no child for c
+    private int child(int node, char c) {
+        int low = firstEdge[node], high = firstEdge[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (edgeChars[mid] < c) {
+                low = mid + 1;
+            } else if (edgeChars[mid] > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,98 @@
+package com.dabomstew.pkrandom.romhandlers;
+
+/*----------------------------------------------------------------------------*/
+/*--  TextTable.java - a game's character table, read from its .tbl files   --*/
+/*--                   once per process and shared by every handler.        --*/
+/*--                                                                        --*/
+/*--  Part of "Universal Pokemon Randomizer ZX" by the UPR-ZX team          --*/
+/*--  Pokemon and any associated names and the like are                     --*/
+/*--  trademark and (C) Nintendo 1996-2020.                                 --*/
+/*--                                                                        --*/
+/*--  The custom code written here is licensed under the terms of the GPL:  --*/
+/*--                                                                        --*/
+/*--  This program is free software: you can redistribute it and/or modify  --*/
+/*--  it under the terms of the GNU General Public License as published by  --*/
+/*--  the Free Software Foundation, either version 3 of the License, or     --*/
+/*--  (at your option) any later version.                                   --*/
+/*--                                                                        --*/
+/*--  This program is distributed in the hope that it will be useful,       --*/
+/*--  but WITHOUT ANY WARRANTY; without even the implied warranty of        --*/
+/*--  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the          --*/
+/*--  GNU General Public License for more details.                          --*/
+/*--                                                                        --*/
+/*--  You should have received a copy of the GNU General Public License     --*/
+/*--  along with this program. If not, see <http://www.gnu.org/licenses/>.  --*/
+/*----------------------------------------------------------------------------*/
+
+import com.dabomstew.pkrandom.FileFunctions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What each byte of a game's text stands for, in both directions. A table is made of one or more
+ * .tbl files laid over each other in order, where a later file replaces the codes it redefines.
+ * Tables are immutable and kept for the life of the process, keyed by their files in order, so
+ * every handler loading the same kind of ROM shares one instead of reading the files again.
+ */
+public final class TextTable {
+
+    private static final Map<List<String>, TextTable> loaded = new ConcurrentHashMap<>();
+
+    // the text each code stands for, or null for codes no file defines
+    private final String[] decoded = new String[256];
+    private final TextEncoder encoder;
+
+    private TextTable(List<String> names) {
+        Map<String, Byte> encoded = new HashMap<>();
+        for (String name : names) {
+            try (InputStream in = FileFunctions.openConfig(name + ".tbl")) {
+                if (in == null) {
+                    throw new IOException("Config file not found: " + name + ".tbl");
+                }
+                read(in, encoded);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        encoder = new TextEncoder(encoded);
+    }
+
+    private void read(InputStream in, Map<String, Byte> encoded) {
+        Scanner sc = new Scanner(in, "UTF-8");
+        while (sc.hasNextLine()) {
+            String q = sc.nextLine();
+            if (!q.trim().isEmpty()) {
+                String[] r = q.split("=", 2);
+                int hexcode = Integer.parseInt(r[0], 16);
+                if (decoded[hexcode] != null) {
+                    String oldMatch = decoded[hexcode];
+                    decoded[hexcode] = null;
+                    Byte oldCode = encoded.get(oldMatch);
+                    if (oldCode != null && oldCode == hexcode) {
+                        encoded.remove(oldMatch);
+                    }
+                }
+                decoded[hexcode] = r[1];
+                encoded.put(r[1], (byte) hexcode);
+            }
+        }
+        sc.close();
+    }
+
+    // The table made of the named .tbl files from the config folder, laid over each other in order
+    public static TextTable load(String... names) {
+        return loaded.computeIfAbsent(Collections.unmodifiableList(Arrays.asList(names.clone())), TextTable::new);
+    }
+
+    // The text code stands for, or null if it stands for nothing
+    public String decode(int code) {
+        return decoded[code & 0xFF];
+    }
+
+    public TextEncoder encoder() {
+        return encoder;
+    }
+}